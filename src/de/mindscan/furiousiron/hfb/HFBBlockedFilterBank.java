@@ -0,0 +1,270 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Collection;
+
+/**
+ * A blocked hfb filter bank keeps all of its filter data in blocks of 512 bits, which is the 
+ * size of a typical cache line. 
+ * 
+ * The topmost slice of the document id selects the block, and the following slices of 9 bits 
+ * each, select a bit inside this block. Every probe for a document id lands in the same block,
+ * so a lookup costs only one cache miss, instead of one cache miss per filter. The price is a 
+ * somewhat higher false positive rate for the same amount of memory, because the bits inside
+ * a block are not independent of each other.
+ * 
+ * Java doesn't guarantee, that the data array is aligned to a cache line, so a block may still
+ * span two cache lines.
+ */
+public class HFBBlockedFilterBank extends HFBFilterBank {
+
+    // 512 bits per block are addressed by 9 bits
+    public static final int BLOCK_ADDRESS_BITS = 9;
+    // 512 bits are 8 longs
+    public static final int BLOCK_WORD_SHIFT = 3;
+    public static final long BLOCK_ADDRESS_MASK = (1L << BLOCK_ADDRESS_BITS) - 1L;
+    // 512 bits are 64 bytes
+    public static final int BLOCK_BYTE_SHIFT = 6;
+
+    // set it to 16 (sixteen) bits per document
+    public static final int DEFAULT_BITS_PER_DOCUMENT = 16;
+
+    private int blockSlicePosition;
+    private int blockSliceBitSize;
+    private long blockSliceBitMask;
+    private int[] probeSlicePositions = new int[0];
+
+    private long[] blockData = new long[0];
+
+    /**
+     * 
+     */
+    public HFBBlockedFilterBank() {
+    }
+
+    /**
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount number of documents for a particular value
+     * @param bitsPerDocument set it to 16 (sixteen)
+     */
+    public void initBlocks( int bitsInDocumentId, long occurenceCount, int bitsPerDocument ) {
+        // the number of bits must be a power of two and at least one block
+        long numberOfBits = Math.max( Long.highestOneBit( occurenceCount * bitsPerDocument ) << 1, 1L << BLOCK_ADDRESS_BITS );
+        int blockSliceBitSize = Long.numberOfTrailingZeros( numberOfBits ) - BLOCK_ADDRESS_BITS;
+
+        // ln(2) * bits per document is the optimal number of probes, but we are limited by the size of the document id
+        int optimalNumberOfProbes = (int) Math.round( Math.log( 2 ) * numberOfBits / Math.max( occurenceCount, 1 ) );
+        int numberOfProbes = Math.max( 1, Math.min( optimalNumberOfProbes, (bitsInDocumentId - blockSliceBitSize) / BLOCK_ADDRESS_BITS ) );
+
+        initBlocksLazy( bitsInDocumentId, occurenceCount, bitsPerDocument, blockSliceBitSize, numberOfProbes );
+        setBlockData( new long[1 << (blockSliceBitSize + BLOCK_WORD_SHIFT)] );
+    }
+
+    /**
+     * Initializes the geometry of the blocked filter bank, without allocating the block data.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount number of documents for a particular value
+     * @param bitsPerDocument the number of bits per document
+     * @param blockSliceBitSize number of bits selecting the block
+     * @param numberOfProbes number of bits tested inside a block
+     */
+    public void initBlocksLazy( int bitsInDocumentId, long occurenceCount, int bitsPerDocument, int blockSliceBitSize, int numberOfProbes ) {
+        initBlocksLazy( bitsInDocumentId, occurenceCount, bitsPerDocument, bitsInDocumentId - blockSliceBitSize, blockSliceBitSize, numberOfProbes );
+    }
+
+    /**
+     * Initializes the geometry of a folded blocked filter bank, without allocating the block 
+     * data. A folded blocked filter bank keeps the slice positions of the unfolded one, but 
+     * selects the block by the lower bits of the block slice only.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount number of documents for a particular value
+     * @param bitsPerDocument the number of bits per document
+     * @param blockSlicePosition position of the slice selecting the block
+     * @param blockSliceBitSize number of bits selecting the block
+     * @param numberOfProbes number of bits tested inside a block
+     */
+    public void initBlocksLazy( int bitsInDocumentId, long occurenceCount, int bitsPerDocument, int blockSlicePosition, int blockSliceBitSize,
+                    int numberOfProbes ) {
+        initFiltersLazy( bitsInDocumentId, occurenceCount, bitsPerDocument );
+
+        this.blockSliceBitSize = blockSliceBitSize;
+        this.blockSliceBitMask = (1L << blockSliceBitSize) - 1L;
+        this.blockSlicePosition = blockSlicePosition;
+
+        this.probeSlicePositions = new int[numberOfProbes];
+        for (int probe = 0; probe < numberOfProbes; probe++) {
+            probeSlicePositions[probe] = blockSlicePosition - (probe + 1) * BLOCK_ADDRESS_BITS;
+        }
+    }
+
+    public void setBlockData( long[] blockData ) {
+        this.blockData = blockData;
+    }
+
+    public long[] getBlockData() {
+        return blockData;
+    }
+
+    public int getBlockSlicePosition() {
+        return blockSlicePosition;
+    }
+
+    public int getBlockSliceBitSize() {
+        return blockSliceBitSize;
+    }
+
+    public int getNumberOfProbes() {
+        return probeSlicePositions.length;
+    }
+
+    public int getProbeSlicePosition( int probe ) {
+        return probeSlicePositions[probe];
+    }
+
+    @Override
+    public void addDocumentId( BigInteger documentId ) {
+        addDocumentId( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+
+    @Override
+    public void addDocumentIds( Collection<BigInteger> documentIds ) {
+        for (BigInteger documentId : documentIds) {
+            addDocumentId( documentId );
+        }
+    }
+
+    @Override
+    public void addDocumentId( long documentIdHi, long documentIdLo ) {
+        int blockOffset = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, blockSlicePosition, blockSliceBitMask ) << BLOCK_WORD_SHIFT;
+
+        for (int probe = 0; probe < probeSlicePositions.length; probe++) {
+            int bit = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, probeSlicePositions[probe], BLOCK_ADDRESS_MASK );
+            blockData[blockOffset + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    @Override
+    public boolean containsDocumentId( BigInteger documentId ) {
+        return containsDocumentId( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+
+    @Override
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        int blockOffset = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, blockSlicePosition, blockSliceBitMask ) << BLOCK_WORD_SHIFT;
+
+        for (int probe = 0; probe < probeSlicePositions.length; probe++) {
+            int bit = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, probeSlicePositions[probe], BLOCK_ADDRESS_MASK );
+            if ((blockData[blockOffset + (bit >>> 6)] & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * All probes of a document id already hit the same block, there is nothing to interleave.
+     */
+    @Override
+    public long[] filterDocumentIdsBatched( long[] candidateIds, int groupSize ) {
+        checkGroupSize( groupSize );
+        return filterDocumentIds( candidateIds );
+    }
+
+    /**
+     * @return the number of set bits in the block data
+     */
+    public long getBitweight() {
+        long bitweight = 0;
+        for (int i = 0; i < blockData.length; i++) {
+            bitweight += Long.bitCount( blockData[i] );
+        }
+        return bitweight;
+    }
+
+    /**
+     * Folds the block index by the given number of bits, the blocks with the same lower bits of
+     * the block index are or-ed into one block. The probes inside a block are not changed, so
+     * the folded filter bank needs 2^m times less memory, but it never rejects a document id, 
+     * which this filter bank may contain.
+     * 
+     * @param numberOfFoldedBits the number of bits, the block slice is shrunk by
+     * @return the folded blocked filter bank, this filter bank is not changed
+     */
+    @Override
+    public HFBFilterBank fold( int numberOfFoldedBits ) {
+        if (numberOfFoldedBits < 0 || numberOfFoldedBits > blockSliceBitSize) {
+            throw new IllegalArgumentException( "Can't fold a block slice of " + blockSliceBitSize + " bits by " + numberOfFoldedBits + " bits." );
+        }
+
+        int foldedBlockSliceBitSize = blockSliceBitSize - numberOfFoldedBits;
+
+        HFBBlockedFilterBank result = new HFBBlockedFilterBank();
+        result.initBlocksLazy( getBitsInDocumentId(), getOccurrenceCount(), getLoadFactor(), blockSlicePosition, foldedBlockSliceBitSize,
+                        probeSlicePositions.length );
+
+        // the lower bits of the word index keep the word in the block, so whole words can be or-ed
+        long[] folded = new long[1 << (foldedBlockSliceBitSize + BLOCK_WORD_SHIFT)];
+        int wordAddressMask = folded.length - 1;
+        for (int i = 0; i < blockData.length; i++) {
+            folded[i & wordAddressMask] |= blockData[i];
+        }
+        result.setBlockData( folded );
+
+        return result;
+    }
+
+    /**
+     * Folds the block index, until the block data fits into the given number of bytes. At least
+     * one block is kept, a blocked filter bank, which is already small enough, is copied unchanged.
+     * 
+     * @param maximumBytesPerFilter the maximum size of the block data
+     * @return the folded blocked filter bank, this filter bank is not changed
+     */
+    @Override
+    public HFBFilterBank foldToSize( int maximumBytesPerFilter ) {
+        if (maximumBytesPerFilter < 1) {
+            throw new IllegalArgumentException( "maximumBytesPerFilter must be at least one." );
+        }
+
+        // largest block slice, whose block data fits into the given number of bytes
+        int maximumBlockSliceBitSize = Math.max( 0, (31 - Integer.numberOfLeadingZeros( maximumBytesPerFilter )) - BLOCK_BYTE_SHIFT );
+
+        return fold( blockSliceBitSize - Math.min( blockSliceBitSize, maximumBlockSliceBitSize ) );
+    }
+
+    /**
+     * The block data is already one contiguous array, the frozen filter bank keeps a copy of it.
+     */
+    @Override
+    public HFBFrozenFilterBank freeze() {
+        return new HFBFrozenFilterBank( this );
+    }
+}
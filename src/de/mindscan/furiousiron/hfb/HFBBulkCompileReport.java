@@ -0,0 +1,83 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+/**
+ * Throughput of a bulk compilation of filter banks.
+ */
+public class HFBBulkCompileReport {
+
+    private final long numberOfFilterBanks;
+    private final long numberOfDocumentIds;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+
+    public HFBBulkCompileReport( long numberOfFilterBanks, long numberOfDocumentIds, long bytesWritten, long elapsedNanos ) {
+        this.numberOfFilterBanks = numberOfFilterBanks;
+        this.numberOfDocumentIds = numberOfDocumentIds;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getNumberOfFilterBanks() {
+        return numberOfFilterBanks;
+    }
+
+    public long getNumberOfDocumentIds() {
+        return numberOfDocumentIds;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getFilterBanksPerSecond() {
+        return perSecond( numberOfFilterBanks );
+    }
+
+    public double getDocumentIdsPerSecond() {
+        return perSecond( numberOfDocumentIds );
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond( bytesWritten );
+    }
+
+    private double perSecond( long value ) {
+        return elapsedNanos == 0 ? 0.0d : value * 1_000_000_000.0d / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "%d filter banks, %d document ids, %d bytes in %.3f s (%.1f banks/s, %.1f ids/s, %.1f MB/s)", numberOfFilterBanks,
+                        numberOfDocumentIds, bytesWritten, elapsedNanos / 1_000_000_000.0d, getFilterBanksPerSecond(), getDocumentIdsPerSecond(),
+                        getBytesPerSecond() / (1024.0d * 1024.0d) );
+    }
+}
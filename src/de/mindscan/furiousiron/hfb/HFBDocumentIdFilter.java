@@ -0,0 +1,61 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+
+/**
+ * The read-only side of a filter bank, which is shared by the classic, the frozen and the 
+ * static xor filter banks. It only answers, whether a document id may be contained.
+ */
+public interface HFBDocumentIdFilter {
+
+    /**
+     * @param documentId the document id
+     * @return false, if the document id is definitely not contained, true if it may be contained.
+     */
+    boolean containsDocumentId( BigInteger documentId );
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return false, if the document id is definitely not contained, true if it may be contained.
+     */
+    boolean containsDocumentId( long documentIdHi, long documentIdLo );
+
+    /**
+     * Filters the candidate document ids and returns the document ids, which may be contained,
+     * in the same order.
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs
+     */
+    long[] filterDocumentIds( long[] candidateIds );
+
+    int getBitsInDocumentId();
+
+    long getOccurrenceCount();
+}
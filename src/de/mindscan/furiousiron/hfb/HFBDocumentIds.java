@@ -0,0 +1,200 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Conversions for 128 bit document ids, which are kept in primitive long arrays. Each document
+ * id occupies two consecutive longs, the upper 64 bits first, followed by the lower 64 bits.
+ *
+ * This layout avoids one BigInteger instance per document id, when large lists of candidate
+ * document ids are filtered.
+ */
+public class HFBDocumentIds {
+
+    public static final int LONGS_PER_DOCUMENT_ID = 2;
+
+    private HFBDocumentIds() {
+    }
+
+    public static int count( long[] documentIds ) {
+        return documentIds.length >> 1;
+    }
+
+    public static long hi( long[] documentIds, int index ) {
+        return documentIds[index << 1];
+    }
+
+    public static long lo( long[] documentIds, int index ) {
+        return documentIds[(index << 1) + 1];
+    }
+
+    /**
+     * Extracts a slice from a 128 bit document id, which is given as two 64 bit halves. The 
+     * slice may span both halves.
+     * 
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @param slicePosition the start position of the slice
+     * @param sliceBitMask the mask for the slice
+     * @return the extracted slice value
+     */
+    public static int extractSlice( long documentIdHi, long documentIdLo, int slicePosition, long sliceBitMask ) {
+        if (slicePosition >= 64) {
+            return (int) ((documentIdHi >>> (slicePosition - 64)) & sliceBitMask);
+        }
+        if (slicePosition == 0) {
+            return (int) (documentIdLo & sliceBitMask);
+        }
+        return (int) (((documentIdLo >>> slicePosition) | (documentIdHi << (64 - slicePosition))) & sliceBitMask);
+    }
+
+    /**
+     * @param raw document id as 16 bytes in big endian byte order
+     * @param offset offset of the document id in the array
+     * @return the upper 64 bits of the document id
+     */
+    public static long hiFromRaw( byte[] raw, int offset ) {
+        return longFromRaw( raw, offset );
+    }
+
+    /**
+     * @param raw document id as 16 bytes in big endian byte order
+     * @param offset offset of the document id in the array
+     * @return the lower 64 bits of the document id
+     */
+    public static long loFromRaw( byte[] raw, int offset ) {
+        return longFromRaw( raw, offset + 8 );
+    }
+
+    private static long longFromRaw( byte[] raw, int offset ) {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | (raw[offset + i] & 0xff);
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the document ids by their upper and then by their lower 64 bits, both compared as
+     * signed values, and removes the duplicates.
+     * 
+     * @param documentIds the document ids as pairs of longs
+     * @return a new array with the sorted distinct document ids as pairs of longs
+     */
+    public static long[] distinct( long[] documentIds ) {
+        long[] sorted = documentIds.clone();
+        mergeSort( sorted, new long[sorted.length], 0, count( sorted ) );
+
+        int length = 0;
+        for (int i = 0; i < sorted.length; i += 2) {
+            if (length == 0 || sorted[i] != sorted[length - 2] || sorted[i + 1] != sorted[length - 1]) {
+                sorted[length++] = sorted[i];
+                sorted[length++] = sorted[i + 1];
+            }
+        }
+
+        return Arrays.copyOf( sorted, length );
+    }
+
+    private static void mergeSort( long[] documentIds, long[] buffer, int fromIndex, int toIndex ) {
+        if (toIndex - fromIndex < 2) {
+            return;
+        }
+
+        int middle = (fromIndex + toIndex) >>> 1;
+        mergeSort( documentIds, buffer, fromIndex, middle );
+        mergeSort( documentIds, buffer, middle, toIndex );
+
+        int left = fromIndex << 1;
+        int right = middle << 1;
+        int target = fromIndex << 1;
+        while (left < (middle << 1) && right < (toIndex << 1)) {
+            boolean rightFirst = documentIds[right] < documentIds[left]
+                            || (documentIds[right] == documentIds[left] && documentIds[right + 1] < documentIds[left + 1]);
+            int source = rightFirst ? right : left;
+            buffer[target++] = documentIds[source];
+            buffer[target++] = documentIds[source + 1];
+            if (rightFirst) {
+                right += 2;
+            }
+            else {
+                left += 2;
+            }
+        }
+        System.arraycopy( documentIds, left, buffer, target, (middle << 1) - left );
+        target += (middle << 1) - left;
+        System.arraycopy( documentIds, right, buffer, target, (toIndex << 1) - right );
+        System.arraycopy( buffer, fromIndex << 1, documentIds, fromIndex << 1, (toIndex - fromIndex) << 1 );
+    }
+
+    public static long[] fromBigIntegers( Collection<BigInteger> documentIds ) {
+        long[] result = new long[documentIds.size() << 1];
+        int i = 0;
+        for (BigInteger documentId : documentIds) {
+            result[i++] = documentId.shiftRight( 64 ).longValue();
+            result[i++] = documentId.longValue();
+        }
+        return result;
+    }
+
+    /**
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @return the document ids as pairs of longs
+     */
+    public static long[] fromHex( Collection<String> documentIds ) {
+        long[] result = new long[documentIds.size() << 1];
+        int i = 0;
+        for (String documentIdStr : documentIds) {
+            BigInteger documentId = new BigInteger( documentIdStr, 16 );
+            result[i++] = documentId.shiftRight( 64 ).longValue();
+            result[i++] = documentId.longValue();
+        }
+        return result;
+    }
+
+    /**
+     * The document id is returned as a signed 128 bit value, the bits are the same as the bits
+     * of the original document id.
+     *
+     * @param documentIds the document ids as pairs of longs
+     * @param index the index of the document id
+     * @return the document id as a BigInteger
+     */
+    public static BigInteger toBigInteger( long[] documentIds, int index ) {
+        byte[] raw = new byte[16];
+        long hi = hi( documentIds, index );
+        long lo = lo( documentIds, index );
+        for (int i = 0; i < 8; i++) {
+            raw[i] = (byte) (hi >>> (56 - (i << 3)));
+            raw[i + 8] = (byte) (lo >>> (56 - (i << 3)));
+        }
+        return new BigInteger( raw );
+    }
+}
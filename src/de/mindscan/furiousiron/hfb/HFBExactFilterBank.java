@@ -0,0 +1,239 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An exact filter bank for small sets of document ids, e.g. the posting lists of rare 
+ * trigrams. Instead of filter data, the document ids themselves are kept in a sorted array of
+ * pairs of longs, see {@link HFBDocumentIds}. For a handful of document ids this is smaller 
+ * than the filter data, and it never reports false positives.
+ * 
+ * The document ids are ordered by their upper 64 bits and then by their lower 64 bits, both 
+ * compared as signed values. Lookups use a branch free binary search.
+ * 
+ * Adding a document id is linear in the number of document ids, this filter bank is meant 
+ * for small sets only.
+ */
+public class HFBExactFilterBank extends HFBFilterBank {
+
+    private long[] documentIds = new long[0];
+    private int numberOfDocumentIds;
+
+    /**
+     * 
+     */
+    public HFBExactFilterBank() {
+    }
+
+    /**
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param expectedNumberOfDocuments number of documents, which will be added
+     */
+    public void initExact( int bitsInDocumentId, long expectedNumberOfDocuments ) {
+        initFiltersLazy( bitsInDocumentId, 0, 0 );
+        this.documentIds = new long[(int) Math.max( expectedNumberOfDocuments, 0 ) << 1];
+        this.numberOfDocumentIds = 0;
+    }
+
+    /**
+     * @return the number of distinct document ids in this filter bank
+     */
+    @Override
+    public long getOccurrenceCount() {
+        return numberOfDocumentIds;
+    }
+
+    /**
+     * @return a copy of the sorted document ids as pairs of longs
+     */
+    public long[] getDocumentIds() {
+        return Arrays.copyOf( documentIds, numberOfDocumentIds << 1 );
+    }
+
+    /**
+     * @param sortedDocumentIds distinct document ids as pairs of longs, in the order of this filter bank
+     */
+    public void setDocumentIds( long[] sortedDocumentIds ) {
+        for (int i = 2; i < sortedDocumentIds.length; i += 2) {
+            if (!isBefore( sortedDocumentIds[i - 2], sortedDocumentIds[i - 1], sortedDocumentIds[i], sortedDocumentIds[i + 1] )) {
+                throw new IllegalArgumentException( "Document ids must be sorted and distinct." );
+            }
+        }
+        this.documentIds = sortedDocumentIds;
+        this.numberOfDocumentIds = HFBDocumentIds.count( sortedDocumentIds );
+    }
+
+    /**
+     * Adds every document id of this filter bank to the given filter bank, e.g. to turn an 
+     * exact filter bank, which grew too large, into a regular filter bank.
+     * 
+     * @param filterBank the filter bank to add the document ids to
+     */
+    public void copyDocumentIdsTo( HFBFilterBank filterBank ) {
+        for (int i = 0; i < numberOfDocumentIds; i++) {
+            filterBank.addDocumentId( documentIds[i << 1], documentIds[(i << 1) + 1] );
+        }
+    }
+
+    private static boolean isBefore( long hi, long lo, long otherHi, long otherLo ) {
+        return hi < otherHi || (hi == otherHi && lo < otherLo);
+    }
+
+    @Override
+    public void addDocumentId( BigInteger documentId ) {
+        addDocumentId( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+
+    @Override
+    public void addDocumentIds( Collection<BigInteger> documentIds ) {
+        for (BigInteger documentId : documentIds) {
+            addDocumentId( documentId );
+        }
+    }
+
+    @Override
+    public void addDocumentId( long documentIdHi, long documentIdLo ) {
+        int index = lowerBound( documentIdHi, documentIdLo );
+        if (index < numberOfDocumentIds && documentIds[index << 1] == documentIdHi && documentIds[(index << 1) + 1] == documentIdLo) {
+            return;
+        }
+
+        if ((numberOfDocumentIds << 1) == documentIds.length) {
+            documentIds = Arrays.copyOf( documentIds, Math.max( 2 * documentIds.length, 16 ) );
+        }
+
+        System.arraycopy( documentIds, index << 1, documentIds, (index + 1) << 1, (numberOfDocumentIds - index) << 1 );
+        documentIds[index << 1] = documentIdHi;
+        documentIds[(index << 1) + 1] = documentIdLo;
+        numberOfDocumentIds++;
+    }
+
+    /**
+     * @return the index of the first document id, which is not before the given document id
+     */
+    private int lowerBound( long documentIdHi, long documentIdLo ) {
+        int low = 0;
+        int high = numberOfDocumentIds;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isBefore( documentIds[mid << 1], documentIds[(mid << 1) + 1], documentIdHi, documentIdLo )) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public boolean containsDocumentId( BigInteger documentId ) {
+        return containsDocumentId( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+
+    @Override
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        return containsSorted( documentIds, numberOfDocumentIds, documentIdHi, documentIdLo );
+    }
+
+    /**
+     * Branch free binary search: the range is halved in every step, whatever the outcome of
+     * the comparison is, and the comparison only selects the new base. 
+     * 
+     * @param ids sorted distinct document ids as pairs of longs
+     * @param numberOfIds number of document ids to search
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return true, if and only if the document id is contained
+     */
+    static boolean containsSorted( long[] ids, int numberOfIds, long documentIdHi, long documentIdLo ) {
+        int n = numberOfIds;
+        if (n == 0) {
+            return false;
+        }
+
+        int base = 0;
+        while (n > 1) {
+            int half = n >>> 1;
+            int mid = (base + half) << 1;
+            long midHi = ids[mid];
+            boolean notAfter = (midHi < documentIdHi) | ((midHi == documentIdHi) & (ids[mid + 1] <= documentIdLo));
+            base = notAfter ? base + half : base;
+            n -= half;
+        }
+
+        return (ids[base << 1] == documentIdHi) & (ids[(base << 1) + 1] == documentIdLo);
+    }
+
+    /**
+     * There are no filters to interleave.
+     */
+    @Override
+    public long[] filterDocumentIdsBatched( long[] candidateIds, int groupSize ) {
+        checkGroupSize( groupSize );
+        return filterDocumentIds( candidateIds );
+    }
+
+    /**
+     * The document ids are already smaller than any folded filter data, so folding keeps them.
+     * 
+     * @return a copy of this exact filter bank
+     */
+    @Override
+    public HFBFilterBank fold( int numberOfFoldedBits ) {
+        return copy();
+    }
+
+    /**
+     * The document ids are already smaller than any folded filter data, so folding keeps them.
+     * 
+     * @return a copy of this exact filter bank
+     */
+    @Override
+    public HFBFilterBank foldToSize( int maximumBytesPerFilter ) {
+        return copy();
+    }
+
+    private HFBExactFilterBank copy() {
+        HFBExactFilterBank result = new HFBExactFilterBank();
+        result.initExact( getBitsInDocumentId(), 0 );
+        result.setDocumentIds( getDocumentIds() );
+        return result;
+    }
+
+    /**
+     * The frozen filter bank keeps a copy of the sorted document ids and answers exactly.
+     */
+    @Override
+    public HFBFrozenFilterBank freeze() {
+        return new HFBFrozenFilterBank( this );
+    }
+}
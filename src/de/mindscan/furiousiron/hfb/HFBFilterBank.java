@@ -1,168 +1,485 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2021 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb;
-
-import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
-/**
- * A filter bank is a collection of multiple filters, applied to a document id.
- * 
- * The cool thing about such a filter bank is, that it could already combine often
- * used search terms, instead of only tri-grams. We can build a hash of these and 
- * cache this particular filter bank. 
- * 
- * HFBFilter data can be combined using a binary AND-Operation if they have the 
- * same sliceSize and the same slicePosition.
- */
-public class HFBFilterBank {
-
-    private List<HFBFilterData> hfbfilters = new ArrayList<>();
-    private int bitsInDocumentId;
-    private long occurrenceCount;
-    private int loadFactor;
-
-    /**
-     * 
-     */
-    public HFBFilterBank() {
-    }
-
-    /**
-     * 
-     * @param bitsInDocumentId e.g. 128 for md5 hashsums
-     * @param occurenceCount number of documents for a particular value
-     * @param loadFactor set it to 5 (five)
-     */
-    public void initFilters( int bitsInDocumentId, long occurenceCount, int loadFactor ) {
-        initFiltersLazy( bitsInDocumentId, occurenceCount, loadFactor );
-
-        // we must actually do one bitshift to the left
-        long highestBitMasked = Long.highestOneBit( occurenceCount * loadFactor ) << 1;
-        int sliceSize = (int) Long.numberOfTrailingZeros( highestBitMasked );
-
-        for (int slicePosition = bitsInDocumentId - sliceSize; slicePosition >= 0; slicePosition -= sliceSize) {
-            HFBFilterData hfbdata = new HFBFilterData( slicePosition, sliceSize );
-            hfbdata.initEmpty();
-
-            addFilterData( hfbdata );
-        }
-    }
-
-    public void initFiltersLazy( int bitsInDocumentId, long occurenceCount, int loadFactor ) {
-        this.bitsInDocumentId = bitsInDocumentId;
-        this.occurrenceCount = occurenceCount;
-        this.loadFactor = loadFactor;
-    }
-
-    public void addFilterData( HFBFilterData hfbdata ) {
-        hfbfilters.add( hfbdata );
-    }
-
-    public int getNumberOfFilters() {
-        return hfbfilters.size();
-    }
-
-    public HFBFilterData getFilterData( int filterbankIndex ) {
-        if (filterbankIndex < 0 || filterbankIndex >= hfbfilters.size()) {
-            throw new IllegalArgumentException( "FilterbankIndex is invalid" );
-        }
-        return hfbfilters.get( filterbankIndex );
-    }
-
-    public void addDocumentId( BigInteger documentId ) {
-        // we use each HFBFilterdata and add it to each filter we currently know.
-        for (HFBFilterData filter : hfbfilters) {
-            // this may be useful to transfer to the filter itself, and set the
-            // index by using a BigInteger
-            BigInteger partId = documentId.shiftRight( filter.getSlicePosition() ).and( filter.getSliceBitMaskBI() );
-            filter.setIndex( partId.intValueExact() );
-        }
-    }
-
-    public void addDocumentIds( Collection<BigInteger> documentIds ) {
-        for (HFBFilterData filter : hfbfilters) {
-            int slicePosition = filter.getSlicePosition();
-            BigInteger sliceBitMaskBI = filter.getSliceBitMaskBI();
-
-            for (BigInteger documentId : documentIds) {
-                BigInteger partId = documentId.shiftRight( slicePosition ).and( sliceBitMaskBI );
-                filter.setIndex( partId.intValueExact() );
-            }
-        }
-    }
-
-    public boolean containsDocumentId( BigInteger documentId ) {
-        int i = 1;
-        for (HFBFilterData bankData : hfbfilters) {
-            BigInteger extractedHashValue = documentId.shiftRight( bankData.getSlicePosition() ).and( bankData.getSliceBitMaskBI() );
-
-            if (!bankData.isIndexSet( extractedHashValue.intValueExact() )) {
-                return false;
-            }
-
-            // Idea why to limit number of tests, even if more filter bank data is available
-
-            // now the trick, is how many of these filters we do want to apply?
-            // count the number of applied filters and return true, if we passed 3 max. 4 filters?
-            // with 80% dropout rate we get a maximum false positive error rate 
-            // * of 0,8 percent when 3 hfb filters are asked = 3 times O(1) lookup
-            // * of 0,16 percent when 4 hfb filters are asked = 4 times O(1) lookup
-            // if we use a smaller sparsity we have to increase the number of filters
-
-            // TODO check will be removed in future, always full filter will be applied
-            //      but filter can be saved sparsely on disk.
-            if (i >= 3) {
-                return true;
-            }
-            i++;
-        }
-        return true;
-    }
-
-    /**
-     * @return the bitsInDocumentId
-     */
-    public int getBitsInDocumentId() {
-        return bitsInDocumentId;
-    }
-
-    /**
-     * @return the occurrenceCount
-     */
-    public long getOccurrenceCount() {
-        return occurrenceCount;
-    }
-
-    /**
-     * @return the loadFactor
-     */
-    public int getLoadFactor() {
-        return loadFactor;
-    }
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2021 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import de.mindscan.furiousiron.hfb.jfr.HFBBatchLookupEvent;
+import de.mindscan.furiousiron.hfb.layout.HFBSliceLayout;
+
+/**
+ * A filter bank is a collection of multiple filters, applied to a document id.
+ * 
+ * The cool thing about such a filter bank is, that it could already combine often
+ * used search terms, instead of only tri-grams. We can build a hash of these and 
+ * cache this particular filter bank. 
+ * 
+ * HFBFilter data can be combined using a binary AND-Operation if they have the 
+ * same sliceSize and the same slicePosition.
+ */
+public class HFBFilterBank implements HFBDocumentIdFilter {
+
+    // number of filters, which are asked by containsDocumentId, if the slices are disjoint
+    public static final int NUMBER_OF_APPLIED_FILTERS = 3;
+
+    // number of document ids, which are probed together by the batched probe
+    public static final int DEFAULT_PROBE_GROUP_SIZE = 16;
+
+    protected List<HFBFilterData> hfbfilters = new ArrayList<>();
+    private int bitsInDocumentId;
+    private long occurrenceCount;
+    private int loadFactor;
+    private int numberOfAppliedFilters;
+
+    /**
+     * 
+     */
+    public HFBFilterBank() {
+    }
+
+    /**
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount number of documents for a particular value
+     * @param loadFactor set it to 5 (five)
+     */
+    public void initFilters( int bitsInDocumentId, long occurenceCount, int loadFactor ) {
+        initFilters( bitsInDocumentId, occurenceCount, loadFactor, HFBSliceLayout.CONTIGUOUS );
+    }
+
+    /**
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount number of documents for a particular value
+     * @param loadFactor set it to 5 (five)
+     * @param sliceLayout decides which slices of the document id are used by the filters
+     */
+    public void initFilters( int bitsInDocumentId, long occurenceCount, int loadFactor, HFBSliceLayout sliceLayout ) {
+        initFiltersLazy( bitsInDocumentId, occurenceCount, loadFactor );
+
+        // we must actually do one bitshift to the left
+        long highestBitMasked = Long.highestOneBit( occurenceCount * loadFactor ) << 1;
+        int sliceSize = (int) Long.numberOfTrailingZeros( highestBitMasked );
+
+        for (HFBFilterData hfbdata : sliceLayout.createFilters( bitsInDocumentId, sliceSize )) {
+            hfbdata.initEmpty();
+
+            addFilterData( hfbdata );
+        }
+    }
+
+    public void initFiltersLazy( int bitsInDocumentId, long occurenceCount, int loadFactor ) {
+        this.bitsInDocumentId = bitsInDocumentId;
+        this.occurrenceCount = occurenceCount;
+        this.loadFactor = loadFactor;
+    }
+
+    public void addFilterData( HFBFilterData hfbdata ) {
+        hfbfilters.add( hfbdata );
+        numberOfAppliedFilters = calculateNumberOfAppliedFilters( hfbfilters );
+    }
+
+    /**
+     * Disjoint slices are independent, three of them give a false positive rate below one 
+     * percent, more filters only cost lookups. Overlapping or xor folded slices depend on each
+     * other, the first three of them reject less than three disjoint slices, so every filter 
+     * is applied. The number is derived from the slices only, so it is the same for a filter 
+     * bank, which is read from a file.
+     * 
+     * @param filters the filters of a filter bank
+     * @return the number of filters, which are asked by containsDocumentId
+     */
+    public static int calculateNumberOfAppliedFilters( List<HFBFilterData> filters ) {
+        for (int i = 0; i < filters.size(); i++) {
+            HFBFilterData filter = filters.get( i );
+            if (filter.isXorFolded()) {
+                return filters.size();
+            }
+            for (int j = 0; j < i; j++) {
+                HFBFilterData other = filters.get( j );
+                boolean disjoint = filter.getSlicePosition() + filter.getSliceBitSize() <= other.getSlicePosition()
+                                || other.getSlicePosition() + other.getSliceBitSize() <= filter.getSlicePosition();
+                if (!disjoint) {
+                    return filters.size();
+                }
+            }
+        }
+        return Math.min( filters.size(), NUMBER_OF_APPLIED_FILTERS );
+    }
+
+    /**
+     * @return the number of filters, which are asked by containsDocumentId
+     */
+    public int getNumberOfAppliedFilters() {
+        return numberOfAppliedFilters;
+    }
+
+    public int getNumberOfFilters() {
+        return hfbfilters.size();
+    }
+
+    public HFBFilterData getFilterData( int filterbankIndex ) {
+        if (filterbankIndex < 0 || filterbankIndex >= hfbfilters.size()) {
+            throw new IllegalArgumentException( "FilterbankIndex is invalid" );
+        }
+        return hfbfilters.get( filterbankIndex );
+    }
+
+    public void addDocumentId( BigInteger documentId ) {
+        // we use each HFBFilterdata and add it to each filter we currently know.
+        for (HFBFilterData filter : hfbfilters) {
+            filter.setIndex( filter.extractIndex( documentId ) );
+        }
+    }
+
+    public void addDocumentIds( Collection<BigInteger> documentIds ) {
+        for (HFBFilterData filter : hfbfilters) {
+            for (BigInteger documentId : documentIds) {
+                filter.setIndex( filter.extractIndex( documentId ) );
+            }
+        }
+    }
+
+    /**
+     * Adds a 128 bit document id, which is given as two 64 bit halves.
+     * 
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     */
+    public void addDocumentId( long documentIdHi, long documentIdLo ) {
+        for (HFBFilterData filter : hfbfilters) {
+            filter.setIndex( filter.extractIndex( documentIdHi, documentIdLo ) );
+        }
+    }
+
+    public boolean containsDocumentId( BigInteger documentId ) {
+        int i = 1;
+        for (HFBFilterData bankData : hfbfilters) {
+            if (!bankData.isIndexSet( bankData.extractIndex( documentId ) )) {
+                return false;
+            }
+
+            // Idea why to limit number of tests, even if more filter bank data is available
+
+            // now the trick, is how many of these filters we do want to apply?
+            // count the number of applied filters and return true, if we passed 3 max. 4 filters?
+            // with 80% dropout rate we get a maximum false positive error rate 
+            // * of 0,8 percent when 3 hfb filters are asked = 3 times O(1) lookup
+            // * of 0,16 percent when 4 hfb filters are asked = 4 times O(1) lookup
+            // if we use a smaller sparsity we have to increase the number of filters
+
+            // TODO check will be removed in future, always full filter will be applied
+            //      but filter can be saved sparsely on disk.
+            if (i >= numberOfAppliedFilters) {
+                return true;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #containsDocumentId(BigInteger)} for a 128 bit document id, which is given 
+     * as two 64 bit halves.
+     * 
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return false, if the document id is definitely not contained, true if it may be contained.
+     */
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        int i = 1;
+        for (HFBFilterData bankData : hfbfilters) {
+            if (!bankData.isIndexSet( bankData.extractIndex( documentIdHi, documentIdLo ) )) {
+                return false;
+            }
+
+            // see containsDocumentId( BigInteger ), why only three filters are applied, and calculateNumberOfAppliedFilters.
+            if (i >= numberOfAppliedFilters) {
+                return true;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Filters the candidate document ids and returns the document ids, which may be contained
+     * in this filter bank, in the same order.
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIds( long[] candidateIds ) {
+        return filterDocumentIds( candidateIds, 0, HFBDocumentIds.count( candidateIds ) );
+    }
+
+    /**
+     * Filters a range of the candidate document ids.
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param fromIndex index of the first document id (inclusive)
+     * @param toIndex index of the last document id (exclusive)
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIds( long[] candidateIds, int fromIndex, int toIndex ) {
+        long[] survivors = new long[(toIndex - fromIndex) << 1];
+        int survivorsLength = 0;
+
+        for (int i = fromIndex << 1; i < (toIndex << 1); i += 2) {
+            long documentIdHi = candidateIds[i];
+            long documentIdLo = candidateIds[i + 1];
+
+            if (containsDocumentId( documentIdHi, documentIdLo )) {
+                survivors[survivorsLength++] = documentIdHi;
+                survivors[survivorsLength++] = documentIdLo;
+            }
+        }
+
+        return Arrays.copyOf( survivors, survivorsLength );
+    }
+
+    /**
+     * Same as {@link #filterDocumentIds(long[])}, but probes the filters with a group of 
+     * document ids at once, using the default group size. 
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIdsBatched( long[] candidateIds ) {
+        return filterDocumentIdsBatched( candidateIds, DEFAULT_PROBE_GROUP_SIZE );
+    }
+
+    protected static void checkGroupSize( int groupSize ) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException( "The group size must be at least one." );
+        }
+    }
+
+    /**
+     * Same as {@link #filterDocumentIds(long[])}, but probes the filters with a group of 
+     * document ids at once. 
+     * 
+     * For large filters each lookup is likely a cache miss. The serial test stalls on each of
+     * these misses in turn, because the next lookup depends on the outcome of the current one.
+     * Here, the indexes for all document ids of the group are calculated first, then all bytes
+     * are loaded, and only then it is decided, which document ids are still alive. The loads 
+     * don't depend on each other, so the CPU can have multiple cache misses in flight. The 
+     * surviving document ids of the group are then probed against the next filter.
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param groupSize number of document ids probed together, at least one
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIdsBatched( long[] candidateIds, int groupSize ) {
+        checkGroupSize( groupSize );
+
+        HFBBatchLookupEvent event = new HFBBatchLookupEvent();
+        event.begin();
+
+        long probes = 0;
+        int numberOfDocuments = HFBDocumentIds.count( candidateIds );
+        int numberOfAppliedFilters = this.numberOfAppliedFilters;
+
+        long[] survivors = new long[numberOfDocuments << 1];
+        int survivorsLength = 0;
+
+        int[] alive = new int[groupSize];
+        int[] indexes = new int[groupSize];
+        byte[] loaded = new byte[groupSize];
+
+        for (int groupStart = 0; groupStart < numberOfDocuments; groupStart += groupSize) {
+            int aliveCount = Math.min( groupSize, numberOfDocuments - groupStart );
+            for (int k = 0; k < aliveCount; k++) {
+                alive[k] = (groupStart + k) << 1;
+            }
+
+            for (int filterIndex = 0; filterIndex < numberOfAppliedFilters && aliveCount > 0; filterIndex++) {
+                HFBFilterData filter = hfbfilters.get( filterIndex );
+                byte[] sliceData = filter.getSliceData();
+                probes += aliveCount;
+
+                // calculate all indexes
+                for (int k = 0; k < aliveCount; k++) {
+                    indexes[k] = filter.extractIndex( candidateIds[alive[k]], candidateIds[alive[k] + 1] );
+                }
+
+                // touch all bytes
+                for (int k = 0; k < aliveCount; k++) {
+                    loaded[k] = sliceData[indexes[k] >> HFBFilterData.BYTE_ADDRESS_SHIFT];
+                }
+
+                // decide and keep the survivors in order
+                int stillAlive = 0;
+                for (int k = 0; k < aliveCount; k++) {
+                    if (((loaded[k] >> (indexes[k] & HFBFilterData.BYTE_ADDRESS_MASK)) & 1) != 0) {
+                        alive[stillAlive++] = alive[k];
+                    }
+                }
+                aliveCount = stillAlive;
+            }
+
+            for (int k = 0; k < aliveCount; k++) {
+                survivors[survivorsLength++] = candidateIds[alive[k]];
+                survivors[survivorsLength++] = candidateIds[alive[k] + 1];
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setDocumentIdsIn( numberOfDocuments );
+            event.setDocumentIdsOut( survivorsLength >> 1 );
+            event.setProbes( probes );
+            event.commit();
+        }
+
+        return Arrays.copyOf( survivors, survivorsLength );
+    }
+
+    /**
+     * Filters the candidate document ids using the common fork join pool.
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs, in the same order as the candidates
+     */
+    public long[] filterDocumentIdsParallel( long[] candidateIds ) {
+        return filterDocumentIdsParallel( candidateIds, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Filters the candidate document ids in parallel. The candidates are split into chunks, 
+     * which fit into the cache, each chunk is filtered on its own and the survivors of all 
+     * chunks are merged in order. A filter bank is read-only at query time, so no locks are
+     * needed.
+     * 
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param pool the pool to run the chunks on
+     * @return the surviving document ids as pairs of longs, in the same order as the candidates
+     */
+    public long[] filterDocumentIdsParallel( long[] candidateIds, ForkJoinPool pool ) {
+        int numberOfDocuments = HFBDocumentIds.count( candidateIds );
+        if (numberOfDocuments <= HFBParallelFilterTask.CHUNK_SIZE) {
+            return filterDocumentIds( candidateIds, 0, numberOfDocuments );
+        }
+
+        int numberOfChunks = (numberOfDocuments + HFBParallelFilterTask.CHUNK_SIZE - 1) / HFBParallelFilterTask.CHUNK_SIZE;
+        long[][] chunkSurvivors = new long[numberOfChunks][];
+
+        pool.invoke( new HFBParallelFilterTask( this, candidateIds, chunkSurvivors, 0, numberOfChunks ) );
+
+        int survivorsLength = 0;
+        for (long[] survivors : chunkSurvivors) {
+            survivorsLength += survivors.length;
+        }
+
+        long[] result = new long[survivorsLength];
+        int offset = 0;
+        for (long[] survivors : chunkSurvivors) {
+            System.arraycopy( survivors, 0, result, offset, survivors.length );
+            offset += survivors.length;
+        }
+
+        return result;
+    }
+
+    /**
+     * Folds every filter of this filter bank by the given number of bits, see 
+     * {@link HFBFilterData#fold(int)}. Each filter of the folded filter bank needs 2^m times 
+     * less memory and has a higher false positive rate, but it never rejects a document id,
+     * which this filter bank may contain.
+     * 
+     * @param numberOfFoldedBits the number of bits, each slice is shrunk by
+     * @return the folded filter bank, this filter bank is not changed
+     */
+    public HFBFilterBank fold( int numberOfFoldedBits ) {
+        HFBFilterBank result = new HFBFilterBank();
+        result.initFiltersLazy( bitsInDocumentId, occurrenceCount, loadFactor );
+        for (HFBFilterData filter : hfbfilters) {
+            result.addFilterData( filter.fold( numberOfFoldedBits ) );
+        }
+        return result;
+    }
+
+    /**
+     * Folds each filter of this filter bank, until its filter data fits into the given number of
+     * bytes. Filters, which are already small enough, are copied unchanged. This allows to shrink
+     * a loaded filter bank under memory pressure, without the document ids.
+     * 
+     * @param maximumBytesPerFilter the maximum size of the filter data of each filter
+     * @return the folded filter bank, this filter bank is not changed
+     */
+    public HFBFilterBank foldToSize( int maximumBytesPerFilter ) {
+        if (maximumBytesPerFilter < 1) {
+            throw new IllegalArgumentException( "maximumBytesPerFilter must be at least one." );
+        }
+
+        // largest slice, whose filter data fits into the given number of bytes
+        int maximumSliceBitSize = (31 - Integer.numberOfLeadingZeros( maximumBytesPerFilter )) + HFBFilterData.BYTE_ADDRESS_SHIFT;
+
+        HFBFilterBank result = new HFBFilterBank();
+        result.initFiltersLazy( bitsInDocumentId, occurrenceCount, loadFactor );
+        for (HFBFilterData filter : hfbfilters) {
+            result.addFilterData( filter.foldTo( Math.min( filter.getSliceBitSize(), maximumSliceBitSize ) ) );
+        }
+        return result;
+    }
+
+    /**
+     * Creates an immutable copy of this filter bank for the query path. It answers 
+     * containsDocumentId exactly like this filter bank, later changes to this filter bank 
+     * are not visible in the frozen copy.
+     * 
+     * @return the frozen filter bank
+     */
+    public HFBFrozenFilterBank freeze() {
+        return new HFBFrozenFilterBank( this );
+    }
+
+    /**
+     * @return the bitsInDocumentId
+     */
+    public int getBitsInDocumentId() {
+        return bitsInDocumentId;
+    }
+
+    /**
+     * @return the occurrenceCount
+     */
+    public long getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    /**
+     * @return the loadFactor
+     */
+    public int getLoadFactor() {
+        return loadFactor;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+/**
+ * A filter bank for 64 bit document ids, which are kept as primitive long values. The slice
+ * extraction is exactly the two instructions described for the hash free bloom filter, without
+ * the detour over BigInteger values.
+ *
+ * The filter data is still kept in {@link HFBFilterData} instances, so this filter bank can be
+ * saved and read like any other filter bank, the header just states 64 bits per document id.
+ */
+public class HFBFilterBank64 extends HFBFilterBank {
+
+    public static final int BITS_IN_DOCUMENT_ID = 64;
+
+    /**
+     *
+     */
+    public HFBFilterBank64() {
+    }
+
+    /**
+     *
+     * @param occurenceCount number of documents for a particular value
+     * @param loadFactor set it to 5 (five)
+     */
+    public void initFilters( long occurenceCount, int loadFactor ) {
+        initFilters( BITS_IN_DOCUMENT_ID, occurenceCount, loadFactor );
+    }
+
+    public void add( long documentId ) {
+        for (HFBFilterData filter : hfbfilters) {
+            filter.setIndex( filter.extractIndex( documentId ) );
+        }
+    }
+
+    public void addAll( long[] documentIds ) {
+        for (HFBFilterData filter : hfbfilters) {
+            for (int i = 0; i < documentIds.length; i++) {
+                filter.setIndex( filter.extractIndex( documentIds[i] ) );
+            }
+        }
+    }
+
+    /**
+     * Tests the document id against every filter, which is present in this filter bank. The 
+     * number of applied filters is controlled by the write options, when the filter bank is saved.
+     * 
+     * @param documentId the document id to test
+     * @return false, if the document id is definitely not contained, true if it may be contained.
+     */
+    public boolean contains( long documentId ) {
+        for (HFBFilterData filter : hfbfilters) {
+            if (!filter.isIndexSet( filter.extractIndex( documentId ) )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param documentIds the document ids to test
+     * @return true, if every given document id may be contained, false if at least one is definitely not contained.
+     */
+    public boolean containsAll( long[] documentIds ) {
+        for (int i = 0; i < documentIds.length; i++) {
+            if (!contains( documentIds[i] )) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankArchiveWriter;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+/**
+ * Builds and saves many filter banks at once, e.g. one filter bank per trigram posting list 
+ * for a full reindex.
+ * 
+ * The filter banks are compiled on a pool of workers, while a single writer saves the 
+ * compiled filter banks from a bounded queue. This keeps the CPUs busy with compiling and 
+ * the disk busy with writing. The number of filter banks in flight is limited, so that the 
+ * compilation can't run away from the writer. 
+ */
+public class HFBFilterBankBulkCompiler {
+
+    // posting list files contain raw document ids of 16 bytes each
+    private static final int RAW_DOCUMENT_ID_SIZE = 16;
+
+    private final int numberOfWorkers;
+    private final int maxFilterBanksInFlight;
+    private final HFBFilterWriteOption[] options;
+
+    public HFBFilterBankBulkCompiler() {
+        this( Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * @param numberOfWorkers number of threads compiling filter banks
+     * @param maxFilterBanksInFlight maximum number of compiled filter banks waiting to be written
+     * @param options the options for the save actions
+     */
+    public HFBFilterBankBulkCompiler( int numberOfWorkers, int maxFilterBanksInFlight, HFBFilterWriteOption... options ) {
+        if (numberOfWorkers < 1 || maxFilterBanksInFlight < 1) {
+            throw new IllegalArgumentException( "numberOfWorkers and maxFilterBanksInFlight must be at least one." );
+        }
+        this.numberOfWorkers = numberOfWorkers;
+        this.maxFilterBanksInFlight = maxFilterBanksInFlight;
+        this.options = options;
+    }
+
+    /**
+     * Compiles every file of the input directory into a filter bank. Each file is a posting 
+     * list of raw document ids of 16 bytes each. The filter bank is saved in the output 
+     * directory using the file name as its key.
+     * 
+     * @param inputDirectory directory containing the posting lists
+     * @param outputDirectory directory for the filter banks
+     * @return the throughput of the bulk compilation
+     */
+    public HFBBulkCompileReport compileDirectory( Path inputDirectory, Path outputDirectory ) {
+        return compileDirectory( inputDirectory, directorySink( outputDirectory ) );
+    }
+
+    /**
+     * Same as {@link #compileDirectory(Path, Path)}, but all filter banks are saved in a single
+     * archive, which stores identical filter data only once, see {@link HFBFilterBankArchiveWriter}.
+     * 
+     * @param inputDirectory directory containing the posting lists
+     * @param archivePath path of the archive
+     * @return the throughput of the bulk compilation
+     */
+    public HFBBulkCompileReport compileDirectoryToArchive( Path inputDirectory, Path archivePath ) {
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            return compileDirectory( inputDirectory, archive::add );
+        }
+    }
+
+    private HFBBulkCompileReport compileDirectory( Path inputDirectory, FilterBankSink sink ) {
+        try (DirectoryStream<Path> postingLists = Files.newDirectoryStream( inputDirectory, Files::isRegularFile )) {
+            Iterator<Path> postingListIterator = postingLists.iterator();
+
+            return run( new Iterator<CompileJob>() {
+                @Override
+                public boolean hasNext() {
+                    return postingListIterator.hasNext();
+                }
+
+                @Override
+                public CompileJob next() {
+                    Path postingList = postingListIterator.next();
+                    return new CompileJob( keyOf( postingList ), () -> compileRawPostingList( postingList ) );
+                }
+            }, sink );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Compiles each posting list into a filter bank and saves it in the output directory.
+     * 
+     * @param postingLists pairs of key and document ids, encoded as hexadecimal values
+     * @param outputDirectory directory for the filter banks
+     * @return the throughput of the bulk compilation
+     */
+    public HFBBulkCompileReport compileHex( Iterator<? extends Entry<String, ? extends Collection<String>>> postingLists, Path outputDirectory ) {
+        return compileHex( postingLists, directorySink( outputDirectory ) );
+    }
+
+    /**
+     * Same as {@link #compileHex(Iterator, Path)}, but all filter banks are saved in a single
+     * archive, which stores identical filter data only once, see {@link HFBFilterBankArchiveWriter}.
+     * 
+     * @param postingLists pairs of key and document ids, encoded as hexadecimal values
+     * @param archivePath path of the archive
+     * @return the throughput of the bulk compilation
+     */
+    public HFBBulkCompileReport compileHexToArchive( Iterator<? extends Entry<String, ? extends Collection<String>>> postingLists, Path archivePath ) {
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            return compileHex( postingLists, archive::add );
+        }
+    }
+
+    private HFBBulkCompileReport compileHex( Iterator<? extends Entry<String, ? extends Collection<String>>> postingLists, FilterBankSink sink ) {
+        return run( new Iterator<CompileJob>() {
+            @Override
+            public boolean hasNext() {
+                return postingLists.hasNext();
+            }
+
+            @Override
+            public CompileJob next() {
+                Entry<String, ? extends Collection<String>> postingList = postingLists.next();
+                return new CompileJob( postingList.getKey(), () -> new HFBFilterBankCompiler().compileFilterHex( postingList.getValue() ) );
+            }
+        }, sink );
+    }
+
+    private FilterBankSink directorySink( Path outputDirectory ) {
+        HFBFilterBankWriterV1Impl writer = new HFBFilterBankWriterV1Impl();
+        return ( key, filterBank ) -> {
+            Path outputPath = outputDirectory.resolve( key + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX );
+            writer.write( filterBank, outputPath.toString(), options );
+            return Files.size( outputPath );
+        };
+    }
+
+    private static String keyOf( Path postingList ) {
+        String fileName = postingList.getFileName().toString();
+        int dot = fileName.lastIndexOf( '.' );
+        return dot > 0 ? fileName.substring( 0, dot ) : fileName;
+    }
+
+    private static HFBFilterBank compileRawPostingList( Path postingList ) {
+        try (SeekableByteChannel channel = Files.newByteChannel( postingList, StandardOpenOption.READ )) {
+            return new HFBFilterBankCompiler().compileFilter( channel, channel.size() / RAW_DOCUMENT_ID_SIZE );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private HFBBulkCompileReport run( Iterator<CompileJob> jobs, FilterBankSink sink ) {
+        long start = System.nanoTime();
+
+        Semaphore inFlight = new Semaphore( maxFilterBanksInFlight );
+        BlockingQueue<CompiledFilterBank> writeQueue = new ArrayBlockingQueue<>( maxFilterBanksInFlight + 1 );
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        AtomicLong numberOfFilterBanks = new AtomicLong();
+        AtomicLong numberOfDocumentIds = new AtomicLong();
+        AtomicLong bytesWritten = new AtomicLong();
+
+        Thread writerThread = new Thread( () -> {
+            try {
+                while (true) {
+                    CompiledFilterBank compiled = writeQueue.take();
+                    if (compiled == CompiledFilterBank.END_OF_QUEUE) {
+                        return;
+                    }
+
+                    try {
+                        long bytes = sink.write( compiled.key, compiled.filterBank );
+
+                        numberOfFilterBanks.incrementAndGet();
+                        numberOfDocumentIds.addAndGet( compiled.filterBank.getOccurrenceCount() );
+                        bytesWritten.addAndGet( bytes );
+                    }
+                    catch (IOException | RuntimeException e) {
+                        failure.compareAndSet( null, new IllegalStateException( "Can't write filter bank " + compiled.key, e ) );
+                    }
+                    finally {
+                        inFlight.release();
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "hfb-bulk-writer" );
+        writerThread.start();
+
+        ExecutorService workers = Executors.newFixedThreadPool( numberOfWorkers );
+        try {
+            while (jobs.hasNext() && failure.get() == null) {
+                CompileJob job = jobs.next();
+
+                // backpressure - wait until the writer caught up
+                inFlight.acquire();
+
+                workers.execute( () -> {
+                    try {
+                        writeQueue.put( new CompiledFilterBank( job.key, job.compiler.get() ) );
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        inFlight.release();
+                    }
+                    catch (RuntimeException e) {
+                        failure.compareAndSet( null, new IllegalStateException( "Can't compile filter bank " + job.key, e ) );
+                        inFlight.release();
+                    }
+                } );
+            }
+
+            workers.shutdown();
+            workers.awaitTermination( Long.MAX_VALUE, TimeUnit.NANOSECONDS );
+
+            writeQueue.put( CompiledFilterBank.END_OF_QUEUE );
+            writerThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+            writerThread.interrupt();
+            throw new IllegalStateException( "Bulk compilation was interrupted.", e );
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return new HFBBulkCompileReport( numberOfFilterBanks.get(), numberOfDocumentIds.get(), bytesWritten.get(), System.nanoTime() - start );
+    }
+
+    // saves a compiled filter bank, only called by the writer thread
+    private interface FilterBankSink {
+        /**
+         * @return the number of bytes written
+         */
+        long write( String key, HFBFilterBank filterBank ) throws IOException;
+    }
+
+    private static class CompileJob {
+        private final String key;
+        private final Supplier<HFBFilterBank> compiler;
+
+        CompileJob( String key, Supplier<HFBFilterBank> compiler ) {
+            this.key = key;
+            this.compiler = compiler;
+        }
+    }
+
+    private static class CompiledFilterBank {
+        private static final CompiledFilterBank END_OF_QUEUE = new CompiledFilterBank( null, null );
+
+        private final String key;
+        private final HFBFilterBank filterBank;
+
+        CompiledFilterBank( String key, HFBFilterBank filterBank ) {
+            this.key = key;
+            this.filterBank = filterBank;
+        }
+    }
+}
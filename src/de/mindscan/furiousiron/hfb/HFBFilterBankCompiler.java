@@ -1,109 +1,423 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2022 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb;
-
-import java.math.BigInteger;
-import java.util.Collection;
-import java.util.Set;
-
-/**
- * The HFBFilterBankCompiler creates a HFBFilterBank from Collections. These compiled
- * filter banks are meant to be saved somewhere, where they can then again be easily
- * applied, without compiling them once more. 
- */
-public class HFBFilterBankCompiler {
-
-    /**
-     * Will create a filter bank from a set of given documentIds. You should not
-     * add any more documentIds to this filter, to keep efficiency.
-     * 
-     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
-     * @return a fully initialized filter, containing all given document ids
-     */
-    public HFBFilterBank compileFilterHex( Collection<String> documentIds ) {
-        HFBFilterBank compiledFilterBank = new HFBFilterBank();
-
-        // we assume 128 bit long document ids, and a minimum of 32 
-        // documents in the filter, and a desired rejection rate of 80% for
-        // each filter step.
-        compiledFilterBank.initFilters( 128, Math.max( documentIds.size(), 32 ), 5 );
-
-        for (String documentIdStr : documentIds) {
-            BigInteger documentId = new BigInteger( documentIdStr, 16 );
-            compiledFilterBank.addDocumentId( documentId );
-        }
-
-        return compiledFilterBank;
-    }
-
-    /**
-     * Use this method to create a filter bank of the estimated size, and then
-     * use {@link #insertDocumentIds(HFBFilterBank, Set)} to add documentIds 
-     * to the filter. 
-     * 
-     * @param numberOfDocuments number of document ids to be inserted into the hfb filter 
-     * @return an empty initialized filter, containing no document ids.
-     */
-    public HFBFilterBank createEmptyFilter( long numberOfDocuments ) {
-        HFBFilterBank compiledFilterBank = new HFBFilterBank();
-
-        // we assume 128 bit long document ids, and a minimum of 32 
-        // documents in the filter, and a desired rejection rate of 
-        // 80% for  each filter step.
-        compiledFilterBank.initFilters( 128, Math.max( numberOfDocuments, 32 ), 5 );
-
-        return compiledFilterBank;
-    }
-
-    /**
-     * Inserts a collection of document ids given as hexadecimal number. 
-     * 
-     * @param filter the filter where we want to add a collection of documentIds
-     * @param documentIds  we assume that documentIds are encoded as hexadecimal values (as of now)
-     * @return filter is returned
-     */
-    public HFBFilterBank insertDocumentIdsHex( HFBFilterBank filter, Collection<String> documentIds ) {
-        for (String documentIdStr : documentIds) {
-            BigInteger documentId = new BigInteger( documentIdStr, 16 );
-            filter.addDocumentId( documentId );
-        }
-
-        return filter;
-    }
-
-    /**
-     * Inserts a collection of document ids given as biginteger values.
-     * 
-     * @param filter the filter where we want to add a bunch of documentIds
-     * @param documentIds the document ids are provided as a collection of bigintegers
-     * @return filter is returned
-     */
-    public HFBFilterBank insertDocumentIdsBI( HFBFilterBank filter, Collection<BigInteger> documentIds ) {
-        filter.addDocumentIds( documentIds );
-        return filter;
-    }
-
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import de.mindscan.furiousiron.hfb.jfr.HFBFilterBankCompileEvent;
+import de.mindscan.furiousiron.hfb.layout.HFBSliceLayout;
+
+/**
+ * The HFBFilterBankCompiler creates a HFBFilterBank from Collections. These compiled
+ * filter banks are meant to be saved somewhere, where they can then again be easily
+ * applied, without compiling them once more. 
+ */
+public class HFBFilterBankCompiler {
+
+    // e.g. md5 hashsums
+    public static final int DEFAULT_BITS_IN_DOCUMENT_ID = 128;
+    // smaller document sets are filtered as if they had this number of documents
+    public static final int MINIMUM_NUMBER_OF_DOCUMENTS = 32;
+    // a load factor of 5 is a desired rejection rate of 80% for each filter step
+    public static final int DEFAULT_LOAD_FACTOR = 5;
+    // smaller document sets are compiled into an exact filter bank
+    public static final int EXACT_MODE_THRESHOLD = MINIMUM_NUMBER_OF_DOCUMENTS;
+
+    // raw document ids are 128 bit
+    private static final int RAW_DOCUMENT_ID_SIZE = 16;
+    // 4096 raw document ids per read
+    private static final int RAW_READ_BUFFER_SIZE = 4096 * RAW_DOCUMENT_ID_SIZE;
+
+    /**
+     * Will create a filter bank from a set of given documentIds. You should not
+     * add any more documentIds to this filter, to keep efficiency.
+     * 
+     * Fewer than {@link #EXACT_MODE_THRESHOLD} document ids are compiled into an exact filter
+     * bank.
+     * 
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank compileFilterHex( Collection<String> documentIds ) {
+        return compileFilterHex( documentIds, HFBSliceLayout.CONTIGUOUS );
+    }
+
+    /**
+     * Same as {@link #compileFilterHex(Collection)}, but the slices of the filters are chosen
+     * by the given slice layout.
+     * 
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @param sliceLayout decides which slices of the document id are used by the filters
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank compileFilterHex( Collection<String> documentIds, HFBSliceLayout sliceLayout ) {
+        HFBFilterBankCompileEvent event = new HFBFilterBankCompileEvent();
+        event.begin();
+
+        HFBFilterBank compiledFilterBank = compileFilterHexInternal( documentIds, sliceLayout );
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setDocumentIds( documentIds.size() );
+            event.setSliceBitSize( compiledFilterBank.getNumberOfFilters() > 0 ? compiledFilterBank.getFilterData( 0 ).getSliceBitSize() : 0 );
+            event.setFilterBankType( compiledFilterBank.getClass().getSimpleName() );
+            event.commit();
+        }
+
+        return compiledFilterBank;
+    }
+
+    private HFBFilterBank compileFilterHexInternal( Collection<String> documentIds, HFBSliceLayout sliceLayout ) {
+        if (documentIds.size() < EXACT_MODE_THRESHOLD) {
+            return insertDocumentIdsHex( createExactFilter( documentIds.size() ), documentIds );
+        }
+
+        HFBFilterBank compiledFilterBank = new HFBFilterBank();
+
+        // we assume 128 bit long document ids, and a minimum of 32 
+        // documents in the filter, and a desired rejection rate of 80% for
+        // each filter step.
+        compiledFilterBank.initFilters( DEFAULT_BITS_IN_DOCUMENT_ID, Math.max( documentIds.size(), MINIMUM_NUMBER_OF_DOCUMENTS ), DEFAULT_LOAD_FACTOR,
+                        sliceLayout );
+
+        for (String documentIdStr : documentIds) {
+            BigInteger documentId = new BigInteger( documentIdStr, 16 );
+            compiledFilterBank.addDocumentId( documentId );
+        }
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Use this method to create a filter bank of the estimated size, and then
+     * use {@link #insertDocumentIds(HFBFilterBank, Set)} to add documentIds 
+     * to the filter. Use {@link #createScalableFilter(long)} if more document ids
+     * might be added later.
+     * 
+     * @param numberOfDocuments number of document ids to be inserted into the hfb filter 
+     * @return an empty initialized filter, containing no document ids.
+     */
+    public HFBFilterBank createEmptyFilter( long numberOfDocuments ) {
+        HFBFilterBank compiledFilterBank = new HFBFilterBank();
+
+        // we assume 128 bit long document ids, and a minimum of 32 
+        // documents in the filter, and a desired rejection rate of 
+        // 80% for  each filter step.
+        compiledFilterBank.initFilters( DEFAULT_BITS_IN_DOCUMENT_ID, Math.max( numberOfDocuments, MINIMUM_NUMBER_OF_DOCUMENTS ), DEFAULT_LOAD_FACTOR );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Use this method to create an exact filter bank for a small number of document ids.
+     * 
+     * @param numberOfDocuments number of document ids to be inserted into the filter 
+     * @return an empty exact filter, containing no document ids.
+     */
+    public HFBExactFilterBank createExactFilter( long numberOfDocuments ) {
+        HFBExactFilterBank compiledFilterBank = new HFBExactFilterBank();
+
+        compiledFilterBank.initExact( DEFAULT_BITS_IN_DOCUMENT_ID, numberOfDocuments );
+
+        return compiledFilterBank;
+    }
+
+    private HFBFilterBank createFilterForCompilation( long countHint ) {
+        return countHint < EXACT_MODE_THRESHOLD ? createExactFilter( countHint ) : createEmptyFilter( countHint );
+    }
+
+    /**
+     * Adds a streamed document id. The count hint of a stream may be wrong, so an exact filter 
+     * bank is only kept below {@link #EXACT_MODE_THRESHOLD} document ids. When it reaches the
+     * threshold, its document ids are moved into a regular filter bank.
+     * 
+     * @return the filter bank, which contains the document id
+     */
+    private HFBFilterBank addStreamedDocumentId( HFBFilterBank compiledFilterBank, long countHint, long documentIdHi, long documentIdLo ) {
+        compiledFilterBank.addDocumentId( documentIdHi, documentIdLo );
+
+        if (compiledFilterBank instanceof HFBExactFilterBank && compiledFilterBank.getOccurrenceCount() >= EXACT_MODE_THRESHOLD) {
+            HFBFilterBank regularFilterBank = createEmptyFilter( countHint );
+            ((HFBExactFilterBank) compiledFilterBank).copyDocumentIdsTo( regularFilterBank );
+            return regularFilterBank;
+        }
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Use this method to create a filter bank, which keeps growing when more document ids
+     * are added than estimated.
+     * 
+     * @param numberOfDocuments initial number of document ids to be inserted into the hfb filter 
+     * @return an empty initialized filter, containing no document ids.
+     */
+    public HFBScalableFilterBank createScalableFilter( long numberOfDocuments ) {
+        HFBScalableFilterBank compiledFilterBank = new HFBScalableFilterBank();
+
+        compiledFilterBank.initFilters( DEFAULT_BITS_IN_DOCUMENT_ID, Math.max( numberOfDocuments, MINIMUM_NUMBER_OF_DOCUMENTS ), DEFAULT_LOAD_FACTOR );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Will create a filter bank from raw document ids, which are inserted as they arrive. The 
+     * document ids don't need to be collected before the filter bank is built. A count hint 
+     * below {@link #EXACT_MODE_THRESHOLD} creates an exact filter bank, which is turned into a
+     * regular filter bank, if the stream provides more document ids than the threshold.
+     * 
+     * @param rawDocumentIds the document ids, each as 16 bytes in big endian byte order
+     * @param countHint the expected number of document ids, used to size the filter bank
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank compileFilter( Iterator<byte[]> rawDocumentIds, long countHint ) {
+        HFBFilterBank compiledFilterBank = createFilterForCompilation( countHint );
+
+        while (rawDocumentIds.hasNext()) {
+            byte[] rawDocumentId = rawDocumentIds.next();
+            compiledFilterBank = addStreamedDocumentId( compiledFilterBank, countHint, HFBDocumentIds.hiFromRaw( rawDocumentId, 0 ),
+                            HFBDocumentIds.loFromRaw( rawDocumentId, 0 ) );
+        }
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Same as {@link #compileFilter(Iterator, long)} for a stream of raw document ids.
+     * 
+     * @param rawDocumentIds the document ids, each as 16 bytes in big endian byte order
+     * @param countHint the expected number of document ids, used to size the filter bank
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank compileFilter( Stream<byte[]> rawDocumentIds, long countHint ) {
+        return compileFilter( rawDocumentIds.iterator(), countHint );
+    }
+
+    /**
+     * Will create a filter bank from a channel of raw document ids, which are inserted as they
+     * are read. Only a small read buffer is kept in memory.
+     * 
+     * @param channel the channel providing document ids, each as 16 bytes in big endian byte order
+     * @param countHint the expected number of document ids, used to size the filter bank
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank compileFilter( ReadableByteChannel channel, long countHint ) {
+        HFBFilterBank[] compiledFilterBank = { createFilterForCompilation( countHint ) };
+
+        forEachRawDocumentId( channel,
+                        ( documentIdHi, documentIdLo ) -> compiledFilterBank[0] = addStreamedDocumentId( compiledFilterBank[0], countHint, documentIdHi,
+                                        documentIdLo ) );
+
+        return compiledFilterBank[0];
+    }
+
+    /**
+     * Will create a filter bank from a source of raw document ids, where the number of document
+     * ids is unknown. The source is read twice, the first pass counts the document ids, the 
+     * second pass inserts them into the filter bank.
+     * 
+     * @param source source providing document ids, each as 16 bytes in big endian byte order
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank compileFilter( HFBDocumentIdSource source ) {
+        long[] count = new long[1];
+        try (ReadableByteChannel channel = source.open()) {
+            forEachRawDocumentId( channel, ( hi, lo ) -> count[0]++ );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+
+        try (ReadableByteChannel channel = source.open()) {
+            return compileFilter( channel, count[0] );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private void forEachRawDocumentId( ReadableByteChannel channel, DocumentIdConsumer consumer ) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect( RAW_READ_BUFFER_SIZE );
+
+        try {
+            while (channel.read( buffer ) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RAW_DOCUMENT_ID_SIZE) {
+                    consumer.accept( buffer.getLong(), buffer.getLong() );
+                }
+                buffer.compact();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+
+        if (buffer.position() != 0) {
+            throw new IllegalArgumentException( "Incomplete document id at the end of the channel." );
+        }
+    }
+
+    @FunctionalInterface
+    private interface DocumentIdConsumer {
+        void accept( long documentIdHi, long documentIdLo );
+    }
+
+    /**
+     * Will create a filter bank for 64 bit document ids from a given array of documentIds.
+     * You should not add any more documentIds to this filter, to keep efficiency.
+     * 
+     * @param documentIds the 64 bit document ids
+     * @return a fully initialized filter, containing all given document ids
+     */
+    public HFBFilterBank64 compileFilter64( long[] documentIds ) {
+        HFBFilterBank64 compiledFilterBank = createEmptyFilter64( documentIds.length );
+
+        compiledFilterBank.addAll( documentIds );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Use this method to create a filter bank for 64 bit document ids of the estimated 
+     * size, and then use {@link HFBFilterBank64#add(long)} to add documentIds to the filter.
+     * 
+     * @param numberOfDocuments number of document ids to be inserted into the hfb filter 
+     * @return an empty initialized filter, containing no document ids.
+     */
+    public HFBFilterBank64 createEmptyFilter64( long numberOfDocuments ) {
+        HFBFilterBank64 compiledFilterBank = new HFBFilterBank64();
+
+        compiledFilterBank.initFilters( Math.max( numberOfDocuments, MINIMUM_NUMBER_OF_DOCUMENTS ), DEFAULT_LOAD_FACTOR );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Will create a blocked filter bank from a set of given documentIds, where all probes 
+     * of a document id hit the same cache line. You should not add any more documentIds 
+     * to this filter, to keep efficiency.
+     * 
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @return a fully initialized blocked filter, containing all given document ids
+     */
+    public HFBBlockedFilterBank compileBlockedFilterHex( Collection<String> documentIds ) {
+        HFBBlockedFilterBank compiledFilterBank = createEmptyBlockedFilter( documentIds.size() );
+
+        insertDocumentIdsHex( compiledFilterBank, documentIds );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Use this method to create a blocked filter bank of the estimated size. 
+     * 
+     * @param numberOfDocuments number of document ids to be inserted into the hfb filter 
+     * @return an empty initialized blocked filter, containing no document ids.
+     */
+    public HFBBlockedFilterBank createEmptyBlockedFilter( long numberOfDocuments ) {
+        HFBBlockedFilterBank compiledFilterBank = new HFBBlockedFilterBank();
+
+        compiledFilterBank.initBlocks( DEFAULT_BITS_IN_DOCUMENT_ID, Math.max( numberOfDocuments, MINIMUM_NUMBER_OF_DOCUMENTS ),
+                        HFBBlockedFilterBank.DEFAULT_BITS_PER_DOCUMENT );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Will create a static xor filter bank from a set of given documentIds. No document ids can
+     * be added to this filter afterwards.
+     * 
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @return a fully initialized xor filter, containing all given document ids
+     */
+    public HFBXorFilterBank compileXorFilterHex( Collection<String> documentIds ) {
+        return compileXorFilterHex( documentIds, HFBXorFilterBank.DEFAULT_FINGERPRINT_BITS );
+    }
+
+    /**
+     * Will create a static xor filter bank from a set of given documentIds. No document ids can
+     * be added to this filter afterwards.
+     * 
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @param fingerprintBits 8 or 16 
+     * @return a fully initialized xor filter, containing all given document ids
+     */
+    public HFBXorFilterBank compileXorFilterHex( Collection<String> documentIds, int fingerprintBits ) {
+        return compileXorFilter( HFBDocumentIds.fromHex( documentIds ), fingerprintBits );
+    }
+
+    /**
+     * Will create a static xor filter bank from a set of given documentIds. 
+     * 
+     * @param documentIds 128 bit document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param fingerprintBits 8 or 16 
+     * @return a fully initialized xor filter, containing all given document ids
+     */
+    public HFBXorFilterBank compileXorFilter( long[] documentIds, int fingerprintBits ) {
+        HFBXorFilterBank compiledFilterBank = new HFBXorFilterBank();
+
+        compiledFilterBank.populate( DEFAULT_BITS_IN_DOCUMENT_ID, documentIds, fingerprintBits );
+
+        return compiledFilterBank;
+    }
+
+    /**
+     * Inserts a collection of document ids given as hexadecimal number. 
+     * 
+     * @param filter the filter where we want to add a collection of documentIds
+     * @param documentIds  we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @return filter is returned
+     */
+    public HFBFilterBank insertDocumentIdsHex( HFBFilterBank filter, Collection<String> documentIds ) {
+        for (String documentIdStr : documentIds) {
+            BigInteger documentId = new BigInteger( documentIdStr, 16 );
+            filter.addDocumentId( documentId );
+        }
+
+        return filter;
+    }
+
+    /**
+     * Inserts a collection of document ids given as biginteger values.
+     * 
+     * @param filter the filter where we want to add a bunch of documentIds
+     * @param documentIds the document ids are provided as a collection of bigintegers
+     * @return filter is returned
+     */
+    public HFBFilterBank insertDocumentIdsBI( HFBFilterBank filter, Collection<BigInteger> documentIds ) {
+        filter.addDocumentIds( documentIds );
+        return filter;
+    }
+
+}
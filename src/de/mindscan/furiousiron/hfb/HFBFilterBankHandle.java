@@ -0,0 +1,182 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A handle to the current generation of a filter bank, which can be replaced while queries 
+ * are running, e.g. when the filter bank of a trigram is rebuilt in the background.
+ * 
+ * A query acquires a lease on the current generation without taking a lock, and keeps using 
+ * the same filter bank until it closes the lease. A rebuilt filter bank is published with a 
+ * single atomic swap. The publish is the only way a filter bank gets to the readers, so a 
+ * reader sees the filter bank with all of its filters - never a half populated one. The filter 
+ * bank must not be changed after it was published.
+ * 
+ * Each generation counts its leases, the handle itself holds one of them. The replaced 
+ * generation is released, when the last lease is closed. The release callback of a generation 
+ * can then free its resources, e.g. close the file of a memory mapped filter bank.
+ */
+public class HFBFilterBankHandle {
+
+    private static final Runnable NOTHING_TO_RELEASE = () -> {
+    };
+
+    private final AtomicReference<Generation> current;
+
+    /**
+     * @param filterBank the fully built first generation
+     */
+    public HFBFilterBankHandle( HFBFilterBank filterBank ) {
+        this( filterBank, NOTHING_TO_RELEASE );
+    }
+
+    /**
+     * @param filterBank the fully built first generation
+     * @param onRelease called once, when the generation is replaced and its last lease is closed
+     */
+    public HFBFilterBankHandle( HFBFilterBank filterBank, Runnable onRelease ) {
+        this.current = new AtomicReference<>( new Generation( filterBank, 0L, onRelease ) );
+    }
+
+    /**
+     * Acquires a lease on the current generation, use it in a try-with-resources block.
+     * 
+     * @return the lease on the current generation
+     */
+    public Lease acquire() {
+        while (true) {
+            Generation generation = current.get();
+            if (generation.tryRetain()) {
+                return new Lease( generation );
+            }
+            // the generation was replaced and released in between, the next one is published already
+        }
+    }
+
+    /**
+     * Publishes a fully built filter bank as the next generation. Leases on the former 
+     * generation stay valid until they are closed.
+     * 
+     * @param filterBank the replacement
+     * @return the number of the new generation
+     */
+    public long publish( HFBFilterBank filterBank ) {
+        return publish( filterBank, NOTHING_TO_RELEASE );
+    }
+
+    /**
+     * Publishes a fully built filter bank as the next generation. Leases on the former 
+     * generation stay valid until they are closed.
+     * 
+     * @param filterBank the replacement
+     * @param onRelease called once, when this generation is replaced and its last lease is closed
+     * @return the number of the new generation
+     */
+    public long publish( HFBFilterBank filterBank, Runnable onRelease ) {
+        while (true) {
+            Generation former = current.get();
+            Generation next = new Generation( filterBank, former.number + 1, onRelease );
+            if (current.compareAndSet( former, next )) {
+                former.release();
+                return next.number;
+            }
+        }
+    }
+
+    /**
+     * @return the number of the current generation, the first generation is zero
+     */
+    public long getGeneration() {
+        return current.get().number;
+    }
+
+    /**
+     * A lease keeps one generation of the filter bank alive.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Generation generation;
+        private boolean closed;
+
+        private Lease( Generation generation ) {
+            this.generation = generation;
+        }
+
+        public HFBFilterBank getFilterBank() {
+            if (closed) {
+                throw new IllegalStateException( "The lease is closed." );
+            }
+            return generation.filterBank;
+        }
+
+        public long getGeneration() {
+            return generation.number;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                generation.release();
+            }
+        }
+    }
+
+    private static final class Generation {
+        private final HFBFilterBank filterBank;
+        private final long number;
+        private final Runnable onRelease;
+
+        // the handle holds one reference, until the generation is replaced
+        private final AtomicInteger references = new AtomicInteger( 1 );
+
+        Generation( HFBFilterBank filterBank, long number, Runnable onRelease ) {
+            this.filterBank = filterBank;
+            this.number = number;
+            this.onRelease = onRelease;
+        }
+
+        boolean tryRetain() {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet( count, count + 1 )) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                onRelease.run();
+            }
+        }
+    }
+}
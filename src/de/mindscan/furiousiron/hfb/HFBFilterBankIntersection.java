@@ -0,0 +1,181 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Intersects the candidate document ids of a phrase query with multiple filter banks, e.g.
+ * one filter bank per trigram of the search term.
+ *
+ * Instead of asking one filter bank after the other, all filters of all filter banks are
+ * ordered by their estimated rejection rate, and a candidate document id is tested against
+ * the most selective filter first, regardless to which filter bank it belongs. Most of the
+ * non matching document ids are then rejected by the first one or two memory accesses.
+ *
+ * A document id survives only, if every filter of every filter bank may contain it, so this
+ * is at least as strict as asking each filter bank on its own.
+ */
+public class HFBFilterBankIntersection {
+
+    private final HFBFilterData[] probeOrder;
+    private final HFBFilterBank[] banksWithoutFilterData;
+
+    public HFBFilterBankIntersection( HFBFilterBank... filterBanks ) {
+        this( Arrays.asList( filterBanks ) );
+    }
+
+    public HFBFilterBankIntersection( List<HFBFilterBank> filterBanks ) {
+        List<ProbeCandidate> candidates = new ArrayList<>();
+        List<HFBFilterBank> fallbacks = new ArrayList<>();
+
+        for (HFBFilterBank filterBank : filterBanks) {
+            int numberOfFilters = filterBank.getNumberOfFilters();
+            if (numberOfFilters == 0) {
+                // e.g. the neutral filter - the filter bank must answer on its own
+                fallbacks.add( filterBank );
+                continue;
+            }
+
+            for (int i = 0; i < numberOfFilters; i++) {
+                HFBFilterData filterData = filterBank.getFilterData( i );
+                candidates.add( new ProbeCandidate( filterData, estimateRejection( filterData ), filterBank.getOccurrenceCount() ) );
+            }
+        }
+
+        // most selective filter first, in case of the same rejection rate prefer the filter bank with fewer documents.
+        Collections.sort( candidates, Comparator.comparingDouble( ProbeCandidate::getRejection ).reversed()
+                        .thenComparingLong( ProbeCandidate::getOccurrenceCount ) );
+
+        this.probeOrder = new HFBFilterData[candidates.size()];
+        for (int i = 0; i < probeOrder.length; i++) {
+            probeOrder[i] = candidates.get( i ).getFilterData();
+        }
+        this.banksWithoutFilterData = fallbacks.toArray( new HFBFilterBank[fallbacks.size()] );
+    }
+
+    /**
+     * The rejection rate of a filter is the fraction of unset bits in its filter data.
+     *
+     * @param filterData the filter data
+     * @return the estimated rejection rate for uniformly distributed document ids
+     */
+    static double estimateRejection( HFBFilterData filterData ) {
+        long bitweight = filterData.getBitweight();
+        return 1.0d - ((double) bitweight / (double) (1L << filterData.getSliceBitSize()));
+    }
+
+    public int getNumberOfProbeFilters() {
+        return probeOrder.length;
+    }
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return false, if at least one filter bank definitely doesn't contain the document id.
+     */
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        for (int i = 0; i < probeOrder.length; i++) {
+            HFBFilterData filterData = probeOrder[i];
+            if (!filterData.isIndexSet( filterData.extractIndex( documentIdHi, documentIdLo ) )) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < banksWithoutFilterData.length; i++) {
+            if (!banksWithoutFilterData[i].containsDocumentId( documentIdHi, documentIdLo )) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Filters the candidate document ids and returns the surviving document ids in the same
+     * order, in the same layout as the candidates.
+     *
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] intersect( long[] candidateIds ) {
+        return intersect( candidateIds, 0, HFBDocumentIds.count( candidateIds ) );
+    }
+
+    /**
+     * Filters a range of the candidate document ids, this allows to process a stream of
+     * candidates in chunks.
+     *
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param fromIndex index of the first document id (inclusive)
+     * @param toIndex index of the last document id (exclusive)
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] intersect( long[] candidateIds, int fromIndex, int toIndex ) {
+        long[] survivors = new long[(toIndex - fromIndex) << 1];
+        int survivorsLength = 0;
+
+        for (int i = fromIndex << 1; i < (toIndex << 1); i += 2) {
+            long documentIdHi = candidateIds[i];
+            long documentIdLo = candidateIds[i + 1];
+
+            if (containsDocumentId( documentIdHi, documentIdLo )) {
+                survivors[survivorsLength++] = documentIdHi;
+                survivors[survivorsLength++] = documentIdLo;
+            }
+        }
+
+        return Arrays.copyOf( survivors, survivorsLength );
+    }
+
+    private static class ProbeCandidate {
+        private final HFBFilterData filterData;
+        private final double rejection;
+        private final long occurrenceCount;
+
+        ProbeCandidate( HFBFilterData filterData, double rejection, long occurrenceCount ) {
+            this.filterData = filterData;
+            this.rejection = rejection;
+            this.occurrenceCount = occurrenceCount;
+        }
+
+        HFBFilterData getFilterData() {
+            return filterData;
+        }
+
+        double getRejection() {
+            return rejection;
+        }
+
+        long getOccurrenceCount() {
+            return occurrenceCount;
+        }
+    }
+}
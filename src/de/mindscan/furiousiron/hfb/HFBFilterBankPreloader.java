@@ -0,0 +1,205 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+/**
+ * Loads the filter banks of a directory into memory, before the first query needs them. 
+ * 
+ * The filter banks are read concurrently on a bounded pool of threads and are kept in a 
+ * resident map, which is shared by all queries. The key of a filter bank is its file name 
+ * without the suffix, e.g. the trigram.
+ * 
+ * Filter banks are started in the order of a given hotness list, so the hottest filter banks
+ * are resident first. Filter banks, which were not preloaded, are loaded on first use.
+ */
+public class HFBFilterBankPreloader {
+
+    private final Path directory;
+    private final int numberOfThreads;
+    private final HFBFilterFactory filterFactory = new HFBFilterFactory();
+
+    private final ConcurrentMap<String, HFBDocumentIdFilter> residentFilterBanks = new ConcurrentHashMap<>();
+
+    public HFBFilterBankPreloader( Path directory ) {
+        this( directory, Runtime.getRuntime().availableProcessors() );
+    }
+
+    public HFBFilterBankPreloader( Path directory, int numberOfThreads ) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException( "numberOfThreads must be at least one." );
+        }
+        this.directory = directory;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Loads all filter banks of the directory.
+     * 
+     * @return the number of loaded filter banks, resident bytes and load time
+     */
+    public HFBPreloadReport preload() {
+        return preload( Collections.emptyList() );
+    }
+
+    /**
+     * Loads all filter banks of the directory, the filter banks of the hotness list first.
+     * 
+     * @param hotKeys keys of the filter banks ordered by descending hotness, keys without 
+     *                a file are ignored
+     * @return the number of loaded filter banks, resident bytes and load time
+     */
+    public HFBPreloadReport preload( List<String> hotKeys ) {
+        long start = System.nanoTime();
+
+        List<String> loadOrder = calculateLoadOrder( hotKeys );
+        AtomicLong residentBytes = new AtomicLong();
+
+        ExecutorService loaders = Executors.newFixedThreadPool( numberOfThreads );
+        try {
+            // the queue of the pool is FIFO, so the hottest filter banks are loaded first
+            List<Future<?>> loads = new ArrayList<>( loadOrder.size() );
+            for (String key : loadOrder) {
+                loads.add( loaders.submit( () -> residentBytes.addAndGet( calculateResidentBytes( getFilterBank( key ) ) ) ) );
+            }
+
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Preloading was interrupted.", e );
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException( "Can't preload filter bank.", e.getCause() );
+        }
+        finally {
+            loaders.shutdownNow();
+        }
+
+        return new HFBPreloadReport( loadOrder.size(), residentBytes.get(), System.nanoTime() - start );
+    }
+
+    private List<String> calculateLoadOrder( List<String> hotKeys ) {
+        Set<String> availableKeys = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream( directory, "*" + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX )) {
+            for (Path file : files) {
+                availableKeys.add( keyOf( file ) );
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+
+        Set<String> loadOrder = new LinkedHashSet<>();
+        for (String hotKey : hotKeys) {
+            if (availableKeys.contains( hotKey )) {
+                loadOrder.add( hotKey );
+            }
+        }
+        loadOrder.addAll( availableKeys );
+
+        return new ArrayList<>( loadOrder );
+    }
+
+    private static String keyOf( Path file ) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring( 0, fileName.length() - HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX.length() );
+    }
+
+    /**
+     * Returns the resident filter bank for the key, a filter bank which is not resident yet 
+     * is loaded and kept.
+     * 
+     * @param key the key of the filter bank, e.g. the trigram
+     * @return the filter bank
+     */
+    public HFBDocumentIdFilter getFilterBank( String key ) {
+        HFBDocumentIdFilter filterBank = residentFilterBanks.get( key );
+        if (filterBank != null) {
+            return filterBank;
+        }
+
+        // don't load inside of computeIfAbsent, this would block other keys of the same bin while reading the file
+        filterBank = filterFactory.filterFromFile( directory.resolve( key + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX ).toString() );
+        if (filterBank == null) {
+            throw new IllegalStateException( "Can't load filter bank " + key );
+        }
+
+        HFBDocumentIdFilter concurrentlyLoaded = residentFilterBanks.putIfAbsent( key, filterBank );
+        return concurrentlyLoaded != null ? concurrentlyLoaded : filterBank;
+    }
+
+    public boolean isResident( String key ) {
+        return residentFilterBanks.containsKey( key );
+    }
+
+    public Map<String, HFBDocumentIdFilter> getResidentFilterBanks() {
+        return Collections.unmodifiableMap( residentFilterBanks );
+    }
+
+    static long calculateResidentBytes( HFBDocumentIdFilter filter ) {
+        if (filter instanceof HFBXorFilterBank) {
+            return ((HFBXorFilterBank) filter).getFingerprints().length;
+        }
+
+        HFBFilterBank filterBank = (HFBFilterBank) filter;
+        if (filterBank instanceof HFBBlockedFilterBank) {
+            return (long) ((HFBBlockedFilterBank) filterBank).getBlockData().length << 3;
+        }
+        if (filterBank instanceof HFBExactFilterBank) {
+            return filterBank.getOccurrenceCount() << 4;
+        }
+
+        long result = 0;
+        for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+            result += filterBank.getFilterData( i ).getSliceData().length;
+        }
+        return result;
+    }
+}
@@ -1,51 +1,51 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2022 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb;
-
-import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
-
-/**
- * 
- */
-public interface HFBFilterBankWriter {
-
-    /**
-     * Write the content of the FilterBank to outputPath.
-     * 
-     * @param filterBank the FilterBank to save
-     * @param outputPath the path
-     */
-    void write( HFBFilterBank filterBank, String outputPath );
-
-    /**
-     * Write the content of the FilterBank to outputPath, according to the given FilterWriterOptions
-     * 
-     * @param filterBank the FilterBank to save
-     * @param outputPath the path
-     * @param options the options for the save actions
-     */
-    void write( HFBFilterBank filterBank, String outputPath, HFBFilterWriteOption... options );
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+/**
+ * 
+ */
+public interface HFBFilterBankWriter {
+
+    /**
+     * Write the content of the FilterBank to outputPath.
+     * 
+     * @param filterBank the FilterBank to save
+     * @param outputPath the path
+     */
+    void write( HFBFilterBank filterBank, String outputPath );
+
+    /**
+     * Write the content of the FilterBank to outputPath, according to the given FilterWriterOptions
+     * 
+     * @param filterBank the FilterBank to save
+     * @param outputPath the path
+     * @param options the options for the save actions
+     */
+    void write( HFBFilterBank filterBank, String outputPath, HFBFilterWriteOption... options );
+}
@@ -1,128 +1,353 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2021 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb;
-
-import java.math.BigInteger;
-import java.util.Arrays;
-
-/**
- * Hold hfb filter data using a bit field.
- * 
- * This is one particular hfb filter related to the 'slicePositon' and 'sliceBitSize'
- * as a hash value extractor.
- */
-public class HFBFilterData {
-
-    // modulo by 8 (byte size in bits) is an and by 7
-    public static final int BYTE_ADDRESS_MASK = 7;
-    // divide by 8 (byte size in bits) is a shift by 3
-    public static final int BYTE_ADDRESS_SHIFT = 3;
-
-    // The position (number of bits to shift right before applying the sliceBitMask.
-    private int slicePosition;
-
-    // the number of bits for the HFB-Filter
-    private int sliceBitSize;
-
-    // the mask for the bits.
-    private long sliceBitMask;
-
-    // contains the filter data
-    private byte[] sliceData;
-    private byte[] asBitPosition = { 0x01, 0x02, 0x04, 0x08, 0x10, 0x20, 0x40, (byte) 0x80 };
-
-    private BigInteger sliceBitMaskBI;
-
-    public HFBFilterData( int slicePosition, int numberOfBits ) {
-        setSlicePosition( slicePosition );
-        setSliceMaskSize( numberOfBits );
-    }
-
-    public void setSliceMaskSize( int numberOfBits ) {
-        this.sliceBitSize = numberOfBits;
-        long sliceSize = 1L << (numberOfBits);
-
-        this.sliceBitMask = sliceSize - 1L;
-        this.sliceBitMaskBI = new BigInteger( Long.toString( this.sliceBitMask ) );
-
-        // currently the number of documents in my index won't exceed my memory needs 
-        // for a couple of filters
-
-        // allocate according to sliceSize () - well maybe this is too large,
-        // but we really shouldn't care right now. I leave it for future 
-        // development and future improvements
-    }
-
-    public void initEmpty() {
-        int numberOfBits = Math.max( this.sliceBitSize - BYTE_ADDRESS_SHIFT, 0 );
-        setSliceDataInternal( new byte[1 << numberOfBits] );
-    }
-
-    public void setSliceData( byte[] filterData ) {
-        int numberOfBits = Math.max( this.sliceBitSize - BYTE_ADDRESS_SHIFT, 0 );
-        this.sliceData = Arrays.copyOf( filterData, 1 << numberOfBits );
-    }
-
-    private void setSliceDataInternal( byte[] filterData ) {
-        this.sliceData = filterData;
-    }
-
-    public byte[] getSliceData() {
-        return this.sliceData;
-    }
-
-    public long getSliceBitMask() {
-        return sliceBitMask;
-    }
-
-    public BigInteger getSliceBitMaskBI() {
-        return sliceBitMaskBI;
-    }
-
-    public int getSliceBitSize() {
-        return sliceBitSize;
-    }
-
-    public void setSlicePosition( int slicePosition ) {
-        this.slicePosition = slicePosition;
-    }
-
-    public int getSlicePosition() {
-        return slicePosition;
-    }
-
-    public void setIndex( int index ) {
-        this.sliceData[index >> BYTE_ADDRESS_SHIFT] |= asBitPosition[index & BYTE_ADDRESS_MASK];
-    }
-
-    public void clearIndex( int index ) {
-        this.sliceData[index >> BYTE_ADDRESS_SHIFT] &= ~asBitPosition[index & BYTE_ADDRESS_MASK];
-    }
-
-    public boolean isIndexSet( int index ) {
-        return (this.sliceData[index >> BYTE_ADDRESS_SHIFT] & asBitPosition[index & BYTE_ADDRESS_MASK]) != 0;
-    }
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2021 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import de.mindscan.furiousiron.hfb.io.BitwiseCalculations;
+
+/**
+ * Hold hfb filter data using a bit field.
+ * 
+ * This is one particular hfb filter related to the 'slicePositon' and 'sliceBitSize'
+ * as a hash value extractor.
+ */
+public class HFBFilterData {
+
+    // modulo by 8 (byte size in bits) is an and by 7
+    public static final int BYTE_ADDRESS_MASK = 7;
+    // divide by 8 (byte size in bits) is a shift by 3
+    public static final int BYTE_ADDRESS_SHIFT = 3;
+
+    // The position (number of bits to shift right before applying the sliceBitMask.
+    private int slicePosition;
+
+    // the number of bits for the HFB-Filter
+    private int sliceBitSize;
+
+    // the mask for the bits.
+    private long sliceBitMask;
+
+    // contains the filter data
+    private byte[] sliceData;
+    private byte[] asBitPosition = { 0x01, 0x02, 0x04, 0x08, 0x10, 0x20, 0x40, (byte) 0x80 };
+
+    private BigInteger sliceBitMaskBI;
+
+    // number of set bits in the filter data, negative if it must be calculated
+    private long cachedBitweight = -1L;
+
+    public HFBFilterData( int slicePosition, int numberOfBits ) {
+        setSlicePosition( slicePosition );
+        setSliceMaskSize( numberOfBits );
+    }
+
+    public void setSliceMaskSize( int numberOfBits ) {
+        this.sliceBitSize = numberOfBits;
+        long sliceSize = 1L << (numberOfBits);
+
+        this.sliceBitMask = sliceSize - 1L;
+        this.sliceBitMaskBI = new BigInteger( Long.toString( this.sliceBitMask ) );
+
+        // currently the number of documents in my index won't exceed my memory needs 
+        // for a couple of filters
+
+        // allocate according to sliceSize () - well maybe this is too large,
+        // but we really shouldn't care right now. I leave it for future 
+        // development and future improvements
+    }
+
+    public void initEmpty() {
+        int numberOfBits = Math.max( this.sliceBitSize - BYTE_ADDRESS_SHIFT, 0 );
+        setSliceDataInternal( new byte[1 << numberOfBits] );
+    }
+
+    public void setSliceData( byte[] filterData ) {
+        int numberOfBits = Math.max( this.sliceBitSize - BYTE_ADDRESS_SHIFT, 0 );
+        this.sliceData = Arrays.copyOf( filterData, 1 << numberOfBits );
+        this.cachedBitweight = -1L;
+    }
+
+    /**
+     * Uses the given array as filter data without copying it, e.g. to share the filter data of
+     * an archive between filters with different slices. Every change of the filter data shows
+     * up in all filters, which share the array.
+     * 
+     * @param filterData the filter data, its length must match the slice size
+     */
+    public void shareSliceData( byte[] filterData ) {
+        int numberOfBits = Math.max( this.sliceBitSize - BYTE_ADDRESS_SHIFT, 0 );
+        if (filterData.length != 1 << numberOfBits) {
+            throw new IllegalArgumentException( "Filter data length doesn't match the slice size." );
+        }
+        setSliceDataInternal( filterData );
+    }
+
+    private void setSliceDataInternal( byte[] filterData ) {
+        this.sliceData = filterData;
+        this.cachedBitweight = -1L;
+    }
+
+    public byte[] getSliceData() {
+        return this.sliceData;
+    }
+
+    /**
+     * The bit weight is calculated once and then cached, until the filter data is changed by
+     * setIndex or clearIndex. Whoever changes the slice data array directly must call
+     * {@link #setCachedBitweight(long)}.
+     * 
+     * @return the number of set bits in the filter data
+     */
+    public long getBitweight() {
+        if (cachedBitweight < 0L) {
+            cachedBitweight = BitwiseCalculations.calculateBitWeight( sliceData );
+        }
+        return cachedBitweight;
+    }
+
+    /**
+     * @param bitweight the known number of set bits in the filter data, e.g. from the metadata
+     *                  of a filter bank file, or a negative value to calculate it again on demand
+     */
+    public void setCachedBitweight( long bitweight ) {
+        this.cachedBitweight = bitweight;
+    }
+
+    public long getSliceBitMask() {
+        return sliceBitMask;
+    }
+
+    public BigInteger getSliceBitMaskBI() {
+        return sliceBitMaskBI;
+    }
+
+    public int getSliceBitSize() {
+        return sliceBitSize;
+    }
+
+    public void setSlicePosition( int slicePosition ) {
+        this.slicePosition = slicePosition;
+    }
+
+    public int getSlicePosition() {
+        return slicePosition;
+    }
+
+    /**
+     * @return true, if a second slice is xor-ed onto the slice, see {@link HFBXorFoldedFilterData}
+     */
+    public boolean isXorFolded() {
+        return false;
+    }
+
+    /**
+     * @return the position of the second slice, zero if this filter isn't xor folded
+     */
+    public int getXorSlicePosition() {
+        return 0;
+    }
+
+    /**
+     * @return the mask for the second slice, zero if this filter isn't xor folded
+     */
+    public long getXorSliceBitMask() {
+        return 0L;
+    }
+
+    public void setIndex( int index ) {
+        this.sliceData[index >> BYTE_ADDRESS_SHIFT] |= asBitPosition[index & BYTE_ADDRESS_MASK];
+        this.cachedBitweight = -1L;
+    }
+
+    public void clearIndex( int index ) {
+        this.sliceData[index >> BYTE_ADDRESS_SHIFT] &= ~asBitPosition[index & BYTE_ADDRESS_MASK];
+        this.cachedBitweight = -1L;
+    }
+
+    /**
+     * Extracts the index of this filter from a 64 bit document id, without going through a
+     * BigInteger. This is exactly the shift and mask of the hash extraction.
+     * 
+     * @param documentId the 64 bit document id
+     * @return the index into this filter
+     */
+    public int extractIndex( long documentId ) {
+        return (int) ((documentId >>> slicePosition) & sliceBitMask);
+    }
+
+    /**
+     * Extracts the index of this filter from a 128 bit document id, which is given as two 64 bit
+     * halves. A slice may span both halves.
+     * 
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return the index into this filter
+     */
+    public int extractIndex( long documentIdHi, long documentIdLo ) {
+        return HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, slicePosition, sliceBitMask );
+    }
+
+    /**
+     * Extracts the index of this filter from a document id of any size.
+     * 
+     * @param documentId the document id
+     * @return the index into this filter
+     */
+    public int extractIndex( BigInteger documentId ) {
+        BigInteger partId = documentId.shiftRight( slicePosition ).and( sliceBitMaskBI );
+        return partId.intValueExact();
+    }
+
+    /**
+     * Finds the next set index, starting at the given index. The filter data is scanned a 64 bit
+     * word at a time, so long runs of unset bits are skipped quickly.
+     * 
+     * @param fromIndex the first index to test
+     * @return the smallest set index, which is not less than fromIndex, or -1 if there is none
+     */
+    public int nextSetIndex( int fromIndex ) {
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        }
+        if (fromIndex > sliceBitMask) {
+            return -1;
+        }
+
+        int numberOfWords = (sliceData.length + 7) >> 3;
+        int wordIndex = fromIndex >>> 6;
+        long word = getWord( wordIndex ) & (-1L << (fromIndex & 63));
+
+        while (word == 0L) {
+            if (++wordIndex >= numberOfWords) {
+                return -1;
+            }
+            word = getWord( wordIndex );
+        }
+
+        int index = (wordIndex << 6) + Long.numberOfTrailingZeros( word );
+        return index <= sliceBitMask ? index : -1;
+    }
+
+    // bit i of the word is bit (i & 7) of the byte (i >> 3), the bytes are packed in little endian order
+    private long getWord( int wordIndex ) {
+        int offset = wordIndex << 3;
+        int end = Math.min( offset + 8, sliceData.length );
+
+        long result = 0L;
+        for (int i = end - 1; i >= offset; i--) {
+            result = (result << 8) | (sliceData[i] & 0xff);
+        }
+        return result;
+    }
+
+    /**
+     * @return an iterator over all set indexes of this filter in ascending order
+     */
+    public PrimitiveIterator.OfInt setIndexIterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int nextIndex = nextSetIndex( 0 );
+
+            @Override
+            public boolean hasNext() {
+                return nextIndex >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (nextIndex < 0) {
+                    throw new NoSuchElementException();
+                }
+                int result = nextIndex;
+                nextIndex = (result == sliceBitMask) ? -1 : nextSetIndex( result + 1 );
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Folds this filter by the given number of bits, see {@link #foldTo(int)}.
+     * 
+     * @param numberOfFoldedBits the number of bits, the slice is shrunk by
+     * @return the folded filter, this filter is not changed
+     */
+    public HFBFilterData fold( int numberOfFoldedBits ) {
+        return foldTo( sliceBitSize - numberOfFoldedBits );
+    }
+
+    /**
+     * Folds this filter down to a slice of the given size, by or-ing the upper parts of the 
+     * filter data onto the lower part. The folded filter uses the same slice position, but only
+     * the lower bits of the slice. Whenever an index is set in this filter, its lower bits are 
+     * set in the folded filter, so the folded filter rejects fewer document ids, but it never 
+     * rejects a document id, which this filter may contain.
+     * 
+     * @param numberOfBits the number of bits of the folded slice
+     * @return the folded filter, this filter is not changed
+     */
+    public HFBFilterData foldTo( int numberOfBits ) {
+        if (numberOfBits < 1 || numberOfBits > sliceBitSize) {
+            throw new IllegalArgumentException( "Can't fold a slice of " + sliceBitSize + " bits to " + numberOfBits + " bits." );
+        }
+
+        HFBFilterData folded = createFilterData( numberOfBits );
+        folded.initEmpty();
+
+        if (numberOfBits >= BYTE_ADDRESS_SHIFT) {
+            // the lower bits of the index keep the bit in the byte, so whole bytes can be or-ed
+            byte[] target = folded.sliceData;
+            int byteAddressMask = target.length - 1;
+            for (int i = 0; i < sliceData.length; i++) {
+                target[i & byteAddressMask] |= sliceData[i];
+            }
+        }
+        else {
+            int indexMask = (int) folded.sliceBitMask;
+            for (int index = 0; index <= sliceBitMask; index++) {
+                if (isIndexSet( index )) {
+                    folded.setIndex( index & indexMask );
+                }
+            }
+        }
+
+        return folded;
+    }
+
+    /**
+     * @param numberOfBits the number of bits of the slice
+     * @return an empty filter with the same slice positions as this filter
+     */
+    protected HFBFilterData createFilterData( int numberOfBits ) {
+        return new HFBFilterData( slicePosition, numberOfBits );
+    }
+
+    public boolean isIndexSet( int index ) {
+        return (this.sliceData[index >> BYTE_ADDRESS_SHIFT] & asBitPosition[index & BYTE_ADDRESS_MASK]) != 0;
+    }
+}
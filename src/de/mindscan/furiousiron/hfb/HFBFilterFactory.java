@@ -1,58 +1,74 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2022 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb;
-
-import java.math.BigInteger;
-
-import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
-import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
-
-/**
- * 
- */
-public class HFBFilterFactory {
-
-    private HFBFilterBankReader readerv1 = new HFBFilterBankReaderV1Impl();
-
-    public HFBFilterBank fromFile( String filePath ) {
-        if (filePath.endsWith( HFBFilterBankWriterV1Impl.FILE_SUFFIX )) {
-            return readerv1.readFromFile( filePath );
-        }
-
-        throw new IllegalArgumentException( "unknown file format." );
-    }
-
-    public HFBFilterBank neutralFilter() {
-        HFBFilterBank neutralFilterBank = new HFBFilterBank() {
-            @Override
-            public boolean containsDocumentId( BigInteger documentId ) {
-                return true;
-            }
-        };
-
-        return neutralFilterBank;
-    }
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+/**
+ * 
+ */
+public class HFBFilterFactory {
+
+    private HFBFilterBankReaderV1Impl readerv1 = new HFBFilterBankReaderV1Impl();
+
+    public HFBFilterBank fromFile( String filePath ) {
+        if (filePath.endsWith( HFBFilterBankWriterV1Impl.FILE_SUFFIX )) {
+            return readerv1.readFromFile( filePath );
+        }
+
+        throw new IllegalArgumentException( "unknown file format." );
+    }
+
+    /**
+     * Same as {@link #fromFile(String)}, but static xor filter banks are read too.
+     */
+    public HFBDocumentIdFilter filterFromFile( String filePath ) {
+        if (filePath.endsWith( HFBFilterBankWriterV1Impl.FILE_SUFFIX )) {
+            return readerv1.readFilterFromFile( filePath );
+        }
+
+        throw new IllegalArgumentException( "unknown file format." );
+    }
+
+    public HFBFilterBank neutralFilter() {
+        HFBFilterBank neutralFilterBank = new HFBFilterBank() {
+            @Override
+            public boolean containsDocumentId( BigInteger documentId ) {
+                return true;
+            }
+
+            @Override
+            public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+                return true;
+            }
+        };
+
+        return neutralFilterBank;
+    }
+}
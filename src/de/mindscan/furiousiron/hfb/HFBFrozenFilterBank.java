@@ -0,0 +1,294 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * An immutable, read-only form of a filter bank for the query path, created by 
+ * {@link HFBFilterBank#freeze()}.
+ * 
+ * Only the filters, which are applied by containsDocumentId, are kept. Their slice positions
+ * and masks are kept in parallel arrays, and the bits of all filters are packed into one 
+ * contiguous long array, each filter starting at its own word offset. The plain filters come
+ * first, followed by the xor folded filters, so only the latter pay for a second extraction. The bit for index i of
+ * a filter is bit (i &amp; 63) of the word (i &gt;&gt;&gt; 6), which is the same bit as in the 
+ * byte array of {@link HFBFilterData}, when the bytes are packed in little endian order.
+ * 
+ * A frozen {@link HFBExactFilterBank} has no filters, it keeps a copy of the sorted document 
+ * ids instead. A frozen {@link HFBBlockedFilterBank} keeps a copy of its block data in the bits
+ * array, and a frozen {@link HFBScalableFilterBank} keeps one frozen filter bank per generation.
+ */
+public final class HFBFrozenFilterBank implements HFBDocumentIdFilter {
+
+    // divide by 64 (long size in bits) is a shift by 6
+    private static final int WORD_ADDRESS_SHIFT = 6;
+
+    private final int bitsInDocumentId;
+    private final long occurrenceCount;
+    private final int loadFactor;
+
+    private final int[] slicePositions;
+    private final long[] sliceBitMasks;
+    // xor slice positions of the filters starting at numberOfPlainFilters
+    private final int[] xorSlicePositions;
+    private final int numberOfPlainFilters;
+    private final int[] wordOffsets;
+    private final long[] bits;
+
+    // sorted document ids of a frozen exact filter bank, null for filter data
+    private final long[] exactDocumentIds;
+
+    // geometry of a frozen blocked filter bank, the bits are the block data, null for filter data
+    private final int[] probeSlicePositions;
+    private final int blockSlicePosition;
+    private final long blockSliceBitMask;
+
+    // frozen generations of a scalable filter bank, null for filter data
+    private final HFBFrozenFilterBank[] generations;
+
+    HFBFrozenFilterBank( HFBFilterBank filterBank ) {
+        this.bitsInDocumentId = filterBank.getBitsInDocumentId();
+        this.occurrenceCount = filterBank.getOccurrenceCount();
+        this.loadFactor = filterBank.getLoadFactor();
+
+        int numberOfFilters = filterBank.getNumberOfAppliedFilters();
+
+        // plain filters first, then the xor folded ones, each in the order of the filter bank
+        HFBFilterData[] filters = new HFBFilterData[numberOfFilters];
+        int numberOfPlainFilters = 0;
+        for (int i = 0; i < numberOfFilters; i++) {
+            if (!filterBank.getFilterData( i ).isXorFolded()) {
+                filters[numberOfPlainFilters++] = filterBank.getFilterData( i );
+            }
+        }
+        int numberOfSortedFilters = numberOfPlainFilters;
+        for (int i = 0; i < numberOfFilters; i++) {
+            if (filterBank.getFilterData( i ).isXorFolded()) {
+                filters[numberOfSortedFilters++] = filterBank.getFilterData( i );
+            }
+        }
+
+        this.numberOfPlainFilters = numberOfPlainFilters;
+        this.slicePositions = new int[numberOfFilters];
+        this.sliceBitMasks = new long[numberOfFilters];
+        this.xorSlicePositions = new int[numberOfFilters - numberOfPlainFilters];
+        this.wordOffsets = new int[numberOfFilters];
+
+        int numberOfWords = 0;
+        for (int i = 0; i < numberOfFilters; i++) {
+            HFBFilterData filterData = filters[i];
+            slicePositions[i] = filterData.getSlicePosition();
+            sliceBitMasks[i] = filterData.getSliceBitMask();
+            if (i >= numberOfPlainFilters) {
+                xorSlicePositions[i - numberOfPlainFilters] = filterData.getXorSlicePosition();
+            }
+            wordOffsets[i] = numberOfWords;
+            numberOfWords += (filterData.getSliceData().length + 7) >> 3;
+        }
+        this.exactDocumentIds = null;
+        this.probeSlicePositions = null;
+        this.blockSlicePosition = 0;
+        this.blockSliceBitMask = 0L;
+        this.generations = null;
+
+        this.bits = new long[numberOfWords];
+        for (int i = 0; i < numberOfFilters; i++) {
+            byte[] sliceData = filters[i].getSliceData();
+            for (int b = 0; b < sliceData.length; b++) {
+                bits[wordOffsets[i] + (b >> 3)] |= (sliceData[b] & 0xffL) << ((b & 7) << 3);
+            }
+        }
+    }
+
+    HFBFrozenFilterBank( HFBExactFilterBank filterBank ) {
+        this.bitsInDocumentId = filterBank.getBitsInDocumentId();
+        this.occurrenceCount = filterBank.getOccurrenceCount();
+        this.loadFactor = filterBank.getLoadFactor();
+
+        this.slicePositions = new int[0];
+        this.sliceBitMasks = new long[0];
+        this.xorSlicePositions = new int[0];
+        this.numberOfPlainFilters = 0;
+        this.wordOffsets = new int[0];
+        this.bits = new long[0];
+
+        this.exactDocumentIds = filterBank.getDocumentIds();
+        this.probeSlicePositions = null;
+        this.blockSlicePosition = 0;
+        this.blockSliceBitMask = 0L;
+        this.generations = null;
+    }
+
+    HFBFrozenFilterBank( HFBBlockedFilterBank filterBank ) {
+        this.bitsInDocumentId = filterBank.getBitsInDocumentId();
+        this.occurrenceCount = filterBank.getOccurrenceCount();
+        this.loadFactor = filterBank.getLoadFactor();
+
+        this.slicePositions = new int[0];
+        this.sliceBitMasks = new long[0];
+        this.xorSlicePositions = new int[0];
+        this.numberOfPlainFilters = 0;
+        this.wordOffsets = new int[0];
+        this.bits = filterBank.getBlockData().clone();
+
+        this.exactDocumentIds = null;
+        this.probeSlicePositions = new int[filterBank.getNumberOfProbes()];
+        for (int probe = 0; probe < probeSlicePositions.length; probe++) {
+            probeSlicePositions[probe] = filterBank.getProbeSlicePosition( probe );
+        }
+        this.blockSlicePosition = filterBank.getBlockSlicePosition();
+        this.blockSliceBitMask = (1L << filterBank.getBlockSliceBitSize()) - 1L;
+        this.generations = null;
+    }
+
+    HFBFrozenFilterBank( HFBScalableFilterBank filterBank ) {
+        this.bitsInDocumentId = filterBank.getBitsInDocumentId();
+        this.occurrenceCount = filterBank.getOccurrenceCount();
+        this.loadFactor = filterBank.getLoadFactor();
+
+        this.slicePositions = new int[0];
+        this.sliceBitMasks = new long[0];
+        this.xorSlicePositions = new int[0];
+        this.numberOfPlainFilters = 0;
+        this.wordOffsets = new int[0];
+        this.bits = new long[0];
+
+        this.exactDocumentIds = null;
+        this.probeSlicePositions = null;
+        this.blockSlicePosition = 0;
+        this.blockSliceBitMask = 0L;
+
+        HFBFilterBank[] current = filterBank.getGenerations();
+        this.generations = new HFBFrozenFilterBank[current.length];
+        for (int i = 0; i < current.length; i++) {
+            generations[i] = current[i].freeze();
+        }
+    }
+
+    public boolean containsDocumentId( BigInteger documentId ) {
+        return containsDocumentId( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return false, if the document id is definitely not contained, true if it may be contained.
+     */
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        if (exactDocumentIds != null) {
+            return HFBExactFilterBank.containsSorted( exactDocumentIds, exactDocumentIds.length >> 1, documentIdHi, documentIdLo );
+        }
+        if (generations != null) {
+            for (int i = generations.length - 1; i >= 0; i--) {
+                if (generations[i].containsDocumentId( documentIdHi, documentIdLo )) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (probeSlicePositions != null) {
+            return containsBlockedDocumentId( documentIdHi, documentIdLo );
+        }
+
+        for (int i = 0; i < numberOfPlainFilters; i++) {
+            int index = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, slicePositions[i], sliceBitMasks[i] );
+            if (((bits[wordOffsets[i] + (index >>> WORD_ADDRESS_SHIFT)] >>> index) & 1L) == 0L) {
+                return false;
+            }
+        }
+
+        for (int i = numberOfPlainFilters; i < slicePositions.length; i++) {
+            int index = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, slicePositions[i], sliceBitMasks[i] )
+                            ^ HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, xorSlicePositions[i - numberOfPlainFilters], sliceBitMasks[i] );
+            if (((bits[wordOffsets[i] + (index >>> WORD_ADDRESS_SHIFT)] >>> index) & 1L) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // same as HFBBlockedFilterBank.containsDocumentId on the copy of the block data
+    private boolean containsBlockedDocumentId( long documentIdHi, long documentIdLo ) {
+        int blockOffset = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, blockSlicePosition, blockSliceBitMask ) << HFBBlockedFilterBank.BLOCK_WORD_SHIFT;
+
+        for (int probe = 0; probe < probeSlicePositions.length; probe++) {
+            int bit = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, probeSlicePositions[probe], HFBBlockedFilterBank.BLOCK_ADDRESS_MASK );
+            if ((bits[blockOffset + (bit >>> WORD_ADDRESS_SHIFT)] & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIds( long[] candidateIds ) {
+        return filterDocumentIds( candidateIds, 0, HFBDocumentIds.count( candidateIds ) );
+    }
+
+    /**
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param fromIndex index of the first document id (inclusive)
+     * @param toIndex index of the last document id (exclusive)
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIds( long[] candidateIds, int fromIndex, int toIndex ) {
+        long[] survivors = new long[(toIndex - fromIndex) << 1];
+        int survivorsLength = 0;
+
+        for (int i = fromIndex << 1; i < (toIndex << 1); i += 2) {
+            long documentIdHi = candidateIds[i];
+            long documentIdLo = candidateIds[i + 1];
+
+            if (containsDocumentId( documentIdHi, documentIdLo )) {
+                survivors[survivorsLength++] = documentIdHi;
+                survivors[survivorsLength++] = documentIdLo;
+            }
+        }
+
+        return Arrays.copyOf( survivors, survivorsLength );
+    }
+
+    public int getNumberOfFilters() {
+        return slicePositions.length;
+    }
+
+    public int getBitsInDocumentId() {
+        return bitsInDocumentId;
+    }
+
+    public long getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public int getLoadFactor() {
+        return loadFactor;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+
+/**
+ * A half open range [lo, hi) of document ids, the document ids are treated as non negative 
+ * values.
+ */
+public final class HFBIdRange {
+
+    private final BigInteger lo;
+    private final BigInteger hi;
+
+    public HFBIdRange( BigInteger lo, BigInteger hi ) {
+        if (lo.compareTo( hi ) >= 0) {
+            throw new IllegalArgumentException( "The range [" + lo + ", " + hi + ") is empty." );
+        }
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * @return the first document id of the range (inclusive)
+     */
+    public BigInteger getLo() {
+        return lo;
+    }
+
+    /**
+     * @return the first document id after the range (exclusive)
+     */
+    public BigInteger getHi() {
+        return hi;
+    }
+
+    public boolean contains( BigInteger documentId ) {
+        return lo.compareTo( documentId ) <= 0 && documentId.compareTo( hi ) < 0;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HFBIdRange)) {
+            return false;
+        }
+        HFBIdRange other = (HFBIdRange) obj;
+        return lo.equals( other.lo ) && hi.equals( other.hi );
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * lo.hashCode() + hi.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lo.toString( 16 ) + ", " + hi.toString( 16 ) + ")";
+    }
+}
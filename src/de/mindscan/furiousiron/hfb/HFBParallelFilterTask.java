@@ -0,0 +1,69 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a range of chunks of candidate document ids until a single chunk is left, which is
+ * then filtered by the filter bank. Each chunk writes its survivors into its own slot, so the
+ * chunks don't share any mutable state and the survivors can be merged in order afterwards.
+ */
+class HFBParallelFilterTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 4529740861397125233L;
+
+    // 4096 document ids of 16 bytes are 64 KBytes of candidates per chunk
+    static final int CHUNK_SIZE = 4096;
+
+    private final HFBFilterBank filterBank;
+    private final long[] candidateIds;
+    private final long[][] chunkSurvivors;
+    private final int fromChunk;
+    private final int toChunk;
+
+    HFBParallelFilterTask( HFBFilterBank filterBank, long[] candidateIds, long[][] chunkSurvivors, int fromChunk, int toChunk ) {
+        this.filterBank = filterBank;
+        this.candidateIds = candidateIds;
+        this.chunkSurvivors = chunkSurvivors;
+        this.fromChunk = fromChunk;
+        this.toChunk = toChunk;
+    }
+
+    @Override
+    protected void compute() {
+        if (toChunk - fromChunk == 1) {
+            int fromIndex = fromChunk * CHUNK_SIZE;
+            int toIndex = Math.min( fromIndex + CHUNK_SIZE, HFBDocumentIds.count( candidateIds ) );
+            chunkSurvivors[fromChunk] = filterBank.filterDocumentIds( candidateIds, fromIndex, toIndex );
+            return;
+        }
+
+        int middleChunk = (fromChunk + toChunk) >>> 1;
+        invokeAll( new HFBParallelFilterTask( filterBank, candidateIds, chunkSurvivors, fromChunk, middleChunk ),
+                        new HFBParallelFilterTask( filterBank, candidateIds, chunkSurvivors, middleChunk, toChunk ) );
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Turns the top slice of a filter bank into sorted ranges of document ids. The top slice is 
+ * the slice at the highest position, which ends at the highest bit of the document id, so each 
+ * of its indexes is a prefix of the document ids. Every document id of the filter bank starts 
+ * with the prefix of a set index, so a scan over a store, which is sorted by document id, can
+ * seek from range to range and skip all document ids in between. Adjacent prefixes are merged
+ * into one range.
+ * 
+ * The document ids are treated as non negative values below 2^bitsInDocumentId.
+ */
+public class HFBPrefixRangeGenerator implements Iterator<HFBIdRange> {
+
+    private final HFBFilterData topSlice;
+    private final int slicePosition;
+    private final long numberOfIndexes;
+
+    private int nextIndex;
+
+    /**
+     * @param filterBank the filter bank, which must contain a top slice
+     */
+    public HFBPrefixRangeGenerator( HFBFilterBank filterBank ) {
+        this( findTopSlice( filterBank ), filterBank.getBitsInDocumentId() );
+    }
+
+    /**
+     * @param topSlice the filter of the top slice
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     */
+    public HFBPrefixRangeGenerator( HFBFilterData topSlice, int bitsInDocumentId ) {
+        if (!isTopSlice( topSlice, bitsInDocumentId )) {
+            throw new IllegalArgumentException( "The filter doesn't end at the highest bit of the document id." );
+        }
+        this.topSlice = topSlice;
+        this.slicePosition = topSlice.getSlicePosition();
+        this.numberOfIndexes = topSlice.getSliceBitMask() + 1L;
+        this.nextIndex = topSlice.nextSetIndex( 0 );
+    }
+
+    static boolean isTopSlice( HFBFilterData filterData, int bitsInDocumentId ) {
+        return !filterData.isXorFolded() && filterData.getSlicePosition() + filterData.getSliceBitSize() == bitsInDocumentId;
+    }
+
+    /**
+     * @param filterBank the filter bank
+     * @return the filter, which ends at the highest bit of the document id
+     * @throws IllegalArgumentException if the filter bank has no such filter, e.g. if it was 
+     *         saved without it
+     */
+    public static HFBFilterData findTopSlice( HFBFilterBank filterBank ) {
+        for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+            HFBFilterData filterData = filterBank.getFilterData( i );
+            if (isTopSlice( filterData, filterBank.getBitsInDocumentId() )) {
+                return filterData;
+            }
+        }
+        throw new IllegalArgumentException( "The filter bank has no top slice." );
+    }
+
+    /**
+     * @param filterBank the filter bank, which must contain a top slice
+     * @return all ranges in ascending order
+     */
+    public static List<HFBIdRange> generateRanges( HFBFilterBank filterBank ) {
+        List<HFBIdRange> result = new ArrayList<>();
+        HFBPrefixRangeGenerator generator = new HFBPrefixRangeGenerator( filterBank );
+        while (generator.hasNext()) {
+            result.add( generator.next() );
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextIndex >= 0;
+    }
+
+    @Override
+    public HFBIdRange next() {
+        if (nextIndex < 0) {
+            throw new NoSuchElementException();
+        }
+
+        int firstIndex = nextIndex;
+        int lastIndex = firstIndex;
+        while (lastIndex + 1L < numberOfIndexes && topSlice.isIndexSet( lastIndex + 1 )) {
+            lastIndex++;
+        }
+
+        nextIndex = (lastIndex + 1L < numberOfIndexes) ? topSlice.nextSetIndex( lastIndex + 1 ) : -1;
+
+        return new HFBIdRange( BigInteger.valueOf( firstIndex ).shiftLeft( slicePosition ),
+                        BigInteger.valueOf( lastIndex + 1L ).shiftLeft( slicePosition ) );
+    }
+
+    /**
+     * Skips all ranges, which end before the given document id. The next range either contains 
+     * the given document id or starts after it. This is the seek of a merge with a sorted scan.
+     * 
+     * @param documentId the document id to seek to
+     */
+    public void seek( BigInteger documentId ) {
+        BigInteger prefix = documentId.shiftRight( slicePosition );
+        if (prefix.compareTo( BigInteger.valueOf( numberOfIndexes ) ) >= 0) {
+            nextIndex = -1;
+            return;
+        }
+
+        int index = prefix.intValueExact();
+        if (nextIndex >= 0 && index > nextIndex) {
+            // continue at the start of the range, which contains the document id
+            nextIndex = topSlice.isIndexSet( index ) ? index : topSlice.nextSetIndex( index );
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+/**
+ * Result of preloading a directory of filter banks.
+ */
+public class HFBPreloadReport {
+
+    private final int numberOfFilterBanks;
+    private final long residentBytes;
+    private final long elapsedNanos;
+
+    public HFBPreloadReport( int numberOfFilterBanks, long residentBytes, long elapsedNanos ) {
+        this.numberOfFilterBanks = numberOfFilterBanks;
+        this.residentBytes = residentBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getNumberOfFilterBanks() {
+        return numberOfFilterBanks;
+    }
+
+    /**
+     * @return the number of bytes of filter data, which were loaded into memory
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "%d filter banks, %.1f MB resident, loaded in %.3f s", numberOfFilterBanks, residentBytes / (1024.0d * 1024.0d),
+                        elapsedNanos / 1_000_000_000.0d );
+    }
+}
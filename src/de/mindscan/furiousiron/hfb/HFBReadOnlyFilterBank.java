@@ -0,0 +1,94 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+
+/**
+ * A read-only view of a filter bank, whose filter data is shared with other filter banks, e.g.
+ * the filter banks of an archive. Only the read-only methods are passed on, neither document
+ * ids can be added, nor can the filter data be reached, so a change can't show up in the other
+ * filter banks, which share it.
+ */
+public final class HFBReadOnlyFilterBank implements HFBDocumentIdFilter {
+
+    private final HFBFilterBank filterBank;
+
+    /**
+     * @param filterBank the filter bank, which must not be exposed anywhere else
+     */
+    public HFBReadOnlyFilterBank( HFBFilterBank filterBank ) {
+        this.filterBank = filterBank;
+    }
+
+    @Override
+    public boolean containsDocumentId( BigInteger documentId ) {
+        return filterBank.containsDocumentId( documentId );
+    }
+
+    @Override
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        return filterBank.containsDocumentId( documentIdHi, documentIdLo );
+    }
+
+    @Override
+    public long[] filterDocumentIds( long[] candidateIds ) {
+        return filterBank.filterDocumentIds( candidateIds );
+    }
+
+    /**
+     * @param candidateIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @return the surviving document ids as pairs of longs
+     */
+    public long[] filterDocumentIdsBatched( long[] candidateIds ) {
+        return filterBank.filterDocumentIdsBatched( candidateIds );
+    }
+
+    /**
+     * @return an immutable copy of the filter bank, see {@link HFBFilterBank#freeze()}
+     */
+    public HFBFrozenFilterBank freeze() {
+        return filterBank.freeze();
+    }
+
+    public int getNumberOfFilters() {
+        return filterBank.getNumberOfFilters();
+    }
+
+    @Override
+    public int getBitsInDocumentId() {
+        return filterBank.getBitsInDocumentId();
+    }
+
+    @Override
+    public long getOccurrenceCount() {
+        return filterBank.getOccurrenceCount();
+    }
+
+    public int getLoadFactor() {
+        return filterBank.getLoadFactor();
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answers the opposite question of {@link HFBFilterBank#containsDocumentId(BigInteger)}: given
+ * one document id, which of many filter banks may contain it. 
+ * 
+ * The filter data of all filter banks is transposed. For each filter and each slice value the 
+ * index keeps a bitmap over the bank ordinals, a bit is set, if the filter of that filter bank
+ * has the slice value set. A document id is then answered by AND-ing one bitmap per filter, 
+ * instead of asking every filter bank on its own.
+ * 
+ * All filter banks must share the same slice geometry, e.g. filter banks compiled for the 
+ * same number of documents. The index needs (2^sliceBitSize * numberOfBanks) bits per filter.
+ * 
+ * Filter banks without filter data, e.g. exact, xor or blocked filter banks, can't be 
+ * transposed. They are kept aside and asked on their own for every document id.
+ */
+public class HFBReverseIndex {
+
+    // divide by 64 (long size in bits) is a shift by 6
+    private static final int WORD_ADDRESS_SHIFT = 6;
+
+    private final int numberOfBanks;
+    private final int wordsPerBitmap;
+
+    // bitmap over the bank ordinals of the filter banks with filter data
+    private final long[] indexedBanks;
+
+    // filter banks without filter data and their ordinals
+    private final HFBDocumentIdFilter[] filterlessBanks;
+    private final int[] filterlessOrdinals;
+
+    private final HFBFilterData[] filters;
+    private final long[][] bitmaps;
+
+    /**
+     * Builds the index over the filters, which are applied by containsDocumentId.
+     * 
+     * @param filterBanks the filter banks, the position in the list is the bank ordinal
+     */
+    public HFBReverseIndex( List<? extends HFBDocumentIdFilter> filterBanks ) {
+        this( filterBanks, getNumberOfAppliedFilters( filterBanks ) );
+    }
+
+    /**
+     * @param filterBanks the filter banks, the position in the list is the bank ordinal
+     * @param numberOfFilters number of filters per filter bank to build the index for
+     */
+    public HFBReverseIndex( List<? extends HFBDocumentIdFilter> filterBanks, int numberOfFilters ) {
+        if (filterBanks.isEmpty()) {
+            throw new IllegalArgumentException( "At least one filter bank is required." );
+        }
+
+        HFBFilterBank first = findFirstBankWithFilters( filterBanks );
+        int numberOfIndexedFilters = first == null ? 0 : Math.min( numberOfFilters, first.getNumberOfFilters() );
+        checkSameGeometry( filterBanks, first, numberOfIndexedFilters );
+
+        this.numberOfBanks = filterBanks.size();
+        this.wordsPerBitmap = (numberOfBanks + 63) >>> WORD_ADDRESS_SHIFT;
+        this.indexedBanks = new long[wordsPerBitmap];
+        this.filters = new HFBFilterData[numberOfIndexedFilters];
+        this.bitmaps = new long[numberOfIndexedFilters][];
+
+        int numberOfFilterlessBanks = 0;
+        for (HFBDocumentIdFilter filterBank : filterBanks) {
+            if (withFilters( filterBank ) == null) {
+                numberOfFilterlessBanks++;
+            }
+        }
+        this.filterlessBanks = new HFBDocumentIdFilter[numberOfFilterlessBanks];
+        this.filterlessOrdinals = new int[numberOfFilterlessBanks];
+
+        for (int f = 0; f < numberOfIndexedFilters; f++) {
+            filters[f] = first.getFilterData( f );
+
+            long size = (1L << filters[f].getSliceBitSize()) * wordsPerBitmap;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException( "Too many filter banks for this slice size." );
+            }
+            bitmaps[f] = new long[(int) size];
+        }
+
+        int filterlessBank = 0;
+        for (int bank = 0; bank < numberOfBanks; bank++) {
+            int word = bank >>> WORD_ADDRESS_SHIFT;
+            long bankBit = 1L << bank;
+
+            HFBFilterBank bankWithFilters = withFilters( filterBanks.get( bank ) );
+            if (bankWithFilters == null) {
+                filterlessBanks[filterlessBank] = filterBanks.get( bank );
+                filterlessOrdinals[filterlessBank] = bank;
+                filterlessBank++;
+                continue;
+            }
+            indexedBanks[word] |= bankBit;
+
+            for (int f = 0; f < numberOfIndexedFilters; f++) {
+                byte[] sliceData = bankWithFilters.getFilterData( f ).getSliceData();
+                long[] bitmap = bitmaps[f];
+                int numberOfIndexes = 1 << filters[f].getSliceBitSize();
+
+                for (int b = 0; b < sliceData.length; b++) {
+                    int bits = sliceData[b] & 0xff;
+                    while (bits != 0) {
+                        int index = (b << HFBFilterData.BYTE_ADDRESS_SHIFT) + Integer.numberOfTrailingZeros( bits );
+                        if (index < numberOfIndexes) {
+                            bitmap[index * wordsPerBitmap + word] |= bankBit;
+                        }
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the filter bank, if it has filter data, which can be transposed, otherwise null
+     */
+    private static HFBFilterBank withFilters( HFBDocumentIdFilter filter ) {
+        if (filter instanceof HFBFilterBank && ((HFBFilterBank) filter).getNumberOfFilters() > 0) {
+            return (HFBFilterBank) filter;
+        }
+        return null;
+    }
+
+    private static HFBFilterBank findFirstBankWithFilters( List<? extends HFBDocumentIdFilter> filterBanks ) {
+        for (HFBDocumentIdFilter filterBank : filterBanks) {
+            if (withFilters( filterBank ) != null) {
+                return (HFBFilterBank) filterBank;
+            }
+        }
+        return null;
+    }
+
+    private static int getNumberOfAppliedFilters( List<? extends HFBDocumentIdFilter> filterBanks ) {
+        HFBFilterBank first = findFirstBankWithFilters( filterBanks );
+        return first == null ? 0 : first.getNumberOfAppliedFilters();
+    }
+
+    private static void checkSameGeometry( List<? extends HFBDocumentIdFilter> filterBanks, HFBFilterBank first, int numberOfFilters ) {
+        for (HFBDocumentIdFilter filter : filterBanks) {
+            HFBFilterBank filterBank = withFilters( filter );
+            if (filterBank == null) {
+                continue;
+            }
+            if (filterBank.getNumberOfFilters() < numberOfFilters) {
+                throw new IllegalArgumentException( "All filter banks must share the same slice geometry." );
+            }
+            for (int f = 0; f < numberOfFilters; f++) {
+                HFBFilterData expected = first.getFilterData( f );
+                HFBFilterData filterData = filterBank.getFilterData( f );
+                if (filterData.getSlicePosition() != expected.getSlicePosition() || filterData.getSliceBitSize() != expected.getSliceBitSize()
+                                || filterData.getXorSliceBitMask() != expected.getXorSliceBitMask()
+                                || filterData.getXorSlicePosition() != expected.getXorSlicePosition()) {
+                    throw new IllegalArgumentException( "All filter banks must share the same slice geometry." );
+                }
+            }
+        }
+    }
+
+    public int getNumberOfBanks() {
+        return numberOfBanks;
+    }
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return a bitmap over the bank ordinals, a bit is set, if the filter bank may contain the 
+     *         document id, bank ordinal i is bit (i &amp; 63) of word (i &gt;&gt;&gt; 6)
+     */
+    public long[] findCandidateBanks( long documentIdHi, long documentIdLo ) {
+        long[] result = Arrays.copyOf( indexedBanks, wordsPerBitmap );
+
+        for (int f = 0; f < filters.length; f++) {
+            int offset = filters[f].extractIndex( documentIdHi, documentIdLo ) * wordsPerBitmap;
+            long[] bitmap = bitmaps[f];
+
+            long any = 0L;
+            for (int w = 0; w < wordsPerBitmap; w++) {
+                result[w] &= bitmap[offset + w];
+                any |= result[w];
+            }
+            if (any == 0L) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < filterlessBanks.length; i++) {
+            if (filterlessBanks[i].containsDocumentId( documentIdHi, documentIdLo )) {
+                int bank = filterlessOrdinals[i];
+                result[bank >>> WORD_ADDRESS_SHIFT] |= 1L << bank;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return the ordinals of the filter banks, which may contain the document id, ascending
+     */
+    public int[] findCandidateBankOrdinals( long documentIdHi, long documentIdLo ) {
+        long[] candidateBanks = findCandidateBanks( documentIdHi, documentIdLo );
+
+        int count = 0;
+        for (long word : candidateBanks) {
+            count += Long.bitCount( word );
+        }
+
+        int[] result = new int[count];
+        int i = 0;
+        for (int w = 0; w < candidateBanks.length; w++) {
+            long word = candidateBanks[w];
+            while (word != 0L) {
+                result[i++] = (w << WORD_ADDRESS_SHIFT) + Long.numberOfTrailingZeros( word );
+                word &= word - 1L;
+            }
+        }
+        return result;
+    }
+
+    public int[] findCandidateBankOrdinals( BigInteger documentId ) {
+        return findCandidateBankOrdinals( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+}
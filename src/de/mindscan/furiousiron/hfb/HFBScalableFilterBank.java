@@ -0,0 +1,306 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import de.mindscan.furiousiron.hfb.layout.HFBSliceLayout;
+
+/**
+ * A filter bank, which keeps growing while document ids are added. 
+ * 
+ * A regular filter bank is sized once from the number of documents, so each additional 
+ * document id raises its false positive rate. This filter bank consists of generations of
+ * regular filter banks. Document ids are always added to the newest generation, and once its
+ * estimated fill passes a threshold, a new and larger generation is started. A document id
+ * may be contained, if any of the generations may contain it.
+ * 
+ * Later the generations can be compacted into one filter bank, which is rebuilt from the 
+ * document ids. Compaction can run in the background, while lookups and additions continue.
+ * 
+ * Document ids must be added by a single thread, lookups may happen concurrently.
+ */
+public class HFBScalableFilterBank extends HFBFilterBank {
+
+    // a fill of 20% is a rejection rate of 80% for each filter step
+    public static final double DEFAULT_FILL_THRESHOLD = 0.2d;
+    public static final int DEFAULT_GROWTH_FACTOR = 2;
+
+    private volatile HFBFilterBank[] generations = new HFBFilterBank[0];
+
+    private double fillThreshold = DEFAULT_FILL_THRESHOLD;
+    private int growthFactor = DEFAULT_GROWTH_FACTOR;
+    private HFBSliceLayout sliceLayout = HFBSliceLayout.CONTIGUOUS;
+
+    private long newestGenerationCapacity;
+    private long documentsInNewestGeneration;
+
+    /**
+     * 
+     */
+    public HFBScalableFilterBank() {
+    }
+
+    /**
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount initial number of documents for a particular value
+     * @param loadFactor set it to 5 (five)
+     * @param sliceLayout the slice layout of every generation
+     */
+    @Override
+    public synchronized void initFilters( int bitsInDocumentId, long occurenceCount, int loadFactor, HFBSliceLayout sliceLayout ) {
+        initFiltersLazy( bitsInDocumentId, occurenceCount, loadFactor );
+        this.sliceLayout = sliceLayout;
+        this.generations = new HFBFilterBank[0];
+        startGeneration( occurenceCount );
+    }
+
+    public void setFillThreshold( double fillThreshold ) {
+        this.fillThreshold = fillThreshold;
+    }
+
+    public void setGrowthFactor( int growthFactor ) {
+        this.growthFactor = growthFactor;
+    }
+
+    public int getNumberOfGenerations() {
+        return generations.length;
+    }
+
+    public HFBFilterBank getGeneration( int generation ) {
+        return generations[generation];
+    }
+
+    HFBFilterBank[] getGenerations() {
+        return generations;
+    }
+
+    private synchronized void startGeneration( long capacity ) {
+        HFBFilterBank generation = new HFBFilterBank();
+        generation.initFilters( getBitsInDocumentId(), capacity, getLoadFactor(), sliceLayout );
+
+        HFBFilterBank[] grown = Arrays.copyOf( generations, generations.length + 1 );
+        grown[generations.length] = generation;
+
+        this.newestGenerationCapacity = capacity;
+        this.documentsInNewestGeneration = 0;
+        this.generations = grown;
+    }
+
+    /**
+     * The fill of the newest generation is estimated from the number of added documents and
+     * the slice size, so no bits have to be counted.
+     * 
+     * @return the estimated fraction of set bits in the filters of the newest generation
+     */
+    public double estimateFillOfNewestGeneration() {
+        HFBFilterBank newest = generations[generations.length - 1];
+        long sliceSize = 1L << newest.getFilterData( 0 ).getSliceBitSize();
+        return 1.0d - Math.exp( -(double) documentsInNewestGeneration / (double) sliceSize );
+    }
+
+    private void growIfNeeded() {
+        if (estimateFillOfNewestGeneration() > fillThreshold) {
+            startGeneration( newestGenerationCapacity * growthFactor );
+        }
+    }
+
+    @Override
+    public synchronized void addDocumentId( BigInteger documentId ) {
+        growIfNeeded();
+        generations[generations.length - 1].addDocumentId( documentId );
+        documentsInNewestGeneration++;
+    }
+
+    @Override
+    public synchronized void addDocumentId( long documentIdHi, long documentIdLo ) {
+        growIfNeeded();
+        generations[generations.length - 1].addDocumentId( documentIdHi, documentIdLo );
+        documentsInNewestGeneration++;
+    }
+
+    @Override
+    public synchronized void addDocumentIds( Collection<BigInteger> documentIds ) {
+        for (BigInteger documentId : documentIds) {
+            addDocumentId( documentId );
+        }
+    }
+
+    @Override
+    public boolean containsDocumentId( BigInteger documentId ) {
+        HFBFilterBank[] current = generations;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].containsDocumentId( documentId )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        HFBFilterBank[] current = generations;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].containsDocumentId( documentIdHi, documentIdLo )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long[] filterDocumentIdsBatched( long[] candidateIds, int groupSize ) {
+        checkGroupSize( groupSize );
+        return filterDocumentIds( candidateIds );
+    }
+
+    /**
+     * Rebuilds all generations into a single filter bank, sized for all document ids of the
+     * given source. The source must provide every document id, which was added to this 
+     * filter bank so far. Unless document ids are added concurrently, the compacted filter 
+     * bank is the only generation afterwards, so it can be written.
+     * 
+     * @param source source of all document ids of this filter bank
+     */
+    public void compact( HFBDocumentIdSource source ) {
+        int sealedGenerations = sealNewestGeneration();
+        replaceGenerations( sealedGenerations, compileGeneration( source ) );
+    }
+
+    /**
+     * Same as {@link #compact(HFBDocumentIdSource)}, but the filter bank is rebuilt in the 
+     * background. Document ids added in the meantime are kept in a new generation, which 
+     * survives the compaction. 
+     * 
+     * @param source source of all document ids added to this filter bank so far
+     * @param executor the executor to rebuild the filter bank on
+     * @return completes, when the compacted filter bank is in use
+     */
+    public CompletableFuture<Void> compactInBackground( HFBDocumentIdSource source, Executor executor ) {
+        int sealedGenerations = sealNewestGeneration();
+
+        return CompletableFuture.supplyAsync( () -> compileGeneration( source ), executor )
+                        .thenAccept( compacted -> replaceGenerations( sealedGenerations, compacted ) );
+    }
+
+    /**
+     * Every generation needs filter data, so a small set of document ids, which is compiled 
+     * into an exact filter bank, is moved into a regular filter bank.
+     */
+    private static HFBFilterBank compileGeneration( HFBDocumentIdSource source ) {
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+        HFBFilterBank compacted = compiler.compileFilter( source );
+        if (compacted instanceof HFBExactFilterBank) {
+            HFBFilterBank regularFilterBank = compiler.createEmptyFilter( compacted.getOccurrenceCount() );
+            ((HFBExactFilterBank) compacted).copyDocumentIdsTo( regularFilterBank );
+            return regularFilterBank;
+        }
+        return compacted;
+    }
+
+    /**
+     * Starts a new generation, such that the existing generations are no longer modified.
+     * 
+     * @return the number of sealed generations
+     */
+    private synchronized int sealNewestGeneration() {
+        int sealedGenerations = generations.length;
+        startGeneration( newestGenerationCapacity );
+        return sealedGenerations;
+    }
+
+    private synchronized void replaceGenerations( int sealedGenerations, HFBFilterBank compacted ) {
+        HFBFilterBank[] current = generations;
+
+        if (current.length - sealedGenerations == 1 && documentsInNewestGeneration == 0) {
+            // nothing was added since the generations were sealed, the compacted filter bank becomes the newest generation
+            this.newestGenerationCapacity = Math.max( compacted.getOccurrenceCount(), HFBFilterBankCompiler.MINIMUM_NUMBER_OF_DOCUMENTS );
+            this.documentsInNewestGeneration = compacted.getOccurrenceCount();
+            this.generations = new HFBFilterBank[] { compacted };
+            return;
+        }
+
+        HFBFilterBank[] replaced = new HFBFilterBank[current.length - sealedGenerations + 1];
+        replaced[0] = compacted;
+        System.arraycopy( current, sealedGenerations, replaced, 1, current.length - sealedGenerations );
+
+        this.generations = replaced;
+    }
+
+    /**
+     * Folds each generation, see {@link HFBFilterBank#fold(int)}. Document ids, which are added
+     * to the folded filter bank, are added to its folded newest generation.
+     */
+    @Override
+    public HFBFilterBank fold( int numberOfFoldedBits ) {
+        HFBFilterBank[] current = generations;
+        HFBFilterBank[] folded = new HFBFilterBank[current.length];
+        for (int i = 0; i < current.length; i++) {
+            folded[i] = current[i].fold( numberOfFoldedBits );
+        }
+        return copyWithGenerations( folded );
+    }
+
+    /**
+     * Folds each generation, see {@link HFBFilterBank#foldToSize(int)}.
+     */
+    @Override
+    public HFBFilterBank foldToSize( int maximumBytesPerFilter ) {
+        HFBFilterBank[] current = generations;
+        HFBFilterBank[] folded = new HFBFilterBank[current.length];
+        for (int i = 0; i < current.length; i++) {
+            folded[i] = current[i].foldToSize( maximumBytesPerFilter );
+        }
+        return copyWithGenerations( folded );
+    }
+
+    private synchronized HFBScalableFilterBank copyWithGenerations( HFBFilterBank[] generations ) {
+        HFBScalableFilterBank result = new HFBScalableFilterBank();
+        result.initFiltersLazy( getBitsInDocumentId(), getOccurrenceCount(), getLoadFactor() );
+        result.sliceLayout = sliceLayout;
+        result.fillThreshold = fillThreshold;
+        result.growthFactor = growthFactor;
+        result.newestGenerationCapacity = newestGenerationCapacity;
+        result.documentsInNewestGeneration = documentsInNewestGeneration;
+        result.generations = generations;
+        return result;
+    }
+
+    /**
+     * Freezes each generation, the frozen filter bank may contain a document id, if any of the
+     * frozen generations may contain it. Compact the scalable filter bank first, to freeze a 
+     * single generation.
+     */
+    @Override
+    public HFBFrozenFilterBank freeze() {
+        return new HFBFrozenFilterBank( this );
+    }
+}
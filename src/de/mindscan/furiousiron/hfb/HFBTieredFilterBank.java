@@ -0,0 +1,261 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A filter bank with a small summary tier in front of the full size filters. The summary 
+ * consists of the applied filters, folded until all of them fit into a given number of bytes,
+ * e.g. the size of the L1 or L2 cache. A document id is first tested against the summary, only 
+ * if the summary may contain it, the full size filters are touched.
+ * 
+ * A folded filter never rejects a document id, which the full size filter may contain, so
+ * this filter bank answers exactly like the full size filter bank, only most of the rejections
+ * are decided without a cache miss.
+ * 
+ * The full size filters are a private copy of the given filter bank, so later changes to the
+ * given filter bank can't bypass the summary. Document ids, which are added to this filter bank,
+ * are set in the full size filters and in the summary. The full size filters are exposed as the
+ * filters of this filter bank, so it is intersected like the full size filter bank, and the 
+ * writers save the full size filter bank. A filter bank without filter data, e.g. an exact 
+ * filter bank, has nothing to fold, every lookup is passed on to it.
+ */
+public class HFBTieredFilterBank extends HFBFilterBank {
+
+    // typical size of the L1 data cache
+    public static final int DEFAULT_SUMMARY_BYTES = 32 * 1024;
+
+    private final HFBFilterBank fullFilterBank;
+    private final HFBFilterData[] summary;
+    private final HFBFilterData[] full;
+
+    /**
+     * @param filterBank the full size filter bank
+     */
+    public HFBTieredFilterBank( HFBFilterBank filterBank ) {
+        this( filterBank, DEFAULT_SUMMARY_BYTES );
+    }
+
+    /**
+     * @param filterBank the full size filter bank
+     * @param summaryBytes the maximum size of the filter data of the summary tier
+     */
+    public HFBTieredFilterBank( HFBFilterBank filterBank, int summaryBytes ) {
+        int numberOfFilters = filterBank.getNumberOfAppliedFilters();
+
+        // folding by zero bits copies the filter data
+        this.fullFilterBank = numberOfFilters == 0 ? filterBank : filterBank.fold( 0 );
+        initFiltersLazy( filterBank.getBitsInDocumentId(), filterBank.getOccurrenceCount(), filterBank.getLoadFactor() );
+        for (int i = 0; i < fullFilterBank.getNumberOfFilters(); i++) {
+            addFilterData( fullFilterBank.getFilterData( i ) );
+        }
+
+        this.summary = new HFBFilterData[numberOfFilters];
+        this.full = new HFBFilterData[numberOfFilters];
+        if (numberOfFilters == 0) {
+            return;
+        }
+
+        HFBFilterBank folded = fullFilterBank.foldToSize( Math.max( 1, summaryBytes / numberOfFilters ) );
+
+        for (int i = 0; i < numberOfFilters; i++) {
+            summary[i] = folded.getFilterData( i );
+            full[i] = fullFilterBank.getFilterData( i );
+        }
+    }
+
+    /**
+     * @return the full size filter bank, which backs the summary tier
+     */
+    public HFBFilterBank getFullFilterBank() {
+        return fullFilterBank;
+    }
+
+    /**
+     * @return the number of bytes of the filter data of the summary tier
+     */
+    public long getSummaryBytes() {
+        long result = 0;
+        for (HFBFilterData filterData : summary) {
+            result += filterData.getSliceData().length;
+        }
+        return result;
+    }
+
+    public HFBFilterData getSummaryFilterData( int filterIndex ) {
+        if (filterIndex < 0 || filterIndex >= summary.length) {
+            throw new IllegalArgumentException( "FilterIndex is invalid" );
+        }
+        return summary[filterIndex];
+    }
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return false, if the summary tier definitely doesn't contain the document id
+     */
+    public boolean summaryContainsDocumentId( long documentIdHi, long documentIdLo ) {
+        for (int i = 0; i < summary.length; i++) {
+            HFBFilterData filterData = summary[i];
+            if (!filterData.isIndexSet( filterData.extractIndex( documentIdHi, documentIdLo ) )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void addDocumentId( BigInteger documentId ) {
+        if (summary.length == 0) {
+            fullFilterBank.addDocumentId( documentId );
+            return;
+        }
+
+        super.addDocumentId( documentId );
+        for (int i = 0; i < summary.length; i++) {
+            setSummaryIndex( i, full[i].extractIndex( documentId ) );
+        }
+    }
+
+    @Override
+    public void addDocumentIds( Collection<BigInteger> documentIds ) {
+        if (summary.length == 0) {
+            fullFilterBank.addDocumentIds( documentIds );
+            return;
+        }
+
+        super.addDocumentIds( documentIds );
+        for (int i = 0; i < summary.length; i++) {
+            for (BigInteger documentId : documentIds) {
+                setSummaryIndex( i, full[i].extractIndex( documentId ) );
+            }
+        }
+    }
+
+    @Override
+    public void addDocumentId( long documentIdHi, long documentIdLo ) {
+        if (summary.length == 0) {
+            fullFilterBank.addDocumentId( documentIdHi, documentIdLo );
+            return;
+        }
+
+        super.addDocumentId( documentIdHi, documentIdLo );
+        for (int i = 0; i < summary.length; i++) {
+            setSummaryIndex( i, full[i].extractIndex( documentIdHi, documentIdLo ) );
+        }
+    }
+
+    // same as folding the full size index into the summary, see HFBFilterData.foldTo
+    private void setSummaryIndex( int filterIndex, int fullIndex ) {
+        HFBFilterData filterData = summary[filterIndex];
+        filterData.setIndex( fullIndex & (int) filterData.getSliceBitMask() );
+    }
+
+    @Override
+    public boolean containsDocumentId( BigInteger documentId ) {
+        if (summary.length == 0) {
+            return fullFilterBank.containsDocumentId( documentId );
+        }
+
+        for (int i = 0; i < summary.length; i++) {
+            HFBFilterData filterData = summary[i];
+            if (!filterData.isIndexSet( filterData.extractIndex( documentId ) )) {
+                return false;
+            }
+        }
+        for (int i = 0; i < full.length; i++) {
+            HFBFilterData filterData = full[i];
+            if (!filterData.isIndexSet( filterData.extractIndex( documentId ) )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        if (summary.length == 0) {
+            return fullFilterBank.containsDocumentId( documentIdHi, documentIdLo );
+        }
+
+        if (!summaryContainsDocumentId( documentIdHi, documentIdLo )) {
+            return false;
+        }
+        for (int i = 0; i < full.length; i++) {
+            HFBFilterData filterData = full[i];
+            if (!filterData.isIndexSet( filterData.extractIndex( documentIdHi, documentIdLo ) )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filters the candidate document ids in two passes, the first pass only touches the summary
+     * tier, the second pass tests the survivors of the first pass against the full size filters.
+     */
+    @Override
+    public long[] filterDocumentIdsBatched( long[] candidateIds, int groupSize ) {
+        if (summary.length == 0) {
+            return fullFilterBank.filterDocumentIdsBatched( candidateIds, groupSize );
+        }
+
+        int numberOfDocuments = HFBDocumentIds.count( candidateIds );
+        long[] survivors = new long[numberOfDocuments << 1];
+        int survivorsLength = 0;
+
+        for (int i = 0; i < (numberOfDocuments << 1); i += 2) {
+            if (summaryContainsDocumentId( candidateIds[i], candidateIds[i + 1] )) {
+                survivors[survivorsLength++] = candidateIds[i];
+                survivors[survivorsLength++] = candidateIds[i + 1];
+            }
+        }
+
+        long[] summarySurvivors = survivorsLength == survivors.length ? survivors : Arrays.copyOf( survivors, survivorsLength );
+        return super.filterDocumentIdsBatched( summarySurvivors, groupSize );
+    }
+
+    @Override
+    public HFBFilterBank fold( int numberOfFoldedBits ) {
+        return fullFilterBank.fold( numberOfFoldedBits );
+    }
+
+    @Override
+    public HFBFilterBank foldToSize( int maximumBytesPerFilter ) {
+        return fullFilterBank.foldToSize( maximumBytesPerFilter );
+    }
+
+    /**
+     * @return the frozen full size filter bank
+     */
+    @Override
+    public HFBFrozenFilterBank freeze() {
+        return fullFilterBank.freeze();
+    }
+}
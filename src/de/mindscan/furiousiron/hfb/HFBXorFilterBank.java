@@ -0,0 +1,333 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A static xor filter bank for document ids, which are known when the filter bank is built 
+ * and never change afterwards. For a false positive rate of 1/256 it needs about 9.8 bits per
+ * document id with 8 bit fingerprints, where the classic filter bank needs considerably more.
+ * 
+ * The fingerprint array is split into three segments of the same length. Like the slices of
+ * {@link HFBFilterData}, the three positions are not hashed but taken from three disjoint 
+ * slices of the document id, each reduced to the segment length by a multiply and a shift. 
+ * A fourth slice provides the fingerprint. A document id may be contained, if the xor of the 
+ * three fingerprints at its positions equals its own fingerprint.
+ * 
+ * Building the filter bank peels the document ids off the positions, where only one document
+ * id is left. If the peeling gets stuck, the slices are moved to another place in the document
+ * id and the peeling is repeated. Document ids are md5 hashsums, so any place is as good as 
+ * another. Slices are at most 32 bits, for 64 bit document ids they are smaller, and very 
+ * large filter banks can't use all positions.
+ * 
+ * Document ids can't be added to a populated xor filter bank, and there is no filter data,
+ * which can be folded or frozen, so it is no {@link HFBFilterBank}, it shares only the 
+ * read-only {@link HFBDocumentIdFilter} with it.
+ */
+public class HFBXorFilterBank implements HFBDocumentIdFilter {
+
+    // set it to 8 (eight) for a false positive rate of 1/256, 16 for 1/65536
+    public static final int DEFAULT_FINGERPRINT_BITS = 8;
+
+    // the positions of a document id are in three segments
+    public static final int NUMBER_OF_SEGMENTS = 3;
+
+    // number of slice placements tried for a segment length, before the segments grow
+    public static final int MAX_PLACEMENT_ATTEMPTS = 8;
+
+    private static final int MAX_SLICE_BIT_SIZE = 32;
+    private static final long UNSIGNED_INT_MASK = 0xffffffffL;
+
+    private int bitsInDocumentId;
+    private long occurrenceCount;
+
+    private int fingerprintBits;
+    private int slicePosition;
+    private int sliceBitSize;
+    private long sliceBitMask;
+    private long fingerprintMask;
+    private int segmentLength;
+
+    // one or two bytes per fingerprint, little endian
+    private byte[] fingerprints = new byte[0];
+
+    /**
+     * 
+     */
+    public HFBXorFilterBank() {
+    }
+
+    /**
+     * Sets the geometry of the xor filter bank without any fingerprints, e.g. when the filter
+     * bank is read from a file.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurenceCount number of documents for a particular value
+     * @param fingerprintBits 8 or 16
+     * @param slicePosition position of the first of the three position slices
+     * @param sliceBitSize size of each position slice
+     * @param segmentLength number of fingerprints in each segment
+     */
+    public void initXorLazy( int bitsInDocumentId, long occurenceCount, int fingerprintBits, int slicePosition, int sliceBitSize,
+                    int segmentLength ) {
+        this.bitsInDocumentId = bitsInDocumentId;
+        this.occurrenceCount = occurenceCount;
+
+        this.fingerprintBits = fingerprintBits;
+        this.slicePosition = slicePosition;
+        this.sliceBitSize = sliceBitSize;
+        this.sliceBitMask = (1L << sliceBitSize) - 1L;
+        this.fingerprintMask = (1L << fingerprintBits) - 1L;
+        this.segmentLength = segmentLength;
+        this.fingerprints = new byte[NUMBER_OF_SEGMENTS * segmentLength * getBytesPerFingerprint()];
+    }
+
+    /**
+     * Builds the fingerprints for the given document ids. Duplicate document ids are allowed.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param documentIds document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param fingerprintBits 8 or 16
+     */
+    public void populate( int bitsInDocumentId, long[] documentIds, int fingerprintBits ) {
+        if (fingerprintBits != 8 && fingerprintBits != 16) {
+            throw new IllegalArgumentException( "Fingerprints must be 8 or 16 bits." );
+        }
+
+        long[] distinctDocumentIds = HFBDocumentIds.distinct( documentIds );
+        int numberOfDocuments = HFBDocumentIds.count( distinctDocumentIds );
+
+        int sliceBitSize = Math.min( MAX_SLICE_BIT_SIZE, (bitsInDocumentId - fingerprintBits) / NUMBER_OF_SEGMENTS );
+        if (sliceBitSize <= 0) {
+            throw new IllegalArgumentException( "The document id is too short for an xor filter bank." );
+        }
+
+        // the unused bits of the document id allow to move the slices
+        int freeBits = bitsInDocumentId - NUMBER_OF_SEGMENTS * sliceBitSize - fingerprintBits;
+        int numberOfPlacements = Math.min( MAX_PLACEMENT_ATTEMPTS, freeBits + 1 );
+
+        // about 1.23 positions per document id are enough to peel the document ids off
+        long capacity = 32 + (long) Math.ceil( 1.23d * numberOfDocuments );
+        long segmentLength = (capacity + NUMBER_OF_SEGMENTS - 1) / NUMBER_OF_SEGMENTS;
+
+        while (NUMBER_OF_SEGMENTS * segmentLength * (fingerprintBits >> 3) <= Integer.MAX_VALUE) {
+            for (int attempt = 0; attempt < numberOfPlacements; attempt++) {
+                int placement = numberOfPlacements == 1 ? 0 : freeBits * attempt / (numberOfPlacements - 1);
+
+                initXorLazy( bitsInDocumentId, numberOfDocuments, fingerprintBits, placement, sliceBitSize, (int) segmentLength );
+                if (tryPopulate( distinctDocumentIds )) {
+                    return;
+                }
+            }
+
+            // no placement worked, retry with 10% more room
+            segmentLength += (segmentLength + 9) / 10;
+        }
+
+        throw new IllegalStateException( "Can't build the xor filter bank." );
+    }
+
+    private boolean tryPopulate( long[] documentIds ) {
+        int numberOfDocuments = HFBDocumentIds.count( documentIds );
+        int numberOfPositions = NUMBER_OF_SEGMENTS * segmentLength;
+
+        // for each position the number of document ids and the xor of their indexes
+        int[] counts = new int[numberOfPositions];
+        int[] xorIndexes = new int[numberOfPositions];
+        int[] positions = new int[NUMBER_OF_SEGMENTS];
+
+        for (int i = 0; i < numberOfDocuments; i++) {
+            calculatePositions( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ), positions );
+            for (int position : positions) {
+                counts[position]++;
+                xorIndexes[position] ^= i;
+            }
+        }
+
+        int[] queue = new int[numberOfPositions];
+        int queueLength = 0;
+        for (int position = 0; position < numberOfPositions; position++) {
+            if (counts[position] == 1) {
+                queue[queueLength++] = position;
+            }
+        }
+
+        // the peeled document ids with the position, where they were alone
+        int[] peeledIndexes = new int[numberOfDocuments];
+        int[] peeledPositions = new int[numberOfDocuments];
+        int numberOfPeeled = 0;
+
+        while (queueLength > 0) {
+            int position = queue[--queueLength];
+            if (counts[position] != 1) {
+                continue;
+            }
+
+            int index = xorIndexes[position];
+            peeledIndexes[numberOfPeeled] = index;
+            peeledPositions[numberOfPeeled] = position;
+            numberOfPeeled++;
+
+            calculatePositions( HFBDocumentIds.hi( documentIds, index ), HFBDocumentIds.lo( documentIds, index ), positions );
+            for (int otherPosition : positions) {
+                counts[otherPosition]--;
+                xorIndexes[otherPosition] ^= index;
+                if (counts[otherPosition] == 1) {
+                    queue[queueLength++] = otherPosition;
+                }
+            }
+        }
+
+        if (numberOfPeeled != numberOfDocuments) {
+            return false;
+        }
+
+        // assign in reverse peeling order, a position is never changed after it was used
+        for (int i = numberOfPeeled - 1; i >= 0; i--) {
+            int index = peeledIndexes[i];
+            long documentIdHi = HFBDocumentIds.hi( documentIds, index );
+            long documentIdLo = HFBDocumentIds.lo( documentIds, index );
+
+            calculatePositions( documentIdHi, documentIdLo, positions );
+            int fingerprint = extractFingerprint( documentIdHi, documentIdLo ) ^ getFingerprint( positions[0] ) ^ getFingerprint( positions[1] )
+                            ^ getFingerprint( positions[2] );
+            setFingerprint( peeledPositions[i], fingerprint );
+        }
+
+        return true;
+    }
+
+    private void calculatePositions( long documentIdHi, long documentIdLo, int[] positions ) {
+        for (int segment = 0; segment < NUMBER_OF_SEGMENTS; segment++) {
+            positions[segment] = calculatePosition( documentIdHi, documentIdLo, segment );
+        }
+    }
+
+    private int calculatePosition( long documentIdHi, long documentIdLo, int segment ) {
+        long slice = HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, slicePosition + segment * sliceBitSize, sliceBitMask )
+                        & UNSIGNED_INT_MASK;
+        // multiply shift reduces the slice to the segment length
+        return segment * segmentLength + (int) ((slice * segmentLength) >>> sliceBitSize);
+    }
+
+    private int extractFingerprint( long documentIdHi, long documentIdLo ) {
+        return HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, slicePosition + NUMBER_OF_SEGMENTS * sliceBitSize, fingerprintMask );
+    }
+
+    private int getFingerprint( int position ) {
+        if (fingerprintBits == 8) {
+            return fingerprints[position] & 0xff;
+        }
+        return (fingerprints[position << 1] & 0xff) | ((fingerprints[(position << 1) + 1] & 0xff) << 8);
+    }
+
+    private void setFingerprint( int position, int fingerprint ) {
+        if (fingerprintBits == 8) {
+            fingerprints[position] = (byte) fingerprint;
+        }
+        else {
+            fingerprints[position << 1] = (byte) fingerprint;
+            fingerprints[(position << 1) + 1] = (byte) (fingerprint >>> 8);
+        }
+    }
+
+    @Override
+    public boolean containsDocumentId( BigInteger documentId ) {
+        return containsDocumentId( documentId.shiftRight( 64 ).longValue(), documentId.longValue() );
+    }
+
+    /**
+     * @param documentIdHi the upper 64 bits of the document id
+     * @param documentIdLo the lower 64 bits of the document id
+     * @return false, if the document id is definitely not contained, true if it may be contained.
+     */
+    @Override
+    public boolean containsDocumentId( long documentIdHi, long documentIdLo ) {
+        int fingerprint = getFingerprint( calculatePosition( documentIdHi, documentIdLo, 0 ) )
+                        ^ getFingerprint( calculatePosition( documentIdHi, documentIdLo, 1 ) )
+                        ^ getFingerprint( calculatePosition( documentIdHi, documentIdLo, 2 ) );
+        return fingerprint == extractFingerprint( documentIdHi, documentIdLo );
+    }
+
+    @Override
+    public long[] filterDocumentIds( long[] candidateIds ) {
+        int numberOfDocuments = HFBDocumentIds.count( candidateIds );
+        long[] survivors = new long[numberOfDocuments << 1];
+        int survivorsLength = 0;
+
+        for (int i = 0; i < (numberOfDocuments << 1); i += 2) {
+            if (containsDocumentId( candidateIds[i], candidateIds[i + 1] )) {
+                survivors[survivorsLength++] = candidateIds[i];
+                survivors[survivorsLength++] = candidateIds[i + 1];
+            }
+        }
+
+        return Arrays.copyOf( survivors, survivorsLength );
+    }
+
+    @Override
+    public int getBitsInDocumentId() {
+        return bitsInDocumentId;
+    }
+
+    @Override
+    public long getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public int getBytesPerFingerprint() {
+        return fingerprintBits >> 3;
+    }
+
+    public int getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    public int getSlicePosition() {
+        return slicePosition;
+    }
+
+    public int getSliceBitSize() {
+        return sliceBitSize;
+    }
+
+    public int getSegmentLength() {
+        return segmentLength;
+    }
+
+    public byte[] getFingerprints() {
+        return fingerprints;
+    }
+
+    public void setFingerprints( byte[] fingerprints ) {
+        if (fingerprints.length != this.fingerprints.length) {
+            throw new IllegalArgumentException( "Number of fingerprints doesn't match the segment length." );
+        }
+        this.fingerprints = fingerprints;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2021 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+
+/**
+ * A filter, which extracts its index from two slices of the document id, combined by xor, see
+ * HFBXorFoldedSliceLayout. The second extraction is only paid by the filters, which are xor 
+ * folded, a plain {@link HFBFilterData} keeps its single shift and mask.
+ */
+public class HFBXorFoldedFilterData extends HFBFilterData {
+
+    // The position of the second slice, which is xor-ed onto the slice
+    private final int xorSlicePosition;
+
+    /**
+     * @param slicePosition the position of the first slice
+     * @param numberOfBits the number of bits of both slices
+     * @param xorSlicePosition the position of the second slice
+     */
+    public HFBXorFoldedFilterData( int slicePosition, int numberOfBits, int xorSlicePosition ) {
+        super( slicePosition, numberOfBits );
+        this.xorSlicePosition = xorSlicePosition;
+    }
+
+    @Override
+    public boolean isXorFolded() {
+        return true;
+    }
+
+    @Override
+    public int getXorSlicePosition() {
+        return xorSlicePosition;
+    }
+
+    @Override
+    public long getXorSliceBitMask() {
+        return getSliceBitMask();
+    }
+
+    @Override
+    public int extractIndex( long documentId ) {
+        return (int) (((documentId >>> getSlicePosition()) ^ (documentId >>> xorSlicePosition)) & getSliceBitMask());
+    }
+
+    @Override
+    public int extractIndex( long documentIdHi, long documentIdLo ) {
+        long sliceBitMask = getSliceBitMask();
+        return HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, getSlicePosition(), sliceBitMask )
+                        ^ HFBDocumentIds.extractSlice( documentIdHi, documentIdLo, xorSlicePosition, sliceBitMask );
+    }
+
+    @Override
+    public int extractIndex( BigInteger documentId ) {
+        BigInteger partId = documentId.shiftRight( getSlicePosition() ).xor( documentId.shiftRight( xorSlicePosition ) ).and( getSliceBitMaskBI() );
+        return partId.intValueExact();
+    }
+
+    @Override
+    protected HFBFilterData createFilterData( int numberOfBits ) {
+        return new HFBXorFoldedFilterData( getSlicePosition(), numberOfBits, xorSlicePosition );
+    }
+
+}
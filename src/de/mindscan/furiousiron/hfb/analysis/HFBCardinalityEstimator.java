@@ -0,0 +1,292 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.analysis;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+
+/**
+ * Estimates the number of document ids in a filter bank, and in the union and intersection 
+ * of several filter banks, only from their filter data, without enumerating document ids. 
+ * This is cheap enough for a query planner to decide, whether pruning a trigram conjunction 
+ * with the filter banks is worth it.
+ * 
+ * Each filter sets exactly one bit per document id, so the number of document ids can be 
+ * estimated by linear counting: a filter of m bits with z unset bits holds about 
+ * -m * ln(z / m) document ids.
+ * 
+ * Filters of different filter banks are aligned, if they end at the same bit of the document
+ * id. The larger filter is then projected onto the smaller one, a bit of the smaller filter 
+ * is set, if any bit in the corresponding run of the larger filter is set. Filter banks of the
+ * same size align with every filter, filter banks of different size at least with their 
+ * topmost filter. Xor folded filters are never aligned. The aligned filters are combined 
+ * word by word with AND / OR.
+ */
+public class HFBCardinalityEstimator {
+
+    private static final int WORD_ADDRESS_SHIFT = 6;
+    private static final int BISECTION_STEPS = 64;
+
+    private HFBCardinalityEstimator() {
+    }
+
+    /**
+     * @param filterBank the filter bank
+     * @return the estimated number of distinct document ids in the filter bank
+     */
+    public static double estimateCardinality( HFBFilterBank filterBank ) {
+        // it counts its distinct document ids, when it is built
+        if (filterBank instanceof HFBExactFilterBank) {
+            return filterBank.getOccurrenceCount();
+        }
+        if (filterBank.getNumberOfFilters() == 0) {
+            throw new IllegalArgumentException( "The filter bank has no filter data to estimate from." );
+        }
+
+        double sum = 0.0d;
+        for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+            HFBFilterData filterData = filterBank.getFilterData( i );
+            long numberOfBits = 1L << filterData.getSliceBitSize();
+            long bitweight = filterData.getBitweight();
+            sum += linearCount( numberOfBits, numberOfBits - bitweight );
+        }
+        return sum / filterBank.getNumberOfFilters();
+    }
+
+    public static double estimateUnionCardinality( HFBFilterBank... filterBanks ) {
+        return estimateUnionCardinality( Arrays.asList( filterBanks ) );
+    }
+
+    /**
+     * @param filterBanks the filter banks
+     * @return the estimated number of distinct document ids in any of the filter banks
+     */
+    public static double estimateUnionCardinality( List<HFBFilterBank> filterBanks ) {
+        return estimate( filterBanks, false );
+    }
+
+    public static double estimateIntersectionCardinality( HFBFilterBank... filterBanks ) {
+        return estimateIntersectionCardinality( Arrays.asList( filterBanks ) );
+    }
+
+    /**
+     * The bits of the AND of the aligned filters are either set by a common document id, or 
+     * by different document ids in each of the filter banks. With x = exp(-c / m) for c common 
+     * document ids and z_i the fraction of unset bits of filter bank i, the expected fraction 
+     * of set bits is 1 - x + x * prod(1 - z_i / x), which is solved for x by bisection.
+     * 
+     * @param filterBanks the filter banks
+     * @return the estimated number of distinct document ids in all of the filter banks
+     */
+    public static double estimateIntersectionCardinality( List<HFBFilterBank> filterBanks ) {
+        return estimate( filterBanks, true );
+    }
+
+    private static double estimate( List<HFBFilterBank> filterBanks, boolean intersection ) {
+        if (filterBanks.isEmpty()) {
+            throw new IllegalArgumentException( "At least one filter bank is required." );
+        }
+
+        HFBFilterBank smallest = null;
+        for (HFBFilterBank filterBank : filterBanks) {
+            if (filterBank.getNumberOfFilters() == 0) {
+                throw new IllegalArgumentException( "The filter bank has no filter data to estimate from." );
+            }
+            if (smallest == null || filterBank.getFilterData( 0 ).getSliceBitSize() < smallest.getFilterData( 0 ).getSliceBitSize()) {
+                smallest = filterBank;
+            }
+        }
+
+        int numberOfBanks = filterBanks.size();
+        HFBFilterData[] aligned = new HFBFilterData[numberOfBanks];
+        long[] setBits = new long[numberOfBanks];
+
+        double sum = 0.0d;
+        int numberOfTargets = 0;
+        for (int t = 0; t < smallest.getNumberOfFilters(); t++) {
+            HFBFilterData target = smallest.getFilterData( t );
+            if (target.isXorFolded() || !findAlignedFilters( filterBanks, target, aligned )) {
+                continue;
+            }
+
+            sum += intersection ? estimateIntersection( target, aligned, setBits ) : estimateUnion( target, aligned );
+            numberOfTargets++;
+        }
+
+        if (numberOfTargets == 0) {
+            throw new IllegalArgumentException( "The filter banks have no aligned filters." );
+        }
+        return sum / numberOfTargets;
+    }
+
+    private static boolean findAlignedFilters( List<HFBFilterBank> filterBanks, HFBFilterData target, HFBFilterData[] aligned ) {
+        int targetEnd = target.getSlicePosition() + target.getSliceBitSize();
+
+        for (int b = 0; b < aligned.length; b++) {
+            HFBFilterBank filterBank = filterBanks.get( b );
+            aligned[b] = null;
+            for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+                HFBFilterData filterData = filterBank.getFilterData( i );
+                if (!filterData.isXorFolded() && filterData.getSlicePosition() + filterData.getSliceBitSize() == targetEnd
+                                && filterData.getSliceBitSize() >= target.getSliceBitSize()) {
+                    aligned[b] = filterData;
+                    break;
+                }
+            }
+            if (aligned[b] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double estimateUnion( HFBFilterData target, HFBFilterData[] aligned ) {
+        int sliceBitSize = target.getSliceBitSize();
+        long numberOfBits = 1L << sliceBitSize;
+
+        long orBits = 0;
+        for (int w = 0; w < numberOfWords( sliceBitSize ); w++) {
+            long or = 0L;
+            for (int b = 0; b < aligned.length; b++) {
+                or |= projectedWord( aligned[b], sliceBitSize, w );
+            }
+            orBits += Long.bitCount( or );
+        }
+
+        return linearCount( numberOfBits, numberOfBits - orBits );
+    }
+
+    private static double estimateIntersection( HFBFilterData target, HFBFilterData[] aligned, long[] setBits ) {
+        int sliceBitSize = target.getSliceBitSize();
+        long numberOfBits = 1L << sliceBitSize;
+
+        Arrays.fill( setBits, 0L );
+        long andBits = 0;
+        for (int w = 0; w < numberOfWords( sliceBitSize ); w++) {
+            long and = -1L;
+            for (int b = 0; b < aligned.length; b++) {
+                long word = projectedWord( aligned[b], sliceBitSize, w );
+                setBits[b] += Long.bitCount( word );
+                and &= word;
+            }
+            andBits += Long.bitCount( and );
+        }
+
+        // a saturated filter can't tell anything, keep at least one unset bit
+        double minimumFraction = 1.0d / numberOfBits;
+        double largestUnsetFraction = minimumFraction;
+        for (int b = 0; b < aligned.length; b++) {
+            largestUnsetFraction = Math.max( largestUnsetFraction, (double) (numberOfBits - setBits[b]) / numberOfBits );
+        }
+        double observedSetFraction = (double) andBits / numberOfBits;
+
+        // expected fraction of set bits is decreasing in x, x = 1 means no common document ids
+        double lower = largestUnsetFraction;
+        double upper = 1.0d;
+        if (observedSetFraction <= expectedSetFraction( upper, setBits, numberOfBits, minimumFraction )) {
+            return 0.0d;
+        }
+        for (int step = 0; step < BISECTION_STEPS; step++) {
+            double x = (lower + upper) * 0.5d;
+            if (expectedSetFraction( x, setBits, numberOfBits, minimumFraction ) > observedSetFraction) {
+                lower = x;
+            }
+            else {
+                upper = x;
+            }
+        }
+
+        return -numberOfBits * Math.log( (lower + upper) * 0.5d );
+    }
+
+    private static double expectedSetFraction( double x, long[] setBits, long numberOfBits, double minimumFraction ) {
+        double product = 1.0d;
+        for (int b = 0; b < setBits.length; b++) {
+            double unsetFraction = Math.max( (double) (numberOfBits - setBits[b]) / numberOfBits, minimumFraction );
+            product *= Math.max( 1.0d - unsetFraction / x, 0.0d );
+        }
+        return 1.0d - x + x * product;
+    }
+
+    private static double linearCount( long numberOfBits, long unsetBits ) {
+        return -numberOfBits * Math.log( (double) Math.max( unsetBits, 1L ) / numberOfBits );
+    }
+
+    private static int numberOfWords( int sliceBitSize ) {
+        return (int) (((1L << sliceBitSize) + 63L) >> WORD_ADDRESS_SHIFT);
+    }
+
+    /**
+     * Returns the w-th word of the filter data, projected onto a slice of the given size, 
+     * which ends at the same bit of the document id. 
+     */
+    private static long projectedWord( HFBFilterData filterData, int sliceBitSize, int w ) {
+        byte[] sliceData = filterData.getSliceData();
+        int shift = filterData.getSliceBitSize() - sliceBitSize;
+        int bitsInWord = (int) Math.min( 64L, 1L << sliceBitSize );
+
+        if (shift == 0 && bitsInWord == 64) {
+            // same slice, the bytes are the word in little endian order
+            long word = 0L;
+            int offset = w << 3;
+            for (int i = 7; i >= 0; i--) {
+                word = (word << 8) | (sliceData[offset + i] & 0xffL);
+            }
+            return word;
+        }
+
+        long word = 0L;
+        int runLength = 1 << shift;
+        for (int j = 0; j < bitsInWord; j++) {
+            long fromIndex = ((long) ((w << WORD_ADDRESS_SHIFT) + j)) << shift;
+            if (isRunSet( sliceData, fromIndex, runLength )) {
+                word |= 1L << j;
+            }
+        }
+        return word;
+    }
+
+    private static boolean isRunSet( byte[] sliceData, long fromIndex, int runLength ) {
+        if (runLength >= 8) {
+            // runs of whole bytes
+            int fromByte = (int) (fromIndex >>> 3);
+            int toByte = fromByte + (runLength >>> 3);
+            for (int i = fromByte; i < toByte; i++) {
+                if (sliceData[i] != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int runMask = (1 << runLength) - 1;
+        return (((sliceData[(int) (fromIndex >>> 3)] & 0xff) >>> (fromIndex & 7)) & runMask) != 0;
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.analysis;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankCompiler;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+
+/**
+ * The writer orders the filters by their bit weight, which is only a good predictor for the
+ * rejection rate, if the document ids are uniformly distributed, e.g. the output of a CRHF.
+ *
+ * This estimator measures the real rejection rate of a filter bank, by probing it with a large
+ * number of document ids, which are known not to be part of the filter bank. These are either
+ * sampled from a random process or taken from a second set of document ids. The measured rates
+ * are then reported next to the rates predicted by the bit weight of each filter.
+ */
+public class HFBFilterBankFPREstimator {
+
+    private final int numberOfThreads;
+
+    public HFBFilterBankFPREstimator() {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    public HFBFilterBankFPREstimator( int numberOfThreads ) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException( "numberOfThreads must be at least one." );
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Compiles a filter bank from the given document ids and probes it with randomly sampled
+     * document ids, which are not part of the given document ids.
+     *
+     * @param documentIds we assume that documentIds are encoded as hexadecimal values (as of now)
+     * @param numberOfProbes number of non-member document ids to probe the filter bank with
+     * @param seed the seed for the random process
+     * @return the measured and predicted rejection rates
+     */
+    public HFBFilterBankFPRReport estimateHex( Collection<String> documentIds, long numberOfProbes, long seed ) {
+        HFBFilterBank filterBank = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+
+        Set<BigInteger> members = new HashSet<>();
+        for (String documentIdStr : documentIds) {
+            members.add( new BigInteger( documentIdStr, 16 ) );
+        }
+
+        return estimate( filterBank, members, numberOfProbes, seed );
+    }
+
+    /**
+     * Probes the filter bank with randomly sampled document ids. Sampled document ids, which are
+     * part of the members are skipped, such that only known non-members are counted.
+     *
+     * @param filterBank the filter bank to measure
+     * @param members the document ids, which were inserted into the filter bank
+     * @param numberOfProbes number of non-member document ids to probe the filter bank with
+     * @param seed the seed for the random process
+     * @return the measured and predicted rejection rates
+     */
+    public HFBFilterBankFPRReport estimate( HFBFilterBank filterBank, Set<BigInteger> members, long numberOfProbes, long seed ) {
+        int bytesInDocumentId = (filterBank.getBitsInDocumentId() + 7) >> 3;
+
+        List<Callable<long[][]>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            long probesForThread = numberOfProbes / numberOfThreads + (thread < numberOfProbes % numberOfThreads ? 1 : 0);
+            Random random = new Random( seed + thread );
+
+            tasks.add( () -> {
+                ProbeCounter counter = new ProbeCounter( filterBank );
+                byte[] target = new byte[bytesInDocumentId];
+
+                long probed = 0;
+                while (probed < probesForThread) {
+                    random.nextBytes( target );
+                    BigInteger documentId = new BigInteger( target );
+                    if (members.contains( documentId )) {
+                        continue;
+                    }
+
+                    counter.probe( documentId );
+                    probed++;
+                }
+
+                return counter.getCounters();
+            } );
+        }
+
+        return runAndMerge( filterBank, numberOfProbes, tasks );
+    }
+
+    /**
+     * Probes the filter bank with document ids from a second set of document ids, which must not
+     * be part of the filter bank.
+     *
+     * @param filterBank the filter bank to measure
+     * @param nonMembers the document ids, which were not inserted into the filter bank
+     * @return the measured and predicted rejection rates
+     */
+    public HFBFilterBankFPRReport estimate( HFBFilterBank filterBank, Collection<BigInteger> nonMembers ) {
+        BigInteger[] probes = nonMembers.toArray( new BigInteger[nonMembers.size()] );
+
+        List<Callable<long[][]>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            int from = (int) ((long) probes.length * thread / numberOfThreads);
+            int to = (int) ((long) probes.length * (thread + 1) / numberOfThreads);
+
+            tasks.add( () -> {
+                ProbeCounter counter = new ProbeCounter( filterBank );
+                for (int i = from; i < to; i++) {
+                    counter.probe( probes[i] );
+                }
+                return counter.getCounters();
+            } );
+        }
+
+        return runAndMerge( filterBank, probes.length, tasks );
+    }
+
+    private HFBFilterBankFPRReport runAndMerge( HFBFilterBank filterBank, long numberOfProbes, List<Callable<long[][]>> tasks ) {
+        int numberOfFilters = filterBank.getNumberOfFilters();
+
+        long[] rejectedByFilter = new long[numberOfFilters];
+        long[] survivorsAfterFilter = new long[numberOfFilters];
+
+        ExecutorService executor = Executors.newFixedThreadPool( numberOfThreads );
+        try {
+            for (Future<long[][]> future : executor.invokeAll( tasks )) {
+                long[][] counters = future.get();
+                for (int i = 0; i < numberOfFilters; i++) {
+                    rejectedByFilter[i] += counters[0][i];
+                    survivorsAfterFilter[i] += counters[1][i];
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Estimation of the false positive rate was interrupted.", e );
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException( "Estimation of the false positive rate failed.", e.getCause() );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        int[] slicePositions = new int[numberOfFilters];
+        int[] sliceBitSizes = new int[numberOfFilters];
+        long[] bitweights = new long[numberOfFilters];
+        for (int i = 0; i < numberOfFilters; i++) {
+            HFBFilterData filterData = filterBank.getFilterData( i );
+            slicePositions[i] = filterData.getSlicePosition();
+            sliceBitSizes[i] = filterData.getSliceBitSize();
+            bitweights[i] = filterData.getBitweight();
+        }
+
+        return new HFBFilterBankFPRReport( numberOfProbes, slicePositions, sliceBitSizes, bitweights, rejectedByFilter, survivorsAfterFilter );
+    }
+
+    /**
+     * Counts for each filter, how often it rejected a document id on its own, and how many document
+     * ids survived all filters up to this filter. One counter is used per thread, so no
+     * synchronization is needed while probing.
+     */
+    private static class ProbeCounter {
+        private final HFBFilterData[] filters;
+        private final long[] rejectedByFilter;
+        private final long[] survivorsAfterFilter;
+
+        ProbeCounter( HFBFilterBank filterBank ) {
+            int numberOfFilters = filterBank.getNumberOfFilters();
+
+            this.filters = new HFBFilterData[numberOfFilters];
+            for (int i = 0; i < numberOfFilters; i++) {
+                filters[i] = filterBank.getFilterData( i );
+            }
+
+            this.rejectedByFilter = new long[numberOfFilters];
+            this.survivorsAfterFilter = new long[numberOfFilters];
+        }
+
+        void probe( BigInteger documentId ) {
+            boolean survived = true;
+            for (int i = 0; i < filters.length; i++) {
+                HFBFilterData filter = filters[i];
+                if (!filter.isIndexSet( filter.extractIndex( documentId ) )) {
+                    rejectedByFilter[i]++;
+                    survived = false;
+                }
+
+                if (survived) {
+                    survivorsAfterFilter[i]++;
+                }
+            }
+        }
+
+        long[][] getCounters() {
+            return new long[][] { rejectedByFilter, survivorsAfterFilter };
+        }
+    }
+}
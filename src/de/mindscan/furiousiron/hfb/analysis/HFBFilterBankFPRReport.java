@@ -0,0 +1,141 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.analysis;
+
+/**
+ * Result of a false positive rate measurement of a single filter bank. All rates are given
+ * as rejection rates, i.e. the fraction of non-member document ids, which were answered with
+ * a 'no'.
+ *
+ * The predicted values are derived from the bit weight of each filter, assuming uniformly
+ * distributed document ids. The measured values are what the filters actually did with the
+ * probed document ids. A large deviation between both indicates, that the document id source
+ * does not produce uniformly distributed bits.
+ */
+public class HFBFilterBankFPRReport {
+
+    private final long numberOfProbes;
+    private final int[] slicePositions;
+    private final int[] sliceBitSizes;
+    private final long[] bitweights;
+    private final long[] rejectedByFilter;
+    private final long[] survivorsAfterFilter;
+
+    public HFBFilterBankFPRReport( long numberOfProbes, int[] slicePositions, int[] sliceBitSizes, long[] bitweights, long[] rejectedByFilter,
+                    long[] survivorsAfterFilter ) {
+        this.numberOfProbes = numberOfProbes;
+        this.slicePositions = slicePositions;
+        this.sliceBitSizes = sliceBitSizes;
+        this.bitweights = bitweights;
+        this.rejectedByFilter = rejectedByFilter;
+        this.survivorsAfterFilter = survivorsAfterFilter;
+    }
+
+    public long getNumberOfProbes() {
+        return numberOfProbes;
+    }
+
+    public int getNumberOfFilters() {
+        return slicePositions.length;
+    }
+
+    public int getSlicePosition( int filterIndex ) {
+        return slicePositions[filterIndex];
+    }
+
+    public int getSliceBitSize( int filterIndex ) {
+        return sliceBitSizes[filterIndex];
+    }
+
+    public long getBitweight( int filterIndex ) {
+        return bitweights[filterIndex];
+    }
+
+    /**
+     * @param filterIndex index of the filter in the order of the filter bank
+     * @return the rejection rate of this single filter, as predicted by its bit weight
+     */
+    public double getPredictedRejection( int filterIndex ) {
+        return 1.0d - predictedFillRate( filterIndex );
+    }
+
+    /**
+     * @param filterIndex index of the filter in the order of the filter bank
+     * @return the rejection rate of this single filter, measured on its own
+     */
+    public double getMeasuredRejection( int filterIndex ) {
+        return numberOfProbes == 0 ? 0.0d : (double) rejectedByFilter[filterIndex] / numberOfProbes;
+    }
+
+    /**
+     * @param filterIndex index of the filter in the order of the filter bank
+     * @return the predicted rejection rate, when all filters up to and including this one are applied
+     */
+    public double getPredictedCumulativeRejection( int filterIndex ) {
+        double fpr = 1.0d;
+        for (int i = 0; i <= filterIndex; i++) {
+            fpr *= predictedFillRate( i );
+        }
+        return 1.0d - fpr;
+    }
+
+    /**
+     * @param filterIndex index of the filter in the order of the filter bank
+     * @return the measured rejection rate, when all filters up to and including this one are applied
+     */
+    public double getMeasuredCumulativeRejection( int filterIndex ) {
+        return numberOfProbes == 0 ? 0.0d : 1.0d - ((double) survivorsAfterFilter[filterIndex] / numberOfProbes);
+    }
+
+    /**
+     * @return the largest absolute difference between predicted and measured single filter rejection
+     */
+    public double getMaximumDeviation() {
+        double maximum = 0.0d;
+        for (int i = 0; i < getNumberOfFilters(); i++) {
+            maximum = Math.max( maximum, Math.abs( getPredictedRejection( i ) - getMeasuredRejection( i ) ) );
+        }
+        return maximum;
+    }
+
+    private double predictedFillRate( int filterIndex ) {
+        return (double) bitweights[filterIndex] / (double) (1L << sliceBitSizes[filterIndex]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "probes: %d%n", numberOfProbes ) );
+        sb.append( String.format( "%3s %6s %5s %10s %10s %10s %10s %10s%n", "#", "start", "len", "bitweight", "pred", "measured", "cum.pred",
+                        "cum.meas" ) );
+        for (int i = 0; i < getNumberOfFilters(); i++) {
+            sb.append( String.format( "%3d %6d %5d %10d %10.5f %10.5f %10.5f %10.5f%n", i, slicePositions[i], sliceBitSizes[i], bitweights[i],
+                            getPredictedRejection( i ), getMeasuredRejection( i ), getPredictedCumulativeRejection( i ),
+                            getMeasuredCumulativeRejection( i ) ) );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.analysis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.HFBDocumentIds;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankCompiler;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+/**
+ * Evaluates combinations of write options on real document ids. A filter bank is written with 
+ * each combination and read back, then its file size, load time, lookup time and false positive
+ * rate are measured. The false positive rate is measured with held out document ids, which are
+ * not part of the filter bank.
+ * 
+ * The SAVE_FPR_* options are not evaluated by default, the writer doesn't implement them yet 
+ * and saves all filters instead.
+ */
+public class HFBWriteOptionEvaluator {
+
+    private static final HFBFilterWriteOption[] ORDERS = { HFBFilterWriteOption.ORDER_BY_EFFICIENCY, HFBFilterWriteOption.ORDER_BY_STARTPOSITION,
+                    HFBFilterWriteOption.ORDER_BY_RANDOM };
+
+    private static final HFBFilterWriteOption[] SELECTIONS = { HFBFilterWriteOption.SAVE_ALL_FILTERBANKS, HFBFilterWriteOption.SAVE_FOUR_FILTERBANKS,
+                    HFBFilterWriteOption.SAVE_THREE_FILTERBANKS, HFBFilterWriteOption.SAVE_HALF_FILTERBANKS,
+                    HFBFilterWriteOption.SAVE_THIRD_FILTERBANKS };
+
+    // number of measurements, the fastest one is reported
+    public static final int DEFAULT_ROUNDS = 5;
+
+    private final Path workDirectory;
+    private final int rounds;
+
+    /**
+     * @param workDirectory the directory, where the evaluated filter banks are written to
+     */
+    public HFBWriteOptionEvaluator( Path workDirectory ) {
+        this( workDirectory, DEFAULT_ROUNDS );
+    }
+
+    /**
+     * @param workDirectory the directory, where the evaluated filter banks are written to
+     * @param rounds number of measurements for load and lookup time
+     */
+    public HFBWriteOptionEvaluator( Path workDirectory, int rounds ) {
+        if (rounds < 1) {
+            throw new IllegalArgumentException( "rounds must be at least one." );
+        }
+        this.workDirectory = workDirectory;
+        this.rounds = rounds;
+    }
+
+    /**
+     * @return every order combined with every selection of filters
+     */
+    public static List<HFBFilterWriteOption[]> getDefaultCombinations() {
+        List<HFBFilterWriteOption[]> result = new ArrayList<>();
+        for (HFBFilterWriteOption order : ORDERS) {
+            for (HFBFilterWriteOption selection : SELECTIONS) {
+                result.add( new HFBFilterWriteOption[] { order, selection } );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param documentIds the document ids of the filter bank, encoded as hexadecimal values
+     * @param nonMembers held out document ids, which are not part of the filter bank, encoded as hexadecimal values
+     * @return the measurements of the default combinations
+     */
+    public HFBWriteOptionReport evaluateHex( Collection<String> documentIds, Collection<String> nonMembers ) {
+        HFBFilterBank filterBank = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+        return evaluate( filterBank, HFBDocumentIds.fromHex( nonMembers ), getDefaultCombinations() );
+    }
+
+    /**
+     * @param filterBank the filter bank to write with each combination
+     * @param nonMembers held out document ids, which are not part of the filter bank
+     * @return the measurements of the default combinations
+     */
+    public HFBWriteOptionReport evaluate( HFBFilterBank filterBank, Collection<BigInteger> nonMembers ) {
+        return evaluate( filterBank, HFBDocumentIds.fromBigIntegers( nonMembers ), getDefaultCombinations() );
+    }
+
+    /**
+     * @param filterBank the filter bank to write with each combination
+     * @param nonMembers held out document ids as pairs of longs, see {@link HFBDocumentIds}
+     * @param combinations the write option combinations to evaluate
+     * @return the measurements of the given combinations
+     */
+    public HFBWriteOptionReport evaluate( HFBFilterBank filterBank, long[] nonMembers, List<HFBFilterWriteOption[]> combinations ) {
+        HFBFilterBankWriterV1Impl writer = new HFBFilterBankWriterV1Impl();
+        HFBFilterBankReaderV1Impl reader = new HFBFilterBankReaderV1Impl();
+
+        List<HFBWriteOptionReport.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < combinations.size(); i++) {
+            HFBFilterWriteOption[] options = combinations.get( i );
+            Path path = workDirectory.resolve( "evaluation" + i + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX );
+
+            writer.write( filterBank, path.toString(), options );
+
+            HFBFilterBank loaded = null;
+            long loadNanos = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                loaded = reader.readFromFile( path.toString() );
+                loadNanos = Math.min( loadNanos, System.nanoTime() - start );
+            }
+            if (loaded == null) {
+                throw new IllegalStateException( "Can't read the evaluated filter bank " + path );
+            }
+
+            long[] survivors = null;
+            long lookupNanos = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                survivors = loaded.filterDocumentIds( nonMembers );
+                lookupNanos = Math.min( lookupNanos, System.nanoTime() - start );
+            }
+
+            int numberOfNonMembers = HFBDocumentIds.count( nonMembers );
+            entries.add( new HFBWriteOptionReport.Entry( options, loaded.getNumberOfFilters(), sizeOf( path ), loadNanos,
+                            numberOfNonMembers == 0 ? 0.0d : (double) lookupNanos / numberOfNonMembers,
+                            numberOfNonMembers == 0 ? 0.0d : (double) HFBDocumentIds.count( survivors ) / numberOfNonMembers ) );
+
+            deleteQuietly( path );
+        }
+
+        return new HFBWriteOptionReport( entries );
+    }
+
+    private static long sizeOf( Path path ) {
+        try {
+            return Files.size( path );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static void deleteQuietly( Path path ) {
+        try {
+            Files.deleteIfExists( path );
+        }
+        catch (IOException e) {
+            // the file is only left behind in the work directory
+        }
+    }
+}
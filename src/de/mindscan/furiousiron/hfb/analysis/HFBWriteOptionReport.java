@@ -0,0 +1,153 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+/**
+ * Result of the evaluation of write option combinations for one set of document ids. Each 
+ * entry holds the measurements of one combination. An entry is on the Pareto front, if no 
+ * other entry is at least as good in all of size, load time, lookup time and false positive 
+ * rate, and better in at least one of them.
+ */
+public class HFBWriteOptionReport {
+
+    private final List<Entry> entries;
+
+    public HFBWriteOptionReport( List<Entry> entries ) {
+        this.entries = Collections.unmodifiableList( new ArrayList<>( entries ) );
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the entries, which are not dominated by any other entry, in the order of evaluation
+     */
+    public List<Entry> getParetoFront() {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (isOnParetoFront( entry )) {
+                result.add( entry );
+            }
+        }
+        return result;
+    }
+
+    public boolean isOnParetoFront( Entry entry ) {
+        for (Entry other : entries) {
+            if (other != entry && other.dominates( entry )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "%-50s %7s %10s %10s %10s %10s %6s%n", "options", "filters", "bytes", "load us", "lookup ns", "fpr",
+                        "pareto" ) );
+        for (Entry entry : entries) {
+            sb.append( String.format( "%-50s %7d %10d %10.1f %10.1f %10.5f %6s%n", Arrays.toString( entry.getOptions() ), entry.getNumberOfFilters(),
+                            entry.getBytes(), entry.getLoadNanos() / 1000.0d, entry.getLookupNanos(), entry.getFalsePositiveRate(),
+                            isOnParetoFront( entry ) ? "*" : "" ) );
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Measurements of a single write option combination.
+     */
+    public static class Entry {
+        private final HFBFilterWriteOption[] options;
+        private final int numberOfFilters;
+        private final long bytes;
+        private final long loadNanos;
+        private final double lookupNanos;
+        private final double falsePositiveRate;
+
+        public Entry( HFBFilterWriteOption[] options, int numberOfFilters, long bytes, long loadNanos, double lookupNanos,
+                        double falsePositiveRate ) {
+            this.options = options.clone();
+            this.numberOfFilters = numberOfFilters;
+            this.bytes = bytes;
+            this.loadNanos = loadNanos;
+            this.lookupNanos = lookupNanos;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        boolean dominates( Entry other ) {
+            boolean notWorse = bytes <= other.bytes && loadNanos <= other.loadNanos && lookupNanos <= other.lookupNanos
+                            && falsePositiveRate <= other.falsePositiveRate;
+            boolean better = bytes < other.bytes || loadNanos < other.loadNanos || lookupNanos < other.lookupNanos
+                            || falsePositiveRate < other.falsePositiveRate;
+            return notWorse && better;
+        }
+
+        public HFBFilterWriteOption[] getOptions() {
+            return options.clone();
+        }
+
+        public int getNumberOfFilters() {
+            return numberOfFilters;
+        }
+
+        /**
+         * @return the size of the written file
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the fastest of the measured load times
+         */
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        /**
+         * @return the average time per document id of the fastest lookup round
+         */
+        public double getLookupNanos() {
+            return lookupNanos;
+        }
+
+        /**
+         * @return the fraction of the held out non-members, which passed the loaded filter bank
+         */
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+    }
+}
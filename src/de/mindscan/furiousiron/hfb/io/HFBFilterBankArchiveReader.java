@@ -0,0 +1,401 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank64;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBReadOnlyFilterBank;
+import de.mindscan.furiousiron.hfb.HFBXorFoldedFilterData;
+
+/**
+ * Reads filter banks from an archive written by {@link HFBFilterBankArchiveWriter}. The table
+ * of filter banks is read when the archive is opened, the payloads are read on demand.
+ * 
+ * Every payload is read only once, its bytes are kept per payload offset. Filter banks, which 
+ * reference the same payload with the same slice, share a single {@link HFBFilterData} 
+ * instance, filters with a different slice share the bytes of the payload, and exact filter
+ * banks with the same document ids are a single instance. The filter banks are returned as
+ * {@link HFBReadOnlyFilterBank}, because a change would show up in every filter bank, which 
+ * shares the changed instance.
+ */
+public class HFBFilterBankArchiveReader implements Closeable {
+
+    // the header and the offset of the table
+    private static final int MINIMUM_ARCHIVE_SIZE = 8 + 8;
+
+    // see HFBFilterBankReaderV1Impl
+    private static final int MAX_SLICE_BIT_SIZE = 34;
+
+    private final FileChannel channel;
+    private final Map<String, TableEntry> entries;
+
+    private final Map<Long, byte[]> sharedPayloads = new HashMap<>();
+    private final Map<FilterKey, HFBFilterData> sharedFilters = new HashMap<>();
+    private final Map<Long, HFBReadOnlyFilterBank> sharedExactFilterBanks = new HashMap<>();
+
+    private long numberOfPayloadsRead;
+
+    /**
+     * @param archivePath the path of the archive
+     */
+    public HFBFilterBankArchiveReader( Path archivePath ) {
+        try {
+            this.channel = FileChannel.open( archivePath, StandardOpenOption.READ );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+
+        try {
+            this.entries = readTable();
+        }
+        catch (IOException | RuntimeException e) {
+            closeQuietly();
+            if (e instanceof IOException) {
+                throw new UncheckedIOException( (IOException) e );
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    private Map<String, TableEntry> readTable() throws IOException {
+        long archiveSize = channel.size();
+        if (archiveSize < MINIMUM_ARCHIVE_SIZE) {
+            throw new FileFormatException( "Unexpected end of the HFB archive." );
+        }
+
+        ByteBuffer header = readFully( 0, 8 );
+        if (header.getInt( 0 ) != HFBFilterBankWriterV1Impl.HFB_MARKER) {
+            throw new FileFormatException( "This is not a HFB-File." );
+        }
+        if (header.getInt( 4 ) != HFBFilterBankArchiveWriter.HFB_ARCHIVE_V1_MARKER) {
+            throw new FileFormatException( "This is not a HFB archive file." );
+        }
+
+        long tableOffset = readFully( archiveSize - 8, 8 ).getLong( 0 );
+        if (tableOffset < 8 || tableOffset > archiveSize - 8 - 4 || archiveSize - 8 - tableOffset > Integer.MAX_VALUE) {
+            throw new FileFormatException( "Corrupt table offset of the HFB archive." );
+        }
+
+        ByteBuffer tableBuffer = readFully( tableOffset, (int) (archiveSize - 8 - tableOffset) );
+        DataInputStream table = new DataInputStream( new ByteArrayInputStream( tableBuffer.array() ) );
+
+        Map<String, TableEntry> result = new TreeMap<>();
+        try {
+            int numberOfEntries = table.readInt();
+            if (numberOfEntries < 0) {
+                throw new FileFormatException( "Corrupt table of the HFB archive." );
+            }
+
+            for (int i = 0; i < numberOfEntries; i++) {
+                TableEntry entry = TableEntry.readFrom( table, tableOffset );
+                result.put( entry.key, entry );
+            }
+        }
+        catch (EOFException e) {
+            throw new FileFormatException( "Unexpected end of the table of the HFB archive.", e );
+        }
+
+        return result;
+    }
+
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet( entries.keySet() );
+    }
+
+    public boolean contains( String key ) {
+        return entries.containsKey( key );
+    }
+
+    /**
+     * @param key the key of the filter bank, e.g. the trigram
+     * @return the read-only filter bank, or null if the archive doesn't contain the key
+     */
+    public synchronized HFBReadOnlyFilterBank readFilterBank( String key ) {
+        TableEntry entry = entries.get( key );
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            if (entry.kind == HFBFilterBankArchiveWriter.KIND_EXACT) {
+                return readExactFilterBank( entry );
+            }
+
+            HFBFilterBank filterBank = entry.bitsInDocumentId == HFBFilterBank64.BITS_IN_DOCUMENT_ID ? new HFBFilterBank64()
+                            : new HFBFilterBank();
+            filterBank.initFiltersLazy( entry.bitsInDocumentId, entry.occurrenceCount, entry.loadFactor );
+            for (int i = 0; i < entry.filterKeys.length; i++) {
+                filterBank.addFilterData( readFilterData( entry.filterKeys[i] ) );
+            }
+            return new HFBReadOnlyFilterBank( filterBank );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * @return every filter bank of the archive by its key
+     */
+    public Map<String, HFBReadOnlyFilterBank> readAll() {
+        Map<String, HFBReadOnlyFilterBank> result = new TreeMap<>();
+        for (String key : entries.keySet()) {
+            result.put( key, readFilterBank( key ) );
+        }
+        return result;
+    }
+
+    private HFBReadOnlyFilterBank readExactFilterBank( TableEntry entry ) throws IOException {
+        long payloadOffset = entry.filterKeys[0].payloadOffset;
+        HFBReadOnlyFilterBank shared = sharedExactFilterBanks.get( payloadOffset );
+        if (shared != null && shared.getBitsInDocumentId() == entry.bitsInDocumentId) {
+            return shared;
+        }
+
+        byte[] payload = readPayload( payloadOffset );
+        if (payload.length != entry.occurrenceCount * 16L) {
+            throw new FileFormatException( "Exact data length doesn't match the number of document ids." );
+        }
+
+        long[] documentIds = new long[payload.length >> 3];
+        ByteBuffer.wrap( payload ).asLongBuffer().get( documentIds );
+
+        HFBExactFilterBank filterBank = new HFBExactFilterBank();
+        filterBank.initExact( entry.bitsInDocumentId, 0 );
+        try {
+            filterBank.setDocumentIds( documentIds );
+        }
+        catch (IllegalArgumentException e) {
+            throw new FileFormatException( "Exact data is not sorted.", e );
+        }
+
+        HFBReadOnlyFilterBank result = new HFBReadOnlyFilterBank( filterBank );
+        sharedExactFilterBanks.putIfAbsent( payloadOffset, result );
+        return result;
+    }
+
+    private HFBFilterData readFilterData( FilterKey filterKey ) throws IOException {
+        HFBFilterData shared = sharedFilters.get( filterKey );
+        if (shared != null) {
+            return shared;
+        }
+
+        HFBFilterData filterData = filterKey.xorSlicePosition == HFBFilterBankArchiveWriter.NO_XOR_SLICE_POSITION
+                        ? new HFBFilterData( filterKey.slicePosition, filterKey.sliceBitSize )
+                        : new HFBXorFoldedFilterData( filterKey.slicePosition, filterKey.sliceBitSize, filterKey.xorSlicePosition );
+
+        byte[] payload = readPayload( filterKey.payloadOffset );
+        if (payload.length != 1 << Math.max( filterKey.sliceBitSize - HFBFilterData.BYTE_ADDRESS_SHIFT, 0 )) {
+            throw new FileFormatException( "Filter data length doesn't match the slice size." );
+        }
+        filterData.shareSliceData( payload );
+
+        sharedFilters.put( filterKey, filterData );
+        return filterData;
+    }
+
+    private byte[] readPayload( long payloadOffset ) throws IOException {
+        byte[] shared = sharedPayloads.get( payloadOffset );
+        if (shared != null) {
+            return shared;
+        }
+
+        int length = readFully( payloadOffset, 4 ).getInt( 0 );
+        if (length < 0 || payloadOffset + 4 + length > channel.size() - 8) {
+            throw new FileFormatException( "Unexpected end of the payload of the HFB archive." );
+        }
+
+        numberOfPayloadsRead++;
+        byte[] payload = readFully( payloadOffset + 4, length ).array();
+        sharedPayloads.put( payloadOffset, payload );
+        return payload;
+    }
+
+    private ByteBuffer readFully( long offset, int length ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( length );
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read( buffer, position );
+            if (read < 0) {
+                throw new FileFormatException( "Unexpected end of the HFB archive." );
+            }
+            position += read;
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the number of payloads read from the archive so far, each payload is read once
+     */
+    public synchronized long getNumberOfPayloadsRead() {
+        return numberOfPayloadsRead;
+    }
+
+    /**
+     * @return the number of filters read from the archive so far, filters with the same payload
+     *          and the same slice are read once
+     */
+    public synchronized long getNumberOfFiltersRead() {
+        return sharedFilters.size();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            // the original exception is more important
+        }
+    }
+
+    private static class TableEntry {
+        private final String key;
+        private final int kind;
+        private final int bitsInDocumentId;
+        private final long occurrenceCount;
+        private final int loadFactor;
+        private final FilterKey[] filterKeys;
+
+        TableEntry( String key, int kind, int bitsInDocumentId, long occurrenceCount, int loadFactor, FilterKey[] filterKeys ) {
+            this.key = key;
+            this.kind = kind;
+            this.bitsInDocumentId = bitsInDocumentId;
+            this.occurrenceCount = occurrenceCount;
+            this.loadFactor = loadFactor;
+            this.filterKeys = filterKeys;
+        }
+
+        static TableEntry readFrom( DataInputStream table, long tableOffset ) throws IOException {
+            String key = table.readUTF();
+            int kind = table.readInt();
+            int bitsInDocumentId = table.readInt();
+            long occurrenceCount = table.readLong();
+            int loadFactor = table.readInt();
+
+            if (bitsInDocumentId <= 0 || occurrenceCount < 0) {
+                throw new FileFormatException( "Corrupt table entry " + key + " of the HFB archive." );
+            }
+
+            FilterKey[] filterKeys;
+            if (kind == HFBFilterBankArchiveWriter.KIND_EXACT) {
+                filterKeys = new FilterKey[] { new FilterKey( checkPayloadOffset( table.readLong(), tableOffset ), 0, 0, 0 ) };
+            }
+            else if (kind == HFBFilterBankArchiveWriter.KIND_FILTERS) {
+                int numberOfFilters = table.readInt();
+                if (numberOfFilters < 0) {
+                    throw new FileFormatException( "Corrupt table entry " + key + " of the HFB archive." );
+                }
+
+                filterKeys = new FilterKey[numberOfFilters];
+                for (int i = 0; i < numberOfFilters; i++) {
+                    int slicePosition = table.readInt();
+                    int sliceBitSize = table.readInt();
+                    int xorSlicePosition = table.readInt();
+                    long payloadOffset = checkPayloadOffset( table.readLong(), tableOffset );
+
+                    if (slicePosition < 0 || sliceBitSize < 0 || sliceBitSize > MAX_SLICE_BIT_SIZE || slicePosition + sliceBitSize > bitsInDocumentId
+                                    || xorSlicePosition < HFBFilterBankArchiveWriter.NO_XOR_SLICE_POSITION
+                                    || xorSlicePosition + sliceBitSize > bitsInDocumentId) {
+                        throw new FileFormatException( "Slice doesn't fit into the document id." );
+                    }
+
+                    filterKeys[i] = new FilterKey( payloadOffset, slicePosition, sliceBitSize, xorSlicePosition );
+                }
+            }
+            else {
+                throw new FileFormatException( "Unknown kind of the table entry " + key + " of the HFB archive." );
+            }
+
+            return new TableEntry( key, kind, bitsInDocumentId, occurrenceCount, loadFactor, filterKeys );
+        }
+
+        private static long checkPayloadOffset( long payloadOffset, long tableOffset ) {
+            if (payloadOffset < 8 || payloadOffset > tableOffset - 4) {
+                throw new FileFormatException( "Payload offset is outside of the payloads of the HFB archive." );
+            }
+            return payloadOffset;
+        }
+    }
+
+    // a payload used with a particular slice
+    private static class FilterKey {
+        private final long payloadOffset;
+        private final int slicePosition;
+        private final int sliceBitSize;
+        private final int xorSlicePosition;
+
+        FilterKey( long payloadOffset, int slicePosition, int sliceBitSize, int xorSlicePosition ) {
+            this.payloadOffset = payloadOffset;
+            this.slicePosition = slicePosition;
+            this.sliceBitSize = sliceBitSize;
+            this.xorSlicePosition = xorSlicePosition;
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            if (!(obj instanceof FilterKey)) {
+                return false;
+            }
+            FilterKey other = (FilterKey) obj;
+            return payloadOffset == other.payloadOffset && slicePosition == other.slicePosition && sliceBitSize == other.sliceBitSize
+                            && xorSlicePosition == other.xorSlicePosition;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (payloadOffset ^ (payloadOffset >>> 32)) * 31 * 31 * 31 + slicePosition * 31 * 31 + sliceBitSize * 31 + xorSlicePosition;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank64;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBTieredFilterBank;
+
+/**
+ * Writes many filter banks into a single content addressed archive. Many rare trigrams share
+ * the same small posting lists, so their filter data is byte identical. Each payload, i.e. the 
+ * filter data of a filter or the document ids of an exact filter bank, is hashed, and every 
+ * unique payload is stored only once. The filter banks only reference their payloads by offset.
+ * 
+ * 'HFB.', 'a1', 0x00, 0x00, then the payloads, each one as its length followed by its bytes,
+ * then the table of filter banks, and finally the offset of the table as the last 8 bytes.
+ * 
+ * The payloads are appended while the filter banks are added, only the table is kept in 
+ * memory until the archive is closed. All filters of a filter bank are archived. Xor, blocked
+ * and scalable filter banks are not supported, write them as single files.
+ */
+public class HFBFilterBankArchiveWriter implements Closeable {
+
+    public final static String FILE_DOT_SUFFIX = ".hfba1";
+
+    // 'a1', 0x00, 0x00
+    public final static int HFB_ARCHIVE_V1_MARKER = 0x61310000;
+
+    public final static int KIND_FILTERS = 1;
+    public final static int KIND_EXACT = 2;
+
+    // marks a filter without xor folded slice in the table
+    public final static int NO_XOR_SLICE_POSITION = -1;
+
+    private static final String PAYLOAD_DIGEST = "SHA-256";
+
+    private final DataOutputStream output;
+    private final MessageDigest digest;
+
+    private final Map<ByteBuffer, Long> payloadOffsets = new HashMap<>();
+    private final ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+    private final DataOutputStream table = new DataOutputStream( tableBytes );
+    private final Set<String> keys = new HashSet<>();
+
+    private long position;
+    private long numberOfPayloads;
+    private long numberOfSharedPayloads;
+    private long deduplicatedBytes;
+
+    /**
+     * @param archivePath the path of the archive, an existing archive is replaced
+     */
+    public HFBFilterBankArchiveWriter( Path archivePath ) {
+        try {
+            this.digest = MessageDigest.getInstance( PAYLOAD_DIGEST );
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException( "Every java platform must support " + PAYLOAD_DIGEST + ".", e );
+        }
+
+        try {
+            this.output = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( archivePath, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) ) );
+
+            output.writeInt( HFBFilterBankWriterV1Impl.HFB_MARKER );
+            output.writeInt( HFB_ARCHIVE_V1_MARKER );
+            position = 8;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Adds a filter bank to the archive. Payloads, which are already part of the archive, are
+     * only referenced.
+     * 
+     * @param key the key of the filter bank, e.g. the trigram
+     * @param filterBank the filter bank
+     * @return the number of bytes appended to the archive for the payloads of this filter bank
+     */
+    public synchronized long add( String key, HFBFilterBank filterBank ) {
+        if (!keys.add( key )) {
+            throw new IllegalArgumentException( "The archive already contains the key " + key );
+        }
+
+        if (filterBank instanceof HFBTieredFilterBank) {
+            filterBank = ((HFBTieredFilterBank) filterBank).getFullFilterBank();
+        }
+
+        long startPosition = position;
+        try {
+            if (filterBank instanceof HFBExactFilterBank) {
+                long[] documentIds = ((HFBExactFilterBank) filterBank).getDocumentIds();
+                ByteBuffer documentIdBuffer = ByteBuffer.allocate( documentIds.length << 3 );
+                documentIdBuffer.asLongBuffer().put( documentIds );
+
+                long payloadOffset = writePayload( documentIdBuffer.array() );
+
+                writeTableHeader( key, KIND_EXACT, filterBank );
+                table.writeLong( payloadOffset );
+            }
+            else if (hasArchivableFilters( filterBank )) {
+                int numberOfFilters = filterBank.getNumberOfFilters();
+                long[] payloadOffsetsOfFilters = new long[numberOfFilters];
+                for (int i = 0; i < numberOfFilters; i++) {
+                    payloadOffsetsOfFilters[i] = writePayload( filterBank.getFilterData( i ).getSliceData() );
+                }
+
+                writeTableHeader( key, KIND_FILTERS, filterBank );
+                table.writeInt( numberOfFilters );
+                for (int i = 0; i < numberOfFilters; i++) {
+                    HFBFilterData filterData = filterBank.getFilterData( i );
+                    table.writeInt( filterData.getSlicePosition() );
+                    table.writeInt( filterData.getSliceBitSize() );
+                    table.writeInt( filterData.isXorFolded() ? filterData.getXorSlicePosition() : NO_XOR_SLICE_POSITION );
+                    table.writeLong( payloadOffsetsOfFilters[i] );
+                }
+            }
+            else {
+                keys.remove( key );
+                throw new IllegalArgumentException( "The filter bank " + key + " of type " + filterBank.getClass().getSimpleName()
+                                + " can't be archived." );
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+
+        return position - startPosition;
+    }
+
+    private static boolean hasArchivableFilters( HFBFilterBank filterBank ) {
+        return filterBank.getClass() == HFBFilterBank.class || filterBank instanceof HFBFilterBank64;
+    }
+
+    private void writeTableHeader( String key, int kind, HFBFilterBank filterBank ) throws IOException {
+        table.writeUTF( key );
+        table.writeInt( kind );
+        table.writeInt( filterBank.getBitsInDocumentId() );
+        table.writeLong( filterBank.getOccurrenceCount() );
+        table.writeInt( filterBank.getLoadFactor() );
+    }
+
+    private long writePayload( byte[] payload ) throws IOException {
+        ByteBuffer address = ByteBuffer.wrap( digest.digest( payload ) );
+
+        Long knownOffset = payloadOffsets.get( address );
+        if (knownOffset != null) {
+            numberOfSharedPayloads++;
+            deduplicatedBytes += payload.length;
+            return knownOffset;
+        }
+
+        long payloadOffset = position;
+        output.writeInt( payload.length );
+        output.write( payload );
+        position += 4 + payload.length;
+
+        payloadOffsets.put( address, payloadOffset );
+        numberOfPayloads++;
+        return payloadOffset;
+    }
+
+    /**
+     * Writes the table of filter banks and closes the archive.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            long tableOffset = position;
+
+            table.flush();
+            output.writeInt( keys.size() );
+            tableBytes.writeTo( output );
+            output.writeLong( tableOffset );
+            output.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    public synchronized int getNumberOfFilterBanks() {
+        return keys.size();
+    }
+
+    /**
+     * @return the number of unique payloads written to the archive
+     */
+    public synchronized long getNumberOfPayloads() {
+        return numberOfPayloads;
+    }
+
+    /**
+     * @return the number of payloads, which were only referenced, because they were already part of the archive
+     */
+    public synchronized long getNumberOfSharedPayloads() {
+        return numberOfSharedPayloads;
+    }
+
+    /**
+     * @return the number of payload bytes, which were not written again
+     */
+    public synchronized long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+}
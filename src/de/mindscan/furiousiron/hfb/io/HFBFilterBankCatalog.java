@@ -0,0 +1,192 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A catalog collects the metadata of all filter banks of a directory in a single sidecar file,
+ * so that a query planner can rank the filter banks of a query, without opening any of the 
+ * filter bank files. The key of a filter bank is its file name without the suffix.
+ * 
+ * 'HFB.', 'c2', 0x00, 0x00, number of entries, then for each entry the key and the metadata.
+ * The entries of a former 'c1' catalog have no number of applied filters, they are read as the
+ * first three filters.
+ */
+public class HFBFilterBankCatalog {
+
+    public final static String CATALOG_FILE_NAME = "catalog.hfbc1";
+
+    // 'c2', 0x00, 0x00
+    public final static int HFB_CATALOG_V2_MARKER = 0x63320000;
+    // 'c1', 0x00, 0x00 - entries without the number of applied filters
+    public final static int HFB_CATALOG_V1_MARKER = 0x63310000;
+
+    private final Map<String, HFBFilterBankMetadata> entries;
+
+    private HFBFilterBankCatalog( Map<String, HFBFilterBankMetadata> entries ) {
+        this.entries = entries;
+    }
+
+    /**
+     * Builds the catalog from the header and metadata of every filter bank file of the directory.
+     * 
+     * @param directory the directory containing the filter bank files
+     * @return the catalog
+     */
+    public static HFBFilterBankCatalog build( Path directory ) {
+        HFBFilterBankReaderV1Impl reader = new HFBFilterBankReaderV1Impl();
+        Map<String, HFBFilterBankMetadata> entries = new TreeMap<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream( directory, "*" + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX )) {
+            for (Path file : files) {
+                HFBFilterBankMetadata metadata = reader.readMetadata( file.toString() );
+                if (metadata == null) {
+                    throw new IllegalStateException( "Can't read metadata of " + file );
+                }
+
+                String fileName = file.getFileName().toString();
+                entries.put( fileName.substring( 0, fileName.length() - HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX.length() ), metadata );
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+
+        return new HFBFilterBankCatalog( entries );
+    }
+
+    /**
+     * Builds the catalog of the directory and writes it as sidecar file into the directory.
+     * 
+     * @param directory the directory containing the filter bank files
+     * @return the catalog
+     */
+    public static HFBFilterBankCatalog buildAndWrite( Path directory ) {
+        HFBFilterBankCatalog catalog = build( directory );
+        catalog.write( directory.resolve( CATALOG_FILE_NAME ) );
+        return catalog;
+    }
+
+    public void write( Path catalogPath ) {
+        try (OutputStream writer = Files.newOutputStream( catalogPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING )) {
+            DataOutputStream output = new DataOutputStream( writer );
+
+            output.writeInt( HFBFilterBankWriterV1Impl.HFB_MARKER );
+            output.writeInt( HFB_CATALOG_V2_MARKER );
+            output.writeInt( entries.size() );
+
+            for (Map.Entry<String, HFBFilterBankMetadata> entry : entries.entrySet()) {
+                output.writeUTF( entry.getKey() );
+                entry.getValue().writeTo( output );
+            }
+
+            output.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    public static HFBFilterBankCatalog read( Path catalogPath ) {
+        try (InputStream reader = Files.newInputStream( catalogPath )) {
+            DataInputStream input = new DataInputStream( reader );
+
+            if (input.readInt() != HFBFilterBankWriterV1Impl.HFB_MARKER) {
+                throw new FileFormatException( "This is not a HFB-File." );
+            }
+            int version = input.readInt();
+            if (version != HFB_CATALOG_V2_MARKER && version != HFB_CATALOG_V1_MARKER) {
+                throw new FileFormatException( "This is not a HFB catalog file." );
+            }
+
+            int numberOfEntries = input.readInt();
+            if (numberOfEntries < 0) {
+                throw new FileFormatException( "Corrupt header of the HFB catalog file." );
+            }
+
+            Map<String, HFBFilterBankMetadata> entries = new TreeMap<>();
+            for (int i = 0; i < numberOfEntries; i++) {
+                String key = input.readUTF();
+                entries.put( key, HFBFilterBankMetadata.readFrom( input, version == HFB_CATALOG_V2_MARKER ) );
+            }
+
+            return new HFBFilterBankCatalog( entries );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * @param key the key of the filter bank, e.g. the trigram
+     * @return the metadata of the filter bank, or null if the catalog doesn't know the key
+     */
+    public HFBFilterBankMetadata getMetadata( String key ) {
+        return entries.get( key );
+    }
+
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet( entries.keySet() );
+    }
+
+    /**
+     * Orders the keys of a query, the most selective filter bank first, by the survival rate of 
+     * the filters each filter bank applies. Filter banks with the same estimated survival rate 
+     * are ordered by their number of documents. Keys unknown to the 
+     * catalog are moved to the end.
+     * 
+     * @param keys the keys of the filter banks of a query
+     * @return the keys in the order, in which the filter banks should be asked
+     */
+    public List<String> rankBySelectivity( Collection<String> keys ) {
+        List<String> result = new ArrayList<>( keys );
+
+        Collections.sort( result, Comparator.comparing( (String key) -> !entries.containsKey( key ) )
+                        .thenComparingDouble( key -> entries.containsKey( key ) ? entries.get( key ).getEstimatedSurvivalRate() : 1.0d )
+                        .thenComparingLong( key -> entries.containsKey( key ) ? entries.get( key ).getOccurrenceCount() : Long.MAX_VALUE ) );
+
+        return result;
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBTieredFilterBank;
+
+/**
+ * Applies a delta written by {@link HFBFilterBankDeltaWriter} in place, either to a filter 
+ * bank in memory or to a filter bank file. 
+ * 
+ * The changed words are written with their new value, so applying the same delta twice is 
+ * harmless. A filter, which is not part of the target, e.g. because the file was saved with 
+ * only three filters, is skipped.
+ */
+public class HFBFilterBankDeltaReader {
+
+    private static final int HFB_HEADER_SIZE = 28;
+    private static final int HFB_FILTERDATA_HEADER_SIZE = 20;
+    private static final int HFB_XOR_FILTERDATA_HEADER_SIZE = 24;
+    private static final int BYTES_PER_WORD = HFBFilterBankDeltaWriter.BYTES_PER_WORD;
+
+    /**
+     * @param filterBank the old version of the filter bank, which is updated in place, it must not be tiered
+     * @param deltaPath path of the delta file
+     */
+    public void applyTo( HFBFilterBank filterBank, String deltaPath ) {
+        if (filterBank instanceof HFBTieredFilterBank) {
+            // the summary tier is derived from the full size filters and would miss the update
+            throw new IllegalArgumentException( "Can't apply a delta to a tiered filter bank, apply it to the full size filter bank and build a new tier." );
+        }
+
+        Delta delta = readDelta( deltaPath );
+
+        if (filterBank.getBitsInDocumentId() != delta.bitsInDocumentId) {
+            throw new IllegalArgumentException( "The delta doesn't match the geometry of the filter bank." );
+        }
+
+        for (FilterDelta filterDelta : delta.filterDeltas) {
+            HFBFilterData filterData = findFilterData( filterBank, filterDelta );
+            if (filterData != null) {
+                byte[] sliceData = filterData.getSliceData();
+                for (int i = 0; i < filterDelta.wordIndexes.length; i++) {
+                    int offset = filterDelta.wordIndexes[i] * BYTES_PER_WORD;
+                    long word = filterDelta.words[i];
+                    for (int b = 0; b < Math.min( BYTES_PER_WORD, sliceData.length - offset ); b++) {
+                        sliceData[offset + b] = (byte) (word >>> (b << 3));
+                    }
+                }
+                filterData.setCachedBitweight( -1L );
+            }
+        }
+
+        filterBank.initFiltersLazy( delta.bitsInDocumentId, delta.occurrenceCount, delta.loadFactor );
+    }
+
+    /**
+     * Updates a V1 filter bank file in place, the file is memory mapped for the update.
+     * 
+     * @param deltaPath path of the delta file
+     * @param filterBankPath path of the filter bank file, which is updated in place
+     */
+    public void applyToFile( String deltaPath, String filterBankPath ) {
+        Delta delta = readDelta( deltaPath );
+
+        try (FileChannel channel = FileChannel.open( Paths.get( filterBankPath ), StandardOpenOption.READ, StandardOpenOption.WRITE )) {
+            if (channel.size() < HFB_HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new FileFormatException( "Can't map this HFBFile." );
+            }
+
+            MappedByteBuffer mapped = channel.map( MapMode.READ_WRITE, 0, channel.size() );
+
+            if (mapped.getInt( 0 ) != HFBFilterBankWriterV1Impl.HFB_MARKER || mapped.getInt( 4 ) != HFBFilterBankWriterV1Impl.HFB_V1_MARKER) {
+                throw new FileFormatException( "Deltas can only be applied to V1 HFB-Files." );
+            }
+            if (mapped.getInt( 8 ) != delta.bitsInDocumentId) {
+                throw new IllegalArgumentException( "The delta doesn't match the geometry of the filter bank." );
+            }
+
+            int numberOfFilters = mapped.getInt( 24 );
+            long[] bitweights = new long[Math.max( numberOfFilters, 0 )];
+            double[] rejections = new double[bitweights.length];
+            int position = HFB_HEADER_SIZE;
+            for (int filterID = 0; filterID < numberOfFilters; filterID++) {
+                if (position + HFB_FILTERDATA_HEADER_SIZE > mapped.limit()) {
+                    throw new FileFormatException( "Unexpected end of the HFBFile." );
+                }
+
+                int marker = mapped.getInt( position );
+                boolean xorFolded = marker == HFBFilterBankWriterV1Impl.HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED;
+                if (marker != HFBFilterBankWriterV1Impl.HFB_FILTERDATA_MARKER_UNCOMPRESSED && !xorFolded) {
+                    throw new FileFormatException( "Can't decode filter bank data. Marker unknown." );
+                }
+                int headerSize = xorFolded ? HFB_XOR_FILTERDATA_HEADER_SIZE : HFB_FILTERDATA_HEADER_SIZE;
+                if (position + headerSize > mapped.limit()) {
+                    throw new FileFormatException( "Unexpected end of the HFBFile." );
+                }
+
+                int slicePosition = mapped.getInt( position + 8 );
+                int sliceBitSize = mapped.getInt( position + 12 );
+                int xorSlicePosition = xorFolded ? mapped.getInt( position + 16 ) : 0;
+                int filterDataLength = mapped.getInt( position + headerSize - 4 );
+                int filterDataOffset = position + headerSize;
+                if (filterDataLength < 0 || filterDataOffset + filterDataLength > mapped.limit()) {
+                    throw new FileFormatException( "Unexpected end of the HFBFile." );
+                }
+
+                FilterDelta filterDelta = findFilterDelta( delta, slicePosition, sliceBitSize, xorFolded, xorSlicePosition );
+                if (filterDelta != null) {
+                    for (int i = 0; i < filterDelta.wordIndexes.length; i++) {
+                        int offset = filterDelta.wordIndexes[i] * BYTES_PER_WORD;
+                        long word = filterDelta.words[i];
+                        for (int b = 0; b < Math.min( BYTES_PER_WORD, filterDataLength - offset ); b++) {
+                            mapped.put( filterDataOffset + offset + b, (byte) (word >>> (b << 3)) );
+                        }
+                    }
+                }
+
+                bitweights[filterID] = calculateBitweight( mapped, filterDataOffset, filterDataLength );
+                rejections[filterID] = HFBFilterBankMetadata.estimateRejection( bitweights[filterID], sliceBitSize );
+
+                position = filterDataOffset + filterDataLength;
+            }
+
+            // the metadata block must follow the changed filter data, its version and number of applied filters are kept
+            int marker = mapped.limit() - position >= 4 ? mapped.getInt( position ) : 0;
+            if (HFBFilterBankMetadata.isMetadataMarker( marker )
+                            && mapped.limit() - position >= HFBFilterBankMetadata.calculateMetadataSize( marker, numberOfFilters )) {
+                HFBFilterBankMetadata metadata = HFBFilterBankMetadata.getMetadataBlock( delta.bitsInDocumentId, delta.occurrenceCount,
+                                delta.loadFactor, mapped, position, numberOfFilters );
+                new HFBFilterBankMetadata( delta.bitsInDocumentId, delta.occurrenceCount, delta.loadFactor, metadata.getNumberOfAppliedFilters(),
+                                bitweights, rejections ).putMetadataBlock( mapped, position, marker );
+            }
+
+            mapped.putLong( 12, delta.occurrenceCount );
+            mapped.force();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static long calculateBitweight( MappedByteBuffer mapped, int offset, int length ) {
+        long bitweight = 0;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            bitweight += Long.bitCount( mapped.getLong( offset + i ) );
+        }
+        for (; i < length; i++) {
+            bitweight += Integer.bitCount( mapped.get( offset + i ) & 0xff );
+        }
+        return bitweight;
+    }
+
+    private static HFBFilterData findFilterData( HFBFilterBank filterBank, FilterDelta filterDelta ) {
+        for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+            HFBFilterData filterData = filterBank.getFilterData( i );
+            if (filterDelta.matches( filterData.getSlicePosition(), filterData.getSliceBitSize(), filterData.isXorFolded(),
+                            filterData.getXorSlicePosition() )) {
+                return filterData;
+            }
+        }
+        return null;
+    }
+
+    private static FilterDelta findFilterDelta( Delta delta, int slicePosition, int sliceBitSize, boolean xorFolded, int xorSlicePosition ) {
+        for (FilterDelta filterDelta : delta.filterDeltas) {
+            if (filterDelta.matches( slicePosition, sliceBitSize, xorFolded, xorSlicePosition )) {
+                return filterDelta;
+            }
+        }
+        return null;
+    }
+
+    private Delta readDelta( String deltaPath ) {
+        try (InputStream reader = Files.newInputStream( Paths.get( deltaPath ) )) {
+            DataInputStream input = new DataInputStream( reader );
+
+            if (input.readInt() != HFBFilterBankWriterV1Impl.HFB_MARKER) {
+                throw new FileFormatException( "This is not a HFB-File." );
+            }
+            if (input.readInt() != HFBFilterBankDeltaWriter.HFB_DELTA_V1_MARKER) {
+                throw new FileFormatException( "This is not a HFB delta file." );
+            }
+
+            Delta delta = new Delta();
+            delta.bitsInDocumentId = input.readInt();
+            delta.occurrenceCount = input.readLong();
+            delta.loadFactor = input.readInt();
+
+            int numberOfFilterDeltas = input.readInt();
+            for (int i = 0; i < numberOfFilterDeltas; i++) {
+                delta.filterDeltas.add( readFilterDelta( input ) );
+            }
+            return delta;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private FilterDelta readFilterDelta( DataInputStream input ) throws IOException {
+        int marker = input.readInt();
+        if (marker != HFBFilterBankDeltaWriter.HFB_FILTERDELTA_MARKER_DEFLATED && marker != HFBFilterBankDeltaWriter.HFB_XOR_FILTERDELTA_MARKER_DEFLATED) {
+            throw new FileFormatException( "Can't decode filter delta. Marker unknown." );
+        }
+
+        FilterDelta filterDelta = new FilterDelta();
+        filterDelta.slicePosition = input.readInt();
+        filterDelta.sliceBitSize = input.readInt();
+        if (marker == HFBFilterBankDeltaWriter.HFB_XOR_FILTERDELTA_MARKER_DEFLATED) {
+            filterDelta.xorFolded = true;
+            filterDelta.xorSlicePosition = input.readInt();
+        }
+
+        int numberOfChangedWords = input.readInt();
+        int compressedLength = input.readInt();
+        if (numberOfChangedWords < 0 || compressedLength < 0 || filterDelta.sliceBitSize < 0 || filterDelta.sliceBitSize > 31) {
+            throw new FileFormatException( "Corrupt filter delta." );
+        }
+
+        byte[] compressed = new byte[compressedLength];
+        input.readFully( compressed );
+
+        filterDelta.wordIndexes = new int[numberOfChangedWords];
+        filterDelta.words = new long[numberOfChangedWords];
+        try (DataInputStream changedWords = new DataInputStream( new InflaterInputStream( new ByteArrayInputStream( compressed ) ) )) {
+            for (int i = 0; i < numberOfChangedWords; i++) {
+                filterDelta.wordIndexes[i] = changedWords.readInt();
+                filterDelta.words[i] = changedWords.readLong();
+            }
+        }
+
+        int maximumWordIndex = (int) (((1L << Math.max( filterDelta.sliceBitSize - 3, 0 )) - 1) / BYTES_PER_WORD);
+        for (int wordIndex : filterDelta.wordIndexes) {
+            if (wordIndex < 0 || wordIndex > maximumWordIndex) {
+                throw new FileFormatException( "Word index of the filter delta is out of range." );
+            }
+        }
+
+        return filterDelta;
+    }
+
+    private static class Delta {
+        private int bitsInDocumentId;
+        private long occurrenceCount;
+        private int loadFactor;
+        private final List<FilterDelta> filterDeltas = new ArrayList<>();
+    }
+
+    private static class FilterDelta {
+        private int slicePosition;
+        private int sliceBitSize;
+        private boolean xorFolded;
+        private int xorSlicePosition;
+        private int[] wordIndexes;
+        private long[] words;
+
+        boolean matches( int slicePosition, int sliceBitSize, boolean xorFolded, int xorSlicePosition ) {
+            return this.slicePosition == slicePosition && this.sliceBitSize == sliceBitSize && this.xorFolded == xorFolded
+                            && (!xorFolded || this.xorSlicePosition == xorSlicePosition);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DeflaterOutputStream;
+
+import de.mindscan.furiousiron.hfb.HFBBlockedFilterBank;
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBScalableFilterBank;
+import de.mindscan.furiousiron.hfb.HFBTieredFilterBank;
+
+/**
+ * Writes the difference between an old and a new version of a filter bank with the same 
+ * geometry, such that an update of a posting list can be shipped with a size proportional to
+ * the change, instead of the whole filter bank.
+ * 
+ * The filter data is compared in words of 8 bytes, only changed words are written with their
+ * new value. The changed words of each filter are deflated. Applying a delta twice gives the 
+ * same result, see {@link HFBFilterBankDeltaReader}.
+ */
+public class HFBFilterBankDeltaWriter {
+
+    public final static String FILE_DOT_SUFFIX = ".hfbd1";
+
+    // 'd1' + 0x00 + 0x00
+    public final static int HFB_DELTA_V1_MARKER = 0x64310000;
+    // 'FDd1'
+    public final static int HFB_FILTERDELTA_MARKER_DEFLATED = 0x46446431;
+    // 'FXd1' - delta of a xor folded filter, followed by the position of the second slice
+    public final static int HFB_XOR_FILTERDELTA_MARKER_DEFLATED = 0x46586431;
+
+    public final static int BYTES_PER_WORD = 8;
+
+    public void write( HFBFilterBank oldFilterBank, HFBFilterBank newFilterBank, String outputPath ) {
+        if (!outputPath.endsWith( FILE_DOT_SUFFIX )) {
+            outputPath = outputPath + FILE_DOT_SUFFIX;
+        }
+
+        try (OutputStream writer = Files.newOutputStream( Paths.get( outputPath ), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING )) {
+            write( oldFilterBank, newFilterBank, writer );
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * @param oldFilterBank the filter bank, the delta is applied to
+     * @param newFilterBank the filter bank after applying the delta
+     * @param writer the stream to write the delta to
+     * @throws IOException if the delta can't be written
+     */
+    public void write( HFBFilterBank oldFilterBank, HFBFilterBank newFilterBank, OutputStream writer ) throws IOException {
+        checkSameGeometry( oldFilterBank, newFilterBank );
+
+        // write HFB Marker Header -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFBFilterBankWriterV1Impl.HFB_MARKER ) );
+        // write HFB delta Version Information -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_DELTA_V1_MARKER ) );
+
+        // write number of bits in DocumentId -- 4bytes
+        writer.write( RawUtils.toByteArray4b( newFilterBank.getBitsInDocumentId() ) );
+        // write new Number of occurrences / number of documents -- 8 bytes
+        writer.write( RawUtils.toByteArray8b( newFilterBank.getOccurrenceCount() ) );
+        // write spread factor / load factor -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( newFilterBank.getLoadFactor() ) );
+
+        // write number of filter deltas -- 4 bytes
+        int numberOfFilters = newFilterBank.getNumberOfFilters();
+        writer.write( RawUtils.toByteArray4b( numberOfFilters ) );
+
+        for (int filterID = 0; filterID < numberOfFilters; filterID++) {
+            writeFilterDelta( oldFilterBank.getFilterData( filterID ), newFilterBank.getFilterData( filterID ), writer );
+        }
+
+        writer.flush();
+    }
+
+    private void writeFilterDelta( HFBFilterData oldFilterData, HFBFilterData newFilterData, OutputStream writer ) throws IOException {
+        byte[] oldSliceData = oldFilterData.getSliceData();
+        byte[] newSliceData = newFilterData.getSliceData();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        int numberOfChangedWords = 0;
+        try (DataOutputStream changedWords = new DataOutputStream( new DeflaterOutputStream( compressed ) )) {
+            for (int offset = 0; offset < newSliceData.length; offset += BYTES_PER_WORD) {
+                long oldWord = toWord( oldSliceData, offset );
+                long newWord = toWord( newSliceData, offset );
+                if (oldWord != newWord) {
+                    changedWords.writeInt( offset / BYTES_PER_WORD );
+                    changedWords.writeLong( newWord );
+                    numberOfChangedWords++;
+                }
+            }
+        }
+
+        writer.write( RawUtils.toByteArray4b( newFilterData.isXorFolded() ? HFB_XOR_FILTERDELTA_MARKER_DEFLATED : HFB_FILTERDELTA_MARKER_DEFLATED ) );
+        writer.write( RawUtils.toByteArray4b( newFilterData.getSlicePosition() ) );
+        writer.write( RawUtils.toByteArray4b( newFilterData.getSliceBitSize() ) );
+        if (newFilterData.isXorFolded()) {
+            writer.write( RawUtils.toByteArray4b( newFilterData.getXorSlicePosition() ) );
+        }
+        writer.write( RawUtils.toByteArray4b( numberOfChangedWords ) );
+        writer.write( RawUtils.toByteArray4b( compressed.size() ) );
+        compressed.writeTo( writer );
+    }
+
+    /**
+     * The bytes of a word in little endian order, the last word of small filters may be shorter.
+     */
+    static long toWord( byte[] sliceData, int offset ) {
+        long word = 0L;
+        for (int i = Math.min( BYTES_PER_WORD, sliceData.length - offset ) - 1; i >= 0; i--) {
+            word = (word << 8) | (sliceData[offset + i] & 0xffL);
+        }
+        return word;
+    }
+
+    private void checkSameGeometry( HFBFilterBank oldFilterBank, HFBFilterBank newFilterBank ) {
+        if (oldFilterBank instanceof HFBBlockedFilterBank || newFilterBank instanceof HFBBlockedFilterBank) {
+            throw new IllegalArgumentException( "Deltas of blocked filter banks are not supported." );
+        }
+        if (oldFilterBank instanceof HFBExactFilterBank || newFilterBank instanceof HFBExactFilterBank) {
+            throw new IllegalArgumentException( "Deltas of exact filter banks are not supported, ship the exact filter bank instead." );
+        }
+        if (oldFilterBank instanceof HFBScalableFilterBank || newFilterBank instanceof HFBScalableFilterBank) {
+            // the generations are no filter data of the filter bank, a delta would be empty
+            throw new IllegalArgumentException( "Deltas of scalable filter banks are not supported, ship the scalable filter bank instead." );
+        }
+        if (oldFilterBank instanceof HFBTieredFilterBank || newFilterBank instanceof HFBTieredFilterBank) {
+            throw new IllegalArgumentException( "Deltas of tiered filter banks are not supported, use the full size filter banks instead." );
+        }
+
+        if (oldFilterBank.getBitsInDocumentId() != newFilterBank.getBitsInDocumentId()
+                        || oldFilterBank.getNumberOfFilters() != newFilterBank.getNumberOfFilters()) {
+            throw new IllegalArgumentException( "Both filter banks must have the same geometry." );
+        }
+
+        for (int i = 0; i < newFilterBank.getNumberOfFilters(); i++) {
+            HFBFilterData oldFilterData = oldFilterBank.getFilterData( i );
+            HFBFilterData newFilterData = newFilterBank.getFilterData( i );
+            if (oldFilterData.getSlicePosition() != newFilterData.getSlicePosition()
+                            || oldFilterData.getSliceBitSize() != newFilterData.getSliceBitSize()
+                            || oldFilterData.isXorFolded() != newFilterData.isXorFolded()
+                            || oldFilterData.getXorSlicePosition() != newFilterData.getXorSlicePosition()) {
+                throw new IllegalArgumentException( "Both filter banks must have the same geometry." );
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+import de.mindscan.furiousiron.hfb.HFBBlockedFilterBank;
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBTieredFilterBank;
+import de.mindscan.furiousiron.hfb.HFBXorFilterBank;
+
+/**
+ * Precomputed statistics of a filter bank: the header values, the number of applied filters, 
+ * and for each filter its bit weight, its estimated rejection rate and its rank in the probe 
+ * order. 
+ * 
+ * The V1 writer appends these statistics as a metadata block after the last filter data:
+ * 
+ * 'MDv2', number of filters, number of applied filters, for each filter: bitweight (8 bytes), 
+ * rejection (8 bytes), probe rank (4 bytes), and finally the length of the whole metadata 
+ * block (4 bytes). The former 'MDv1' block has no number of applied filters, it is read as 
+ * the first three filters.
+ * 
+ * The length at the very end of the file allows to read the metadata block without reading
+ * the filter data. Readers, which don't know the metadata block, stop after the last filter 
+ * data and never see it.
+ * 
+ * Exact, xor and blocked filter banks have no filter data, their metadata holds a single entry,
+ * which describes the whole filter bank.
+ */
+public class HFBFilterBankMetadata {
+
+    // 'MDv2' - metadata block
+    public final static int HFB_METADATA_MARKER = 0x4d447632;
+    // 'MDv1' - metadata block without the number of applied filters
+    public final static int HFB_METADATA_V1_MARKER = 0x4d447631;
+
+    // marker, number of filters, number of applied filters and the trailing length
+    public final static int HFB_METADATA_FIXED_SIZE = 16;
+    // marker, number of filters and the trailing length
+    public final static int HFB_METADATA_V1_FIXED_SIZE = 12;
+    // bitweight, rejection and probe rank
+    public final static int HFB_METADATA_FILTER_SIZE = 20;
+
+    private final int bitsInDocumentId;
+    private final long occurrenceCount;
+    private final int loadFactor;
+    private final int numberOfAppliedFilters;
+
+    private final long[] bitweights;
+    private final double[] rejections;
+    private final int[] probeRanks;
+
+    /**
+     * The probe ranks are derived from the rejection rates, the most selective filter first.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurrenceCount number of documents
+     * @param loadFactor the load factor of the filter bank
+     * @param numberOfAppliedFilters the number of filters, which are asked by containsDocumentId
+     * @param bitweights number of set bits for each filter
+     * @param rejections estimated rejection rate for each filter
+     */
+    public HFBFilterBankMetadata( int bitsInDocumentId, long occurrenceCount, int loadFactor, int numberOfAppliedFilters, long[] bitweights,
+                    double[] rejections ) {
+        this( bitsInDocumentId, occurrenceCount, loadFactor, numberOfAppliedFilters, bitweights, rejections, calculateProbeRanks( rejections ) );
+    }
+
+    private HFBFilterBankMetadata( int bitsInDocumentId, long occurrenceCount, int loadFactor, int numberOfAppliedFilters, long[] bitweights,
+                    double[] rejections, int[] probeRanks ) {
+        if (numberOfAppliedFilters < 0 || numberOfAppliedFilters > bitweights.length) {
+            throw new IllegalArgumentException( "The number of applied filters must be between 0 and the number of filters." );
+        }
+        this.bitsInDocumentId = bitsInDocumentId;
+        this.occurrenceCount = occurrenceCount;
+        this.loadFactor = loadFactor;
+        this.numberOfAppliedFilters = numberOfAppliedFilters;
+        this.bitweights = bitweights;
+        this.rejections = rejections;
+        this.probeRanks = probeRanks;
+    }
+
+    /**
+     * @param filterBank the static xor filter bank
+     * @return the metadata of the xor filter bank
+     */
+    public static HFBFilterBankMetadata of( HFBXorFilterBank filterBank ) {
+        return ofXor( filterBank.getBitsInDocumentId(), filterBank.getOccurrenceCount(), filterBank.getFingerprintBits() );
+    }
+
+    /**
+     * Calculates the metadata of a filter bank in memory.
+     * 
+     * @param filterBank the filter bank
+     * @return the metadata of the filter bank
+     */
+    public static HFBFilterBankMetadata of( HFBFilterBank filterBank ) {
+        if (filterBank instanceof HFBTieredFilterBank) {
+            return of( ((HFBTieredFilterBank) filterBank).getFullFilterBank() );
+        }
+        if (filterBank instanceof HFBExactFilterBank) {
+            return ofExact( filterBank.getBitsInDocumentId(), filterBank.getOccurrenceCount() );
+        }
+        if (filterBank instanceof HFBBlockedFilterBank) {
+            HFBBlockedFilterBank blockedFilterBank = (HFBBlockedFilterBank) filterBank;
+            return ofBlocked( blockedFilterBank.getBitsInDocumentId(), blockedFilterBank.getOccurrenceCount(), blockedFilterBank.getLoadFactor(),
+                            blockedFilterBank.getBlockSliceBitSize(), blockedFilterBank.getNumberOfProbes(), blockedFilterBank.getBitweight() );
+        }
+
+        int numberOfFilters = filterBank.getNumberOfFilters();
+
+        long[] bitweights = new long[numberOfFilters];
+        double[] rejections = new double[numberOfFilters];
+        for (int i = 0; i < numberOfFilters; i++) {
+            HFBFilterData filterData = filterBank.getFilterData( i );
+            bitweights[i] = filterData.getBitweight();
+            rejections[i] = estimateRejection( bitweights[i], filterData.getSliceBitSize() );
+        }
+
+        return new HFBFilterBankMetadata( filterBank.getBitsInDocumentId(), filterBank.getOccurrenceCount(), filterBank.getLoadFactor(),
+                        filterBank.getNumberOfAppliedFilters(), bitweights, rejections );
+    }
+
+    /**
+     * An exact filter bank only lets its own document ids pass, so the fraction of uniformly
+     * distributed document ids, which survive, is the number of documents divided by the number
+     * of possible document ids. The single entry holds the number of documents as bit weight.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurrenceCount number of documents
+     * @return the metadata of the exact filter bank
+     */
+    public static HFBFilterBankMetadata ofExact( int bitsInDocumentId, long occurrenceCount ) {
+        double rejection = 1.0d - Math.scalb( (double) occurrenceCount, -bitsInDocumentId );
+        return new HFBFilterBankMetadata( bitsInDocumentId, occurrenceCount, 0, 1, new long[] { occurrenceCount }, new double[] { rejection } );
+    }
+
+    /**
+     * A foreign document id passes a xor filter bank, if its fingerprint matches by chance. The
+     * load factor is the number of bits per fingerprint, like in the header of the file. The 
+     * single entry has no bit weight.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurrenceCount number of documents
+     * @param fingerprintBits number of bits per fingerprint
+     * @return the metadata of the xor filter bank
+     */
+    public static HFBFilterBankMetadata ofXor( int bitsInDocumentId, long occurrenceCount, int fingerprintBits ) {
+        double rejection = 1.0d - Math.scalb( 1.0d, -fingerprintBits );
+        return new HFBFilterBankMetadata( bitsInDocumentId, occurrenceCount, fingerprintBits, 1, new long[] { 0L }, new double[] { rejection } );
+    }
+
+    /**
+     * A foreign document id passes a blocked filter bank, if all of its probes hit a set bit. The
+     * load factor is the number of bits per document, like in the header of the file. The single
+     * entry holds the number of set bits of all blocks as bit weight.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param occurrenceCount number of documents
+     * @param bitsPerDocument number of bits per document
+     * @param blockSliceBitSize number of bits selecting the block
+     * @param numberOfProbes number of bits tested inside a block
+     * @param bitweight number of set bits of all blocks
+     * @return the metadata of the blocked filter bank
+     */
+    public static HFBFilterBankMetadata ofBlocked( int bitsInDocumentId, long occurrenceCount, int bitsPerDocument, int blockSliceBitSize,
+                    int numberOfProbes, long bitweight ) {
+        double fill = (double) bitweight / (double) (1L << (blockSliceBitSize + HFBBlockedFilterBank.BLOCK_ADDRESS_BITS));
+        double rejection = 1.0d - Math.pow( fill, numberOfProbes );
+        return new HFBFilterBankMetadata( bitsInDocumentId, occurrenceCount, bitsPerDocument, 1, new long[] { bitweight }, new double[] { rejection } );
+    }
+
+    /**
+     * Estimates the number of set bits of a blocked filter bank without reading its blocks, 
+     * assuming every probe of every document sets a random bit.
+     * 
+     * @param occurrenceCount number of documents
+     * @param blockSliceBitSize number of bits selecting the block
+     * @param numberOfProbes number of bits set for each document
+     * @return the estimated number of set bits of all blocks
+     */
+    public static long estimateBlockedBitweight( long occurrenceCount, int blockSliceBitSize, int numberOfProbes ) {
+        double numberOfBits = (double) (1L << (blockSliceBitSize + HFBBlockedFilterBank.BLOCK_ADDRESS_BITS));
+        return Math.round( numberOfBits * (1.0d - Math.exp( -(double) numberOfProbes * occurrenceCount / numberOfBits )) );
+    }
+
+    /**
+     * The rejection rate of a filter is the fraction of unset bits in its filter data.
+     * 
+     * @param bitweight number of set bits
+     * @param sliceBitSize size of the slice
+     * @return the estimated rejection rate for uniformly distributed document ids
+     */
+    public static double estimateRejection( long bitweight, int sliceBitSize ) {
+        return 1.0d - ((double) bitweight / (double) (1L << sliceBitSize));
+    }
+
+    private static int[] calculateProbeRanks( double[] rejections ) {
+        // most selective filter first, keep the order of the filters for the same rejection rate
+        Integer[] probeOrder = IntStream.range( 0, rejections.length ).boxed().toArray( Integer[]::new );
+        Arrays.sort( probeOrder, Comparator.comparingDouble( (Integer i) -> rejections[i] ).reversed() );
+
+        int[] probeRanks = new int[rejections.length];
+        for (int rank = 0; rank < probeOrder.length; rank++) {
+            probeRanks[probeOrder[rank]] = rank;
+        }
+        return probeRanks;
+    }
+
+    public static int calculateMetadataSize( int numberOfFilters ) {
+        return calculateMetadataSize( HFB_METADATA_MARKER, numberOfFilters );
+    }
+
+    /**
+     * @param marker the marker of the metadata block, either 'MDv2' or 'MDv1'
+     * @param numberOfFilters the number of filters
+     * @return the length of the metadata block
+     */
+    public static int calculateMetadataSize( int marker, int numberOfFilters ) {
+        int fixedSize = marker == HFB_METADATA_V1_MARKER ? HFB_METADATA_V1_FIXED_SIZE : HFB_METADATA_FIXED_SIZE;
+        return fixedSize + numberOfFilters * HFB_METADATA_FILTER_SIZE;
+    }
+
+    public static boolean isMetadataMarker( int marker ) {
+        return marker == HFB_METADATA_MARKER || marker == HFB_METADATA_V1_MARKER;
+    }
+
+    /**
+     * Puts the metadata block at the given position of the buffer.
+     * 
+     * @param buffer the target buffer
+     * @param offset the position of the metadata block
+     */
+    public void putMetadataBlock( ByteBuffer buffer, int offset ) {
+        putMetadataBlock( buffer, offset, HFB_METADATA_MARKER );
+    }
+
+    /**
+     * Puts the metadata block in the given version, an 'MDv1' block is written without the 
+     * number of applied filters, e.g. to update the metadata block of an older file in place.
+     * 
+     * @param buffer the target buffer
+     * @param offset the position of the metadata block
+     * @param marker the marker of the metadata block, either 'MDv2' or 'MDv1'
+     */
+    void putMetadataBlock( ByteBuffer buffer, int offset, int marker ) {
+        int numberOfFilters = getNumberOfFilters();
+        int metadataSize = calculateMetadataSize( marker, numberOfFilters );
+
+        buffer.putInt( offset, marker );
+        buffer.putInt( offset + 4, numberOfFilters );
+        int filtersOffset = offset + 8;
+        if (marker != HFB_METADATA_V1_MARKER) {
+            buffer.putInt( offset + 8, numberOfAppliedFilters );
+            filtersOffset = offset + 12;
+        }
+        for (int i = 0; i < numberOfFilters; i++) {
+            int filterOffset = filtersOffset + i * HFB_METADATA_FILTER_SIZE;
+            buffer.putLong( filterOffset, bitweights[i] );
+            buffer.putDouble( filterOffset + 8, rejections[i] );
+            buffer.putInt( filterOffset + 16, probeRanks[i] );
+        }
+        buffer.putInt( offset + metadataSize - 4, metadataSize );
+    }
+
+    /**
+     * Gets the metadata block from the given position of the buffer.
+     * 
+     * @param bitsInDocumentId the bits in document id from the header
+     * @param occurrenceCount the occurrence count from the header
+     * @param loadFactor the load factor from the header
+     * @param buffer the buffer containing the metadata block
+     * @param offset the position of the metadata block
+     * @param numberOfFilters the number of filters from the header
+     * @return the metadata
+     * @throws FileFormatException if the buffer doesn't contain a valid metadata block
+     */
+    public static HFBFilterBankMetadata getMetadataBlock( int bitsInDocumentId, long occurrenceCount, int loadFactor, ByteBuffer buffer,
+                    int offset, int numberOfFilters ) throws FileFormatException {
+        int marker = buffer.getInt( offset );
+        int metadataSize = calculateMetadataSize( marker, numberOfFilters );
+        if (!isMetadataMarker( marker ) || buffer.getInt( offset + 4 ) != numberOfFilters
+                        || buffer.getInt( offset + metadataSize - 4 ) != metadataSize) {
+            throw new FileFormatException( "Can't decode metadata. Marker or size unknown." );
+        }
+
+        int numberOfAppliedFilters = Math.min( numberOfFilters, HFBFilterBank.NUMBER_OF_APPLIED_FILTERS );
+        int filtersOffset = offset + 8;
+        if (marker != HFB_METADATA_V1_MARKER) {
+            numberOfAppliedFilters = buffer.getInt( offset + 8 );
+            filtersOffset = offset + 12;
+        }
+        checkNumberOfAppliedFilters( numberOfAppliedFilters, numberOfFilters );
+
+        long[] bitweights = new long[numberOfFilters];
+        double[] rejections = new double[numberOfFilters];
+        int[] probeRanks = new int[numberOfFilters];
+        for (int i = 0; i < numberOfFilters; i++) {
+            int filterOffset = filtersOffset + i * HFB_METADATA_FILTER_SIZE;
+            bitweights[i] = buffer.getLong( filterOffset );
+            rejections[i] = buffer.getDouble( filterOffset + 8 );
+            probeRanks[i] = buffer.getInt( filterOffset + 16 );
+        }
+        checkProbeRanks( probeRanks );
+
+        return new HFBFilterBankMetadata( bitsInDocumentId, occurrenceCount, loadFactor, numberOfAppliedFilters, bitweights, rejections, probeRanks );
+    }
+
+    void writeTo( DataOutput output ) throws IOException {
+        output.writeInt( bitsInDocumentId );
+        output.writeLong( occurrenceCount );
+        output.writeInt( loadFactor );
+        output.writeInt( getNumberOfFilters() );
+        output.writeInt( numberOfAppliedFilters );
+        for (int i = 0; i < getNumberOfFilters(); i++) {
+            output.writeLong( bitweights[i] );
+            output.writeDouble( rejections[i] );
+            output.writeInt( probeRanks[i] );
+        }
+    }
+
+    /**
+     * @param input the catalog
+     * @param withAppliedFilters false for the entries of a 'c1' catalog, which have no number of 
+     *          applied filters
+     * @return the metadata of the entry
+     */
+    static HFBFilterBankMetadata readFrom( DataInput input, boolean withAppliedFilters ) throws IOException {
+        int bitsInDocumentId = input.readInt();
+        long occurrenceCount = input.readLong();
+        int loadFactor = input.readInt();
+
+        int numberOfFilters = input.readInt();
+        if (numberOfFilters < 0) {
+            throw new FileFormatException( "Corrupt metadata." );
+        }
+        int numberOfAppliedFilters = withAppliedFilters ? input.readInt() : Math.min( numberOfFilters, HFBFilterBank.NUMBER_OF_APPLIED_FILTERS );
+        checkNumberOfAppliedFilters( numberOfAppliedFilters, numberOfFilters );
+
+        long[] bitweights = new long[numberOfFilters];
+        double[] rejections = new double[numberOfFilters];
+        int[] probeRanks = new int[numberOfFilters];
+        for (int i = 0; i < numberOfFilters; i++) {
+            bitweights[i] = input.readLong();
+            rejections[i] = input.readDouble();
+            probeRanks[i] = input.readInt();
+        }
+        checkProbeRanks( probeRanks );
+
+        return new HFBFilterBankMetadata( bitsInDocumentId, occurrenceCount, loadFactor, numberOfAppliedFilters, bitweights, rejections, probeRanks );
+    }
+
+    private static void checkNumberOfAppliedFilters( int numberOfAppliedFilters, int numberOfFilters ) throws FileFormatException {
+        if (numberOfAppliedFilters < 0 || numberOfAppliedFilters > numberOfFilters) {
+            throw new FileFormatException( "Number of applied filters of the metadata is corrupt." );
+        }
+    }
+
+    private static void checkProbeRanks( int[] probeRanks ) throws FileFormatException {
+        boolean[] seen = new boolean[probeRanks.length];
+        for (int probeRank : probeRanks) {
+            if (probeRank < 0 || probeRank >= probeRanks.length || seen[probeRank]) {
+                throw new FileFormatException( "Probe ranks of the metadata are corrupt." );
+            }
+            seen[probeRank] = true;
+        }
+    }
+
+    /**
+     * The fraction of uniformly distributed document ids, which pass the applied filters of the
+     * filter bank, assuming the filters are independent. The smaller, the more selective is the 
+     * filter bank.
+     * 
+     * @return the estimated survival rate, 1.0 if there are no statistics for the filter bank
+     */
+    public double getEstimatedSurvivalRate() {
+        double survivalRate = 1.0d;
+        for (int i = 0; i < numberOfAppliedFilters; i++) {
+            survivalRate *= 1.0d - rejections[i];
+        }
+        return survivalRate;
+    }
+
+    /**
+     * @return the filter indexes, the most selective filter first
+     */
+    public int[] getProbeOrder() {
+        int[] probeOrder = new int[probeRanks.length];
+        for (int i = 0; i < probeRanks.length; i++) {
+            probeOrder[probeRanks[i]] = i;
+        }
+        return probeOrder;
+    }
+
+    public int getNumberOfFilters() {
+        return bitweights.length;
+    }
+
+    /**
+     * @return the number of filters, which are asked by containsDocumentId, the first filters
+     */
+    public int getNumberOfAppliedFilters() {
+        return numberOfAppliedFilters;
+    }
+
+    public long getBitweight( int filterIndex ) {
+        return bitweights[filterIndex];
+    }
+
+    public double getRejection( int filterIndex ) {
+        return rejections[filterIndex];
+    }
+
+    public int getProbeRank( int filterIndex ) {
+        return probeRanks[filterIndex];
+    }
+
+    public int getBitsInDocumentId() {
+        return bitsInDocumentId;
+    }
+
+    public long getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public int getLoadFactor() {
+        return loadFactor;
+    }
+}
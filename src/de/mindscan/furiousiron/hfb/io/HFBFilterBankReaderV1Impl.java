@@ -1,107 +1,493 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2022 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb.io;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-
-import de.mindscan.furiousiron.hfb.HFBFilterBank;
-import de.mindscan.furiousiron.hfb.HFBFilterBankReader;
-import de.mindscan.furiousiron.hfb.HFBFilterData;
-
-/**
- * 
- */
-public class HFBFilterBankReaderV1Impl implements HFBFilterBankReader {
-
-    private static final int HFB_MARKER = HFBFilterBankWriterV1Impl.HFB_MARKER;
-    private static final int HFB_V1_MARKER = HFBFilterBankWriterV1Impl.HFB_V1_MARKER;
-    private static final int HFB_FILTERDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_FILTERDATA_MARKER_UNCOMPRESSED;
-
-    /** 
-     * {@inheritDoc}
-     */
-    @Override
-    public HFBFilterBank readFromFile( String filePath ) {
-        try (InputStream reader = Files.newInputStream( Paths.get( filePath ) )) {
-
-            byte[] hfb_header_buffer = reader.readNBytes( 28 );
-
-            boolean isHFB = RawUtils.isMarker4b( hfb_header_buffer, 0, HFB_MARKER );
-            boolean isV1 = RawUtils.isMarker4b( hfb_header_buffer, 4, HFB_V1_MARKER );
-
-            if (!isHFB) {
-                throw new FileFormatException( "This is not a HFB-File." );
-            }
-
-            if (!isV1) {
-                throw new FileFormatException( "Can't read this particular version of the HFBFile." );
-            }
-
-            HFBFilterBank filterBank = new HFBFilterBank();
-            int bitsInDocumentId = RawUtils.toUnsignedInt4b( hfb_header_buffer, 8 );
-            long occurrenceCount = RawUtils.toUnsignedLong8b( hfb_header_buffer, 12 );
-            int loadFactor = RawUtils.toUnsignedInt4b( hfb_header_buffer, 20 );
-
-            filterBank.initFiltersLazy( bitsInDocumentId, occurrenceCount, loadFactor );
-
-            int numberOfFilters = RawUtils.toUnsignedInt4b( hfb_header_buffer, 24 );
-            for (int filterID = 0; filterID < numberOfFilters; filterID++) {
-                readFilterBankData( reader, filterBank );
-            }
-
-            return filterBank;
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        return null;
-    }
-
-    private void readFilterBankData( InputStream reader, HFBFilterBank filterBank ) throws IOException {
-        byte[] filter_data_header_buffer = reader.readNBytes( 20 );
-
-        if (!RawUtils.isMarker4b( filter_data_header_buffer, 0, HFB_FILTERDATA_MARKER_UNCOMPRESSED )) {
-            throw new FileFormatException( "Can't decode filter bank data. Marker unknown." );
-        }
-
-        int slicePosition = RawUtils.toUnsignedInt4b( filter_data_header_buffer, 8 );
-        int sliceBitSize = RawUtils.toUnsignedInt4b( filter_data_header_buffer, 12 );
-
-        HFBFilterData hfbdata = new HFBFilterData( slicePosition, sliceBitSize );
-
-        int filterDataLength = RawUtils.toUnsignedInt4b( filter_data_header_buffer, 16 );
-
-        byte[] filterDataArray = reader.readNBytes( filterDataLength );
-        hfbdata.setSliceData( filterDataArray );
-
-        filterBank.addFilterData( hfbdata );
-    }
-
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import de.mindscan.furiousiron.hfb.HFBBlockedFilterBank;
+import de.mindscan.furiousiron.hfb.HFBDocumentIdFilter;
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank64;
+import de.mindscan.furiousiron.hfb.HFBFilterBankReader;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBXorFilterBank;
+import de.mindscan.furiousiron.hfb.HFBXorFoldedFilterData;
+import de.mindscan.furiousiron.hfb.jfr.HFBFilterBankReadEvent;
+
+/**
+ * Reads filter banks in the V1 format.
+ * 
+ * All headers are parsed from one reusable direct buffer per thread, and the filter data is 
+ * read directly into the array of the filter, so reading a filter bank only allocates the 
+ * filter bank itself. Every length field is checked against the remaining size of the file
+ * before it is used.
+ */
+public class HFBFilterBankReaderV1Impl implements HFBFilterBankReader {
+
+    private static final int HFB_MARKER = HFBFilterBankWriterV1Impl.HFB_MARKER;
+    private static final int HFB_V1_MARKER = HFBFilterBankWriterV1Impl.HFB_V1_MARKER;
+    private static final int HFB_FILTERDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_FILTERDATA_MARKER_UNCOMPRESSED;
+    private static final int HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED;
+    private static final int HFB_V1_BLOCKED_MARKER = HFBFilterBankWriterV1Impl.HFB_V1_BLOCKED_MARKER;
+    private static final int HFB_BLOCKDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_BLOCKDATA_MARKER_UNCOMPRESSED;
+    private static final int HFB_FOLDED_BLOCKDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_FOLDED_BLOCKDATA_MARKER_UNCOMPRESSED;
+    private static final int HFB_V1_EXACT_MARKER = HFBFilterBankWriterV1Impl.HFB_V1_EXACT_MARKER;
+    private static final int HFB_EXACTDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_EXACTDATA_MARKER_UNCOMPRESSED;
+    private static final int HFB_V1_XOR_MARKER = HFBFilterBankWriterV1Impl.HFB_V1_XOR_MARKER;
+    private static final int HFB_XORDATA_MARKER_UNCOMPRESSED = HFBFilterBankWriterV1Impl.HFB_XORDATA_MARKER_UNCOMPRESSED;
+
+    private static final int HFB_HEADER_SIZE = 28;
+    private static final int HFB_FILTERDATA_HEADER_SIZE = 20;
+    private static final int HFB_XOR_SLICE_POSITION_SIZE = 4;
+    private static final int HFB_BLOCKDATA_HEADER_SIZE = 12;
+    private static final int HFB_EXACTDATA_HEADER_SIZE = 8;
+    private static final int HFB_XORDATA_HEADER_SIZE = 16;
+
+    // slices are addressed by int indexes
+    private static final int MAX_SLICE_BIT_SIZE = 31;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // big endian byte order, same as RawUtils 
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial( () -> ByteBuffer.allocateDirect( READ_BUFFER_SIZE ) );
+
+    /** 
+     * {@inheritDoc}
+     * 
+     * @throws FileFormatException if the file contains a static xor filter bank, see {@link #readFilterFromFile(String)}
+     */
+    @Override
+    public HFBFilterBank readFromFile( String filePath ) {
+        HFBDocumentIdFilter filter = readFilterFromFile( filePath );
+        if (filter != null && !(filter instanceof HFBFilterBank)) {
+            throw new FileFormatException( "This HFBFile contains a static xor filter bank, read it with readFilterFromFile." );
+        }
+
+        return (HFBFilterBank) filter;
+    }
+
+    /**
+     * Reads every kind of filter bank, including the static xor filter bank, which is no 
+     * {@link HFBFilterBank}.
+     * 
+     * @param filePath path of the filter bank file
+     * @return the filter bank or null, if the file can't be read
+     */
+    public HFBDocumentIdFilter readFilterFromFile( String filePath ) {
+        HFBFilterBankReadEvent event = new HFBFilterBankReadEvent();
+        event.begin();
+
+        HFBDocumentIdFilter filter = readFilter( filePath );
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setPath( filePath );
+            event.setBytes( new File( filePath ).length() );
+            if (filter != null) {
+                event.setNumberOfFilters( filter instanceof HFBFilterBank ? ((HFBFilterBank) filter).getNumberOfFilters() : 0 );
+                event.setFilterBankType( filter.getClass().getSimpleName() );
+            }
+            event.commit();
+        }
+
+        return filter;
+    }
+
+    private HFBDocumentIdFilter readFilter( String filePath ) {
+        try (FileChannel channel = FileChannel.open( Paths.get( filePath ), StandardOpenOption.READ )) {
+            ByteBuffer buffer = READ_BUFFER.get();
+
+            readFully( channel, buffer, HFB_HEADER_SIZE );
+
+            if (buffer.getInt( 0 ) != HFB_MARKER) {
+                throw new FileFormatException( "This is not a HFB-File." );
+            }
+
+            int version = buffer.getInt( 4 );
+            if (version == HFB_V1_XOR_MARKER) {
+                return readXorFilterBank( channel, buffer );
+            }
+
+            if (version == HFB_V1_EXACT_MARKER) {
+                return readExactFilterBank( channel, buffer );
+            }
+
+            if (version == HFB_V1_BLOCKED_MARKER) {
+                return readBlockedFilterBank( channel, buffer );
+            }
+
+            if (version != HFB_V1_MARKER) {
+                throw new FileFormatException( "Can't read this particular version of the HFBFile." );
+            }
+
+            int bitsInDocumentId = buffer.getInt( 8 );
+            long occurrenceCount = buffer.getLong( 12 );
+            int loadFactor = buffer.getInt( 20 );
+            int numberOfFilters = buffer.getInt( 24 );
+
+            if (bitsInDocumentId <= 0 || occurrenceCount < 0 || numberOfFilters < 0) {
+                throw new FileFormatException( "Corrupt header of the HFBFile." );
+            }
+            checkRemaining( channel, (long) numberOfFilters * HFB_FILTERDATA_HEADER_SIZE );
+
+            HFBFilterBank filterBank = createFilterBank( bitsInDocumentId );
+
+            filterBank.initFiltersLazy( bitsInDocumentId, occurrenceCount, loadFactor );
+
+            for (int filterID = 0; filterID < numberOfFilters; filterID++) {
+                readFilterBankData( channel, buffer, filterBank );
+            }
+
+            applyMetadata( channel, buffer, filterBank );
+
+            return filterBank;
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads only the header and the metadata block of a filter bank file, the filter data is not
+     * read. Files written before the metadata block existed are read completely and their 
+     * metadata is calculated. The header of exact, xor and blocked filter banks is decoded by its 
+     * own version marker, the number of set bits of a blocked filter bank is estimated.
+     * 
+     * @param filePath path of the filter bank file
+     * @return the metadata of the filter bank or null, if the file can't be read
+     */
+    public HFBFilterBankMetadata readMetadata( String filePath ) {
+        try (FileChannel channel = FileChannel.open( Paths.get( filePath ), StandardOpenOption.READ )) {
+            ByteBuffer buffer = READ_BUFFER.get();
+
+            readFully( channel, buffer, HFB_HEADER_SIZE );
+
+            if (buffer.getInt( 0 ) != HFB_MARKER) {
+                throw new FileFormatException( "This is not a HFB-File." );
+            }
+
+            int version = buffer.getInt( 4 );
+            int bitsInDocumentId = buffer.getInt( 8 );
+            long occurrenceCount = buffer.getLong( 12 );
+
+            if (version == HFB_V1_EXACT_MARKER) {
+                return HFBFilterBankMetadata.ofExact( bitsInDocumentId, occurrenceCount );
+            }
+            if (version == HFB_V1_XOR_MARKER) {
+                int fingerprintBits = buffer.getInt( 20 );
+                return HFBFilterBankMetadata.ofXor( bitsInDocumentId, occurrenceCount, fingerprintBits );
+            }
+            if (version == HFB_V1_BLOCKED_MARKER) {
+                int bitsPerDocument = buffer.getInt( 20 );
+                int blockSliceBitSize = buffer.getInt( 24 );
+                if (blockSliceBitSize < 0 || blockSliceBitSize + HFBBlockedFilterBank.BLOCK_WORD_SHIFT > MAX_SLICE_BIT_SIZE) {
+                    throw new FileFormatException( "Corrupt header of the blocked HFBFile." );
+                }
+
+                readFully( channel, buffer, HFB_BLOCKDATA_HEADER_SIZE );
+                int numberOfProbes = buffer.getInt( 0 );
+                long bitweight = HFBFilterBankMetadata.estimateBlockedBitweight( occurrenceCount, blockSliceBitSize, numberOfProbes );
+                return HFBFilterBankMetadata.ofBlocked( bitsInDocumentId, occurrenceCount, bitsPerDocument, blockSliceBitSize, numberOfProbes,
+                                bitweight );
+            }
+            if (version != HFB_V1_MARKER) {
+                throw new FileFormatException( "Can't read this particular version of the HFBFile." );
+            }
+
+            int loadFactor = buffer.getInt( 20 );
+            int numberOfFilters = buffer.getInt( 24 );
+
+            if (numberOfFilters >= 0 && channel.size() - 4 >= HFB_HEADER_SIZE) {
+                // the metadata block ends with its length, which depends on its version
+                channel.position( channel.size() - 4 );
+                readFully( channel, buffer, 4 );
+                int metadataSize = buffer.getInt( 0 );
+                long metadataPosition = channel.size() - metadataSize;
+                boolean knownSize = metadataSize == HFBFilterBankMetadata.calculateMetadataSize( numberOfFilters )
+                                || metadataSize == HFBFilterBankMetadata.calculateMetadataSize( HFBFilterBankMetadata.HFB_METADATA_V1_MARKER, numberOfFilters );
+                if (knownSize && metadataSize <= buffer.capacity() && metadataPosition >= HFB_HEADER_SIZE) {
+                    channel.position( metadataPosition );
+                    readFully( channel, buffer, metadataSize );
+                    if (HFBFilterBankMetadata.isMetadataMarker( buffer.getInt( 0 ) )) {
+                        return HFBFilterBankMetadata.getMetadataBlock( bitsInDocumentId, occurrenceCount, loadFactor, buffer, 0, numberOfFilters );
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        // no metadata block
+        HFBFilterBank filterBank = readFromFile( filePath );
+        return filterBank == null ? null : HFBFilterBankMetadata.of( filterBank );
+    }
+
+    private void applyMetadata( FileChannel channel, ByteBuffer buffer, HFBFilterBank filterBank ) throws IOException {
+        int numberOfFilters = filterBank.getNumberOfFilters();
+        long metadataPosition = channel.position();
+        long remaining = channel.size() - metadataPosition;
+        if (remaining < 4) {
+            // written without metadata block
+            return;
+        }
+
+        readFully( channel, buffer, 4 );
+        int marker = buffer.getInt( 0 );
+        int metadataSize = HFBFilterBankMetadata.calculateMetadataSize( marker, numberOfFilters );
+        if (!HFBFilterBankMetadata.isMetadataMarker( marker ) || metadataSize > buffer.capacity()) {
+            return;
+        }
+        if (remaining < metadataSize) {
+            throw new FileFormatException( "Unexpected end of the HFBFile." );
+        }
+
+        channel.position( metadataPosition );
+        readFully( channel, buffer, metadataSize );
+
+        HFBFilterBankMetadata metadata = HFBFilterBankMetadata.getMetadataBlock( filterBank.getBitsInDocumentId(), filterBank.getOccurrenceCount(),
+                        filterBank.getLoadFactor(), buffer, 0, numberOfFilters );
+        for (int i = 0; i < numberOfFilters; i++) {
+            filterBank.getFilterData( i ).setCachedBitweight( metadata.getBitweight( i ) );
+        }
+    }
+
+    private HFBFilterBank readBlockedFilterBank( FileChannel channel, ByteBuffer buffer ) throws IOException {
+        int bitsInDocumentId = buffer.getInt( 8 );
+        long occurrenceCount = buffer.getLong( 12 );
+        int bitsPerDocument = buffer.getInt( 20 );
+        int blockSliceBitSize = buffer.getInt( 24 );
+
+        if (bitsInDocumentId <= 0 || occurrenceCount < 0 || blockSliceBitSize < 0 || blockSliceBitSize > bitsInDocumentId
+                        || blockSliceBitSize + HFBBlockedFilterBank.BLOCK_WORD_SHIFT > MAX_SLICE_BIT_SIZE) {
+            throw new FileFormatException( "Corrupt header of the blocked HFBFile." );
+        }
+
+        readFully( channel, buffer, HFB_BLOCKDATA_HEADER_SIZE );
+        int numberOfProbes = buffer.getInt( 0 );
+        int marker = buffer.getInt( 4 );
+
+        int blockSlicePosition = bitsInDocumentId - blockSliceBitSize;
+        int blockDataLength = buffer.getInt( 8 );
+        if (marker == HFB_FOLDED_BLOCKDATA_MARKER_UNCOMPRESSED) {
+            // the position of the block slice precedes the length of the block data
+            blockSlicePosition = blockDataLength;
+            readFully( channel, buffer, 4 );
+            blockDataLength = buffer.getInt( 0 );
+        }
+        else if (marker != HFB_BLOCKDATA_MARKER_UNCOMPRESSED) {
+            throw new FileFormatException( "Can't decode block data. Marker unknown." );
+        }
+
+        if (blockDataLength != (8L << (blockSliceBitSize + HFBBlockedFilterBank.BLOCK_WORD_SHIFT))) {
+            throw new FileFormatException( "Block data length doesn't match the number of blocks." );
+        }
+        if (blockSlicePosition < 0 || blockSlicePosition + blockSliceBitSize > bitsInDocumentId) {
+            throw new FileFormatException( "Block slice doesn't fit into the document id." );
+        }
+        if (numberOfProbes < 0 || (long) numberOfProbes * HFBBlockedFilterBank.BLOCK_ADDRESS_BITS > blockSlicePosition) {
+            throw new FileFormatException( "Number of probes doesn't fit into the document id." );
+        }
+        checkRemaining( channel, blockDataLength );
+
+        HFBBlockedFilterBank filterBank = new HFBBlockedFilterBank();
+        filterBank.initBlocksLazy( bitsInDocumentId, occurrenceCount, bitsPerDocument, blockSlicePosition, blockSliceBitSize, numberOfProbes );
+
+        long[] blockData = new long[blockDataLength >> 3];
+        int wordsPerRead = buffer.capacity() >> 3;
+        for (int offset = 0; offset < blockData.length; offset += wordsPerRead) {
+            int words = Math.min( wordsPerRead, blockData.length - offset );
+            readFully( channel, buffer, words << 3 );
+            buffer.asLongBuffer().get( blockData, offset, words );
+        }
+        filterBank.setBlockData( blockData );
+
+        return filterBank;
+    }
+
+    private HFBXorFilterBank readXorFilterBank( FileChannel channel, ByteBuffer buffer ) throws IOException {
+        int bitsInDocumentId = buffer.getInt( 8 );
+        long occurrenceCount = buffer.getLong( 12 );
+        int fingerprintBits = buffer.getInt( 20 );
+        int sliceBitSize = buffer.getInt( 24 );
+
+        readFully( channel, buffer, HFB_XORDATA_HEADER_SIZE );
+        int slicePosition = buffer.getInt( 0 );
+        int segmentLength = buffer.getInt( 4 );
+
+        if (buffer.getInt( 8 ) != HFB_XORDATA_MARKER_UNCOMPRESSED) {
+            throw new FileFormatException( "Can't decode xor data. Marker unknown." );
+        }
+
+        if (occurrenceCount < 0 || (fingerprintBits != 8 && fingerprintBits != 16) || sliceBitSize <= 0 || sliceBitSize > 32
+                        || slicePosition < 0
+                        || slicePosition + (long) HFBXorFilterBank.NUMBER_OF_SEGMENTS * sliceBitSize + fingerprintBits > bitsInDocumentId) {
+            throw new FileFormatException( "Corrupt header of the xor HFBFile." );
+        }
+
+        int xorDataLength = buffer.getInt( 12 );
+        if (segmentLength <= 0 || xorDataLength != (long) HFBXorFilterBank.NUMBER_OF_SEGMENTS * segmentLength * (fingerprintBits >> 3)) {
+            throw new FileFormatException( "Xor data length doesn't match the segment length." );
+        }
+        checkRemaining( channel, xorDataLength );
+
+        HFBXorFilterBank filterBank = new HFBXorFilterBank();
+        filterBank.initXorLazy( bitsInDocumentId, occurrenceCount, fingerprintBits, slicePosition, sliceBitSize, segmentLength );
+
+        byte[] fingerprints = filterBank.getFingerprints();
+        for (int offset = 0; offset < fingerprints.length; offset += buffer.capacity()) {
+            int length = Math.min( buffer.capacity(), fingerprints.length - offset );
+            readFully( channel, buffer, length );
+            buffer.get( fingerprints, offset, length );
+        }
+
+        return filterBank;
+    }
+
+    private HFBFilterBank readExactFilterBank( FileChannel channel, ByteBuffer buffer ) throws IOException {
+        int bitsInDocumentId = buffer.getInt( 8 );
+        long occurrenceCount = buffer.getLong( 12 );
+
+        readFully( channel, buffer, HFB_EXACTDATA_HEADER_SIZE );
+        if (buffer.getInt( 0 ) != HFB_EXACTDATA_MARKER_UNCOMPRESSED) {
+            throw new FileFormatException( "Can't decode exact data. Marker unknown." );
+        }
+
+        int exactDataLength = buffer.getInt( 4 );
+        if (exactDataLength < 0 || occurrenceCount < 0 || exactDataLength != occurrenceCount * 16L) {
+            throw new FileFormatException( "Exact data length doesn't match the number of document ids." );
+        }
+        checkRemaining( channel, exactDataLength );
+
+        long[] documentIds = new long[exactDataLength >> 3];
+        int wordsPerRead = buffer.capacity() >> 3;
+        for (int offset = 0; offset < documentIds.length; offset += wordsPerRead) {
+            int words = Math.min( wordsPerRead, documentIds.length - offset );
+            readFully( channel, buffer, words << 3 );
+            buffer.asLongBuffer().get( documentIds, offset, words );
+        }
+
+        HFBExactFilterBank filterBank = new HFBExactFilterBank();
+        filterBank.initExact( bitsInDocumentId, 0 );
+        try {
+            filterBank.setDocumentIds( documentIds );
+        }
+        catch (IllegalArgumentException e) {
+            throw new FileFormatException( "Exact data is not sorted.", e );
+        }
+
+        return filterBank;
+    }
+
+    private HFBFilterBank createFilterBank( int bitsInDocumentId ) {
+        if (bitsInDocumentId == HFBFilterBank64.BITS_IN_DOCUMENT_ID) {
+            return new HFBFilterBank64();
+        }
+        return new HFBFilterBank();
+    }
+
+    private void readFilterBankData( FileChannel channel, ByteBuffer buffer, HFBFilterBank filterBank ) throws IOException {
+        readFully( channel, buffer, HFB_FILTERDATA_HEADER_SIZE );
+
+        int marker = buffer.getInt( 0 );
+        if (marker != HFB_FILTERDATA_MARKER_UNCOMPRESSED && marker != HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED) {
+            throw new FileFormatException( "Can't decode filter bank data. Marker unknown." );
+        }
+
+        int slicePosition = buffer.getInt( 8 );
+        int sliceBitSize = buffer.getInt( 12 );
+
+        if (slicePosition < 0 || sliceBitSize < 0 || sliceBitSize > MAX_SLICE_BIT_SIZE
+                        || slicePosition + sliceBitSize > filterBank.getBitsInDocumentId()) {
+            throw new FileFormatException( "Slice doesn't fit into the document id." );
+        }
+
+        HFBFilterData hfbdata;
+        int filterDataLength;
+        if (marker == HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED) {
+            int xorSlicePosition = buffer.getInt( 16 );
+            if (xorSlicePosition < 0 || xorSlicePosition + sliceBitSize > filterBank.getBitsInDocumentId()) {
+                throw new FileFormatException( "Xor folded slice doesn't fit into the document id." );
+            }
+            hfbdata = new HFBXorFoldedFilterData( slicePosition, sliceBitSize, xorSlicePosition );
+
+            readFully( channel, buffer, HFB_XOR_SLICE_POSITION_SIZE );
+            filterDataLength = buffer.getInt( 0 );
+        }
+        else {
+            hfbdata = new HFBFilterData( slicePosition, sliceBitSize );
+            filterDataLength = buffer.getInt( 16 );
+        }
+
+        int expectedLength = 1 << Math.max( sliceBitSize - HFBFilterData.BYTE_ADDRESS_SHIFT, 0 );
+        if (filterDataLength < 0 || filterDataLength > expectedLength) {
+            throw new FileFormatException( "Filter data length doesn't match the slice size." );
+        }
+        checkRemaining( channel, filterDataLength );
+
+        // read the payload directly into the filter, shorter payloads keep the remaining bits cleared
+        hfbdata.initEmpty();
+        byte[] filterDataArray = hfbdata.getSliceData();
+        for (int offset = 0; offset < filterDataLength; offset += buffer.capacity()) {
+            int length = Math.min( buffer.capacity(), filterDataLength - offset );
+            readFully( channel, buffer, length );
+            buffer.get( filterDataArray, offset, length );
+        }
+
+        filterBank.addFilterData( hfbdata );
+    }
+
+    private static void checkRemaining( FileChannel channel, long length ) throws IOException {
+        if (channel.size() - channel.position() < length) {
+            throw new FileFormatException( "Unexpected end of the HFBFile." );
+        }
+    }
+
+    /**
+     * Reads exactly length bytes into the buffer, the buffer is then positioned at its start.
+     */
+    private static void readFully( FileChannel channel, ByteBuffer buffer, int length ) throws IOException {
+        checkRemaining( channel, length );
+
+        buffer.clear().limit( length );
+        while (buffer.hasRemaining()) {
+            if (channel.read( buffer ) < 0) {
+                throw new FileFormatException( "Unexpected end of the HFBFile." );
+            }
+        }
+        buffer.flip();
+    }
+
+}
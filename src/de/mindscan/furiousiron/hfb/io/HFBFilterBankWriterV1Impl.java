@@ -1,216 +1,437 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2022 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb.io;
-
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-
-import de.mindscan.furiousiron.hfb.HFBFilterBank;
-import de.mindscan.furiousiron.hfb.HFBFilterBankWriter;
-import de.mindscan.furiousiron.hfb.HFBFilterData;
-import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
-
-/**
- * This HFB writer implements an uncompressed hfb filter writer. It can save the HFB Filter according to different
- * options. 
- * 
- * - save full hfb-filter-bank with full filter data to disk [DONE]
- * - save sparse hfb-filter-banks to disk (save only those 3 or 4 with the fewest set bits in the filterdata) [DONE]
- * - save most efficient hfb-filter-banks only
- * - sparse filter data is faster to load (lower I/O) and faster to filter, 
- * - randomize the bit positions, so that different portions of documentid are matched, which will lead to a more 
- *   consistent document drop-out rate. The randomized and more consistent drop out, will then remove documents 
- *   earlier from the candidate list, saving time via non spend cpu cycles  
- */
-public class HFBFilterBankWriterV1Impl implements HFBFilterBankWriter {
-
-    public final static String FILE_SUFFIX = "hfbv1";
-    public final static String FILE_DOT_SUFFIX = ".hfbv1";
-
-    // 'HFB.'
-    public final static int HFB_MARKER = 0x4846422e;
-    // 'v1', 0x00, 0x00
-    public final static int HFB_V1_MARKER = 0x76310000;
-    // 'FDv1' - Uncompressed filter data
-    public final static int HFB_FILTERDATA_MARKER_UNCOMPRESSED = 0x46447631;
-
-    /** 
-     * {@inheritDoc}
-     */
-    @Override
-    public void write( HFBFilterBank filterBank, String outputPath ) {
-        this.write( filterBank, outputPath, HFBFilterWriteOption.SAVE_ALL_FILTERBANKS, HFBFilterWriteOption.ORDER_BY_STARTPOSITION );
-    }
-
-    /** 
-     * {@inheritDoc}
-     */
-    @Override
-    public void write( HFBFilterBank filterBank, String outputPath, HFBFilterWriteOption... options ) {
-        if (!outputPath.endsWith( FILE_DOT_SUFFIX )) {
-            outputPath = outputPath + FILE_DOT_SUFFIX;
-        }
-
-        try (OutputStream writer = Files.newOutputStream( Paths.get( outputPath ), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
-                        StandardOpenOption.TRUNCATE_EXISTING )) {
-
-            // write HFB Marker Header -- 4 bytes
-            writer.write( RawUtils.toByteArray4b( HFB_MARKER ) );
-            // write HFB Version Information -- 4 bytes
-            writer.write( RawUtils.toByteArray4b( HFB_V1_MARKER ) );
-
-            // [option 2: is writing the chosen slice size ]
-            // [option 2: this would be more future proof if allocation mechanism changes ]
-            // [option 2: number of documents still interesting, for further optimizations ]
-
-            // write number of bits in DocumentId -- 4bytes
-            writer.write( RawUtils.toByteArray4b( filterBank.getBitsInDocumentId() ) );
-            // write Number of occurrences / number of documents -- 8 bytes
-            writer.write( RawUtils.toByteArray8b( filterBank.getOccurrenceCount() ) );
-            // write spread factor / load factor -- 4 bytes
-            writer.write( RawUtils.toByteArray4b( filterBank.getLoadFactor() ) );
-
-            List<HFBFilterBankStats> orderedSelection = calculateHFBFilterBankOrder( filterBank, options );
-
-            writeFilterbanksByOrder( filterBank, writer, orderedSelection );
-
-            writer.flush();
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private List<HFBFilterBankStats> calculateHFBFilterBankOrder( HFBFilterBank filterBank, HFBFilterWriteOption... options ) {
-        Set<HFBFilterWriteOption> optionSet = convertOptionsToSet( options );
-        return filterFilterBanks( orderFilterBanks( filterBank, optionSet ), optionSet );
-    }
-
-    private Set<HFBFilterWriteOption> convertOptionsToSet( HFBFilterWriteOption... options ) {
-        return options == null ? new HashSet<>() : Arrays.stream( options ).collect( Collectors.toSet() );
-    }
-
-    private List<HFBFilterBankStats> orderFilterBanks( HFBFilterBank filterBank, Set<HFBFilterWriteOption> optionSet ) {
-        List<HFBFilterBankStats> result = new ArrayList<>();
-        for (int filterNumber = 0; filterNumber < filterBank.getNumberOfFilters(); filterNumber++) {
-            HFBFilterData filterData = filterBank.getFilterData( filterNumber );
-            result.add( new HFBFilterBankStats( filterData, filterNumber, BitwiseCalculations.calculateBitWeight( filterData.getSliceData() ) ) );
-        }
-
-        if (optionSet.contains( HFBFilterWriteOption.ORDER_BY_RANDOM )) {
-            Collections.shuffle( result );
-        }
-        else if (optionSet.contains( HFBFilterWriteOption.ORDER_BY_STARTPOSITION )) {
-            // intentionally left blank - keep order of initialization
-        }
-        else {
-            // intentionally left blank - keep order of initialization
-        }
-
-        if (optionSet.contains( HFBFilterWriteOption.ORDER_BY_EFFICIENCY )) {
-            // resort but keep former order in case of same weights.
-            // as long as the filter data always has the same slice size (within one filter, Bitweight is correct, othwerwise bitweight in relation to slice size is important.
-            Collections.sort( result, Comparator.comparingLong( HFBFilterBankStats::getBitweight ) );
-        }
-
-        return result;
-    }
-
-    private List<HFBFilterBankStats> filterFilterBanks( List<HFBFilterBankStats> orderedFilterbanks, Set<HFBFilterWriteOption> optionSet ) {
-        // ATTN: The order of the evaluations matter
-
-        if (optionSet.contains( HFBFilterWriteOption.SAVE_ALL_FILTERBANKS )) {
-            return orderedFilterbanks;
-        }
-
-        if (optionSet.contains( HFBFilterWriteOption.SAVE_FOUR_FILTERBANKS )) {
-            return orderedFilterbanks.stream().limit( 4 ).collect( Collectors.toList() );
-        }
-        else if (optionSet.contains( HFBFilterWriteOption.SAVE_THREE_FILTERBANKS )) {
-            return orderedFilterbanks.stream().limit( 3 ).collect( Collectors.toList() );
-        }
-        else if (optionSet.contains( HFBFilterWriteOption.SAVE_HALF_FILTERBANKS )) {
-            return orderedFilterbanks.stream().limit( (1 + orderedFilterbanks.size()) >> 1 ).collect( Collectors.toList() );
-        }
-        else if (optionSet.contains( HFBFilterWriteOption.SAVE_THIRD_FILTERBANKS )) {
-            return orderedFilterbanks.stream().limit( (2 + orderedFilterbanks.size()) / 3 ).collect( Collectors.toList() );
-        }
-
-        // TODO: calculate the FPR (false positive rate)
-        // calculate the remaining false positive rate and determine the number of filters
-        if (optionSet.contains( HFBFilterWriteOption.SAVE_FPR_BELOW_TWO_PROMILE )) {
-        }
-        else if (optionSet.contains( HFBFilterWriteOption.SAVE_FPR_BELOW_HALF_PERCENT )) {
-        }
-        else if (optionSet.contains( HFBFilterWriteOption.SAVE_FPR_BELOW_ONE_PERCENT )) {
-        }
-
-        // None of these -> return all of them...
-        return orderedFilterbanks;
-    }
-
-    private void writeFilterbanksByOrder( HFBFilterBank filterBank, OutputStream writer, List<HFBFilterBankStats> order ) throws IOException {
-        int numberOfFilters = order.size();
-
-        writer.write( RawUtils.toByteArray4b( numberOfFilters ) );
-        for (int filterID = 0; filterID < numberOfFilters; filterID++) {
-            writeFilterBankData( filterBank, writer, order.get( filterID ).getFilterNumber() );
-        }
-    }
-
-    private void writeFilterBankData( HFBFilterBank filterBank, OutputStream writer, int filterID ) throws IOException {
-        HFBFilterData filterData = filterBank.getFilterData( filterID );
-
-        writer.write( RawUtils.toByteArray4b( HFB_FILTERDATA_MARKER_UNCOMPRESSED ) );
-        writer.write( RawUtils.toByteArray4b( filterID ) );
-
-        writer.write( RawUtils.toByteArray4b( filterData.getSlicePosition() ) );
-        writer.write( RawUtils.toByteArray4b( filterData.getSliceBitSize() ) );
-
-        System.out.println( filterData.getSliceBitSize() );
-        System.out.println( 1L << filterData.getSliceBitSize() );
-
-        byte[] filterDataArray = filterData.getSliceData();
-        writer.write( RawUtils.toByteArray4b( filterDataArray.length ) );
-        writer.write( filterDataArray );
-
-        // int bitweight = BitwiseCalculations.calculateBitWeight( filterDataArray );
-        // int invbitweight = BitwiseCalculations.calculateInvBitWeight( filterDataArray );
-        // System.out.println( String.format( "Filter #%d has %d bits set (1) and %d not set (0).", filterID, bitweight, invbitweight ) );
-    }
-
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import de.mindscan.furiousiron.hfb.HFBBlockedFilterBank;
+import de.mindscan.furiousiron.hfb.HFBExactFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankWriter;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBScalableFilterBank;
+import de.mindscan.furiousiron.hfb.HFBTieredFilterBank;
+import de.mindscan.furiousiron.hfb.HFBXorFilterBank;
+import de.mindscan.furiousiron.hfb.jfr.HFBFilterBankWriteEvent;
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+/**
+ * This HFB writer implements an uncompressed hfb filter writer. It can save the HFB Filter according to different
+ * options. 
+ * 
+ * - save full hfb-filter-bank with full filter data to disk [DONE]
+ * - save sparse hfb-filter-banks to disk (save only those 3 or 4 with the fewest set bits in the filterdata) [DONE]
+ * - save most efficient hfb-filter-banks only
+ * - sparse filter data is faster to load (lower I/O) and faster to filter, 
+ * - randomize the bit positions, so that different portions of documentid are matched, which will lead to a more 
+ *   consistent document drop-out rate. The randomized and more consistent drop out, will then remove documents 
+ *   earlier from the candidate list, saving time via non spend cpu cycles  
+ */
+public class HFBFilterBankWriterV1Impl implements HFBFilterBankWriter {
+
+    public final static String FILE_SUFFIX = "hfbv1";
+    public final static String FILE_DOT_SUFFIX = ".hfbv1";
+
+    // 'HFB.'
+    public final static int HFB_MARKER = 0x4846422e;
+    // 'v1', 0x00, 0x00
+    public final static int HFB_V1_MARKER = 0x76310000;
+    // 'FDv1' - Uncompressed filter data
+    public final static int HFB_FILTERDATA_MARKER_UNCOMPRESSED = 0x46447631;
+    // 'FDx1' - Uncompressed filter data of a xor folded filter, followed by the position of the second slice
+    public final static int HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED = 0x46447831;
+
+    // 'v1b', 0x00 - blocked filter bank
+    public final static int HFB_V1_BLOCKED_MARKER = 0x76316200;
+    // 'BDv1' - Uncompressed block data
+    public final static int HFB_BLOCKDATA_MARKER_UNCOMPRESSED = 0x42447631;
+    // 'BDf1' - Uncompressed block data of a folded blocked filter bank, preceded by the position of the block slice
+    public final static int HFB_FOLDED_BLOCKDATA_MARKER_UNCOMPRESSED = 0x42446631;
+
+    // 'v1e', 0x00 - exact filter bank
+    public final static int HFB_V1_EXACT_MARKER = 0x76316500;
+    // 'EDv1' - Uncompressed sorted document ids
+    public final static int HFB_EXACTDATA_MARKER_UNCOMPRESSED = 0x45447631;
+
+    // 'v1x', 0x00 - static xor filter bank
+    public final static int HFB_V1_XOR_MARKER = 0x76317800;
+    // 'XDv1' - Uncompressed fingerprints
+    public final static int HFB_XORDATA_MARKER_UNCOMPRESSED = 0x58447631;
+
+    /** 
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( HFBFilterBank filterBank, String outputPath ) {
+        this.write( filterBank, outputPath, HFBFilterWriteOption.SAVE_ALL_FILTERBANKS, HFBFilterWriteOption.ORDER_BY_STARTPOSITION );
+    }
+
+    /** 
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( HFBFilterBank filterBank, String outputPath, HFBFilterWriteOption... options ) {
+        if (!outputPath.endsWith( FILE_DOT_SUFFIX )) {
+            outputPath = outputPath + FILE_DOT_SUFFIX;
+        }
+
+        HFBFilterBankWriteEvent event = new HFBFilterBankWriteEvent();
+        event.begin();
+
+        int filtersWritten = writeFilterBank( filterBank, outputPath, options );
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setPath( outputPath );
+            event.setBytes( new File( outputPath ).length() );
+            event.setFiltersWritten( filtersWritten );
+            event.setOptions( options == null ? "" : Arrays.toString( options ) );
+            event.commit();
+        }
+    }
+
+    /**
+     * Write the static xor filter bank to outputPath, it has no filters, so there are no options.
+     * 
+     * @param filterBank the xor filter bank to save
+     * @param outputPath the path
+     */
+    public void write( HFBXorFilterBank filterBank, String outputPath ) {
+        if (!outputPath.endsWith( FILE_DOT_SUFFIX )) {
+            outputPath = outputPath + FILE_DOT_SUFFIX;
+        }
+
+        HFBFilterBankWriteEvent event = new HFBFilterBankWriteEvent();
+        event.begin();
+
+        try (OutputStream writer = Files.newOutputStream( Paths.get( outputPath ), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING )) {
+            writeXorFilterBank( filterBank, writer );
+            writer.flush();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setPath( outputPath );
+            event.setBytes( new File( outputPath ).length() );
+            event.setFiltersWritten( 0 );
+            event.setOptions( "" );
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the number of written filters
+     */
+    private int writeFilterBank( HFBFilterBank filterBank, String outputPath, HFBFilterWriteOption... options ) {
+        if (filterBank instanceof HFBTieredFilterBank) {
+            // the summary tier is folded again, when the filter bank is used
+            filterBank = ((HFBTieredFilterBank) filterBank).getFullFilterBank();
+        }
+
+        if (filterBank instanceof HFBScalableFilterBank) {
+            HFBScalableFilterBank scalableFilterBank = (HFBScalableFilterBank) filterBank;
+            if (scalableFilterBank.getNumberOfGenerations() != 1) {
+                throw new IllegalArgumentException( "Compact the scalable filter bank before writing it." );
+            }
+            filterBank = scalableFilterBank.getGeneration( 0 );
+        }
+
+        try (OutputStream writer = Files.newOutputStream( Paths.get( outputPath ), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING )) {
+
+            if (filterBank instanceof HFBBlockedFilterBank) {
+                writeBlockedFilterBank( (HFBBlockedFilterBank) filterBank, writer );
+                writer.flush();
+                return 0;
+            }
+
+            if (filterBank instanceof HFBExactFilterBank) {
+                writeExactFilterBank( (HFBExactFilterBank) filterBank, writer );
+                writer.flush();
+                return 0;
+            }
+
+            // write HFB Marker Header -- 4 bytes
+            writer.write( RawUtils.toByteArray4b( HFB_MARKER ) );
+            // write HFB Version Information -- 4 bytes
+            writer.write( RawUtils.toByteArray4b( HFB_V1_MARKER ) );
+
+            // [option 2: is writing the chosen slice size ]
+            // [option 2: this would be more future proof if allocation mechanism changes ]
+            // [option 2: number of documents still interesting, for further optimizations ]
+
+            // write number of bits in DocumentId -- 4bytes
+            writer.write( RawUtils.toByteArray4b( filterBank.getBitsInDocumentId() ) );
+            // write Number of occurrences / number of documents -- 8 bytes
+            writer.write( RawUtils.toByteArray8b( filterBank.getOccurrenceCount() ) );
+            // write spread factor / load factor -- 4 bytes
+            writer.write( RawUtils.toByteArray4b( filterBank.getLoadFactor() ) );
+
+            List<HFBFilterBankStats> orderedSelection = calculateHFBFilterBankOrder( filterBank, options );
+
+            writeFilterbanksByOrder( filterBank, writer, orderedSelection );
+
+            writeMetadata( filterBank, writer, orderedSelection );
+
+            writer.flush();
+
+            return orderedSelection.size();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return 0;
+    }
+
+    private void writeBlockedFilterBank( HFBBlockedFilterBank filterBank, OutputStream writer ) throws IOException {
+        // write HFB Marker Header -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_MARKER ) );
+        // write HFB Version Information for blocked filter banks -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_V1_BLOCKED_MARKER ) );
+
+        // write number of bits in DocumentId -- 4bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getBitsInDocumentId() ) );
+        // write Number of occurrences / number of documents -- 8 bytes
+        writer.write( RawUtils.toByteArray8b( filterBank.getOccurrenceCount() ) );
+        // write bits per document -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getLoadFactor() ) );
+
+        // the slice positions are derived from these two values 
+        // write number of bits selecting the block -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getBlockSliceBitSize() ) );
+        // write number of probes inside a block -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getNumberOfProbes() ) );
+
+        long[] blockData = filterBank.getBlockData();
+        ByteBuffer blockDataBuffer = ByteBuffer.allocate( blockData.length << 3 );
+        blockDataBuffer.asLongBuffer().put( blockData );
+
+        boolean folded = filterBank.getBlockSlicePosition() != filterBank.getBitsInDocumentId() - filterBank.getBlockSliceBitSize();
+        writer.write( RawUtils.toByteArray4b( folded ? HFB_FOLDED_BLOCKDATA_MARKER_UNCOMPRESSED : HFB_BLOCKDATA_MARKER_UNCOMPRESSED ) );
+        if (folded) {
+            // write position of the block slice of the folded filter bank -- 4 bytes
+            writer.write( RawUtils.toByteArray4b( filterBank.getBlockSlicePosition() ) );
+        }
+        writer.write( RawUtils.toByteArray4b( blockDataBuffer.capacity() ) );
+        writer.write( blockDataBuffer.array() );
+    }
+
+    private void writeExactFilterBank( HFBExactFilterBank filterBank, OutputStream writer ) throws IOException {
+        // write HFB Marker Header -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_MARKER ) );
+        // write HFB Version Information for exact filter banks -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_V1_EXACT_MARKER ) );
+
+        // write number of bits in DocumentId -- 4bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getBitsInDocumentId() ) );
+        // write Number of occurrences / number of documents -- 8 bytes
+        writer.write( RawUtils.toByteArray8b( filterBank.getOccurrenceCount() ) );
+        // no load factor and no filters, keeps the header size -- 4 + 4 bytes
+        writer.write( RawUtils.toByteArray4b( 0 ) );
+        writer.write( RawUtils.toByteArray4b( 0 ) );
+
+        long[] documentIds = filterBank.getDocumentIds();
+        ByteBuffer documentIdBuffer = ByteBuffer.allocate( documentIds.length << 3 );
+        documentIdBuffer.asLongBuffer().put( documentIds );
+
+        // write sorted document ids, upper and lower 64 bits each
+        writer.write( RawUtils.toByteArray4b( HFB_EXACTDATA_MARKER_UNCOMPRESSED ) );
+        writer.write( RawUtils.toByteArray4b( documentIdBuffer.capacity() ) );
+        writer.write( documentIdBuffer.array() );
+    }
+
+    private void writeXorFilterBank( HFBXorFilterBank filterBank, OutputStream writer ) throws IOException {
+        // write HFB Marker Header -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_MARKER ) );
+        // write HFB Version Information for xor filter banks -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( HFB_V1_XOR_MARKER ) );
+
+        // write number of bits in DocumentId -- 4bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getBitsInDocumentId() ) );
+        // write Number of occurrences / number of documents -- 8 bytes
+        writer.write( RawUtils.toByteArray8b( filterBank.getOccurrenceCount() ) );
+        // write bits per fingerprint -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getFingerprintBits() ) );
+        // write size of each position slice -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getSliceBitSize() ) );
+
+        // write position of the first position slice -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getSlicePosition() ) );
+        // write number of fingerprints per segment -- 4 bytes
+        writer.write( RawUtils.toByteArray4b( filterBank.getSegmentLength() ) );
+
+        byte[] fingerprints = filterBank.getFingerprints();
+        writer.write( RawUtils.toByteArray4b( HFB_XORDATA_MARKER_UNCOMPRESSED ) );
+        writer.write( RawUtils.toByteArray4b( fingerprints.length ) );
+        writer.write( fingerprints );
+    }
+
+    private List<HFBFilterBankStats> calculateHFBFilterBankOrder( HFBFilterBank filterBank, HFBFilterWriteOption... options ) {
+        Set<HFBFilterWriteOption> optionSet = convertOptionsToSet( options );
+        return filterFilterBanks( orderFilterBanks( filterBank, optionSet ), optionSet );
+    }
+
+    private Set<HFBFilterWriteOption> convertOptionsToSet( HFBFilterWriteOption... options ) {
+        return options == null ? new HashSet<>() : Arrays.stream( options ).collect( Collectors.toSet() );
+    }
+
+    private List<HFBFilterBankStats> orderFilterBanks( HFBFilterBank filterBank, Set<HFBFilterWriteOption> optionSet ) {
+        List<HFBFilterBankStats> result = new ArrayList<>();
+        for (int filterNumber = 0; filterNumber < filterBank.getNumberOfFilters(); filterNumber++) {
+            HFBFilterData filterData = filterBank.getFilterData( filterNumber );
+            result.add( new HFBFilterBankStats( filterData, filterNumber, filterData.getBitweight() ) );
+        }
+
+        if (optionSet.contains( HFBFilterWriteOption.ORDER_BY_RANDOM )) {
+            Collections.shuffle( result );
+        }
+        else if (optionSet.contains( HFBFilterWriteOption.ORDER_BY_STARTPOSITION )) {
+            // intentionally left blank - keep order of initialization
+        }
+        else {
+            // intentionally left blank - keep order of initialization
+        }
+
+        if (optionSet.contains( HFBFilterWriteOption.ORDER_BY_EFFICIENCY )) {
+            // resort but keep former order in case of same weights.
+            // as long as the filter data always has the same slice size (within one filter, Bitweight is correct, othwerwise bitweight in relation to slice size is important.
+            Collections.sort( result, Comparator.comparingLong( HFBFilterBankStats::getBitweight ) );
+        }
+
+        return result;
+    }
+
+    private List<HFBFilterBankStats> filterFilterBanks( List<HFBFilterBankStats> orderedFilterbanks, Set<HFBFilterWriteOption> optionSet ) {
+        // ATTN: The order of the evaluations matter
+
+        if (optionSet.contains( HFBFilterWriteOption.SAVE_ALL_FILTERBANKS )) {
+            return orderedFilterbanks;
+        }
+
+        if (optionSet.contains( HFBFilterWriteOption.SAVE_FOUR_FILTERBANKS )) {
+            return orderedFilterbanks.stream().limit( 4 ).collect( Collectors.toList() );
+        }
+        else if (optionSet.contains( HFBFilterWriteOption.SAVE_THREE_FILTERBANKS )) {
+            return orderedFilterbanks.stream().limit( 3 ).collect( Collectors.toList() );
+        }
+        else if (optionSet.contains( HFBFilterWriteOption.SAVE_HALF_FILTERBANKS )) {
+            return orderedFilterbanks.stream().limit( (1 + orderedFilterbanks.size()) >> 1 ).collect( Collectors.toList() );
+        }
+        else if (optionSet.contains( HFBFilterWriteOption.SAVE_THIRD_FILTERBANKS )) {
+            return orderedFilterbanks.stream().limit( (2 + orderedFilterbanks.size()) / 3 ).collect( Collectors.toList() );
+        }
+
+        // TODO: calculate the FPR (false positive rate)
+        // calculate the remaining false positive rate and determine the number of filters
+        if (optionSet.contains( HFBFilterWriteOption.SAVE_FPR_BELOW_TWO_PROMILE )) {
+        }
+        else if (optionSet.contains( HFBFilterWriteOption.SAVE_FPR_BELOW_HALF_PERCENT )) {
+        }
+        else if (optionSet.contains( HFBFilterWriteOption.SAVE_FPR_BELOW_ONE_PERCENT )) {
+        }
+
+        // None of these -> return all of them...
+        return orderedFilterbanks;
+    }
+
+    private void writeFilterbanksByOrder( HFBFilterBank filterBank, OutputStream writer, List<HFBFilterBankStats> order ) throws IOException {
+        int numberOfFilters = order.size();
+
+        writer.write( RawUtils.toByteArray4b( numberOfFilters ) );
+        for (int filterID = 0; filterID < numberOfFilters; filterID++) {
+            writeFilterBankData( filterBank, writer, order.get( filterID ).getFilterNumber() );
+        }
+    }
+
+    private void writeMetadata( HFBFilterBank filterBank, OutputStream writer, List<HFBFilterBankStats> order ) throws IOException {
+        int numberOfFilters = order.size();
+
+        long[] bitweights = new long[numberOfFilters];
+        double[] rejections = new double[numberOfFilters];
+        List<HFBFilterData> writtenFilters = new ArrayList<>();
+        for (int i = 0; i < numberOfFilters; i++) {
+            HFBFilterBankStats stats = order.get( i );
+            bitweights[i] = stats.getBitweight();
+            rejections[i] = HFBFilterBankMetadata.estimateRejection( stats.getBitweight(), stats.getData().getSliceBitSize() );
+            writtenFilters.add( stats.getData() );
+        }
+
+        // the filters may be reordered or written partially, so the number of applied filters 
+        // is the one of the filter bank, which is read from the file
+        HFBFilterBankMetadata metadata = new HFBFilterBankMetadata( filterBank.getBitsInDocumentId(), filterBank.getOccurrenceCount(),
+                        filterBank.getLoadFactor(), HFBFilterBank.calculateNumberOfAppliedFilters( writtenFilters ), bitweights, rejections );
+
+        ByteBuffer metadataBuffer = ByteBuffer.allocate( HFBFilterBankMetadata.calculateMetadataSize( numberOfFilters ) );
+        metadata.putMetadataBlock( metadataBuffer, 0 );
+        writer.write( metadataBuffer.array() );
+    }
+
+    private void writeFilterBankData( HFBFilterBank filterBank, OutputStream writer, int filterID ) throws IOException {
+        HFBFilterData filterData = filterBank.getFilterData( filterID );
+
+        writer.write( RawUtils.toByteArray4b( filterData.isXorFolded() ? HFB_XOR_FILTERDATA_MARKER_UNCOMPRESSED : HFB_FILTERDATA_MARKER_UNCOMPRESSED ) );
+        writer.write( RawUtils.toByteArray4b( filterID ) );
+
+        writer.write( RawUtils.toByteArray4b( filterData.getSlicePosition() ) );
+        writer.write( RawUtils.toByteArray4b( filterData.getSliceBitSize() ) );
+
+        if (filterData.isXorFolded()) {
+            // write position of the xor folded slice -- 4 bytes
+            writer.write( RawUtils.toByteArray4b( filterData.getXorSlicePosition() ) );
+        }
+
+        System.out.println( filterData.getSliceBitSize() );
+        System.out.println( 1L << filterData.getSliceBitSize() );
+
+        byte[] filterDataArray = filterData.getSliceData();
+        writer.write( RawUtils.toByteArray4b( filterDataArray.length ) );
+        writer.write( filterDataArray );
+
+        // int bitweight = BitwiseCalculations.calculateBitWeight( filterDataArray );
+        // int invbitweight = BitwiseCalculations.calculateInvBitWeight( filterDataArray );
+        // System.out.println( String.format( "Filter #%d has %d bits set (1) and %d not set (0).", filterID, bitweight, invbitweight ) );
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for filtering a batch of candidate document ids. Only batches, which 
+ * take longer than the threshold, are recorded. A filter bank, which lets most of the 
+ * candidates pass, is a bad filter for the query.
+ */
+@Name( HFBBatchLookupEvent.NAME )
+@Label( "HFB Batch Lookup" )
+@Description( "Filtering a batch of candidate document ids" )
+@Category( { "FuriousIron", "HFB" } )
+@Threshold( "1 ms" )
+@StackTrace( false )
+public class HFBBatchLookupEvent extends Event {
+
+    public static final String NAME = "de.mindscan.furiousiron.hfb.BatchLookup";
+
+    @Label( "Document Ids In" )
+    private int documentIdsIn;
+
+    @Label( "Document Ids Out" )
+    private int documentIdsOut;
+
+    @Label( "Probes" )
+    @Description( "Number of filter lookups for the whole batch" )
+    private long probes;
+
+    public void setDocumentIdsIn( int documentIdsIn ) {
+        this.documentIdsIn = documentIdsIn;
+    }
+
+    public void setDocumentIdsOut( int documentIdsOut ) {
+        this.documentIdsOut = documentIdsOut;
+    }
+
+    public void setProbes( long probes ) {
+        this.probes = probes;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for reading a filter bank file. Only reads, which take longer than the
+ * threshold, are recorded.
+ */
+@Name( HFBFilterBankReadEvent.NAME )
+@Label( "HFB Filter Bank Read" )
+@Description( "Reading a filter bank file" )
+@Category( { "FuriousIron", "HFB" } )
+@Threshold( "20 ms" )
+public class HFBFilterBankReadEvent extends Event {
+
+    public static final String NAME = "de.mindscan.furiousiron.hfb.FilterBankRead";
+
+    @Label( "Path" )
+    private String path;
+
+    @Label( "File Size" )
+    @DataAmount
+    private long bytes;
+
+    @Label( "Number of Filters" )
+    private int numberOfFilters;
+
+    @Label( "Filter Bank Type" )
+    private String filterBankType;
+
+    public void setPath( String path ) {
+        this.path = path;
+    }
+
+    public void setBytes( long bytes ) {
+        this.bytes = bytes;
+    }
+
+    public void setNumberOfFilters( int numberOfFilters ) {
+        this.numberOfFilters = numberOfFilters;
+    }
+
+    public void setFilterBankType( String filterBankType ) {
+        this.filterBankType = filterBankType;
+    }
+}
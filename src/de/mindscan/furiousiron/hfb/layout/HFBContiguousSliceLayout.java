@@ -0,0 +1,51 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+
+/**
+ * Contiguous, non overlapping slices from the top bit downward. With 128 bit document ids 
+ * and 24 bit slices this gives five filters, the lowest 8 bits are unused.
+ */
+public class HFBContiguousSliceLayout implements HFBSliceLayout {
+
+    /** 
+     * {@inheritDoc}
+     */
+    @Override
+    public List<HFBFilterData> createFilters( int bitsInDocumentId, int sliceBitSize ) {
+        List<HFBFilterData> result = new ArrayList<>();
+        for (int slicePosition = bitsInDocumentId - sliceBitSize; slicePosition >= 0; slicePosition -= sliceBitSize) {
+            result.add( new HFBFilterData( slicePosition, sliceBitSize ) );
+        }
+        return result;
+    }
+
+}
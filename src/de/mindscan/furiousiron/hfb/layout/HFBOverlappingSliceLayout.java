@@ -0,0 +1,87 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+
+/**
+ * Slices from the top bit downward, where each slice starts a fixed stride below the previous
+ * one. A stride smaller than the slice size gives overlapping slices and therefore more 
+ * filters, e.g. 128 bit document ids with 24 bit slices and a stride of 12 give nine filters
+ * instead of five. Neighbouring slices share bits, so they are not fully independent.
+ * 
+ * The disjoint slices come first, so the filters, which reject most of the foreign document
+ * ids, are asked first. Since the slices overlap, the filter bank asks all of them.
+ */
+public class HFBOverlappingSliceLayout implements HFBSliceLayout {
+
+    private final int stride;
+
+    /**
+     * @param stride number of bits between the start of two slices
+     */
+    public HFBOverlappingSliceLayout( int stride ) {
+        if (stride < 1) {
+            throw new IllegalArgumentException( "stride must be at least one." );
+        }
+        this.stride = stride;
+    }
+
+    /** 
+     * {@inheritDoc}
+     */
+    @Override
+    public List<HFBFilterData> createFilters( int bitsInDocumentId, int sliceBitSize ) {
+        List<HFBFilterData> disjoint = new ArrayList<>();
+        List<HFBFilterData> overlapping = new ArrayList<>();
+
+        // every n-th slice starts at least one slice size below the previous disjoint slice
+        int disjointEvery = (sliceBitSize + stride - 1) / stride;
+        int n = 0;
+        for (int slicePosition = bitsInDocumentId - sliceBitSize; slicePosition >= 0; slicePosition -= stride) {
+            HFBFilterData filterData = new HFBFilterData( slicePosition, sliceBitSize );
+            if (n % disjointEvery == 0) {
+                disjoint.add( filterData );
+            }
+            else {
+                overlapping.add( filterData );
+            }
+            n++;
+        }
+
+        List<HFBFilterData> result = new ArrayList<>( disjoint );
+        result.addAll( overlapping );
+        return result;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+}
@@ -0,0 +1,55 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.layout;
+
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+
+/**
+ * Decides which slices of the document id are used as the hash values of the filters of a 
+ * filter bank. 
+ * 
+ * The extraction itself stays in {@link HFBFilterData}, a layout only chooses the slice 
+ * positions, so the lookup remains allocation free and branch free for every layout.
+ */
+public interface HFBSliceLayout {
+
+    /**
+     * Contiguous, non overlapping slices from the top bit downward, this is the original layout.
+     */
+    HFBSliceLayout CONTIGUOUS = new HFBContiguousSliceLayout();
+
+    /**
+     * Creates the filters of a filter bank, the filter data is not allocated yet.
+     * 
+     * @param bitsInDocumentId e.g. 128 for md5 hashsums
+     * @param sliceBitSize the number of bits of each slice
+     * @return the filters in the order they should be applied
+     */
+    List<HFBFilterData> createFilters( int bitsInDocumentId, int sliceBitSize );
+
+}
@@ -0,0 +1,85 @@
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBXorFoldedFilterData;
+
+/**
+ * Starts with the contiguous slices, and adds filters, which combine two of the contiguous 
+ * slices by xor. The document ids are uniformly distributed, so the xor of two disjoint 
+ * slices is again uniformly distributed. With k contiguous slices up to k + k * (k - 1) / 2 
+ * filters are possible, e.g. 15 filters for 128 bit document ids and 24 bit slices.
+ * 
+ * The slices are combined with their direct neighbour first, then with the slice after the 
+ * next one and so on.
+ */
+public class HFBXorFoldedSliceLayout implements HFBSliceLayout {
+
+    private final int numberOfFilters;
+
+    /**
+     * @param numberOfFilters the maximum number of filters
+     */
+    public HFBXorFoldedSliceLayout( int numberOfFilters ) {
+        if (numberOfFilters < 1) {
+            throw new IllegalArgumentException( "numberOfFilters must be at least one." );
+        }
+        this.numberOfFilters = numberOfFilters;
+    }
+
+    /** 
+     * {@inheritDoc}
+     */
+    @Override
+    public List<HFBFilterData> createFilters( int bitsInDocumentId, int sliceBitSize ) {
+        List<HFBFilterData> result = new ArrayList<>();
+
+        List<Integer> slicePositions = new ArrayList<>();
+        for (int slicePosition = bitsInDocumentId - sliceBitSize; slicePosition >= 0; slicePosition -= sliceBitSize) {
+            slicePositions.add( slicePosition );
+            if (result.size() < numberOfFilters) {
+                result.add( new HFBFilterData( slicePosition, sliceBitSize ) );
+            }
+        }
+
+        for (int distance = 1; distance < slicePositions.size(); distance++) {
+            for (int i = 0; i + distance < slicePositions.size() && result.size() < numberOfFilters; i++) {
+                result.add( new HFBXorFoldedFilterData( slicePositions.get( i ), sliceBitSize, slicePositions.get( i + distance ) ) );
+            }
+        }
+
+        return result;
+    }
+
+    public int getNumberOfFilters() {
+        return numberOfFilters;
+    }
+
+}
@@ -1,57 +1,57 @@
-/**
- * 
- * MIT License
- *
- * Copyright (c) 2022 Maxim Gansert, Mindscan
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in all
- * copies or substantial portions of the Software.
-
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- * 
- */
-package de.mindscan.furiousiron.hfb.options;
-
-/**
- * 
- */
-public enum HFBFilterWriteOption {
-
-    // all
-    SAVE_ALL_FILTERBANKS,
-    // only 4
-    SAVE_FOUR_FILTERBANKS,
-    // only 3
-    SAVE_THREE_FILTERBANKS,
-    // only half of the filter banks
-    SAVE_HALF_FILTERBANKS,
-    // only third of the filter banks
-    SAVE_THIRD_FILTERBANKS,
-
-    // save all filters until the false positive rate is below 0.01
-    SAVE_FPR_BELOW_ONE_PERCENT,
-    // save all filters until the false positive rate is below 0.005
-    SAVE_FPR_BELOW_HALF_PERCENT,
-    // save all filters until the false positive rate is below 0.002
-    SAVE_FPR_BELOW_TWO_PROMILE,
-
-    // Save filter in order by most efficient filter banks first
-    ORDER_BY_EFFICIENCY,
-    // Save filter in order by start position
-    ORDER_BY_STARTPOSITION,
-    // Save filter in random order
-    ORDER_BY_RANDOM;
-}
+/**
+ * 
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Gansert, Mindscan
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package de.mindscan.furiousiron.hfb.options;
+
+/**
+ * 
+ */
+public enum HFBFilterWriteOption {
+
+    // all
+    SAVE_ALL_FILTERBANKS,
+    // only 4
+    SAVE_FOUR_FILTERBANKS,
+    // only 3
+    SAVE_THREE_FILTERBANKS,
+    // only half of the filter banks
+    SAVE_HALF_FILTERBANKS,
+    // only third of the filter banks
+    SAVE_THIRD_FILTERBANKS,
+
+    // save all filters until the false positive rate is below 0.01
+    SAVE_FPR_BELOW_ONE_PERCENT,
+    // save all filters until the false positive rate is below 0.005
+    SAVE_FPR_BELOW_HALF_PERCENT,
+    // save all filters until the false positive rate is below 0.002
+    SAVE_FPR_BELOW_TWO_PROMILE,
+
+    // Save filter in order by most efficient filter banks first
+    ORDER_BY_EFFICIENCY,
+    // Save filter in order by start position
+    ORDER_BY_STARTPOSITION,
+    // Save filter in random order
+    ORDER_BY_RANDOM;
+}
@@ -0,0 +1,74 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+
+import org.junit.jupiter.api.Test;
+
+import de.mindscan.furiousiron.hfb.io.BitwiseCalculations;
+
+/**
+ * Compares the classic filter bank with the blocked filter bank for different filter bank 
+ * sizes regarding lookup latency, false positive rate and memory. This is not run as part 
+ * of the unit tests, run it manually.
+ */
+public class HFBBlockedFilterBankBenchmark {
+
+    private static final int NUMBER_OF_CANDIDATES = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkContainsDocumentId_ClassicVersusBlocked() throws Exception {
+        long[] candidateIds = getDocumentIds( 0xcafe, NUMBER_OF_CANDIDATES );
+
+        System.out.println( String.format( "%10s %10s %10s %10s %10s %10s %10s %10s %10s", "documents", "classic ns", "blocked ns", "classic+ ns",
+                        "blocked+ ns", "classic fpr", "blocked fpr", "classic kb", "blocked kb" ) );
+
+        for (int numberOfDocuments : new int[] { 10_000, 200_000, 1_600_000 }) {
+            long[] documentIds = getDocumentIds( 0xbadface1, numberOfDocuments );
+
+            HFBFilterBank classic = new HFBFilterBankCompiler().createEmptyFilter( numberOfDocuments );
+            HFBBlockedFilterBank blocked = new HFBFilterBankCompiler().createEmptyBlockedFilter( numberOfDocuments );
+            for (int i = 0; i < numberOfDocuments; i++) {
+                classic.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+                blocked.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+            }
+
+            long classicTime = measure( () -> classic.filterDocumentIds( candidateIds ) );
+            long blockedTime = measure( () -> blocked.filterDocumentIds( candidateIds ) );
+
+            // positive lookups, where every probe is needed
+            long classicPositiveTime = measure( () -> classic.filterDocumentIds( documentIds ) );
+            long blockedPositiveTime = measure( () -> blocked.filterDocumentIds( documentIds ) );
+
+            double classicFpr = (double) HFBDocumentIds.count( classic.filterDocumentIds( candidateIds ) ) / NUMBER_OF_CANDIDATES;
+            double blockedFpr = (double) HFBDocumentIds.count( blocked.filterDocumentIds( candidateIds ) ) / NUMBER_OF_CANDIDATES;
+
+            // only the applied filters of the classic filter bank need to be kept
+            long classicBytes = 0;
+            for (int i = 0; i < Math.min( classic.getNumberOfFilters(), HFBFilterBank.NUMBER_OF_APPLIED_FILTERS ); i++) {
+                classicBytes += classic.getFilterData( i ).getSliceData().length;
+            }
+            long blockedBytes = blocked.getBlockData().length << 3;
+
+            System.out.println( String.format( "%10d %10.1f %10.1f %10.1f %10.1f %10.5f %10.5f %10d %10d", numberOfDocuments,
+                            (double) classicTime / NUMBER_OF_CANDIDATES, (double) blockedTime / NUMBER_OF_CANDIDATES,
+                            (double) classicPositiveTime / numberOfDocuments, (double) blockedPositiveTime / numberOfDocuments, classicFpr, blockedFpr,
+                            classicBytes >> 10, blockedBytes >> 10 ) );
+            System.out.println( "  classic fill of first filter: "
+                            + (double) BitwiseCalculations.calculateBitWeight( classic.getFilterData( 0 ).getSliceData() )
+                                            / (1L << classic.getFilterData( 0 ).getSliceBitSize())
+                            + ", blocked fill: " + (double) blocked.getBitweight() / (blocked.getBlockData().length << 6) );
+        }
+    }
+
+    private long measure( Runnable probe ) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            probe.run();
+            best = Math.min( best, System.nanoTime() - start );
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,123 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getUnsignedDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBBlockedFilterBankTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testContainsDocumentId_AllInsertedDocumentIds_expectTrue() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 13332 );
+
+        // act
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().compileBlockedFilterHex( documentIds );
+
+        // assert
+        for (String documentId : documentIds) {
+            assertThat( filterBank.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testContainsDocumentId_NonInsertedDocumentIds_expectMostlyRejected() throws Exception {
+        // arrange
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().compileBlockedFilterHex( getHexDocumentIdCollection( 0xbadface1, 13332 ) );
+
+        // act
+        int falsePositives = 0;
+        for (String documentId : getHexDocumentIdCollection( 0xcafe, 10000 )) {
+            if (filterBank.containsDocumentId( new BigInteger( documentId, 16 ) )) {
+                falsePositives++;
+            }
+        }
+
+        // assert
+        assertThat( falsePositives, lessThan( 100 ) );
+    }
+
+    @Test
+    public void testReadFromFile_WrittenBlockedFilterBank_expectSameBlockedFilterBank() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 13332 );
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().compileBlockedFilterHex( documentIds );
+        String path = tempDir.resolve( "blocked.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        assertThat( result, instanceOf( HFBBlockedFilterBank.class ) );
+        HFBBlockedFilterBank blockedResult = (HFBBlockedFilterBank) result;
+        assertThat( blockedResult.getNumberOfProbes(), equalTo( filterBank.getNumberOfProbes() ) );
+        assertThat( blockedResult.getBlockData(), equalTo( filterBank.getBlockData() ) );
+    }
+
+    @Test
+    public void testFold_InsertedDocumentIds_expectFoldedBankContainsAll() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 13332 );
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().compileBlockedFilterHex( documentIds );
+
+        // act
+        HFBBlockedFilterBank folded = (HFBBlockedFilterBank) filterBank.fold( 2 );
+
+        // assert
+        assertThat( folded.getBlockData().length, equalTo( filterBank.getBlockData().length >> 2 ) );
+        assertThat( folded.getBlockSlicePosition(), equalTo( filterBank.getBlockSlicePosition() ) );
+        for (String documentId : documentIds) {
+            assertThat( folded.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testFoldToSize_LargeBlockData_expectBlockDataFits() throws Exception {
+        // arrange
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().compileBlockedFilterHex( getHexDocumentIdCollection( 0xbadface1, 13332 ) );
+
+        // act
+        HFBBlockedFilterBank folded = (HFBBlockedFilterBank) filterBank.foldToSize( 5000 );
+        HFBBlockedFilterBank smallest = (HFBBlockedFilterBank) filterBank.foldToSize( 1 );
+
+        // assert
+        assertThat( folded.getBlockData().length << 3, equalTo( 4096 ) );
+        assertThat( smallest.getBlockData().length, equalTo( 1 << HFBBlockedFilterBank.BLOCK_WORD_SHIFT ) );
+    }
+
+    @Test
+    public void testReadFromFile_WrittenFoldedBlockedFilterBank_expectSameAnswers() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 13332 );
+        HFBBlockedFilterBank folded = (HFBBlockedFilterBank) new HFBFilterBankCompiler().compileBlockedFilterHex( documentIds ).fold( 2 );
+        String path = tempDir.resolve( "folded.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( folded, path );
+        long[] candidates = HFBDocumentIds.fromBigIntegers( getUnsignedDocumentIdCollection( 0xcafe, 10000 ) );
+
+        // act
+        HFBBlockedFilterBank result = (HFBBlockedFilterBank) new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        assertThat( result.getBlockSlicePosition(), equalTo( folded.getBlockSlicePosition() ) );
+        assertThat( result.getBlockData(), equalTo( folded.getBlockData() ) );
+        assertThat( result.filterDocumentIds( candidates ), equalTo( folded.filterDocumentIds( candidates ) ) );
+    }
+
+}
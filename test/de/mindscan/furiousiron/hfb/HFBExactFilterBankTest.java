@@ -0,0 +1,162 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBExactFilterBankTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCompileFilterHex_FewDocumentIds_expectExactFilterBank() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 7 );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+
+        // assert
+        assertThat( result, instanceOf( HFBExactFilterBank.class ) );
+        assertThat( result.getOccurrenceCount(), equalTo( 7L ) );
+    }
+
+    @Test
+    public void testCompileFilterHex_ManyDocumentIds_expectRegularFilterBank() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, HFBFilterBankCompiler.EXACT_MODE_THRESHOLD );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+
+        // assert
+        assertThat( result.getClass() == HFBFilterBank.class, equalTo( true ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_ExactFilterBank_expectNoFalsePositives() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 31 );
+        HFBFilterBank filterBank = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+
+        // act + assert
+        for (String documentId : documentIds) {
+            assertThat( filterBank.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( true ) );
+        }
+        for (String documentId : getHexDocumentIdCollection( 0xcafe, 10000 )) {
+            assertThat( filterBank.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( false ) );
+        }
+    }
+
+    @Test
+    public void testAddDocumentId_DuplicateDocumentId_expectCountedOnce() throws Exception {
+        // arrange
+        HFBExactFilterBank filterBank = new HFBFilterBankCompiler().createExactFilter( 2 );
+
+        // act
+        filterBank.addDocumentId( -1L, 5L );
+        filterBank.addDocumentId( 3L, 1L );
+        filterBank.addDocumentId( -1L, 5L );
+
+        // assert
+        assertThat( filterBank.getOccurrenceCount(), equalTo( 2L ) );
+        assertThat( filterBank.getDocumentIds(), equalTo( new long[] { -1L, 5L, 3L, 1L } ) );
+        assertThat( filterBank.containsDocumentId( -1L, 4L ), equalTo( false ) );
+    }
+
+    @Test
+    public void testReadFromFile_WrittenExactFilterBank_expectSameDocumentIds() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 20 );
+        HFBExactFilterBank filterBank = (HFBExactFilterBank) new HFBFilterBankCompiler().compileFilterHex( documentIds );
+        String path = tempDir.resolve( "exact.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        assertThat( result, instanceOf( HFBExactFilterBank.class ) );
+        assertThat( ((HFBExactFilterBank) result).getDocumentIds(), equalTo( filterBank.getDocumentIds() ) );
+    }
+
+    @Test
+    public void testCompileFilter_StreamLargerThanCountHint_expectRegularFilterBank() throws Exception {
+        // arrange
+        List<byte[]> rawDocumentIds = new ArrayList<>();
+        Random random = new Random( 0xbadface1 );
+        for (int i = 0; i < 10000; i++) {
+            byte[] rawDocumentId = new byte[16];
+            random.nextBytes( rawDocumentId );
+            rawDocumentIds.add( rawDocumentId );
+        }
+
+        // act
+        HFBFilterBank result = new HFBFilterBankCompiler().compileFilter( rawDocumentIds.iterator(), 1 );
+
+        // assert
+        assertThat( result.getClass() == HFBFilterBank.class, equalTo( true ) );
+        for (byte[] rawDocumentId : rawDocumentIds) {
+            assertThat( result.containsDocumentId( HFBDocumentIds.hiFromRaw( rawDocumentId, 0 ), HFBDocumentIds.loFromRaw( rawDocumentId, 0 ) ),
+                            equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testFreezeAndFold_FewDocumentIds_expectExactAnswers() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 10 );
+        HFBFilterBank filterBank = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+
+        // act
+        HFBFrozenFilterBank frozen = filterBank.freeze();
+        HFBFilterBank folded = filterBank.fold( 3 );
+        HFBFilterBank foldedToSize = filterBank.foldToSize( 16 );
+
+        // assert
+        for (String documentId : documentIds) {
+            BigInteger value = new BigInteger( documentId, 16 );
+            assertThat( frozen.containsDocumentId( value ), equalTo( true ) );
+            assertThat( folded.containsDocumentId( value ), equalTo( true ) );
+            assertThat( foldedToSize.containsDocumentId( value ), equalTo( true ) );
+        }
+        for (String documentId : getHexDocumentIdCollection( 0xcafe, 1000 )) {
+            assertThat( frozen.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( false ) );
+        }
+    }
+
+    @Test
+    public void testTieredFilterBank_ExactFilterBank_expectExactAnswersAndWrittenAsExact() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 10 );
+        HFBFilterBank filterBank = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+        String path = tempDir.resolve( "tiered.hfbv1" ).toString();
+
+        // act
+        HFBTieredFilterBank tiered = new HFBTieredFilterBank( filterBank );
+        new HFBFilterBankWriterV1Impl().write( tiered, path );
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        long[] candidates = HFBDocumentIds.fromHex( getHexDocumentIdCollection( 0xcafe, 1000 ) );
+        assertThat( tiered.filterDocumentIds( candidates ).length, equalTo( 0 ) );
+        assertThat( tiered.filterDocumentIdsBatched( HFBDocumentIds.fromHex( documentIds ) ).length, equalTo( 20 ) );
+        assertThat( result, instanceOf( HFBExactFilterBank.class ) );
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.mindscan.furiousiron.hfb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBFilterBank64Test {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCompileFilter64_expectSlicesFor64Bit() throws Exception {
+        // arrange
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+
+        // act
+        HFBFilterBank64 filterBank = compiler.compileFilter64( getDocumentIds( 0xbadface1, 13332 ) );
+
+        // assert
+        assertThat( filterBank.getBitsInDocumentId(), equalTo( 64 ) );
+        for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+            HFBFilterData filterData = filterBank.getFilterData( i );
+            assertThat( filterData.getSlicePosition() + filterData.getSliceBitSize() <= 64, equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testContainsAll_AllInsertedDocumentIds_expectTrue() throws Exception {
+        // arrange
+        long[] documentIds = getDocumentIds( 0xbadface1, 13332 );
+        HFBFilterBank64 filterBank = new HFBFilterBankCompiler().compileFilter64( documentIds );
+
+        // act
+        boolean result = filterBank.containsAll( documentIds );
+
+        // assert
+        assertThat( result, equalTo( true ) );
+    }
+
+    @Test
+    public void testContains_NonInsertedDocumentIds_expectMostlyRejected() throws Exception {
+        // arrange
+        HFBFilterBank64 filterBank = new HFBFilterBankCompiler().compileFilter64( getDocumentIds( 0xbadface1, 13332 ) );
+        long[] otherDocumentIds = getDocumentIds( 0xcafe, 10000 );
+
+        // act
+        int falsePositives = 0;
+        for (long documentId : otherDocumentIds) {
+            if (filterBank.contains( documentId )) {
+                falsePositives++;
+            }
+        }
+
+        // assert
+        assertThat( falsePositives, lessThan( 100 ) );
+    }
+
+    @Test
+    public void testReadFromFile_WrittenFilter64_expectFilter64WithSameDocumentIds() throws Exception {
+        // arrange
+        long[] documentIds = getDocumentIds( 0xbadface1, 13332 );
+        HFBFilterBank64 filterBank = new HFBFilterBankCompiler().compileFilter64( documentIds );
+        String path = tempDir.resolve( "filterbank64.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        assertThat( result, instanceOf( HFBFilterBank64.class ) );
+        assertThat( ((HFBFilterBank64) result).containsAll( documentIds ), equalTo( true ) );
+    }
+
+    long[] getDocumentIds( long seed, int count ) {
+        long[] result = new long[count];
+
+        Random random = new Random( seed );
+
+        for (int i = 0; i < count; i++) {
+            result[i] = random.nextLong();
+        }
+
+        return result;
+    }
+
+}
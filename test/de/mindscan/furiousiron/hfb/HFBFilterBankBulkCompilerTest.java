@@ -0,0 +1,100 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankArchiveReader;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+
+public class HFBFilterBankBulkCompilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCompileHex_ManyPostingLists_expectOneFilterBankPerPostingList() throws Exception {
+        // arrange
+        List<Entry<String, Collection<String>>> postingLists = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            postingLists.add( new SimpleEntry<>( "trigram" + i, getHexDocumentIdCollection( i, 200 + i * 10 ) ) );
+        }
+        HFBFilterBankBulkCompiler compiler = new HFBFilterBankBulkCompiler( 4, 2 );
+
+        // act
+        HFBBulkCompileReport report = compiler.compileHex( postingLists.iterator(), tempDir );
+
+        // assert
+        assertThat( report.getNumberOfFilterBanks(), equalTo( 50L ) );
+        for (Entry<String, Collection<String>> postingList : postingLists) {
+            HFBFilterBank filterBank = new HFBFilterBankReaderV1Impl().readFromFile( tempDir.resolve( postingList.getKey() + ".hfbv1" ).toString() );
+            for (String documentId : postingList.getValue()) {
+                assertThat( filterBank.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( true ) );
+            }
+        }
+    }
+
+    @Test
+    public void testCompileDirectory_RawPostingLists_expectFilterBanksNamedAfterFiles() throws Exception {
+        // arrange
+        Path input = Files.createDirectory( tempDir.resolve( "input" ) );
+        Path output = Files.createDirectory( tempDir.resolve( "output" ) );
+        Random random = new Random( 0xbadface1 );
+        byte[] raw = new byte[16 * 1000];
+        random.nextBytes( raw );
+        Files.write( input.resolve( "abc.ids" ), raw );
+        Files.write( input.resolve( "bcd.ids" ), raw );
+
+        // act
+        HFBBulkCompileReport report = new HFBFilterBankBulkCompiler().compileDirectory( input, output );
+
+        // assert
+        assertThat( report.getNumberOfFilterBanks(), equalTo( 2L ) );
+        assertThat( report.getNumberOfDocumentIds(), equalTo( 2000L ) );
+        HFBFilterBank filterBank = new HFBFilterBankReaderV1Impl().readFromFile( output.resolve( "abc.hfbv1" ).toString() );
+        assertThat( filterBank.containsDocumentId( HFBDocumentIds.hiFromRaw( raw, 16 ), HFBDocumentIds.loFromRaw( raw, 16 ) ), equalTo( true ) );
+    }
+
+    @Test
+    public void testCompileHexToArchive_SharedPostingLists_expectIdenticalFilterDataStoredOnce() throws Exception {
+        // arrange
+        List<Entry<String, Collection<String>>> postingLists = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // two keys for each posting list, like rare trigrams of the same few documents
+            postingLists.add( new SimpleEntry<>( "trigram" + i, getHexDocumentIdCollection( i / 2, i < 10 ? 10 : 500 ) ) );
+        }
+        Path archivePath = tempDir.resolve( "trigrams.hfba1" );
+
+        // act
+        HFBBulkCompileReport report = new HFBFilterBankBulkCompiler( 4, 2 ).compileHexToArchive( postingLists.iterator(), archivePath );
+
+        // assert
+        assertThat( report.getNumberOfFilterBanks(), equalTo( 20L ) );
+        try (HFBFilterBankArchiveReader archive = new HFBFilterBankArchiveReader( archivePath )) {
+            Map<String, HFBReadOnlyFilterBank> filterBanks = archive.readAll();
+            assertThat( filterBanks.get( "trigram0" ), sameInstance( filterBanks.get( "trigram1" ) ) );
+            assertThat( archive.getNumberOfFiltersRead(), equalTo( 5L * filterBanks.get( "trigram10" ).getNumberOfFilters() ) );
+            for (Entry<String, Collection<String>> postingList : postingLists) {
+                for (String documentId : postingList.getValue()) {
+                    assertThat( filterBanks.get( postingList.getKey() ).containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( true ) );
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package de.mindscan.furiousiron.hfb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HFBFilterBankCompilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCompileFilter_IteratorOfRawDocumentIds_expectSameAsCompileFilterHex() throws Exception {
+        // arrange
+        List<byte[]> rawDocumentIds = getRawDocumentIds( 0xbadface1, 5000 );
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+
+        // act
+        HFBFilterBank result = compiler.compileFilter( rawDocumentIds.iterator(), rawDocumentIds.size() );
+
+        // assert
+        assertSameFilterData( result, compiler.compileFilterHex( toHex( rawDocumentIds ) ) );
+    }
+
+    @Test
+    public void testCompileFilter_ChannelOfRawDocumentIds_expectSameAsCompileFilterHex() throws Exception {
+        // arrange
+        List<byte[]> rawDocumentIds = getRawDocumentIds( 0xbadface1, 5000 );
+        byte[] raw = concat( rawDocumentIds );
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+
+        // act
+        HFBFilterBank result = compiler.compileFilter( Channels.newChannel( new ByteArrayInputStream( raw ) ), rawDocumentIds.size() );
+
+        // assert
+        assertSameFilterData( result, compiler.compileFilterHex( toHex( rawDocumentIds ) ) );
+    }
+
+    @Test
+    public void testCompileFilter_ReopenableSourceWithUnknownCount_expectSameAsCompileFilterHex() throws Exception {
+        // arrange
+        List<byte[]> rawDocumentIds = getRawDocumentIds( 0xbadface1, 5000 );
+        Path postingList = tempDir.resolve( "postinglist.bin" );
+        Files.write( postingList, concat( rawDocumentIds ) );
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+
+        // act
+        HFBFilterBank result = compiler.compileFilter( () -> Files.newByteChannel( postingList, StandardOpenOption.READ ) );
+
+        // assert
+        assertThat( result.getOccurrenceCount(), equalTo( 5000L ) );
+        assertSameFilterData( result, compiler.compileFilterHex( toHex( rawDocumentIds ) ) );
+    }
+
+    private void assertSameFilterData( HFBFilterBank result, HFBFilterBank expected ) {
+        assertThat( result.getNumberOfFilters(), equalTo( expected.getNumberOfFilters() ) );
+        for (int i = 0; i < expected.getNumberOfFilters(); i++) {
+            assertThat( result.getFilterData( i ).getSliceData(), equalTo( expected.getFilterData( i ).getSliceData() ) );
+        }
+    }
+
+    private byte[] concat( List<byte[]> rawDocumentIds ) {
+        byte[] result = new byte[rawDocumentIds.size() * 16];
+        for (int i = 0; i < rawDocumentIds.size(); i++) {
+            System.arraycopy( rawDocumentIds.get( i ), 0, result, i * 16, 16 );
+        }
+        return result;
+    }
+
+    private List<String> toHex( List<byte[]> rawDocumentIds ) {
+        List<String> result = new ArrayList<>();
+        for (byte[] rawDocumentId : rawDocumentIds) {
+            result.add( new BigInteger( 1, rawDocumentId ).toString( 16 ) );
+        }
+        return result;
+    }
+
+    List<byte[]> getRawDocumentIds( long seed, int count ) {
+        List<byte[]> result = new ArrayList<>();
+
+        Random random = new Random( seed );
+
+        for (int i = 0; i < count; i++) {
+            byte[] target = new byte[16];
+            random.nextBytes( target );
+            result.add( target );
+        }
+
+        return result;
+    }
+
+}
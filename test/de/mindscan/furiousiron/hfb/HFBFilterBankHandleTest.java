@@ -0,0 +1,121 @@
+package de.mindscan.furiousiron.hfb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBFilterBankHandleTest {
+
+    @Test
+    public void testPublish_LeaseOnFormerGeneration_expectReleaseAfterLeaseIsClosed() throws Exception {
+        // arrange
+        HFBFilterBank first = createFilterBank( 1000 );
+        HFBFilterBank second = createFilterBank( 2000 );
+        AtomicInteger released = new AtomicInteger();
+        HFBFilterBankHandle handle = new HFBFilterBankHandle( first, released::incrementAndGet );
+        HFBFilterBankHandle.Lease lease = handle.acquire();
+
+        // act
+        long generation = handle.publish( second );
+
+        // assert
+        assertThat( generation, equalTo( 1L ) );
+        assertThat( lease.getFilterBank(), sameInstance( first ) );
+        assertThat( released.get(), equalTo( 0 ) );
+        try (HFBFilterBankHandle.Lease next = handle.acquire()) {
+            assertThat( next.getFilterBank(), sameInstance( second ) );
+        }
+
+        lease.close();
+        lease.close();
+        assertThat( released.get(), equalTo( 1 ) );
+    }
+
+    @Test
+    public void testPublish_NoLeases_expectFormerGenerationReleasedImmediately() throws Exception {
+        // arrange
+        AtomicInteger released = new AtomicInteger();
+        HFBFilterBankHandle handle = new HFBFilterBankHandle( createFilterBank( 1000 ), released::incrementAndGet );
+
+        // act
+        handle.publish( createFilterBank( 2000 ) );
+
+        // assert
+        assertThat( released.get(), equalTo( 1 ) );
+        assertThat( handle.getGeneration(), equalTo( 1L ) );
+    }
+
+    @Test
+    public void testAcquire_ConcurrentPublishes_expectEveryGenerationReleasedOnceAndNeverWhileLeased() throws Exception {
+        // arrange
+        int numberOfGenerations = 200;
+        AtomicInteger released = new AtomicInteger();
+        AtomicBoolean releasedWhileLeased = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+
+        List<AtomicInteger> leaseCounts = new ArrayList<>();
+        for (int i = 0; i <= numberOfGenerations; i++) {
+            leaseCounts.add( new AtomicInteger() );
+        }
+
+        HFBFilterBankHandle handle = new HFBFilterBankHandle( createFilterBank( 100 ),
+                        releaseCheck( leaseCounts.get( 0 ), released, releasedWhileLeased ) );
+
+        ExecutorService readers = Executors.newFixedThreadPool( 4 );
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            futures.add( readers.submit( () -> {
+                while (!stop.get()) {
+                    try (HFBFilterBankHandle.Lease lease = handle.acquire()) {
+                        AtomicInteger leaseCount = leaseCounts.get( (int) lease.getGeneration() );
+                        leaseCount.incrementAndGet();
+                        lease.getFilterBank().containsDocumentId( 1L, 2L );
+                        leaseCount.decrementAndGet();
+                    }
+                }
+            } ) );
+        }
+
+        // act
+        for (int g = 1; g <= numberOfGenerations; g++) {
+            handle.publish( createFilterBank( 100 ), releaseCheck( leaseCounts.get( g ), released, releasedWhileLeased ) );
+        }
+        stop.set( true );
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        readers.shutdown();
+        readers.awaitTermination( 10, TimeUnit.SECONDS );
+
+        // assert
+        assertThat( released.get(), equalTo( numberOfGenerations ) );
+        assertThat( releasedWhileLeased.get(), equalTo( false ) );
+    }
+
+    private Runnable releaseCheck( AtomicInteger leaseCount, AtomicInteger released, AtomicBoolean releasedWhileLeased ) {
+        return () -> {
+            if (leaseCount.get() != 0) {
+                releasedWhileLeased.set( true );
+            }
+            released.incrementAndGet();
+        };
+    }
+
+    private HFBFilterBank createFilterBank( long occurrenceCount ) {
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, occurrenceCount, 5 );
+        return filterBank;
+    }
+
+}
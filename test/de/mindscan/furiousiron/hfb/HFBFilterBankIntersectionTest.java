@@ -0,0 +1,81 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBFilterBankIntersectionTest {
+
+    @Test
+    public void testIntersect_DocumentIdsInAllFilterBanks_expectAllSurvive() throws Exception {
+        // arrange
+        List<BigInteger> common = getDocumentIdCollection( 0xbadface1, 1000 );
+        HFBFilterBank first = createFilterBank( common, getDocumentIdCollection( 1, 5000 ) );
+        HFBFilterBank second = createFilterBank( common, getDocumentIdCollection( 2, 2000 ) );
+        HFBFilterBank third = createFilterBank( common, getDocumentIdCollection( 3, 300 ) );
+
+        HFBFilterBankIntersection intersection = new HFBFilterBankIntersection( first, second, third );
+
+        // act
+        long[] survivors = intersection.intersect( HFBDocumentIds.fromBigIntegers( common ) );
+
+        // assert
+        assertThat( HFBDocumentIds.count( survivors ), equalTo( common.size() ) );
+        for (int i = 0; i < common.size(); i++) {
+            assertThat( HFBDocumentIds.toBigInteger( survivors, i ), equalTo( common.get( i ) ) );
+        }
+    }
+
+    @Test
+    public void testIntersect_DocumentIdsInOneFilterBank_expectMostRejected() throws Exception {
+        // arrange
+        List<BigInteger> common = getDocumentIdCollection( 0xbadface1, 1000 );
+        List<BigInteger> onlyInFirst = getDocumentIdCollection( 1, 5000 );
+        HFBFilterBank first = createFilterBank( common, onlyInFirst );
+        HFBFilterBank second = createFilterBank( common, getDocumentIdCollection( 2, 2000 ) );
+        HFBFilterBank third = createFilterBank( common, getDocumentIdCollection( 3, 300 ) );
+
+        HFBFilterBankIntersection intersection = new HFBFilterBankIntersection( first, second, third );
+
+        // act
+        long[] survivors = intersection.intersect( HFBDocumentIds.fromBigIntegers( onlyInFirst ) );
+
+        // assert
+        assertThat( HFBDocumentIds.count( survivors ), lessThan( 10 ) );
+    }
+
+    @Test
+    public void testIntersect_NeutralFilterBank_expectSameAsWithoutNeutralFilterBank() throws Exception {
+        // arrange
+        List<BigInteger> common = getDocumentIdCollection( 0xbadface1, 1000 );
+        HFBFilterBank first = createFilterBank( common, getDocumentIdCollection( 1, 5000 ) );
+        long[] candidates = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 4, 10000 ) );
+
+        HFBFilterBankIntersection intersection = new HFBFilterBankIntersection( first, new HFBFilterFactory().neutralFilter() );
+
+        // act
+        long[] survivors = intersection.intersect( candidates );
+
+        // assert
+        assertThat( survivors, equalTo( new HFBFilterBankIntersection( first ).intersect( candidates ) ) );
+    }
+
+    private HFBFilterBank createFilterBank( List<BigInteger> common, List<BigInteger> specific ) {
+        Set<BigInteger> documentIds = new HashSet<>( common );
+        documentIds.addAll( specific );
+
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, documentIds.size(), 5 );
+        filterBank.addDocumentIds( documentIds );
+        return filterBank;
+    }
+
+}
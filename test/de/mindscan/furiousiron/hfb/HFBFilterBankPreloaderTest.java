@@ -0,0 +1,64 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBFilterBankPreloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testPreload_DirectoryWithFilterBanks_expectAllResident() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 1000 );
+        for (int i = 0; i < 20; i++) {
+            writeFilterBank( "trigram" + i, documentIds );
+        }
+        HFBFilterBankPreloader preloader = new HFBFilterBankPreloader( tempDir, 4 );
+
+        // act
+        HFBPreloadReport report = preloader.preload( Arrays.asList( "trigram7", "unknown", "trigram3" ) );
+
+        // assert
+        assertThat( report.getNumberOfFilterBanks(), equalTo( 20 ) );
+        assertThat( preloader.getResidentFilterBanks().size(), equalTo( 20 ) );
+        assertThat( report.getResidentBytes(), equalTo( 20 * HFBFilterBankPreloader.calculateResidentBytes( preloader.getFilterBank( "trigram0" ) ) ) );
+        assertThat( preloader.isResident( "unknown" ), equalTo( false ) );
+    }
+
+    @Test
+    public void testGetFilterBank_NotPreloaded_expectLoadedOnceAndKept() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 1000 );
+        writeFilterBank( "abc", documentIds );
+        HFBFilterBankPreloader preloader = new HFBFilterBankPreloader( tempDir );
+
+        // act
+        HFBDocumentIdFilter filterBank = preloader.getFilterBank( "abc" );
+
+        // assert
+        assertThat( preloader.getFilterBank( "abc" ), sameInstance( filterBank ) );
+        assertThat( filterBank.containsDocumentId( documentIds.get( 0 ) ), equalTo( true ) );
+    }
+
+    private void writeFilterBank( String key, List<BigInteger> documentIds ) {
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, documentIds.size(), 5 );
+        filterBank.addDocumentIds( documentIds );
+        new HFBFilterBankWriterV1Impl().write( filterBank, tempDir.resolve( key ).toString() );
+    }
+
+}
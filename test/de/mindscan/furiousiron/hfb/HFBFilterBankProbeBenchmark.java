@@ -0,0 +1,59 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the serial probe with the batched probe and the frozen filter bank for different 
+ * filter bank sizes. This is not run as part of the unit tests, run it manually.
+ */
+public class HFBFilterBankProbeBenchmark {
+
+    private static final int NUMBER_OF_CANDIDATES = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkFilterDocumentIds_SerialVersusBatched() throws Exception {
+        long[] candidateIds = getDocumentIds( 0xcafe, NUMBER_OF_CANDIDATES );
+
+        System.out.println( String.format( "%12s %6s %12s %12s %12s %12s %12s", "documents", "slice", "serial ns", "batched8 ns",
+                        "batched16 ns", "batched32 ns", "frozen ns" ) );
+
+        for (int numberOfDocuments : new int[] { 10_000, 200_000, 1_600_000, 6_500_000 }) {
+            HFBFilterBank filterBank = new HFBFilterBank();
+            filterBank.initFilters( 128, numberOfDocuments, 5 );
+
+            long[] documentIds = getDocumentIds( 0xbadface1, numberOfDocuments );
+            for (int i = 0; i < numberOfDocuments; i++) {
+                filterBank.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+            }
+
+            // mix in members, such that not every document id is rejected by the first filter
+            System.arraycopy( documentIds, 0, candidateIds, 0, Math.min( documentIds.length, candidateIds.length / 10 ) );
+
+            long serial = measure( () -> filterBank.filterDocumentIds( candidateIds ) );
+            long batched8 = measure( () -> filterBank.filterDocumentIdsBatched( candidateIds, 8 ) );
+            long batched16 = measure( () -> filterBank.filterDocumentIdsBatched( candidateIds, 16 ) );
+            long batched32 = measure( () -> filterBank.filterDocumentIdsBatched( candidateIds, 32 ) );
+            HFBFrozenFilterBank frozen = filterBank.freeze();
+            long frozenSerial = measure( () -> frozen.filterDocumentIds( candidateIds ) );
+
+            System.out.println( String.format( "%12d %6d %12.1f %12.1f %12.1f %12.1f %12.1f", numberOfDocuments, filterBank.getFilterData( 0 ).getSliceBitSize(),
+                            (double) serial / NUMBER_OF_CANDIDATES, (double) batched8 / NUMBER_OF_CANDIDATES, (double) batched16 / NUMBER_OF_CANDIDATES,
+                            (double) batched32 / NUMBER_OF_CANDIDATES,
+                            (double) frozenSerial / NUMBER_OF_CANDIDATES ) );
+        }
+    }
+
+    private long measure( Runnable probe ) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            probe.run();
+            best = Math.min( best, System.nanoTime() - start );
+        }
+        return best;
+    }
+
+}
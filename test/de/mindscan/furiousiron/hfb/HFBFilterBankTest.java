@@ -0,0 +1,88 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBFilterBankTest {
+
+    @Test
+    public void testFilterDocumentIds_MembersAndNonMembers_expectSameAsContainsDocumentId() throws Exception {
+        // arrange
+        List<BigInteger> members = getDocumentIdCollection( 0xbadface1, 5000 );
+        HFBFilterBank filterBank = createFilterBank( members );
+
+        List<BigInteger> candidates = new ArrayList<>( members );
+        candidates.addAll( getDocumentIdCollection( 0xcafe, 5000 ) );
+
+        // act
+        long[] survivors = filterBank.filterDocumentIds( HFBDocumentIds.fromBigIntegers( candidates ) );
+
+        // assert
+        List<BigInteger> expected = new ArrayList<>();
+        for (BigInteger candidate : candidates) {
+            if (filterBank.containsDocumentId( candidate )) {
+                expected.add( candidate );
+            }
+        }
+        assertThat( survivors, equalTo( HFBDocumentIds.fromBigIntegers( expected ) ) );
+    }
+
+    @Test
+    public void testFilterDocumentIdsParallel_ManyChunks_expectSameAsSequential() throws Exception {
+        // arrange
+        List<BigInteger> members = getDocumentIdCollection( 0xbadface1, 20000 );
+        HFBFilterBank filterBank = createFilterBank( members );
+
+        List<BigInteger> candidates = new ArrayList<>( members );
+        candidates.addAll( getDocumentIdCollection( 0xcafe, 50000 ) );
+        long[] candidateIds = HFBDocumentIds.fromBigIntegers( candidates );
+
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+
+        // act
+        long[] survivors = filterBank.filterDocumentIdsParallel( candidateIds, pool );
+
+        // assert
+        assertThat( survivors, equalTo( filterBank.filterDocumentIds( candidateIds ) ) );
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFilterDocumentIdsBatched_GroupSizeNotDividingCandidates_expectSameAsSequential() throws Exception {
+        // arrange
+        List<BigInteger> members = getDocumentIdCollection( 0xbadface1, 5000 );
+        HFBFilterBank filterBank = createFilterBank( members );
+
+        List<BigInteger> candidates = new ArrayList<>( members.subList( 0, 1001 ) );
+        candidates.addAll( getDocumentIdCollection( 0xcafe, 5000 ) );
+        long[] candidateIds = HFBDocumentIds.fromBigIntegers( candidates );
+
+        // act
+        long[] survivors = filterBank.filterDocumentIdsBatched( candidateIds, 7 );
+
+        // assert
+        assertThat( survivors, equalTo( filterBank.filterDocumentIds( candidateIds ) ) );
+    }
+
+    @Test
+    public void testFilterDocumentIdsBatched_GroupSizeZero_throwsIllegalArgumentException() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 100 ) );
+        long[] candidateIds = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xcafe, 10 ) );
+
+        // act + assert
+        assertThrows( IllegalArgumentException.class, () -> filterBank.filterDocumentIdsBatched( candidateIds, 0 ) );
+        assertThrows( IllegalArgumentException.class, () -> filterBank.filterDocumentIdsBatched( candidateIds, -1 ) );
+    }
+
+}
@@ -1,257 +1,363 @@
-package de.mindscan.furiousiron.hfb;
-
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.equalTo;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-
-import org.junit.jupiter.api.Test;
-
-public class HFBFilterDataTest {
-
-    @Test
-    public void testSetSliceMaskSize_SetMaskSizeTo16Bit_expect16BitIsSet() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-
-        // act
-        data.setSliceMaskSize( 16 );
-
-        // assert
-        int result = data.getSliceBitSize();
-        assertThat( result, equalTo( 16 ) );
-    }
-
-    @Test
-    public void testSetSliceMaskSize_SetMaskSizeTo4Bit_expect4BitIsSet() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-
-        // act
-        data.setSliceMaskSize( 4 );
-
-        // assert
-        int result = data.getSliceBitSize();
-        assertThat( result, equalTo( 4 ) );
-    }
-
-    @Test
-    public void testGetSliceBitMask_SetMsakSizeTo4Bit_expectMaskIs15() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-        data.setSliceMaskSize( 4 );
-
-        // act
-        long result = data.getSliceBitMask();
-
-        // assert
-        assertThat( result, equalTo( 15L ) );
-    }
-
-    @Test
-    public void testGetSliceBitMask_SetMsakSizeTo4BitCtor_expectMaskIs15() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 4 );
-
-        // act
-        long result = data.getSliceBitMask();
-
-        // assert
-        assertThat( result, equalTo( 15L ) );
-    }
-
-    @Test
-    public void testGetSliceBitMask_SetMsakSizeTo16Bit_expectMaskIs65535() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-        data.setSliceMaskSize( 16 );
-
-        // act
-        long result = data.getSliceBitMask();
-
-        // assert
-        assertThat( result, equalTo( 65535L ) );
-    }
-
-    @Test
-    public void testGetSliceBitMask_SetMsakSizeTo16BitCtor_expectMaskIs65535() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 16 );
-
-        // act
-        long result = data.getSliceBitMask();
-
-        // assert
-        assertThat( result, equalTo( 65535L ) );
-    }
-
-    @Test
-    public void testGetSliceBitMask_SetMaskSizeTo10Bit_expectMaskIs1023() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-        data.setSliceMaskSize( 10 );
-
-        // act
-        long result = data.getSliceBitMask();
-
-        // assert
-        assertThat( result, equalTo( 1023L ) );
-    }
-
-    @Test
-    public void testGetSliceBitMask_SetMaskSizeTo10BitCtor_expectMaskIs1023() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 10 );
-
-        // act
-        long result = data.getSliceBitMask();
-
-        // assert
-        assertThat( result, equalTo( 1023L ) );
-    }
-
-    @Test
-    public void testGetSlicePosition_SetSlicePositonTo0Ctor_expectSlicePositionIsZero() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 10 );
-
-        // act
-        int result = data.getSlicePosition();
-
-        // assert
-        assertThat( result, equalTo( 0 ) );
-    }
-
-    @Test
-    public void testGetSlicePosition_SetSlicePositonTo9Ctor_expectSlicePositionIsNine() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 9, 10 );
-
-        // act
-        int result = data.getSlicePosition();
-
-        // assert
-        assertThat( result, equalTo( 9 ) );
-    }
-
-    @Test
-    public void testGetSlicePosition_SetSlicePositonTo23Ctor_expectSlicePositionIsTwentyThree() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 23, 10 );
-
-        // act
-        int result = data.getSlicePosition();
-
-        // assert
-        assertThat( result, equalTo( 23 ) );
-    }
-
-    @Test
-    public void testGetSlicePosition_SetSlicePositonTo23_expectSlicePositionIsTwentyThree() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-
-        // act
-        data.setSlicePosition( 23 );
-
-        // assert
-        int result = data.getSlicePosition();
-        assertThat( result, equalTo( 23 ) );
-    }
-
-    @Test
-    public void testGetSlicePosition_SetSlicePositonTo9_expectSlicePositionIsNine() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 0 );
-
-        // act
-        data.setSlicePosition( 9 );
-
-        // assert
-        int result = data.getSlicePosition();
-        assertThat( result, equalTo( 9 ) );
-    }
-
-    @Test
-    public void testSetIndex_SetIdx0_expectIdx0BeTrue() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 5 );
-        data.initEmpty();
-
-        // act
-        data.setIndex( 0 );
-
-        // assert
-        boolean result = data.isIndexSet( 0 );
-        assertThat( result, equalTo( true ) );
-    }
-
-    @Test
-    public void testSetIndex_SetIdx1_expectIdx0BeFalse() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 5 );
-        data.initEmpty();
-
-        // act
-        data.setIndex( 1 );
-
-        // assert
-        boolean result = data.isIndexSet( 0 );
-        assertThat( result, equalTo( false ) );
-    }
-
-    @Test
-    public void testSetIndex_SetIdx1_expectIdx1BeTrue() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 5 );
-        data.initEmpty();
-
-        // act
-        data.setIndex( 1 );
-
-        // assert
-        boolean result = data.isIndexSet( 1 );
-        assertThat( result, equalTo( true ) );
-    }
-
-    @Test
-    public void testSetIndex_SetIdx31_expectIdx31BeTrue() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 5 );
-        data.initEmpty();
-
-        // act
-        data.setIndex( 31 );
-
-        // assert
-        boolean result = data.isIndexSet( 31 );
-        assertThat( result, equalTo( true ) );
-    }
-
-    @Test
-    public void testClearIndex_SetIdx31ThenClear_expectIdx31BeFalse() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 5 );
-        data.initEmpty();
-        data.setIndex( 31 );
-
-        // act
-        data.clearIndex( 31 );
-
-        // assert
-        boolean result = data.isIndexSet( 31 );
-        assertThat( result, equalTo( false ) );
-    }
-
-    @Test
-    public void testSetIndex_SetIdx32WhenOnlyBitWideWindow_throwsAIOOBException() throws Exception {
-        // arrange
-        HFBFilterData data = new HFBFilterData( 0, 5 );
-        data.initEmpty();
-
-        // act
-        assertThrows( ArrayIndexOutOfBoundsException.class, () -> {
-            data.setIndex( 32 );
-        } );
-    }
-
-}
+package de.mindscan.furiousiron.hfb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.PrimitiveIterator;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBFilterDataTest {
+
+    @Test
+    public void testSetSliceMaskSize_SetMaskSizeTo16Bit_expect16BitIsSet() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+
+        // act
+        data.setSliceMaskSize( 16 );
+
+        // assert
+        int result = data.getSliceBitSize();
+        assertThat( result, equalTo( 16 ) );
+    }
+
+    @Test
+    public void testSetSliceMaskSize_SetMaskSizeTo4Bit_expect4BitIsSet() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+
+        // act
+        data.setSliceMaskSize( 4 );
+
+        // assert
+        int result = data.getSliceBitSize();
+        assertThat( result, equalTo( 4 ) );
+    }
+
+    @Test
+    public void testGetSliceBitMask_SetMsakSizeTo4Bit_expectMaskIs15() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+        data.setSliceMaskSize( 4 );
+
+        // act
+        long result = data.getSliceBitMask();
+
+        // assert
+        assertThat( result, equalTo( 15L ) );
+    }
+
+    @Test
+    public void testGetSliceBitMask_SetMsakSizeTo4BitCtor_expectMaskIs15() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 4 );
+
+        // act
+        long result = data.getSliceBitMask();
+
+        // assert
+        assertThat( result, equalTo( 15L ) );
+    }
+
+    @Test
+    public void testGetSliceBitMask_SetMsakSizeTo16Bit_expectMaskIs65535() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+        data.setSliceMaskSize( 16 );
+
+        // act
+        long result = data.getSliceBitMask();
+
+        // assert
+        assertThat( result, equalTo( 65535L ) );
+    }
+
+    @Test
+    public void testGetSliceBitMask_SetMsakSizeTo16BitCtor_expectMaskIs65535() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 16 );
+
+        // act
+        long result = data.getSliceBitMask();
+
+        // assert
+        assertThat( result, equalTo( 65535L ) );
+    }
+
+    @Test
+    public void testGetSliceBitMask_SetMaskSizeTo10Bit_expectMaskIs1023() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+        data.setSliceMaskSize( 10 );
+
+        // act
+        long result = data.getSliceBitMask();
+
+        // assert
+        assertThat( result, equalTo( 1023L ) );
+    }
+
+    @Test
+    public void testGetSliceBitMask_SetMaskSizeTo10BitCtor_expectMaskIs1023() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 10 );
+
+        // act
+        long result = data.getSliceBitMask();
+
+        // assert
+        assertThat( result, equalTo( 1023L ) );
+    }
+
+    @Test
+    public void testGetSlicePosition_SetSlicePositonTo0Ctor_expectSlicePositionIsZero() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 10 );
+
+        // act
+        int result = data.getSlicePosition();
+
+        // assert
+        assertThat( result, equalTo( 0 ) );
+    }
+
+    @Test
+    public void testGetSlicePosition_SetSlicePositonTo9Ctor_expectSlicePositionIsNine() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 9, 10 );
+
+        // act
+        int result = data.getSlicePosition();
+
+        // assert
+        assertThat( result, equalTo( 9 ) );
+    }
+
+    @Test
+    public void testGetSlicePosition_SetSlicePositonTo23Ctor_expectSlicePositionIsTwentyThree() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 23, 10 );
+
+        // act
+        int result = data.getSlicePosition();
+
+        // assert
+        assertThat( result, equalTo( 23 ) );
+    }
+
+    @Test
+    public void testGetSlicePosition_SetSlicePositonTo23_expectSlicePositionIsTwentyThree() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+
+        // act
+        data.setSlicePosition( 23 );
+
+        // assert
+        int result = data.getSlicePosition();
+        assertThat( result, equalTo( 23 ) );
+    }
+
+    @Test
+    public void testGetSlicePosition_SetSlicePositonTo9_expectSlicePositionIsNine() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 0 );
+
+        // act
+        data.setSlicePosition( 9 );
+
+        // assert
+        int result = data.getSlicePosition();
+        assertThat( result, equalTo( 9 ) );
+    }
+
+    @Test
+    public void testSetIndex_SetIdx0_expectIdx0BeTrue() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 5 );
+        data.initEmpty();
+
+        // act
+        data.setIndex( 0 );
+
+        // assert
+        boolean result = data.isIndexSet( 0 );
+        assertThat( result, equalTo( true ) );
+    }
+
+    @Test
+    public void testSetIndex_SetIdx1_expectIdx0BeFalse() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 5 );
+        data.initEmpty();
+
+        // act
+        data.setIndex( 1 );
+
+        // assert
+        boolean result = data.isIndexSet( 0 );
+        assertThat( result, equalTo( false ) );
+    }
+
+    @Test
+    public void testSetIndex_SetIdx1_expectIdx1BeTrue() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 5 );
+        data.initEmpty();
+
+        // act
+        data.setIndex( 1 );
+
+        // assert
+        boolean result = data.isIndexSet( 1 );
+        assertThat( result, equalTo( true ) );
+    }
+
+    @Test
+    public void testSetIndex_SetIdx31_expectIdx31BeTrue() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 5 );
+        data.initEmpty();
+
+        // act
+        data.setIndex( 31 );
+
+        // assert
+        boolean result = data.isIndexSet( 31 );
+        assertThat( result, equalTo( true ) );
+    }
+
+    @Test
+    public void testClearIndex_SetIdx31ThenClear_expectIdx31BeFalse() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 5 );
+        data.initEmpty();
+        data.setIndex( 31 );
+
+        // act
+        data.clearIndex( 31 );
+
+        // assert
+        boolean result = data.isIndexSet( 31 );
+        assertThat( result, equalTo( false ) );
+    }
+
+    @Test
+    public void testSetIndex_SetIdx32WhenOnlyBitWideWindow_throwsAIOOBException() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 5 );
+        data.initEmpty();
+
+        // act
+        assertThrows( ArrayIndexOutOfBoundsException.class, () -> {
+            data.setIndex( 32 );
+        } );
+    }
+
+    @Test
+    public void testExtractIndex_SliceSpansBothHalves_expectSameAsBigIntegerExtraction() throws Exception {
+        // arrange
+        BigInteger documentId = new BigInteger( "fedcba9876543210f0e1d2c3b4a59687", 16 );
+        long[] documentIds = HFBDocumentIds.fromBigIntegers( Collections.singletonList( documentId ) );
+
+        for (int slicePosition = 0; slicePosition <= 112; slicePosition++) {
+            HFBFilterData data = new HFBFilterData( slicePosition, 16 );
+
+            // act
+            int result = data.extractIndex( documentIds[0], documentIds[1] );
+
+            // assert
+            int expected = documentId.shiftRight( slicePosition ).and( data.getSliceBitMaskBI() ).intValueExact();
+            assertThat( result, equalTo( expected ) );
+        }
+    }
+
+    @Test
+    public void testFold_SetIndexes_expectLowerBitsOfIndexesSet() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 7, 12 );
+        data.initEmpty();
+        data.setIndex( 0x0abc );
+        data.setIndex( 0x0f01 );
+
+        // act
+        HFBFilterData result = data.fold( 4 );
+
+        // assert
+        assertThat( result.getSliceBitSize(), equalTo( 8 ) );
+        assertThat( result.getSlicePosition(), equalTo( 7 ) );
+        assertThat( result.isIndexSet( 0xbc ), equalTo( true ) );
+        assertThat( result.isIndexSet( 0x01 ), equalTo( true ) );
+        assertThat( result.getBitweight(), equalTo( 2L ) );
+    }
+
+    @Test
+    public void testFoldTo_FoldBelowOneByte_expectLowerBitsOfIndexesSet() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 10 );
+        data.initEmpty();
+        data.setIndex( 0x3fe );
+        data.setIndex( 0x005 );
+
+        // act
+        HFBFilterData result = data.foldTo( 2 );
+
+        // assert
+        assertThat( result.isIndexSet( 2 ), equalTo( true ) );
+        assertThat( result.isIndexSet( 1 ), equalTo( true ) );
+        assertThat( result.getBitweight(), equalTo( 2L ) );
+    }
+
+    @Test
+    public void testFoldTo_LargerThanSlice_throwsIllegalArgumentException() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 10 );
+        data.initEmpty();
+
+        // act
+        assertThrows( IllegalArgumentException.class, () -> {
+            data.foldTo( 11 );
+        } );
+    }
+
+    @Test
+    public void testSetIndexIterator_SparseIndexes_expectIndexesInAscendingOrder() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 12 );
+        data.initEmpty();
+        int[] indexes = { 0, 63, 64, 65, 700, 4095 };
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            data.setIndex( indexes[i] );
+        }
+
+        // act
+        PrimitiveIterator.OfInt iterator = data.setIndexIterator();
+
+        // assert
+        for (int expected : indexes) {
+            assertThat( iterator.hasNext(), equalTo( true ) );
+            assertThat( iterator.nextInt(), equalTo( expected ) );
+        }
+        assertThat( iterator.hasNext(), equalTo( false ) );
+    }
+
+    @Test
+    public void testNextSetIndex_NoIndexAfterFromIndex_expectMinusOne() throws Exception {
+        // arrange
+        HFBFilterData data = new HFBFilterData( 0, 4 );
+        data.initEmpty();
+        data.setIndex( 3 );
+
+        // act
+        int result = data.nextSetIndex( 4 );
+
+        // assert
+        assertThat( data.nextSetIndex( 0 ), equalTo( 3 ) );
+        assertThat( result, equalTo( -1 ) );
+    }
+
+}
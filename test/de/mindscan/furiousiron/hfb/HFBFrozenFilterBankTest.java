@@ -0,0 +1,105 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getUnsignedDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBFrozenFilterBankTest {
+
+    @Test
+    public void testContainsDocumentId_InsertedDocumentIds_expectTrue() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 13332 );
+        HFBFrozenFilterBank frozen = createFilterBank( documentIds ).freeze();
+
+        // act + assert
+        for (BigInteger documentId : documentIds) {
+            assertThat( frozen.containsDocumentId( documentId ), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testContainsDocumentId_OtherDocumentIds_expectSameAnswerAsFilterBank() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 13332 ) );
+        HFBFrozenFilterBank frozen = filterBank.freeze();
+
+        // act + assert
+        for (BigInteger documentId : getDocumentIdCollection( 0xcafe, 20000 )) {
+            assertThat( frozen.containsDocumentId( documentId ), equalTo( filterBank.containsDocumentId( documentId ) ) );
+        }
+    }
+
+    @Test
+    public void testFilterDocumentIds_Candidates_expectSameSurvivorsAsFilterBank() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 1000 ) );
+        long[] candidates = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xcafe, 20000 ) );
+
+        // act
+        long[] survivors = filterBank.freeze().filterDocumentIds( candidates );
+
+        // assert
+        assertThat( survivors, equalTo( filterBank.filterDocumentIds( candidates ) ) );
+    }
+
+    @Test
+    public void testFreeze_AddedAfterFreeze_expectNotVisible() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 100 ) );
+        HFBFrozenFilterBank frozen = filterBank.freeze();
+        BigInteger added = new BigInteger( "ffffffffffffffffffffffffffffffff", 16 );
+
+        // act
+        filterBank.addDocumentId( added );
+
+        // assert
+        assertThat( frozen.containsDocumentId( added ), equalTo( false ) );
+    }
+
+    @Test
+    public void testFreeze_BlockedFilterBank_expectSameSurvivorsAsFilterBank() throws Exception {
+        // arrange
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().compileBlockedFilterHex( getHexDocumentIdCollection( 0xbadface1, 13332 ) );
+        long[] candidates = HFBDocumentIds.fromBigIntegers( getUnsignedDocumentIdCollection( 0xcafe, 20000 ) );
+
+        // act
+        HFBFrozenFilterBank frozen = filterBank.freeze();
+
+        // assert
+        assertThat( frozen.filterDocumentIds( candidates ), equalTo( filterBank.filterDocumentIds( candidates ) ) );
+        for (BigInteger documentId : getUnsignedDocumentIdCollection( 0xbadface1, 13332 )) {
+            assertThat( frozen.containsDocumentId( documentId ), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testFreeze_ScalableFilterBankWithSeveralGenerations_expectSameSurvivorsAsFilterBank() throws Exception {
+        // arrange
+        HFBScalableFilterBank filterBank = new HFBFilterBankCompiler().createScalableFilter( 1000 );
+        long[] documentIds = getDocumentIds( 0xbadface1, 10000 );
+        for (int i = 0; i < HFBDocumentIds.count( documentIds ); i++) {
+            filterBank.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+        }
+        long[] candidates = getDocumentIds( 0xcafe, 20000 );
+
+        // act
+        HFBFrozenFilterBank frozen = filterBank.freeze();
+
+        // assert
+        assertThat( filterBank.getNumberOfGenerations(), greaterThan( 1 ) );
+        assertThat( frozen.filterDocumentIds( documentIds ), equalTo( documentIds ) );
+        assertThat( frozen.filterDocumentIds( candidates ), equalTo( filterBank.filterDocumentIds( candidates ) ) );
+    }
+
+}
@@ -0,0 +1,108 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBPrefixRangeGeneratorTest {
+
+    @Test
+    public void testGenerateRanges_RandomDocumentIds_expectSortedRangesContainingEveryDocumentId() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 2000 );
+        HFBFilterBank filterBank = createFilterBank( documentIds );
+
+        // act
+        List<HFBIdRange> result = HFBPrefixRangeGenerator.generateRanges( filterBank );
+
+        // assert
+        for (int i = 1; i < result.size(); i++) {
+            assertThat( result.get( i - 1 ).getHi().compareTo( result.get( i ).getLo() ) < 0, equalTo( true ) );
+        }
+
+        Collections.sort( documentIds );
+        int rangeIndex = 0;
+        for (BigInteger documentId : documentIds) {
+            while (result.get( rangeIndex ).getHi().compareTo( documentId ) <= 0) {
+                rangeIndex++;
+            }
+            assertThat( result.get( rangeIndex ).contains( documentId ), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testNext_AdjacentPrefixes_expectOneMergedRange() throws Exception {
+        // arrange
+        HFBFilterData topSlice = new HFBFilterData( 4, 4 );
+        topSlice.initEmpty();
+        topSlice.setIndex( 2 );
+        topSlice.setIndex( 3 );
+        topSlice.setIndex( 15 );
+        HFBPrefixRangeGenerator generator = new HFBPrefixRangeGenerator( topSlice, 8 );
+
+        // act
+        HFBIdRange first = generator.next();
+        HFBIdRange second = generator.next();
+
+        // assert
+        assertThat( first, equalTo( new HFBIdRange( BigInteger.valueOf( 0x20 ), BigInteger.valueOf( 0x40 ) ) ) );
+        assertThat( second, equalTo( new HFBIdRange( BigInteger.valueOf( 0xf0 ), BigInteger.valueOf( 0x100 ) ) ) );
+        assertThat( generator.hasNext(), equalTo( false ) );
+    }
+
+    @Test
+    public void testSeek_DocumentIdBetweenRanges_expectNextRangeAfterDocumentId() throws Exception {
+        // arrange
+        HFBFilterData topSlice = new HFBFilterData( 4, 4 );
+        topSlice.initEmpty();
+        topSlice.setIndex( 2 );
+        topSlice.setIndex( 9 );
+        HFBPrefixRangeGenerator generator = new HFBPrefixRangeGenerator( topSlice, 8 );
+
+        // act
+        generator.seek( BigInteger.valueOf( 0x55 ) );
+
+        // assert
+        assertThat( generator.next(), equalTo( new HFBIdRange( BigInteger.valueOf( 0x90 ), BigInteger.valueOf( 0xa0 ) ) ) );
+        assertThat( generator.hasNext(), equalTo( false ) );
+    }
+
+    @Test
+    public void testConstructor_XorFoldedFilters_throwsIllegalArgumentException() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFiltersLazy( 128, 1000, 5 );
+        filterBank.addFilterData( new HFBXorFoldedFilterData( 115, 13, 0 ) );
+
+        // act
+        assertThrows( IllegalArgumentException.class, () -> {
+            new HFBPrefixRangeGenerator( filterBank );
+        } );
+    }
+
+    // non negative document ids, like the ones parsed from hexadecimal values
+    List<BigInteger> getDocumentIdCollection( long seed, int count ) {
+        List<BigInteger> result = new ArrayList<>();
+
+        Random random = new Random( seed );
+
+        for (int i = 0; i < count; i++) {
+            byte[] target = new byte[16];
+            random.nextBytes( target );
+            result.add( new BigInteger( 1, target ) );
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBReverseIndexTest {
+
+    @Test
+    public void testFindCandidateBankOrdinals_ManyFilterBanks_expectSameAnswerAsEachFilterBank() throws Exception {
+        // arrange
+        List<HFBFilterBank> filterBanks = new ArrayList<>();
+        List<BigInteger> probes = new ArrayList<>();
+        for (int bank = 0; bank < 150; bank++) {
+            List<BigInteger> documentIds = getDocumentIdCollection( bank, 500 );
+            filterBanks.add( createFilterBank( documentIds ) );
+            probes.add( documentIds.get( 0 ) );
+        }
+        probes.addAll( getDocumentIdCollection( 0xcafe, 200 ) );
+
+        HFBReverseIndex reverseIndex = new HFBReverseIndex( filterBanks );
+
+        // act + assert
+        for (BigInteger probe : probes) {
+            List<Integer> expected = new ArrayList<>();
+            for (int bank = 0; bank < filterBanks.size(); bank++) {
+                if (filterBanks.get( bank ).containsDocumentId( probe )) {
+                    expected.add( bank );
+                }
+            }
+
+            int[] result = reverseIndex.findCandidateBankOrdinals( probe );
+            assertThat( Arrays.toString( result ), equalTo( expected.toString() ) );
+        }
+    }
+
+    @Test
+    public void testFindCandidateBankOrdinals_FilterlessBanksFirst_expectSameAnswerAsEachFilterBank() throws Exception {
+        // arrange
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+        List<HFBDocumentIdFilter> filterBanks = new ArrayList<>();
+        List<BigInteger> probes = new ArrayList<>();
+        for (int bank = 0; bank < 20; bank++) {
+            List<String> documentIds = getHexDocumentIdCollection( bank, bank == 0 ? 7 : 500 );
+            if (bank == 0) {
+                filterBanks.add( compiler.compileFilterHex( documentIds ) );
+            }
+            else if (bank % 5 == 0) {
+                filterBanks.add( compiler.compileXorFilterHex( documentIds ) );
+            }
+            else {
+                filterBanks.add( compiler.compileFilterHex( documentIds ) );
+            }
+            probes.add( new BigInteger( documentIds.get( 0 ), 16 ) );
+        }
+        for (String documentId : getHexDocumentIdCollection( 0xcafe, 200 )) {
+            probes.add( new BigInteger( documentId, 16 ) );
+        }
+
+        HFBReverseIndex reverseIndex = new HFBReverseIndex( filterBanks );
+
+        // act + assert
+        assertThat( ((HFBFilterBank) filterBanks.get( 0 )).getNumberOfFilters(), equalTo( 0 ) );
+        for (BigInteger probe : probes) {
+            List<Integer> expected = new ArrayList<>();
+            for (int bank = 0; bank < filterBanks.size(); bank++) {
+                if (filterBanks.get( bank ).containsDocumentId( probe )) {
+                    expected.add( bank );
+                }
+            }
+
+            int[] result = reverseIndex.findCandidateBankOrdinals( probe );
+            assertThat( Arrays.toString( result ), equalTo( expected.toString() ) );
+        }
+    }
+
+    @Test
+    public void testHFBReverseIndex_DifferentGeometry_expectIllegalArgumentException() throws Exception {
+        // arrange
+        List<HFBFilterBank> filterBanks = Arrays.asList( createFilterBank( getDocumentIdCollection( 1, 500 ) ),
+                        createFilterBank( getDocumentIdCollection( 2, 50000 ) ) );
+
+        // act + assert
+        assertThrows( IllegalArgumentException.class, () -> new HFBReverseIndex( filterBanks ) );
+    }
+
+}
@@ -0,0 +1,151 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBScalableFilterBankTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAddDocumentId_TenTimesTheInitialSize_expectMoreGenerationsAndAllContained() throws Exception {
+        // arrange
+        HFBScalableFilterBank filterBank = new HFBFilterBankCompiler().createScalableFilter( 1000 );
+        long[] documentIds = getDocumentIds( 0xbadface1, 10000 );
+
+        // act
+        for (int i = 0; i < HFBDocumentIds.count( documentIds ); i++) {
+            filterBank.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+        }
+
+        // assert
+        assertThat( filterBank.getNumberOfGenerations(), greaterThan( 1 ) );
+        assertThat( HFBDocumentIds.count( filterBank.filterDocumentIds( documentIds ) ), equalTo( 10000 ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_TenTimesTheInitialSize_expectFewerFalsePositivesThanFixedFilterBank() throws Exception {
+        // arrange
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+        HFBScalableFilterBank scalable = compiler.createScalableFilter( 1000 );
+        HFBFilterBank fixed = compiler.createEmptyFilter( 1000 );
+
+        long[] documentIds = getDocumentIds( 0xbadface1, 10000 );
+        for (int i = 0; i < HFBDocumentIds.count( documentIds ); i++) {
+            scalable.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+            fixed.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+        }
+        long[] otherDocumentIds = getDocumentIds( 0xcafe, 10000 );
+
+        // act
+        int scalableFalsePositives = HFBDocumentIds.count( scalable.filterDocumentIds( otherDocumentIds ) );
+        int fixedFalsePositives = HFBDocumentIds.count( fixed.filterDocumentIds( otherDocumentIds ) );
+
+        // assert
+        assertThat( scalableFalsePositives, lessThan( fixedFalsePositives ) );
+    }
+
+    @Test
+    public void testCompactInBackground_DocumentIdsAddedDuringCompaction_expectAllContained() throws Exception {
+        // arrange
+        HFBScalableFilterBank filterBank = new HFBFilterBankCompiler().createScalableFilter( 1000 );
+        long[] documentIds = getDocumentIds( 0xbadface1, 10000 );
+        for (int i = 0; i < HFBDocumentIds.count( documentIds ); i++) {
+            filterBank.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+        }
+
+        Path postingList = tempDir.resolve( "postinglist.bin" );
+        ByteBuffer raw = ByteBuffer.allocate( documentIds.length * 8 );
+        raw.asLongBuffer().put( documentIds );
+        Files.write( postingList, raw.array() );
+
+        // act
+        long[] lateDocumentIds = getDocumentIds( 0xdeadbeef, 100 );
+        // the compaction runs after the late document ids were added, like a slow compaction
+        List<Runnable> pendingCompaction = new ArrayList<>();
+        CompletableFuture<Void> compaction = filterBank
+                        .compactInBackground( () -> Files.newByteChannel( postingList, StandardOpenOption.READ ), pendingCompaction::add );
+        for (int i = 0; i < HFBDocumentIds.count( lateDocumentIds ); i++) {
+            filterBank.addDocumentId( HFBDocumentIds.hi( lateDocumentIds, i ), HFBDocumentIds.lo( lateDocumentIds, i ) );
+        }
+        pendingCompaction.forEach( Runnable::run );
+        compaction.get();
+
+        // assert
+        assertThat( filterBank.getNumberOfGenerations(), equalTo( 2 ) );
+        assertThat( filterBank.getGeneration( 0 ).getOccurrenceCount(), equalTo( 10000L ) );
+        assertThat( HFBDocumentIds.count( filterBank.filterDocumentIds( documentIds ) ), equalTo( 10000 ) );
+        assertThat( HFBDocumentIds.count( filterBank.filterDocumentIds( lateDocumentIds ) ), equalTo( 100 ) );
+    }
+
+    @Test
+    public void testCompact_WriteAndReadCompactedFilterBank_expectAllContained() throws Exception {
+        // arrange
+        HFBScalableFilterBank filterBank = new HFBFilterBankCompiler().createScalableFilter( 100 );
+        long[] documentIds = getDocumentIds( 0xbadface1, 1000 );
+        for (int i = 0; i < HFBDocumentIds.count( documentIds ); i++) {
+            filterBank.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+        }
+
+        Path postingList = tempDir.resolve( "postinglist.bin" );
+        ByteBuffer raw = ByteBuffer.allocate( documentIds.length * 8 );
+        raw.asLongBuffer().put( documentIds );
+        Files.write( postingList, raw.array() );
+
+        String path = tempDir.resolve( "compacted.hfbv1" ).toString();
+
+        // act
+        filterBank.compact( () -> Files.newByteChannel( postingList, StandardOpenOption.READ ) );
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        assertThat( filterBank.getNumberOfGenerations(), equalTo( 1 ) );
+        assertThat( result.getOccurrenceCount(), equalTo( 1000L ) );
+        assertThat( HFBDocumentIds.count( result.filterDocumentIds( documentIds ) ), equalTo( 1000 ) );
+    }
+
+    @Test
+    public void testFold_SeveralGenerations_expectFoldedBankContainsAll() throws Exception {
+        // arrange
+        HFBScalableFilterBank filterBank = new HFBFilterBankCompiler().createScalableFilter( 1000 );
+        long[] documentIds = getDocumentIds( 0xbadface1, 10000 );
+        for (int i = 0; i < HFBDocumentIds.count( documentIds ); i++) {
+            filterBank.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+        }
+
+        // act
+        HFBScalableFilterBank folded = (HFBScalableFilterBank) filterBank.fold( 1 );
+        HFBScalableFilterBank foldedToSize = (HFBScalableFilterBank) filterBank.foldToSize( 512 );
+
+        // assert
+        assertThat( folded.getNumberOfGenerations(), equalTo( filterBank.getNumberOfGenerations() ) );
+        for (int i = 0; i < folded.getNumberOfGenerations(); i++) {
+            assertThat( folded.getGeneration( i ).getFilterData( 0 ).getSliceBitSize(),
+                            equalTo( filterBank.getGeneration( i ).getFilterData( 0 ).getSliceBitSize() - 1 ) );
+            assertThat( foldedToSize.getGeneration( i ).getFilterData( 0 ).getSliceData().length, lessThanOrEqualTo( 512 ) );
+        }
+        assertThat( folded.filterDocumentIds( documentIds ), equalTo( documentIds ) );
+        assertThat( foldedToSize.filterDocumentIds( documentIds ), equalTo( documentIds ) );
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.mindscan.furiousiron.hfb;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import de.mindscan.furiousiron.hfb.layout.HFBSliceLayout;
+
+/**
+ * Random document ids and filter banks for the tests. The same seed always gives the same
+ * document ids, in all representations.
+ */
+public final class HFBTestData {
+
+    private HFBTestData() {
+    }
+
+    /**
+     * @return random 128 bit document ids, about half of them negative
+     */
+    public static List<BigInteger> getDocumentIdCollection( long seed, int count ) {
+        List<BigInteger> result = new ArrayList<>();
+
+        Random random = new Random( seed );
+
+        for (int i = 0; i < count; i++) {
+            byte[] target = new byte[16];
+            random.nextBytes( target );
+            result.add( new BigInteger( target ) );
+        }
+
+        return result;
+    }
+
+    /**
+     * @return random 128 bit document ids, all of them positive
+     */
+    public static List<BigInteger> getUnsignedDocumentIdCollection( long seed, int count ) {
+        List<BigInteger> result = new ArrayList<>();
+
+        Random random = new Random( seed );
+
+        for (int i = 0; i < count; i++) {
+            byte[] target = new byte[16];
+            random.nextBytes( target );
+            result.add( new BigInteger( 1, target ) );
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the document ids of {@link #getUnsignedDocumentIdCollection(long, int)} as hex strings
+     */
+    public static List<String> getHexDocumentIdCollection( long seed, int count ) {
+        List<String> result = new ArrayList<>();
+        for (BigInteger documentId : getUnsignedDocumentIdCollection( seed, count )) {
+            result.add( documentId.toString( 16 ) );
+        }
+        return result;
+    }
+
+    /**
+     * @return random 128 bit document ids as pairs of longs, see {@link HFBDocumentIds}
+     */
+    public static long[] getDocumentIds( long seed, int count ) {
+        long[] result = new long[count << 1];
+
+        Random random = new Random( seed );
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = random.nextLong();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a filter bank with contiguous slices, which contains the given document ids
+     */
+    public static HFBFilterBank createFilterBank( Collection<BigInteger> documentIds ) {
+        return createFilterBank( documentIds, HFBSliceLayout.CONTIGUOUS );
+    }
+
+    /**
+     * @return a filter bank with the given slice layout, which contains the given document ids
+     */
+    public static HFBFilterBank createFilterBank( Collection<BigInteger> documentIds, HFBSliceLayout sliceLayout ) {
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, documentIds.size(), 5, sliceLayout );
+        filterBank.addDocumentIds( documentIds );
+        return filterBank;
+    }
+
+}
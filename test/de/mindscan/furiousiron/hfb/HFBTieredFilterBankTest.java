@@ -0,0 +1,104 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HFBTieredFilterBankTest {
+
+    @Test
+    public void testFold_InsertedDocumentIds_expectFoldedBankContainsAll() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 20000 );
+        HFBFilterBank filterBank = createFilterBank( documentIds );
+
+        // act
+        HFBFilterBank folded = filterBank.fold( 3 );
+
+        // assert
+        assertThat( folded.getFilterData( 0 ).getSliceData().length, equalTo( filterBank.getFilterData( 0 ).getSliceData().length >> 3 ) );
+        for (BigInteger documentId : documentIds) {
+            assertThat( folded.containsDocumentId( documentId ), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testFoldToSize_LargeFilters_expectEachFilterFits() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 20000 ) );
+
+        // act
+        HFBFilterBank folded = filterBank.foldToSize( 1000 );
+
+        // assert
+        assertThat( folded.getNumberOfFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+        for (int i = 0; i < folded.getNumberOfFilters(); i++) {
+            assertThat( folded.getFilterData( i ).getSliceData().length, equalTo( 512 ) );
+        }
+    }
+
+    @Test
+    public void testContainsDocumentId_RandomDocumentIds_expectSameAnswerAsFullFilterBank() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 20000 ) );
+        HFBTieredFilterBank tiered = new HFBTieredFilterBank( filterBank, 4096 );
+        long[] candidates = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xcafe, 50000 ) );
+
+        // act
+        long[] result = tiered.filterDocumentIds( candidates );
+
+        // assert
+        assertThat( tiered.getSummaryBytes(), lessThanOrEqualTo( 4096L ) );
+        assertThat( result, equalTo( filterBank.filterDocumentIds( candidates ) ) );
+        assertThat( tiered.filterDocumentIdsBatched( candidates ), equalTo( result ) );
+    }
+
+    @Test
+    public void testAddDocumentId_DocumentIdsAddedAfterConstruction_expectTieredBankContainsAll() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 20000 ) );
+        HFBTieredFilterBank tiered = new HFBTieredFilterBank( filterBank, 4096 );
+        List<BigInteger> added = getDocumentIdCollection( 0xcafe, 1000 );
+        long[] addedIds = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xbeef, 1000 ) );
+
+        // act
+        tiered.addDocumentIds( added.subList( 0, 500 ) );
+        for (BigInteger documentId : added.subList( 500, 1000 )) {
+            tiered.addDocumentId( documentId );
+        }
+        for (int i = 0; i < addedIds.length; i += 2) {
+            tiered.addDocumentId( addedIds[i], addedIds[i + 1] );
+        }
+
+        // assert
+        for (BigInteger documentId : added) {
+            assertThat( tiered.containsDocumentId( documentId ), equalTo( true ) );
+        }
+        assertThat( tiered.filterDocumentIds( addedIds ), equalTo( addedIds ) );
+        assertThat( tiered.filterDocumentIdsBatched( addedIds ), equalTo( addedIds ) );
+    }
+
+    @Test
+    public void testAddDocumentId_DocumentIdsAddedToWrappedBank_expectTieredBankUnchanged() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 20000 ) );
+        HFBTieredFilterBank tiered = new HFBTieredFilterBank( filterBank, 4096 );
+        long[] candidates = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xcafe, 50000 ) );
+        long[] expected = tiered.filterDocumentIds( candidates );
+
+        // act
+        filterBank.addDocumentIds( getDocumentIdCollection( 0xcafe, 1000 ) );
+
+        // assert
+        assertThat( tiered.filterDocumentIds( candidates ), equalTo( expected ) );
+        assertThat( tiered.filterDocumentIdsBatched( candidates ), equalTo( expected ) );
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the classic, the blocked and the xor filter banks with 8 and 16 bit fingerprints
+ * for different filter bank sizes regarding bytes per document id, lookup latency and false 
+ * positive rate. This is not run as part of the unit tests, run it manually.
+ */
+public class HFBXorFilterBankBenchmark {
+
+    private static final int NUMBER_OF_CANDIDATES = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkContainsDocumentId_ClassicBlockedXor() throws Exception {
+        long[] candidateIds = getDocumentIds( 0xcafe, NUMBER_OF_CANDIDATES );
+
+        System.out.println( String.format( "%10s %10s %10s %10s %10s", "documents", "bank", "bytes/id", "ns", "fpr" ) );
+
+        for (int numberOfDocuments : new int[] { 10_000, 200_000, 1_600_000 }) {
+            long[] documentIds = getDocumentIds( 0xbadface1, numberOfDocuments );
+
+            HFBFilterBank classic = new HFBFilterBankCompiler().createEmptyFilter( numberOfDocuments );
+            HFBBlockedFilterBank blocked = new HFBFilterBankCompiler().createEmptyBlockedFilter( numberOfDocuments );
+            for (int i = 0; i < numberOfDocuments; i++) {
+                classic.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+                blocked.addDocumentId( HFBDocumentIds.hi( documentIds, i ), HFBDocumentIds.lo( documentIds, i ) );
+            }
+            HFBXorFilterBank xor8 = new HFBFilterBankCompiler().compileXorFilter( documentIds, 8 );
+            HFBXorFilterBank xor16 = new HFBFilterBankCompiler().compileXorFilter( documentIds, 16 );
+
+            // only the applied filters of the classic filter bank need to be kept
+            long classicBytes = 0;
+            for (int i = 0; i < Math.min( classic.getNumberOfFilters(), HFBFilterBank.NUMBER_OF_APPLIED_FILTERS ); i++) {
+                classicBytes += classic.getFilterData( i ).getSliceData().length;
+            }
+
+            report( numberOfDocuments, "classic", classic, classicBytes, candidateIds );
+            report( numberOfDocuments, "blocked", blocked, (long) blocked.getBlockData().length << 3, candidateIds );
+            report( numberOfDocuments, "xor8", xor8, xor8.getFingerprints().length, candidateIds );
+            report( numberOfDocuments, "xor16", xor16, xor16.getFingerprints().length, candidateIds );
+        }
+    }
+
+    private void report( int numberOfDocuments, String name, HFBDocumentIdFilter filterBank, long bytes, long[] candidateIds ) {
+        long time = measure( () -> filterBank.filterDocumentIds( candidateIds ) );
+        double fpr = (double) HFBDocumentIds.count( filterBank.filterDocumentIds( candidateIds ) ) / NUMBER_OF_CANDIDATES;
+
+        System.out.println( String.format( "%10d %10s %10.2f %10.1f %10.5f", numberOfDocuments, name, (double) bytes / numberOfDocuments,
+                        (double) time / NUMBER_OF_CANDIDATES, fpr ) );
+    }
+
+    private long measure( Runnable probe ) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            probe.run();
+            best = Math.min( best, System.nanoTime() - start );
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,121 @@
+package de.mindscan.furiousiron.hfb;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.io.FileFormatException;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBXorFilterBankTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testContainsDocumentId_AllInsertedDocumentIds_expectTrue() throws Exception {
+        // arrange
+        long[] documentIds = getDocumentIds( 0xbadface1, 13332 );
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( documentIds, 8 );
+
+        // act
+        long[] result = filterBank.filterDocumentIds( documentIds );
+
+        // assert
+        assertThat( result, equalTo( documentIds ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_NonInsertedDocumentIds8Bit_expectAboutOneIn256() throws Exception {
+        // arrange
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( getDocumentIds( 0xbadface1, 13332 ), 8 );
+        long[] otherDocumentIds = getDocumentIds( 0xcafe, 100000 );
+
+        // act
+        int falsePositives = HFBDocumentIds.count( filterBank.filterDocumentIds( otherDocumentIds ) );
+
+        // assert
+        assertThat( falsePositives, lessThan( 600 ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_NonInsertedDocumentIds16Bit_expectAlmostNone() throws Exception {
+        // arrange
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( getDocumentIds( 0xbadface1, 13332 ), 16 );
+        long[] otherDocumentIds = getDocumentIds( 0xcafe, 100000 );
+
+        // act
+        int falsePositives = HFBDocumentIds.count( filterBank.filterDocumentIds( otherDocumentIds ) );
+
+        // assert
+        assertThat( falsePositives, lessThan( 10 ) );
+    }
+
+    @Test
+    public void testPopulate_DuplicateDocumentIds_expectDistinctOccurrenceCount() throws Exception {
+        // arrange
+        long[] documentIds = getDocumentIds( 0xbadface1, 1000 );
+        long[] twice = new long[documentIds.length << 1];
+        System.arraycopy( documentIds, 0, twice, 0, documentIds.length );
+        System.arraycopy( documentIds, 0, twice, documentIds.length, documentIds.length );
+
+        // act
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( twice, 8 );
+
+        // assert
+        assertThat( filterBank.getOccurrenceCount(), equalTo( 1000L ) );
+        assertThat( filterBank.filterDocumentIds( documentIds ), equalTo( documentIds ) );
+    }
+
+    @Test
+    public void testPopulate_FewDocumentIds_expectAllContained() throws Exception {
+        // arrange
+        long[] documentIds = getDocumentIds( 0xbadface1, 3 );
+
+        // act
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( documentIds, 8 );
+
+        // assert
+        assertThat( filterBank.filterDocumentIds( documentIds ), equalTo( documentIds ) );
+    }
+
+    @Test
+    public void testReadFromFile_WrittenXorFilterBank_expectSameFingerprints() throws Exception {
+        // arrange
+        long[] documentIds = getDocumentIds( 0xbadface1, 13332 );
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( documentIds, 16 );
+        String path = tempDir.resolve( "xor.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBDocumentIdFilter result = new HFBFilterBankReaderV1Impl().readFilterFromFile( path );
+
+        // assert
+        assertThat( result, instanceOf( HFBXorFilterBank.class ) );
+        HFBXorFilterBank xorResult = (HFBXorFilterBank) result;
+        assertThat( xorResult.getFingerprints(), equalTo( filterBank.getFingerprints() ) );
+        assertThat( xorResult.getSlicePosition(), equalTo( filterBank.getSlicePosition() ) );
+        assertThat( xorResult.filterDocumentIds( documentIds ), equalTo( documentIds ) );
+    }
+
+    @Test
+    public void testReadFromFile_WrittenXorFilterBank_throwsFileFormatException() throws Exception {
+        // arrange
+        HFBXorFilterBank filterBank = new HFBFilterBankCompiler().compileXorFilter( getDocumentIds( 0xbadface1, 1000 ), 8 );
+        String path = tempDir.resolve( "xor.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act + assert
+        assertThrows( FileFormatException.class, () -> new HFBFilterBankReaderV1Impl().readFromFile( path ) );
+    }
+
+}
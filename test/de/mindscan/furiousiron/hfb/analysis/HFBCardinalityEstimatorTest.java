@@ -0,0 +1,85 @@
+package de.mindscan.furiousiron.hfb.analysis;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+
+public class HFBCardinalityEstimatorTest {
+
+    @Test
+    public void testEstimateCardinality_FilterBank_expectCloseToNumberOfDocumentIds() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 1, 13332 ) );
+
+        // act
+        double result = HFBCardinalityEstimator.estimateCardinality( filterBank );
+
+        // assert
+        assertThat( result, closeTo( 13332.0d, 13332.0d * 0.05d ) );
+    }
+
+    @Test
+    public void testEstimateUnionCardinality_DifferentSizedFilterBanks_expectCloseToUnion() throws Exception {
+        // arrange
+        List<BigInteger> common = getDocumentIdCollection( 0xbadface1, 2000 );
+        HFBFilterBank first = createFilterBank( common, getDocumentIdCollection( 1, 3000 ) );
+        HFBFilterBank second = createFilterBank( common, getDocumentIdCollection( 2, 1000 ) );
+
+        // act
+        double result = HFBCardinalityEstimator.estimateUnionCardinality( first, second );
+
+        // assert
+        assertThat( result, closeTo( 6000.0d, 6000.0d * 0.1d ) );
+    }
+
+    @Test
+    public void testEstimateIntersectionCardinality_DifferentSizedFilterBanks_expectCloseToCommon() throws Exception {
+        // arrange
+        List<BigInteger> common = getDocumentIdCollection( 0xbadface1, 2000 );
+        HFBFilterBank first = createFilterBank( common, getDocumentIdCollection( 1, 3000 ) );
+        HFBFilterBank second = createFilterBank( common, getDocumentIdCollection( 2, 1000 ) );
+
+        // act
+        double result = HFBCardinalityEstimator.estimateIntersectionCardinality( first, second );
+
+        // assert
+        assertThat( result, closeTo( 2000.0d, 2000.0d * 0.15d ) );
+    }
+
+    @Test
+    public void testEstimateIntersectionCardinality_SameSizedFilterBanksWithoutCommonIds_expectSmall() throws Exception {
+        // arrange
+        HFBFilterBank first = createFilterBank( getDocumentIdCollection( 1, 4000 ) );
+        HFBFilterBank second = createFilterBank( getDocumentIdCollection( 2, 4000 ) );
+        HFBFilterBank third = createFilterBank( getDocumentIdCollection( 3, 4000 ) );
+
+        // act
+        double result = HFBCardinalityEstimator.estimateIntersectionCardinality( first, second, third );
+
+        // assert
+        assertThat( result, lessThan( 100.0d ) );
+    }
+
+    @SafeVarargs
+    private final HFBFilterBank createFilterBank( List<BigInteger>... documentIdLists ) {
+        List<BigInteger> documentIds = new ArrayList<>();
+        for (List<BigInteger> documentIdList : documentIdLists) {
+            documentIds.addAll( documentIdList );
+        }
+
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, documentIds.size(), 5 );
+        filterBank.addDocumentIds( documentIds );
+        return filterBank;
+    }
+
+}
@@ -0,0 +1,62 @@
+package de.mindscan.furiousiron.hfb.analysis;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+
+public class HFBFilterBankFPREstimatorTest {
+
+    @Test
+    public void testEstimate_RandomNonMembers_expectMeasuredRejectionCloseToPrediction() throws Exception {
+        // arrange
+        Set<BigInteger> documents = new HashSet<>( getDocumentIdCollection( 0xbadface1, 4000 ) );
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, documents.size(), 5 );
+        filterBank.addDocumentIds( documents );
+
+        HFBFilterBankFPREstimator estimator = new HFBFilterBankFPREstimator( 4 );
+
+        // act
+        HFBFilterBankFPRReport report = estimator.estimate( filterBank, documents, 100000, 0xcafe );
+
+        // assert
+        assertThat( report.getNumberOfProbes(), equalTo( 100000L ) );
+        for (int i = 0; i < report.getNumberOfFilters(); i++) {
+            assertThat( report.getMeasuredRejection( i ), closeTo( report.getPredictedRejection( i ), 0.01 ) );
+            assertThat( report.getMeasuredCumulativeRejection( i ), closeTo( report.getPredictedCumulativeRejection( i ), 0.01 ) );
+        }
+    }
+
+    @Test
+    public void testEstimate_NonUniformNonMembers_expectLargeDeviation() throws Exception {
+        // arrange
+        Set<BigInteger> documents = new HashSet<>( getDocumentIdCollection( 0xbadface1, 4000 ) );
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, documents.size(), 5 );
+        filterBank.addDocumentIds( documents );
+
+        // sequential document ids, which are not the output of a CRHF
+        Set<BigInteger> nonMembers = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            nonMembers.add( BigInteger.valueOf( i ) );
+        }
+
+        HFBFilterBankFPREstimator estimator = new HFBFilterBankFPREstimator( 2 );
+
+        // act
+        HFBFilterBankFPRReport report = estimator.estimate( filterBank, nonMembers );
+
+        // assert
+        assertThat( report.getMaximumDeviation() > 0.1, equalTo( true ) );
+    }
+
+}
@@ -0,0 +1,65 @@
+package de.mindscan.furiousiron.hfb.analysis;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.HFBDocumentIds;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+public class HFBWriteOptionEvaluatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testEvaluate_DefaultCombinations_expectOneEntryPerCombinationAndParetoFront() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 4000 ) );
+        HFBWriteOptionEvaluator evaluator = new HFBWriteOptionEvaluator( tempDir, 1 );
+
+        // act
+        HFBWriteOptionReport report = evaluator.evaluate( filterBank, getDocumentIdCollection( 0xcafe, 5000 ) );
+
+        // assert
+        assertThat( report.getEntries().size(), equalTo( HFBWriteOptionEvaluator.getDefaultCombinations().size() ) );
+        assertThat( report.getParetoFront(), not( empty() ) );
+        for (HFBWriteOptionReport.Entry entry : report.getEntries()) {
+            assertThat( entry.getFalsePositiveRate() < 0.05d, equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void testEvaluate_FewerSavedFilters_expectSmallerFileAndHigherFalsePositiveRate() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 4000 ) );
+        HFBWriteOptionEvaluator evaluator = new HFBWriteOptionEvaluator( tempDir, 1 );
+        List<HFBFilterWriteOption[]> combinations = Arrays.asList(
+                        new HFBFilterWriteOption[] { HFBFilterWriteOption.ORDER_BY_STARTPOSITION, HFBFilterWriteOption.SAVE_ALL_FILTERBANKS },
+                        new HFBFilterWriteOption[] { HFBFilterWriteOption.ORDER_BY_STARTPOSITION, HFBFilterWriteOption.SAVE_THIRD_FILTERBANKS } );
+
+        // act
+        HFBWriteOptionReport report = evaluator.evaluate( filterBank,
+                        HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xcafe, 20000 ) ), combinations );
+
+        // assert
+        HFBWriteOptionReport.Entry all = report.getEntries().get( 0 );
+        HFBWriteOptionReport.Entry third = report.getEntries().get( 1 );
+        assertThat( third.getBytes(), lessThan( all.getBytes() ) );
+        assertThat( third.getNumberOfFilters(), lessThan( all.getNumberOfFilters() ) );
+        assertThat( all.getFalsePositiveRate() <= third.getFalsePositiveRate(), equalTo( true ) );
+    }
+
+}
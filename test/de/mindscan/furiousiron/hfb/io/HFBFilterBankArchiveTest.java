@@ -0,0 +1,170 @@
+package de.mindscan.furiousiron.hfb.io;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getUnsignedDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.HFBBlockedFilterBank;
+import de.mindscan.furiousiron.hfb.HFBDocumentIds;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankCompiler;
+import de.mindscan.furiousiron.hfb.HFBReadOnlyFilterBank;
+import de.mindscan.furiousiron.hfb.layout.HFBSliceLayout;
+import de.mindscan.furiousiron.hfb.layout.HFBXorFoldedSliceLayout;
+
+public class HFBFilterBankArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAdd_IdenticalFilterBanks_expectPayloadsWrittenOnce() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getUnsignedDocumentIdCollection( 0xbadface1, 1000 ), HFBSliceLayout.CONTIGUOUS );
+        Path archivePath = tempDir.resolve( "archive.hfba1" );
+
+        // act
+        long firstBytes;
+        long secondBytes;
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            firstBytes = archive.add( "abc", filterBank );
+            secondBytes = archive.add( "bcd", createFilterBank( getUnsignedDocumentIdCollection( 0xbadface1, 1000 ), HFBSliceLayout.CONTIGUOUS ) );
+
+            // assert
+            assertThat( archive.getNumberOfPayloads(), equalTo( (long) filterBank.getNumberOfFilters() ) );
+            assertThat( archive.getNumberOfSharedPayloads(), equalTo( (long) filterBank.getNumberOfFilters() ) );
+        }
+        assertThat( firstBytes > 0, equalTo( true ) );
+        assertThat( secondBytes, equalTo( 0L ) );
+    }
+
+    @Test
+    public void testReadFilterBank_ArchivedFilterBanks_expectSameFilterDataAndSharedInstances() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getUnsignedDocumentIdCollection( 0xbadface1, 1000 );
+        HFBFilterBank contiguous = createFilterBank( documentIds, HFBSliceLayout.CONTIGUOUS );
+        HFBFilterBank xorFolded = createFilterBank( documentIds, new HFBXorFoldedSliceLayout( 12 ) );
+        Path archivePath = tempDir.resolve( "archive.hfba1" );
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            archive.add( "abc", contiguous );
+            archive.add( "bcd", createFilterBank( documentIds, HFBSliceLayout.CONTIGUOUS ) );
+            archive.add( "cde", xorFolded );
+        }
+
+        // act
+        try (HFBFilterBankArchiveReader archive = new HFBFilterBankArchiveReader( archivePath )) {
+            HFBReadOnlyFilterBank abc = archive.readFilterBank( "abc" );
+            HFBReadOnlyFilterBank bcd = archive.readFilterBank( "bcd" );
+            long filtersReadForAbcAndBcd = archive.getNumberOfFiltersRead();
+            HFBReadOnlyFilterBank cde = archive.readFilterBank( "cde" );
+
+            // assert
+            assertThat( archive.readFilterBank( "xyz" ), nullValue() );
+            assertThat( archive.getKeys().size(), equalTo( 3 ) );
+            assertThat( abc.getNumberOfFilters(), equalTo( contiguous.getNumberOfFilters() ) );
+            assertThat( bcd.getNumberOfFilters(), equalTo( contiguous.getNumberOfFilters() ) );
+            assertThat( filtersReadForAbcAndBcd, equalTo( (long) contiguous.getNumberOfFilters() ) );
+            for (BigInteger documentId : documentIds) {
+                assertThat( abc.containsDocumentId( documentId ), equalTo( true ) );
+                assertThat( bcd.containsDocumentId( documentId ), equalTo( true ) );
+                assertThat( cde.containsDocumentId( documentId ), equalTo( true ) );
+            }
+            long[] candidateIds = HFBDocumentIds.fromBigIntegers( getUnsignedDocumentIdCollection( 0xfeed, 1000 ) );
+            assertThat( abc.filterDocumentIds( candidateIds ), equalTo( contiguous.filterDocumentIds( candidateIds ) ) );
+            assertThat( cde.filterDocumentIds( candidateIds ), equalTo( xorFolded.filterDocumentIds( candidateIds ) ) );
+        }
+    }
+
+    @Test
+    public void testReadFilterBank_SamePayloadForDifferentSlices_expectPayloadReadOnce() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, 1000, 5 );
+        Path archivePath = tempDir.resolve( "archive.hfba1" );
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            archive.add( "abc", filterBank );
+        }
+
+        // act
+        try (HFBFilterBankArchiveReader archive = new HFBFilterBankArchiveReader( archivePath )) {
+            HFBReadOnlyFilterBank result = archive.readFilterBank( "abc" );
+
+            // assert
+            assertThat( result.getNumberOfFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+            assertThat( archive.getNumberOfPayloadsRead(), equalTo( 1L ) );
+            assertThat( archive.getNumberOfFiltersRead(), equalTo( (long) filterBank.getNumberOfFilters() ) );
+        }
+    }
+
+    @Test
+    public void testReadFilterBank_ArchivedExactFilterBanks_expectOneSharedInstance() throws Exception {
+        // arrange
+        List<String> documentIds = new ArrayList<>();
+        for (BigInteger documentId : getUnsignedDocumentIdCollection( 0xcafe, 10 )) {
+            documentIds.add( documentId.toString( 16 ) );
+        }
+        Path archivePath = tempDir.resolve( "archive.hfba1" );
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            archive.add( "abc", new HFBFilterBankCompiler().compileFilterHex( documentIds ) );
+            archive.add( "bcd", new HFBFilterBankCompiler().compileFilterHex( documentIds ) );
+        }
+
+        // act
+        try (HFBFilterBankArchiveReader archive = new HFBFilterBankArchiveReader( archivePath )) {
+            HFBReadOnlyFilterBank abc = archive.readFilterBank( "abc" );
+
+            // assert
+            assertThat( archive.readFilterBank( "bcd" ), sameInstance( abc ) );
+            assertThat( abc.getNumberOfFilters(), equalTo( 0 ) );
+            assertThat( archive.getNumberOfPayloadsRead(), equalTo( 1L ) );
+            for (String documentId : documentIds) {
+                assertThat( abc.containsDocumentId( new BigInteger( documentId, 16 ) ), equalTo( true ) );
+            }
+        }
+    }
+
+    @Test
+    public void testAdd_BlockedFilterBank_throwsIllegalArgumentException() throws Exception {
+        // arrange
+        HFBBlockedFilterBank filterBank = new HFBFilterBankCompiler().createEmptyBlockedFilter( 1000 );
+
+        // act
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( tempDir.resolve( "archive.hfba1" ) )) {
+            assertThrows( IllegalArgumentException.class, () -> {
+                archive.add( "abc", filterBank );
+            } );
+        }
+    }
+
+    @Test
+    public void testOpen_TruncatedArchive_throwsFileFormatException() throws Exception {
+        // arrange
+        Path archivePath = tempDir.resolve( "archive.hfba1" );
+        try (HFBFilterBankArchiveWriter archive = new HFBFilterBankArchiveWriter( archivePath )) {
+            archive.add( "abc", createFilterBank( getUnsignedDocumentIdCollection( 0xbadface1, 1000 ), HFBSliceLayout.CONTIGUOUS ) );
+        }
+        try (FileChannel channel = FileChannel.open( archivePath, StandardOpenOption.WRITE )) {
+            channel.truncate( channel.size() - 3 );
+        }
+
+        // act
+        assertThrows( FileFormatException.class, () -> {
+            new HFBFilterBankArchiveReader( archivePath );
+        } );
+    }
+
+}
@@ -0,0 +1,207 @@
+package de.mindscan.furiousiron.hfb.io;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.HFBBlockedFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankCompiler;
+import de.mindscan.furiousiron.hfb.HFBXorFilterBank;
+import de.mindscan.furiousiron.hfb.layout.HFBOverlappingSliceLayout;
+import de.mindscan.furiousiron.hfb.options.HFBFilterWriteOption;
+
+public class HFBFilterBankCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadMetadata_WrittenFilterBank_expectBitweightsAndProbeOrder() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 10000 ) );
+        String path = tempDir.resolve( "abc.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBFilterBankMetadata result = new HFBFilterBankReaderV1Impl().readMetadata( path );
+
+        // assert
+        assertThat( result.getOccurrenceCount(), equalTo( 10000L ) );
+        assertThat( result.getNumberOfFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+        for (int i = 0; i < filterBank.getNumberOfFilters(); i++) {
+            assertThat( result.getBitweight( i ), equalTo( (long) BitwiseCalculations.calculateBitWeight( filterBank.getFilterData( i ).getSliceData() ) ) );
+        }
+        int[] probeOrder = result.getProbeOrder();
+        for (int rank = 1; rank < probeOrder.length; rank++) {
+            assertThat( result.getRejection( probeOrder[rank - 1] ), greaterThanOrEqualTo( result.getRejection( probeOrder[rank] ) ) );
+        }
+    }
+
+    @Test
+    public void testReadMetadata_SelectedFilters_expectMetadataOfWrittenFiltersOnly() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 10000 ) );
+        String path = tempDir.resolve( "abc.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path, HFBFilterWriteOption.ORDER_BY_EFFICIENCY,
+                        HFBFilterWriteOption.SAVE_THREE_FILTERBANKS );
+
+        // act
+        HFBFilterBankMetadata result = new HFBFilterBankReaderV1Impl().readMetadata( path );
+
+        // assert
+        assertThat( result.getNumberOfFilters(), equalTo( 3 ) );
+        assertThat( result.getProbeOrder(), equalTo( new int[] { 0, 1, 2 } ) );
+    }
+
+    @Test
+    public void testReadMetadata_FileWithoutMetadata_expectCalculatedMetadata() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 10000 ) );
+        Path path = tempDir.resolve( "abc.hfbv1" );
+        new HFBFilterBankWriterV1Impl().write( filterBank, path.toString() );
+        try (FileChannel channel = FileChannel.open( path, StandardOpenOption.WRITE )) {
+            channel.truncate( channel.size() - HFBFilterBankMetadata.calculateMetadataSize( filterBank.getNumberOfFilters() ) );
+        }
+
+        // act
+        HFBFilterBankMetadata result = new HFBFilterBankReaderV1Impl().readMetadata( path.toString() );
+
+        // assert
+        assertThat( result.getNumberOfFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+        assertThat( result.getBitweight( 0 ), equalTo( (long) BitwiseCalculations.calculateBitWeight( filterBank.getFilterData( 0 ).getSliceData() ) ) );
+    }
+
+    @Test
+    public void testBuildAndWrite_DirectoryOfFilterBanks_expectSameCatalogAfterRead() throws Exception {
+        // arrange
+        new HFBFilterBankWriterV1Impl().write( createFilterBank( getDocumentIdCollection( 1, 10000 ) ), tempDir.resolve( "abc" ).toString() );
+        new HFBFilterBankWriterV1Impl().write( createFilterBank( getDocumentIdCollection( 2, 500 ) ), tempDir.resolve( "xyz" ).toString() );
+
+        // act
+        HFBFilterBankCatalog catalog = HFBFilterBankCatalog.buildAndWrite( tempDir );
+        HFBFilterBankCatalog result = HFBFilterBankCatalog.read( tempDir.resolve( HFBFilterBankCatalog.CATALOG_FILE_NAME ) );
+
+        // assert
+        assertThat( result.getKeys(), contains( "abc", "xyz" ) );
+        assertThat( result.getMetadata( "xyz" ).getOccurrenceCount(), equalTo( 500L ) );
+        assertThat( result.getMetadata( "abc" ).getEstimatedSurvivalRate(), equalTo( catalog.getMetadata( "abc" ).getEstimatedSurvivalRate() ) );
+    }
+
+    @Test
+    public void testRankBySelectivity_ThreeKeys_expectMostSelectiveFirstAndUnknownLast() throws Exception {
+        // arrange
+        HFBFilterBank sparse = createFilterBank( getDocumentIdCollection( 1, 100 ) );
+        sparse.initFiltersLazy( 128, 100, 5 );
+        HFBFilterBank dense = new HFBFilterBank();
+        dense.initFilters( 128, 100, 5 );
+        dense.addDocumentIds( getDocumentIdCollection( 2, 400 ) );
+        new HFBFilterBankWriterV1Impl().write( dense, tempDir.resolve( "dense" ).toString() );
+        new HFBFilterBankWriterV1Impl().write( sparse, tempDir.resolve( "sparse" ).toString() );
+        HFBFilterBankCatalog catalog = HFBFilterBankCatalog.build( tempDir );
+
+        // act
+        List<String> result = catalog.rankBySelectivity( Arrays.asList( "unknown", "dense", "sparse" ) );
+
+        // assert
+        assertThat( result, contains( "sparse", "dense", "unknown" ) );
+    }
+
+    @Test
+    public void testReadMetadata_ExactXorAndBlockedFilterBanks_expectHeaderDecodedByVersion() throws Exception {
+        // arrange
+        HFBFilterBankCompiler compiler = new HFBFilterBankCompiler();
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 20000 );
+        HFBFilterBank exact = compiler.compileFilterHex( documentIds.subList( 0, 7 ) );
+        HFBXorFilterBank xor = compiler.compileXorFilterHex( documentIds, 16 );
+        HFBBlockedFilterBank blocked = compiler.compileBlockedFilterHex( documentIds );
+        new HFBFilterBankWriterV1Impl().write( exact, tempDir.resolve( "exact" ).toString() );
+        new HFBFilterBankWriterV1Impl().write( xor, tempDir.resolve( "xor" ).toString() );
+        new HFBFilterBankWriterV1Impl().write( blocked, tempDir.resolve( "blocked" ).toString() );
+        HFBFilterBankReaderV1Impl reader = new HFBFilterBankReaderV1Impl();
+
+        // act
+        HFBFilterBankMetadata exactResult = reader.readMetadata( tempDir.resolve( "exact" + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX ).toString() );
+        HFBFilterBankMetadata xorResult = reader.readMetadata( tempDir.resolve( "xor" + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX ).toString() );
+        HFBFilterBankMetadata blockedResult = reader.readMetadata( tempDir.resolve( "blocked" + HFBFilterBankWriterV1Impl.FILE_DOT_SUFFIX ).toString() );
+
+        // assert
+        assertThat( exactResult.getOccurrenceCount(), equalTo( 7L ) );
+        assertThat( exactResult.getLoadFactor(), equalTo( 0 ) );
+        assertThat( exactResult.getEstimatedSurvivalRate(), equalTo( HFBFilterBankMetadata.of( exact ).getEstimatedSurvivalRate() ) );
+        assertThat( exactResult.getEstimatedSurvivalRate(), lessThan( 1.0e-30d ) );
+
+        assertThat( xorResult.getLoadFactor(), equalTo( 16 ) );
+        assertThat( xorResult.getEstimatedSurvivalRate(), equalTo( 1.0d / 65536.0d ) );
+
+        assertThat( blockedResult.getOccurrenceCount(), equalTo( 20000L ) );
+        assertThat( blockedResult.getLoadFactor(), equalTo( blocked.getLoadFactor() ) );
+        assertThat( blockedResult.getEstimatedSurvivalRate(), closeTo( HFBFilterBankMetadata.of( blocked ).getEstimatedSurvivalRate(), 0.001d ) );
+        assertThat( blockedResult.getEstimatedSurvivalRate(), lessThan( 0.01d ) );
+    }
+
+    @Test
+    public void testReadMetadata_OverlappingSlices_expectSurvivalRateOfAllAppliedFilters() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 10000 ), new HFBOverlappingSliceLayout( 4 ) );
+        new HFBFilterBankWriterV1Impl().write( filterBank, tempDir.resolve( "abc" ).toString() );
+
+        // act
+        HFBFilterBankMetadata result = new HFBFilterBankReaderV1Impl().readMetadata( tempDir.resolve( "abc.hfbv1" ).toString() );
+        HFBFilterBankMetadata catalogResult = HFBFilterBankCatalog.buildAndWrite( tempDir ).getMetadata( "abc" );
+        HFBFilterBankMetadata readCatalogResult = HFBFilterBankCatalog.read( tempDir.resolve( HFBFilterBankCatalog.CATALOG_FILE_NAME ) ).getMetadata( "abc" );
+
+        // assert
+        double expectedSurvivalRate = 1.0d;
+        for (int i = 0; i < result.getNumberOfFilters(); i++) {
+            expectedSurvivalRate *= 1.0d - result.getRejection( i );
+        }
+        assertThat( result.getNumberOfAppliedFilters(), equalTo( filterBank.getNumberOfAppliedFilters() ) );
+        assertThat( result.getNumberOfAppliedFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+        assertThat( result.getEstimatedSurvivalRate(), closeTo( expectedSurvivalRate, 1.0e-12d ) );
+        assertThat( catalogResult.getNumberOfAppliedFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+        assertThat( readCatalogResult.getNumberOfAppliedFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+    }
+
+    @Test
+    public void testReadMetadata_MetadataBlockV1_expectFirstThreeFiltersApplied() throws Exception {
+        // arrange
+        HFBFilterBank filterBank = createFilterBank( getDocumentIdCollection( 0xbadface1, 10000 ) );
+        Path path = tempDir.resolve( "abc.hfbv1" );
+        new HFBFilterBankWriterV1Impl().write( filterBank, path.toString() );
+        HFBFilterBankMetadata metadata = HFBFilterBankMetadata.of( filterBank );
+        ByteBuffer buffer = ByteBuffer.allocate(
+                        HFBFilterBankMetadata.calculateMetadataSize( HFBFilterBankMetadata.HFB_METADATA_V1_MARKER, filterBank.getNumberOfFilters() ) );
+        metadata.putMetadataBlock( buffer, 0, HFBFilterBankMetadata.HFB_METADATA_V1_MARKER );
+        try (FileChannel channel = FileChannel.open( path, StandardOpenOption.WRITE )) {
+            channel.truncate( channel.size() - HFBFilterBankMetadata.calculateMetadataSize( filterBank.getNumberOfFilters() ) );
+            channel.position( channel.size() );
+            channel.write( buffer );
+        }
+
+        // act
+        HFBFilterBankMetadata result = new HFBFilterBankReaderV1Impl().readMetadata( path.toString() );
+
+        // assert
+        assertThat( result.getNumberOfAppliedFilters(), equalTo( HFBFilterBank.NUMBER_OF_APPLIED_FILTERS ) );
+        assertThat( result.getBitweight( 0 ), equalTo( metadata.getBitweight( 0 ) ) );
+        assertThat( new HFBFilterBankReaderV1Impl().readFromFile( path.toString() ).getNumberOfFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+    }
+
+}
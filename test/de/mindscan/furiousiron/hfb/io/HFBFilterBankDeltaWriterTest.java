@@ -0,0 +1,143 @@
+package de.mindscan.furiousiron.hfb.io;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankCompiler;
+import de.mindscan.furiousiron.hfb.HFBScalableFilterBank;
+import de.mindscan.furiousiron.hfb.HFBTieredFilterBank;
+
+public class HFBFilterBankDeltaWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testApplyTo_DeltaOfTenAddedDocumentIds_expectSameFilterDataAsNewFilterBank() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 10000 );
+        HFBFilterBank oldFilterBank = createFilterBank( documentIds, 10000 );
+        List<BigInteger> added = getDocumentIdCollection( 0xcafe, 10 );
+        HFBFilterBank newFilterBank = createFilterBank( documentIds, 10010 );
+        newFilterBank.addDocumentIds( added );
+
+        String deltaPath = tempDir.resolve( "update.hfbd1" ).toString();
+        new HFBFilterBankDeltaWriter().write( oldFilterBank, newFilterBank, deltaPath );
+
+        // act
+        new HFBFilterBankDeltaReader().applyTo( oldFilterBank, deltaPath );
+
+        // assert
+        assertSameFilterData( oldFilterBank, newFilterBank );
+        assertThat( oldFilterBank.getOccurrenceCount(), equalTo( 10010L ) );
+    }
+
+    @Test
+    public void testApplyToFile_DeltaOfTenAddedDocumentIds_expectSmallDeltaAndUpdatedFile() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 10000 );
+        HFBFilterBank oldFilterBank = createFilterBank( documentIds, 10000 );
+        HFBFilterBank newFilterBank = createFilterBank( documentIds, 10010 );
+        newFilterBank.addDocumentIds( getDocumentIdCollection( 0xcafe, 10 ) );
+
+        String filterBankPath = tempDir.resolve( "abc.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( oldFilterBank, filterBankPath );
+        String deltaPath = tempDir.resolve( "abc.hfbd1" ).toString();
+        new HFBFilterBankDeltaWriter().write( oldFilterBank, newFilterBank, deltaPath );
+
+        // act
+        new HFBFilterBankDeltaReader().applyToFile( deltaPath, filterBankPath );
+        new HFBFilterBankDeltaReader().applyToFile( deltaPath, filterBankPath );
+
+        // assert
+        assertThat( Files.size( tempDir.resolve( "abc.hfbd1" ) ) * 20, lessThan( Files.size( tempDir.resolve( "abc.hfbv1" ) ) ) );
+        HFBFilterBank updated = new HFBFilterBankReaderV1Impl().readFromFile( filterBankPath );
+        assertSameFilterData( updated, newFilterBank );
+        assertThat( updated.getOccurrenceCount(), equalTo( 10010L ) );
+        HFBFilterBankMetadata metadata = new HFBFilterBankReaderV1Impl().readMetadata( filterBankPath );
+        for (int i = 0; i < newFilterBank.getNumberOfFilters(); i++) {
+            assertThat( metadata.getBitweight( i ), equalTo( (long) BitwiseCalculations.calculateBitWeight( newFilterBank.getFilterData( i ).getSliceData() ) ) );
+        }
+    }
+
+    @Test
+    public void testWrite_DifferentGeometry_expectIllegalArgumentException() throws Exception {
+        // arrange
+        HFBFilterBank oldFilterBank = createFilterBank( getDocumentIdCollection( 1, 100 ), 100 );
+        HFBFilterBank newFilterBank = createFilterBank( getDocumentIdCollection( 1, 100 ), 100000 );
+
+        // act + assert
+        assertThrows( IllegalArgumentException.class,
+                        () -> new HFBFilterBankDeltaWriter().write( oldFilterBank, newFilterBank, tempDir.resolve( "x" ).toString() ) );
+    }
+
+    @Test
+    public void testWrite_ScalableFilterBanks_expectIllegalArgumentException() throws Exception {
+        // arrange
+        HFBScalableFilterBank oldFilterBank = new HFBFilterBankCompiler().createScalableFilter( 1000 );
+        HFBScalableFilterBank newFilterBank = new HFBFilterBankCompiler().createScalableFilter( 1000 );
+        for (BigInteger documentId : getDocumentIdCollection( 0xcafe, 10 )) {
+            newFilterBank.addDocumentId( documentId );
+        }
+
+        // act + assert
+        assertThrows( IllegalArgumentException.class,
+                        () -> new HFBFilterBankDeltaWriter().write( oldFilterBank, newFilterBank, tempDir.resolve( "x" ).toString() ) );
+    }
+
+    @Test
+    public void testWrite_TieredFilterBank_expectIllegalArgumentException() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 10000 );
+        HFBFilterBank oldFilterBank = createFilterBank( documentIds, 10000 );
+        HFBTieredFilterBank newFilterBank = new HFBTieredFilterBank( createFilterBank( documentIds, 10000 ), 4096 );
+        newFilterBank.addDocumentIds( getDocumentIdCollection( 0xcafe, 10 ) );
+
+        // act + assert
+        assertThrows( IllegalArgumentException.class,
+                        () -> new HFBFilterBankDeltaWriter().write( oldFilterBank, newFilterBank, tempDir.resolve( "x" ).toString() ) );
+    }
+
+    @Test
+    public void testApplyTo_TieredFilterBank_expectIllegalArgumentException() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 10000 );
+        HFBFilterBank oldFilterBank = createFilterBank( documentIds, 10000 );
+        HFBFilterBank newFilterBank = createFilterBank( documentIds, 10000 );
+        newFilterBank.addDocumentIds( getDocumentIdCollection( 0xcafe, 10 ) );
+
+        String deltaPath = tempDir.resolve( "update.hfbd1" ).toString();
+        new HFBFilterBankDeltaWriter().write( oldFilterBank, newFilterBank, deltaPath );
+        HFBTieredFilterBank tiered = new HFBTieredFilterBank( oldFilterBank, 4096 );
+
+        // act + assert
+        assertThrows( IllegalArgumentException.class, () -> new HFBFilterBankDeltaReader().applyTo( tiered, deltaPath ) );
+    }
+
+    private void assertSameFilterData( HFBFilterBank result, HFBFilterBank expected ) {
+        assertThat( result.getNumberOfFilters(), equalTo( expected.getNumberOfFilters() ) );
+        for (int i = 0; i < expected.getNumberOfFilters(); i++) {
+            assertThat( result.getFilterData( i ).getSliceData(), equalTo( expected.getFilterData( i ).getSliceData() ) );
+        }
+    }
+
+    private HFBFilterBank createFilterBank( List<BigInteger> documentIds, long occurrenceCount ) {
+        HFBFilterBank filterBank = new HFBFilterBank();
+        filterBank.initFilters( 128, occurrenceCount, 5 );
+        filterBank.addDocumentIds( documentIds );
+        return filterBank;
+    }
+
+}
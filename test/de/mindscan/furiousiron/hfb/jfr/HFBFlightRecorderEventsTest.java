@@ -0,0 +1,82 @@
+package de.mindscan.furiousiron.hfb.jfr;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.getHexDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.HFBDocumentIds;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankCompiler;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class HFBFlightRecorderEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRecording_CompileWriteReadAndFilter_expectOneEventEach() throws Exception {
+        // arrange
+        List<String> documentIds = getHexDocumentIdCollection( 0xbadface1, 10000 );
+        String path = tempDir.resolve( "abc.hfbv1" ).toString();
+        Path recordingPath = tempDir.resolve( "recording.jfr" );
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] { HFBFilterBankCompileEvent.NAME, HFBFilterBankWriteEvent.NAME, HFBFilterBankReadEvent.NAME,
+                            HFBBatchLookupEvent.NAME }) {
+                recording.enable( name ).withThreshold( Duration.ZERO );
+            }
+            recording.start();
+
+            // act
+            HFBFilterBank filterBank = new HFBFilterBankCompiler().compileFilterHex( documentIds );
+            new HFBFilterBankWriterV1Impl().write( filterBank, path );
+            HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+            result.filterDocumentIdsBatched( HFBDocumentIds.fromHex( documentIds ) );
+
+            recording.stop();
+            recording.dump( recordingPath );
+            events = RecordingFile.readAllEvents( recordingPath );
+        }
+
+        // assert
+        List<String> names = events.stream().map( e -> e.getEventType().getName() ).collect( Collectors.toList() );
+        assertThat( names, hasItems( HFBFilterBankCompileEvent.NAME, HFBFilterBankWriteEvent.NAME, HFBFilterBankReadEvent.NAME,
+                        HFBBatchLookupEvent.NAME ) );
+
+        RecordedEvent read = find( events, HFBFilterBankReadEvent.NAME );
+        assertThat( read.getString( "path" ), equalTo( path ) );
+        assertThat( read.getLong( "bytes" ), greaterThan( 0L ) );
+
+        RecordedEvent write = find( events, HFBFilterBankWriteEvent.NAME );
+        assertThat( write.getInt( "filtersWritten" ), greaterThan( 0 ) );
+
+        RecordedEvent compile = find( events, HFBFilterBankCompileEvent.NAME );
+        assertThat( compile.getLong( "documentIds" ), equalTo( 10000L ) );
+
+        RecordedEvent lookup = find( events, HFBBatchLookupEvent.NAME );
+        assertThat( lookup.getInt( "documentIdsIn" ), equalTo( 10000 ) );
+        assertThat( lookup.getInt( "documentIdsOut" ), equalTo( 10000 ) );
+        assertThat( lookup.getLong( "probes" ), equalTo( 30000L ) );
+    }
+
+    private RecordedEvent find( List<RecordedEvent> events, String name ) {
+        return events.stream().filter( e -> e.getEventType().getName().equals( name ) ).findFirst().get();
+    }
+
+}
@@ -0,0 +1,228 @@
+package de.mindscan.furiousiron.hfb.layout;
+
+import static de.mindscan.furiousiron.hfb.HFBTestData.createFilterBank;
+import static de.mindscan.furiousiron.hfb.HFBTestData.getDocumentIdCollection;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.mindscan.furiousiron.hfb.HFBDocumentIds;
+import de.mindscan.furiousiron.hfb.HFBFilterBank;
+import de.mindscan.furiousiron.hfb.HFBFilterBankIntersection;
+import de.mindscan.furiousiron.hfb.HFBFilterData;
+import de.mindscan.furiousiron.hfb.HFBXorFoldedFilterData;
+import de.mindscan.furiousiron.hfb.HFBFrozenFilterBank;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankReaderV1Impl;
+import de.mindscan.furiousiron.hfb.io.HFBFilterBankWriterV1Impl;
+
+public class HFBSliceLayoutTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCreateFilters_Contiguous24BitSlices_expectFiveFilters() throws Exception {
+        // arrange
+        // act
+        List<HFBFilterData> result = HFBSliceLayout.CONTIGUOUS.createFilters( 128, 24 );
+
+        // assert
+        assertThat( result.size(), equalTo( 5 ) );
+        assertThat( result.get( 0 ).getSlicePosition(), equalTo( 104 ) );
+        assertThat( result.get( 4 ).getSlicePosition(), equalTo( 8 ) );
+    }
+
+    @Test
+    public void testCreateFilters_OverlappingStride12_expectNineFilters() throws Exception {
+        // arrange
+        // act
+        List<HFBFilterData> result = new HFBOverlappingSliceLayout( 12 ).createFilters( 128, 24 );
+
+        // assert
+        assertThat( result.size(), equalTo( 9 ) );
+        assertThat( result.get( 1 ).getSlicePosition(), equalTo( 80 ) );
+        assertThat( result.get( 5 ).getSlicePosition(), equalTo( 92 ) );
+    }
+
+    @Test
+    public void testGetNumberOfAppliedFilters_Layouts_expectAllFiltersOnlyForDependentSlices() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 1000 );
+
+        // act
+        HFBFilterBank contiguous = createFilterBank( documentIds, HFBSliceLayout.CONTIGUOUS );
+        HFBFilterBank overlapping = createFilterBank( documentIds, new HFBOverlappingSliceLayout( 4 ) );
+        HFBFilterBank xorFolded = createFilterBank( documentIds, new HFBXorFoldedSliceLayout( 12 ) );
+
+        // assert
+        assertThat( contiguous.getNumberOfAppliedFilters(), equalTo( HFBFilterBank.NUMBER_OF_APPLIED_FILTERS ) );
+        assertThat( overlapping.getNumberOfAppliedFilters(), equalTo( overlapping.getNumberOfFilters() ) );
+        assertThat( xorFolded.getNumberOfAppliedFilters(), equalTo( 12 ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_DependentLayouts_expectFewerFalsePositivesThanContiguous() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 20000 );
+        List<BigInteger> others = getDocumentIdCollection( 0xcafe, 200000 );
+        HFBFilterBank contiguous = createFilterBank( documentIds, HFBSliceLayout.CONTIGUOUS );
+        HFBFilterBank overlapping = createFilterBank( documentIds, new HFBOverlappingSliceLayout( 4 ) );
+        HFBFilterBank xorFolded = createFilterBank( documentIds, new HFBXorFoldedSliceLayout( 12 ) );
+
+        // act
+        int contiguousFalsePositives = countContained( contiguous, others );
+        int overlappingFalsePositives = countContained( overlapping, others );
+        int xorFoldedFalsePositives = countContained( xorFolded, others );
+
+        // assert
+        assertThat( overlappingFalsePositives, lessThan( contiguousFalsePositives / 2 ) );
+        assertThat( xorFoldedFalsePositives, lessThan( contiguousFalsePositives / 2 ) );
+        assertThat( countContained( overlapping, documentIds ), equalTo( documentIds.size() ) );
+        assertThat( countContained( xorFolded, documentIds ), equalTo( documentIds.size() ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_OverlappingLayoutReadFromFileAndFrozen_expectSameFalsePositives() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 20000 );
+        List<BigInteger> others = getDocumentIdCollection( 0xcafe, 200000 );
+        HFBFilterBank filterBank = createFilterBank( documentIds, new HFBOverlappingSliceLayout( 4 ) );
+        String path = tempDir.resolve( "overlapping.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        int falsePositives = countContained( filterBank, others );
+        assertThat( countContained( result, others ), equalTo( falsePositives ) );
+        assertThat( countContained( result.freeze(), others ), equalTo( falsePositives ) );
+        assertThat( HFBDocumentIds.count( new HFBFilterBankIntersection( result ).intersect( HFBDocumentIds.fromBigIntegers( others ) ) ),
+                        equalTo( falsePositives ) );
+    }
+
+    @Test
+    public void testCreateFilters_XorFoldedManyFilters_expectContiguousAndAllPairs() throws Exception {
+        // arrange
+        // act
+        List<HFBFilterData> result = new HFBXorFoldedSliceLayout( 100 ).createFilters( 128, 24 );
+
+        // assert
+        assertThat( result.size(), equalTo( 15 ) );
+        assertThat( result.get( 4 ).isXorFolded(), equalTo( false ) );
+        assertThat( result.get( 5 ).isXorFolded(), equalTo( true ) );
+        assertThat( result.get( 5 ).getSlicePosition(), equalTo( 104 ) );
+        assertThat( result.get( 5 ).getXorSlicePosition(), equalTo( 80 ) );
+    }
+
+    @Test
+    public void testExtractIndex_XorFoldedFilter_expectSameIndexForAllRepresentations() throws Exception {
+        // arrange
+        HFBFilterData filterData = new HFBXorFoldedFilterData( 60, 20, 90 );
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 1000 );
+        long[] documentIdPairs = HFBDocumentIds.fromBigIntegers( documentIds );
+
+        // act + assert
+        for (int i = 0; i < documentIds.size(); i++) {
+            assertThat( filterData.extractIndex( HFBDocumentIds.hi( documentIdPairs, i ), HFBDocumentIds.lo( documentIdPairs, i ) ),
+                            equalTo( filterData.extractIndex( documentIds.get( i ) ) ) );
+        }
+    }
+
+    @Test
+    public void testFoldTo_XorFoldedFilter_expectXorFoldedFilter() throws Exception {
+        // arrange
+        HFBFilterData filterData = new HFBXorFoldedFilterData( 60, 20, 90 );
+        filterData.initEmpty();
+
+        // act
+        HFBFilterData result = filterData.foldTo( 16 );
+
+        // assert
+        assertThat( result.isXorFolded(), equalTo( true ) );
+        assertThat( result.getXorSlicePosition(), equalTo( 90 ) );
+        assertThat( result.getXorSliceBitMask(), equalTo( 0xffffL ) );
+    }
+
+    @Test
+    public void testContainsDocumentId_FrozenMixedLayout_expectSameAnswersAsFilterBank() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 20000 );
+        List<BigInteger> others = getDocumentIdCollection( 0xcafe, 200000 );
+        HFBFilterBank filterBank = createFilterBank( documentIds, new HFBXorFoldedSliceLayout( 9 ) );
+
+        // act
+        HFBFrozenFilterBank result = filterBank.freeze();
+
+        // assert
+        assertThat( result.getNumberOfFilters(), equalTo( 9 ) );
+        assertThat( countContained( result, documentIds ), equalTo( documentIds.size() ) );
+        assertThat( countContained( result, others ), equalTo( countContained( filterBank, others ) ) );
+    }
+
+    @Test
+    public void testIntersect_XorFoldedLayout_expectFewerFalsePositivesThanContiguous() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 100000 );
+        HFBFilterBank contiguous = createFilterBank( documentIds, HFBSliceLayout.CONTIGUOUS );
+        HFBFilterBank xorFolded = createFilterBank( documentIds, new HFBXorFoldedSliceLayout( 12 ) );
+        long[] others = HFBDocumentIds.fromBigIntegers( getDocumentIdCollection( 0xcafe, 100000 ) );
+
+        // act
+        int contiguousFalsePositives = HFBDocumentIds.count( new HFBFilterBankIntersection( contiguous ).intersect( others ) );
+        int xorFoldedFalsePositives = HFBDocumentIds.count( new HFBFilterBankIntersection( xorFolded ).intersect( others ) );
+
+        // assert
+        assertThat( xorFoldedFalsePositives, lessThan( contiguousFalsePositives ) );
+        assertThat( HFBDocumentIds.count( new HFBFilterBankIntersection( xorFolded ).intersect( HFBDocumentIds.fromBigIntegers( documentIds ) ) ),
+                        equalTo( documentIds.size() ) );
+    }
+
+    @Test
+    public void testReadFromFile_XorFoldedLayout_expectSameFilters() throws Exception {
+        // arrange
+        List<BigInteger> documentIds = getDocumentIdCollection( 0xbadface1, 1000 );
+        HFBFilterBank filterBank = createFilterBank( documentIds, new HFBXorFoldedSliceLayout( 12 ) );
+        String path = tempDir.resolve( "xor.hfbv1" ).toString();
+        new HFBFilterBankWriterV1Impl().write( filterBank, path );
+
+        // act
+        HFBFilterBank result = new HFBFilterBankReaderV1Impl().readFromFile( path );
+
+        // assert
+        assertThat( result.getNumberOfFilters(), equalTo( filterBank.getNumberOfFilters() ) );
+        for (int i = 0; i < result.getNumberOfFilters(); i++) {
+            assertThat( result.getFilterData( i ).isXorFolded(), equalTo( filterBank.getFilterData( i ).isXorFolded() ) );
+            assertThat( result.getFilterData( i ).getXorSlicePosition(), equalTo( filterBank.getFilterData( i ).getXorSlicePosition() ) );
+            assertThat( result.getFilterData( i ).getSliceData(), equalTo( filterBank.getFilterData( i ).getSliceData() ) );
+        }
+    }
+
+    private int countContained( HFBFilterBank filterBank, List<BigInteger> documentIds ) {
+        int result = 0;
+        for (BigInteger documentId : documentIds) {
+            if (filterBank.containsDocumentId( documentId )) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private int countContained( HFBFrozenFilterBank filterBank, List<BigInteger> documentIds ) {
+        int result = 0;
+        for (BigInteger documentId : documentIds) {
+            if (filterBank.containsDocumentId( documentId )) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+}